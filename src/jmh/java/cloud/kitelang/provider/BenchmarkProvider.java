@@ -0,0 +1,87 @@
+package cloud.kitelang.provider;
+
+import cloud.kitelang.api.annotations.TypeName;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Provider used by the benchmarks: {@code types} resource types named {@code Instance0000},
+ * {@code Instance0001}, ..., all served by an echoing {@link InstanceHandler} and registered
+ * lazily like a manifest-discovered provider.
+ *
+ * <p>Its {@link #main} serves it like a real provider, for {@link StartupBenchmark}.</p>
+ */
+class BenchmarkProvider extends KiteProvider {
+
+    @SuppressWarnings("deprecation")
+    BenchmarkProvider(int types) {
+        super("bench", "1.0.0", false);
+        for (int i = 0; i < types; i++) {
+            registerResource(typeName(i), InstanceHandler::new);
+        }
+    }
+
+    static String typeName(int index) {
+        return String.format("Instance%04d", index);
+    }
+
+    /**
+     * An instance whose state grows with its tag and volume counts, roughly like a cloud VM.
+     */
+    @TypeName("Instance")
+    public record Instance(String name, String region, String instanceType, boolean monitoring,
+                           int cpuCount, Map<String, String> tags, List<Volume> volumes,
+                           String arn, String state) {
+    }
+
+    public record Volume(String device, int sizeGb, String volumeType, boolean encrypted) {
+    }
+
+    /**
+     * An instance with {@code tags} tags and {@code tags / 10 + 1} volumes.
+     */
+    static Instance instance(int tags) {
+        var tagMap = new LinkedHashMap<String, String>();
+        for (int i = 0; i < tags; i++) {
+            tagMap.put("tag-" + i, "value-" + i + "-of-the-benchmark-instance");
+        }
+        var volumes = new ArrayList<Volume>();
+        for (int i = 0; i <= tags / 10; i++) {
+            volumes.add(new Volume("/dev/sd" + (char) ('a' + i % 26), 100 + i, "gp3", i % 2 == 0));
+        }
+        return new Instance("web-" + tags, "eu-west-1", "m7g.large", true, 2, tagMap, volumes,
+                "arn:aws:ec2:eu-west-1:123456789012:instance/i-0123456789abcdef0", "running");
+    }
+
+    static class InstanceHandler extends ResourceTypeHandler<Instance> {
+        @Override
+        public Instance create(Instance resource) {
+            return resource;
+        }
+
+        @Override
+        public Instance read(Instance resource) {
+            return resource;
+        }
+
+        @Override
+        public Instance update(Instance resource) {
+            return resource;
+        }
+
+        @Override
+        public boolean delete(Instance resource) {
+            return true;
+        }
+    }
+
+    /**
+     * Serve the provider, as the engine would launch it. The argument is the type count.
+     */
+    public static void main(String[] args) throws Exception {
+        ProviderServer.serve(new BenchmarkProvider(args.length > 0 ? Integer.parseInt(args[0]) : 100));
+    }
+}
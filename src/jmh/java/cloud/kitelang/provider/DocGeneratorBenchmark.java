@@ -0,0 +1,64 @@
+package cloud.kitelang.provider;
+
+import cloud.kitelang.provider.docgen.DocGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Documentation rendering for providers with 10 and 100 types. Output goes to a temporary
+ * directory, so file writes are included.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DocGeneratorBenchmark {
+
+    @Param({"10", "100"})
+    public int types;
+
+    private DocGenerator generator;
+    private Path outputDir;
+
+    @Setup
+    public void setUp() throws IOException {
+        var provider = new BenchmarkProvider(types);
+        provider.getResourceTypes();
+        generator = new DocGenerator(provider);
+        outputDir = Files.createTempDirectory("kite-docgen-bench");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(outputDir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public Path html() throws IOException {
+        generator.generateHtml(outputDir.resolve("html"), "1.0.0");
+        return outputDir;
+    }
+
+    @Benchmark
+    public Path markdown() throws IOException {
+        var file = outputDir.resolve("provider.md");
+        generator.generateCombinedMarkdown(file);
+        return file;
+    }
+
+    @Benchmark
+    public Path kiteSchemas() throws IOException {
+        generator.generateKite(outputDir.resolve("schemas"));
+        return outputDir;
+    }
+}
@@ -0,0 +1,60 @@
+package cloud.kitelang.provider;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ProviderServiceImpl#extractErrorMessage} on an AWS-like exception, whose details are
+ * read by reflection, and on a plain exception.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExtractErrorMessageBenchmark {
+
+    private final Exception awsException = new FakeAwsException("BucketAlreadyExists",
+            "The requested bucket name is not available", 409);
+    private final Exception plainException = new IllegalStateException("Connection refused");
+    private final Exception wrappedException = new RuntimeException(null, new java.io.IOException("Broken pipe"));
+
+    @Benchmark
+    public String awsException() {
+        return ProviderServiceImpl.extractErrorMessage(awsException);
+    }
+
+    @Benchmark
+    public String plainException() {
+        return ProviderServiceImpl.extractErrorMessage(plainException);
+    }
+
+    @Benchmark
+    public String wrappedException() {
+        return ProviderServiceImpl.extractErrorMessage(wrappedException);
+    }
+
+    /**
+     * Shaped like AwsServiceException: details behind {@code awsErrorDetails()}.
+     */
+    public static class FakeAwsException extends RuntimeException {
+        private final ErrorDetail details;
+
+        FakeAwsException(String errorCode, String errorMessage, int statusCode) {
+            super(" (Service: S3, Status Code: " + statusCode + ", Request ID: 7Q4X9Z)");
+            this.details = new ErrorDetail(errorCode, errorMessage, new HttpResponse(statusCode));
+        }
+
+        public ErrorDetail awsErrorDetails() {
+            return details;
+        }
+    }
+
+    public record ErrorDetail(String errorCode, String errorMessage, HttpResponse sdkHttpResponse) {
+    }
+
+    public record HttpResponse(int statusCode) {
+    }
+}
@@ -0,0 +1,90 @@
+package cloud.kitelang.provider;
+
+import cloud.kitelang.proto.v1.CreateResource;
+import cloud.kitelang.proto.v1.HealthCheck;
+import cloud.kitelang.proto.v1.ProviderGrpc;
+import cloud.kitelang.proto.v1.ReadResource;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.ServerInterceptors;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end unary RPCs over the gRPC in-process transport: protobuf and payload encoding,
+ * the service, metrics and the handler, without sockets.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InProcessRpcBenchmark {
+
+    @Param({"2", "50"})
+    public int tags;
+
+    private ExecutorService executor;
+    private Server server;
+    private ManagedChannel channel;
+    private ProviderGrpc.ProviderBlockingStub stub;
+    private CreateResource.Request createRequest;
+    private ReadResource.Request readRequest;
+
+    @Setup
+    public void setUp() throws Exception {
+        var service = new ProviderServiceImpl(new BenchmarkProvider(1));
+        service.warmUp();
+        var name = InProcessServerBuilder.generateName();
+        // Same executor and interceptor as the Netty server
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server = InProcessServerBuilder.forName(name)
+                .executor(executor)
+                .addService(ServerInterceptors.intercept(service, service.getInFlightCalls().interceptor()))
+                .build()
+                .start();
+        channel = InProcessChannelBuilder.forName(name).build();
+        stub = ProviderGrpc.newBlockingStub(channel);
+
+        var state = new ResourcePayloadCodec().encode(BenchmarkProvider.instance(tags));
+        createRequest = CreateResource.Request.newBuilder()
+                .setTypeName(BenchmarkProvider.typeName(0))
+                .setConfig(state)
+                .build();
+        readRequest = ReadResource.Request.newBuilder()
+                .setTypeName(BenchmarkProvider.typeName(0))
+                .setCurrentState(state)
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public CreateResource.Response createResource() {
+        return stub.createResource(createRequest);
+    }
+
+    @Benchmark
+    public ReadResource.Response readResource() {
+        return stub.readResource(readRequest);
+    }
+
+    /**
+     * The floor: a call with no payload and no handler.
+     */
+    @Benchmark
+    public HealthCheck.Response healthCheck() {
+        return stub.healthCheck(HealthCheck.Request.getDefaultInstance());
+    }
+}
@@ -0,0 +1,46 @@
+package cloud.kitelang.provider;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the per-call instrumentation: histogram recording, alone and contended, snapshots,
+ * and a whole metrics timer as every RPC uses it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LatencyHistogramBenchmark {
+
+    private final LatencyHistogram histogram = new LatencyHistogram();
+    private final ProviderMetrics metrics = new ProviderMetrics();
+
+    @Benchmark
+    public void record() {
+        histogram.record(ThreadLocalRandom.current().nextLong(1_000, 50_000_000));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void recordContended() {
+        histogram.record(ThreadLocalRandom.current().nextLong(1_000, 50_000_000));
+    }
+
+    @Benchmark
+    public LatencyHistogram.Snapshot snapshot() {
+        return histogram.snapshot();
+    }
+
+    @Benchmark
+    public void timedCall() {
+        var timer = metrics.start("CreateResource", "Instance");
+        timer.decoded(512, 2_000);
+        timer.encoded(512, 2_000);
+        timer.finish(ProviderMetrics.Outcome.OK);
+    }
+}
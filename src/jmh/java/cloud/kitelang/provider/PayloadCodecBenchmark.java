@@ -0,0 +1,44 @@
+package cloud.kitelang.provider;
+
+import cloud.kitelang.proto.v1.ResourcePayload;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resource state encode and decode, as {@link ProviderServiceImpl} does for every payload.
+ * Run with {@code -prof gc} (the build default) to see bytes allocated per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PayloadCodecBenchmark {
+
+    /** Tags per instance: a small, a typical and a very large state. */
+    @Param({"2", "50", "1000"})
+    public int tags;
+
+    private ResourcePayloadCodec codec;
+    private BenchmarkProvider.Instance instance;
+    private ResourcePayload payload;
+
+    @Setup
+    public void setUp() throws Exception {
+        codec = new ResourcePayloadCodec();
+        instance = BenchmarkProvider.instance(tags);
+        payload = codec.encode(instance);
+    }
+
+    @Benchmark
+    public ResourcePayload encode() throws Exception {
+        return codec.encode(instance);
+    }
+
+    @Benchmark
+    public BenchmarkProvider.Instance decode() throws Exception {
+        return codec.decode(payload, BenchmarkProvider.Instance.class);
+    }
+}
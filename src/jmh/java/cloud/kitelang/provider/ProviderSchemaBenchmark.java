@@ -0,0 +1,84 @@
+package cloud.kitelang.provider;
+
+import cloud.kitelang.proto.v1.GetProviderSchema;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building and serving the provider schema for providers with 10, 100 and 1000 types.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProviderSchemaBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int types;
+
+    private BenchmarkProvider provider;
+    private ProviderServiceImpl service;
+
+    @Setup
+    public void setUp() {
+        provider = new BenchmarkProvider(types);
+        service = new ProviderServiceImpl(provider);
+        service.warmUp();
+    }
+
+    /**
+     * First schema of a fresh provider: creates the handlers, reflects over the resource
+     * classes and converts every schema.
+     */
+    @Benchmark
+    public GetProviderSchema.Response firstSchema() {
+        return SchemaIndex.build(new BenchmarkProvider(types));
+    }
+
+    /**
+     * Converting the handlers' already reflected schemas (the old per-call cost).
+     */
+    @Benchmark
+    public GetProviderSchema.Response convertSchemas() {
+        return SchemaIndex.build(provider);
+    }
+
+    /**
+     * GetProviderSchema as served, from the memoized response.
+     */
+    @Benchmark
+    public GetProviderSchema.Response getProviderSchema() {
+        var observer = new LastValueObserver<GetProviderSchema.Response>();
+        service.getProviderSchema(GetProviderSchema.Request.getDefaultInstance(), observer);
+        return observer.value;
+    }
+
+    /**
+     * Serializing the schema response, which gRPC does on every call.
+     */
+    @Benchmark
+    public byte[] serializeSchema() {
+        return service.getSchemaResponse().toByteArray();
+    }
+
+    static final class LastValueObserver<V> implements io.grpc.stub.StreamObserver<V> {
+        V value;
+
+        @Override
+        public void onNext(V value) {
+            this.value = value;
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            throw new IllegalStateException(t);
+        }
+
+        @Override
+        public void onCompleted() {
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package cloud.kitelang.provider;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time from launching a provider JVM to reading its handshake line, as the engine sees it.
+ * Each invocation starts a fresh JVM running {@link BenchmarkProvider}.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StartupBenchmark {
+
+    @Param({"10", "1000"})
+    public int types;
+
+    /** Extra JVM flags for the provider, space separated. */
+    @Param({"", "-XX:TieredStopAtLevel=1 -XX:+UseSerialGC"})
+    public String jvmFlags;
+
+    private Process process;
+
+    @Benchmark
+    public String handshake() throws Exception {
+        var command = new ArrayList<String>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        Arrays.stream(jvmFlags.split(" ")).filter(flag -> !flag.isBlank()).forEach(command::add);
+        command.addAll(List.of("-cp", System.getProperty("java.class.path"),
+                BenchmarkProvider.class.getName(), String.valueOf(types)));
+        var builder = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.DISCARD);
+        builder.environment().put("KITE_PLUGIN_MAGIC_COOKIE", "benchmark");
+        builder.environment().put("KITE_PLUGIN_PROTOCOL_VERSION", "1");
+        process = builder.start();
+
+        var reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.startsWith("KITE_PLUGIN|")) {
+                return line;
+            }
+        }
+        throw new IllegalStateException("Provider exited with " + process.waitFor() + " before its handshake");
+    }
+
+    @TearDown(Level.Invocation)
+    public void stopProvider() throws Exception {
+        if (process != null) {
+            process.destroyForcibly().waitFor(10, TimeUnit.SECONDS);
+        }
+    }
+}
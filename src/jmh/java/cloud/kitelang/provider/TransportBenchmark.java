@@ -0,0 +1,145 @@
+package cloud.kitelang.provider;
+
+import cloud.kitelang.proto.v1.ProviderGrpc;
+import cloud.kitelang.proto.v1.ReadResource;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ClientStreamTracer;
+import io.grpc.DecompressorRegistry;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.shaded.io.netty.channel.epoll.EpollDomainSocketChannel;
+import io.grpc.netty.shaded.io.netty.channel.unix.DomainSocketAddress;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ReadResource over the real Netty transport, on loopback TCP and on a Unix domain socket, with
+ * each response encoding. Compression trades CPU time (the score) for bytes on the wire, which
+ * are reported in the {@code wireBytes} counter; divide by {@code responses} for bytes per call.
+ *
+ * <p>The Unix socket runs need native epoll (Linux).</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransportBenchmark {
+
+    @Param({"tcp", "unix"})
+    public String transport;
+
+    @Param({CompressionInterceptor.IDENTITY, SnappyCodec.ENCODING, "gzip"})
+    public String encoding;
+
+    @Param({"50", "1000"})
+    public int tags;
+
+    private final LongAdder wireBytes = new LongAdder();
+    private final LongAdder responses = new LongAdder();
+    private ServerTransport server;
+    private ManagedChannel channel;
+    private ProviderGrpc.ProviderBlockingStub stub;
+    private ReadResource.Request request;
+
+    @Setup
+    public void setUp() throws Exception {
+        var options = ProviderServerOptions.builder()
+                .compression(List.of(encoding))
+                .compressionThreshold(0);
+        boolean unix = transport.equals("unix");
+        if (unix) {
+            options.transport(ProviderServerOptions.Transport.UNIX)
+                    .socketPath(Files.createTempDirectory("kite-bench").resolve("provider.sock"));
+        }
+        var service = new ProviderServiceImpl(new BenchmarkProvider(1));
+        service.warmUp();
+        server = ServerTransport.start(options.build(), "bench", service, Executors.newVirtualThreadPerTaskExecutor());
+
+        var builder = unix
+                ? NettyChannelBuilder.forAddress(new DomainSocketAddress(server.getSocketPath().toString()))
+                        .channelType(EpollDomainSocketChannel.class)
+                        .eventLoopGroup(server.getWorkerGroup())
+                : NettyChannelBuilder.forAddress("localhost", server.getServer().getPort());
+        channel = builder.usePlaintext()
+                .decompressorRegistry(DecompressorRegistry.getDefaultInstance().with(new SnappyCodec(), true))
+                .intercept(new WireBytesCounter())
+                .build();
+        stub = ProviderGrpc.newBlockingStub(channel);
+        request = ReadResource.Request.newBuilder()
+                .setTypeName(BenchmarkProvider.typeName(0))
+                .setCurrentState(new ResourcePayloadCodec().encode(BenchmarkProvider.instance(tags)))
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        server.getServer().shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        server.close();
+    }
+
+    @Benchmark
+    public ReadResource.Response readResource(Counters counters) {
+        var response = stub.readResource(request);
+        counters.wireBytes = wireBytes.sum();
+        counters.responses = responses.sum();
+        return response;
+    }
+
+    /**
+     * Bytes received on the wire, after compression, and responses received.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+        public long wireBytes;
+        public long responses;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            wireBytes = 0;
+            responses = 0;
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void resetCounts() {
+        wireBytes.reset();
+        responses.reset();
+    }
+
+    private final class WireBytesCounter implements ClientInterceptor {
+        @Override
+        public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(MethodDescriptor<ReqT, RespT> method,
+                                                                   CallOptions callOptions, Channel next) {
+            return next.newCall(method, callOptions.withStreamTracerFactory(new ClientStreamTracer.Factory() {
+                @Override
+                public ClientStreamTracer newClientStreamTracer(ClientStreamTracer.StreamInfo info, Metadata headers) {
+                    return new ClientStreamTracer() {
+                        @Override
+                        public void inboundWireSize(long bytes) {
+                            wireBytes.add(bytes);
+                        }
+
+                        @Override
+                        public void inboundMessage(int seqNo) {
+                            responses.increment();
+                        }
+                    };
+                }
+            }));
+        }
+    }
+}
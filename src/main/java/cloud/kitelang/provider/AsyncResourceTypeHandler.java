@@ -0,0 +1,136 @@
+package cloud.kitelang.provider;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Resource type handler whose CRUD operations are asynchronous.
+ * Extend this instead of {@link ResourceTypeHandler} when the cloud SDK is asynchronous
+ * (e.g. AWS SDK v2 async clients or Netty-based HTTP clients). The provider completes
+ * the gRPC call from the returned stage, so no thread is parked while the operation is
+ * in flight and the SDK's own event loop drives completion.
+ *
+ * <p>Example:</p>
+ * <pre>{@code
+ * public class BucketResourceType extends AsyncResourceTypeHandler<Bucket> {
+ *     private final S3AsyncClient s3 = S3AsyncClient.create();
+ *
+ *     @Override
+ *     public CompletionStage<Bucket> createAsync(Bucket bucket) {
+ *         return s3.createBucket(b -> b.bucket(bucket.getName()))
+ *                 .thenApply(response -> bucket.withArn(response.location()));
+ *     }
+ *     // readAsync, updateAsync, deleteAsync ...
+ * }
+ * }</pre>
+ *
+ * <p>The blocking {@link #create}, {@link #read}, {@link #update} and {@link #delete}
+ * methods wait for the asynchronous variants, for callers that need a plain result.</p>
+ *
+ * @param <T> The resource class type
+ */
+public abstract class AsyncResourceTypeHandler<T> extends ResourceTypeHandler<T> {
+
+    /**
+     * Create a new resource.
+     *
+     * @param resource The resource configuration
+     * @return Completes with the created resource with any cloud-assigned values populated
+     */
+    public abstract CompletionStage<T> createAsync(T resource);
+
+    /**
+     * Read the current state of a resource.
+     *
+     * @param resource The resource to read (with identifying fields populated)
+     * @return Completes with the current state, or null if not found
+     */
+    public abstract CompletionStage<T> readAsync(T resource);
+
+    /**
+     * Update an existing resource.
+     *
+     * @param resource The desired resource state
+     * @return Completes with the updated resource state
+     */
+    public abstract CompletionStage<T> updateAsync(T resource);
+
+    /**
+     * Delete a resource.
+     *
+     * @param resource The resource to delete
+     * @return Completes with true if deleted, false if not found
+     */
+    public abstract CompletionStage<Boolean> deleteAsync(T resource);
+
+    @Override
+    public final T create(T resource) {
+        return join(createAsync(resource));
+    }
+
+    @Override
+    public final T read(T resource) {
+        return join(readAsync(resource));
+    }
+
+    @Override
+    public final T update(T resource) {
+        return join(updateAsync(resource));
+    }
+
+    @Override
+    public final boolean delete(T resource) {
+        return join(deleteAsync(resource));
+    }
+
+    /**
+     * Read many resources by starting every {@link #readAsync} at once
+     * and waiting for all of them, instead of reading one at a time.
+     */
+    @Override
+    public List<BatchResult<T>> readBatch(Collection<T> resources) {
+        var futures = new ArrayList<CompletableFuture<T>>(resources.size());
+        for (var resource : resources) {
+            CompletableFuture<T> future;
+            try {
+                future = readAsync(resource).toCompletableFuture();
+            } catch (Exception e) {
+                future = CompletableFuture.failedFuture(e);
+            }
+            futures.add(future);
+        }
+
+        var results = new ArrayList<BatchResult<T>>(futures.size());
+        for (var future : futures) {
+            try {
+                results.add(BatchResult.success(join(future)));
+            } catch (Exception e) {
+                results.add(BatchResult.failure(
+                        Diagnostic.error("Read failed", ProviderServiceImpl.extractErrorMessage(e))));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Wait for a stage, rethrowing its failure without the {@link CompletionException} wrapper.
+     */
+    private static <R> R join(CompletionStage<R> stage) {
+        try {
+            return stage.toCompletableFuture().join();
+        } catch (CompletionException e) {
+            var cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new ProviderException(cause != null ? cause.getMessage() : e.getMessage(), cause);
+        }
+    }
+}
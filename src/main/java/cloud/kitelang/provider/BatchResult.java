@@ -0,0 +1,42 @@
+package cloud.kitelang.provider;
+
+import java.util.List;
+
+/**
+ * Result of one item in a batch operation such as
+ * {@link ResourceTypeHandler#planBatch(List)}.
+ *
+ * <p>An item fails when any of its diagnostics is an error. Failed items carry no value,
+ * while the other items of the same batch still succeed.</p>
+ *
+ * @param value       The resulting state, or null if the item failed
+ * @param diagnostics Diagnostics for this item only (never null)
+ * @param <T>         The resource class type
+ */
+public record BatchResult<T>(T value, List<Diagnostic> diagnostics) {
+
+    public BatchResult {
+        diagnostics = diagnostics != null ? List.copyOf(diagnostics) : List.of();
+    }
+
+    /**
+     * Create a successful result.
+     */
+    public static <T> BatchResult<T> success(T value) {
+        return new BatchResult<>(value, List.of());
+    }
+
+    /**
+     * Create a failed result.
+     */
+    public static <T> BatchResult<T> failure(Diagnostic diagnostic) {
+        return new BatchResult<>(null, List.of(diagnostic));
+    }
+
+    /**
+     * Check whether any diagnostic of this item is an error.
+     */
+    public boolean hasErrors() {
+        return diagnostics.stream().anyMatch(d -> d.getSeverity() == Diagnostic.Severity.ERROR);
+    }
+}
@@ -0,0 +1,146 @@
+package cloud.kitelang.provider;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+
+/**
+ * The {@link ErrorDetailExtractor}s for AWS, Google Cloud and Azure SDK exceptions.
+ * Every method lookup goes through a {@link CachedAccessor}, so each exception class is
+ * inspected once and unrelated exceptions are rejected without reflection.
+ */
+@Slf4j
+final class BuiltinErrorDetailExtractors {
+    static final String GCP_API_EXCEPTION = "com.google.api.gax.rpc.ApiException";
+    static final String AZURE_MANAGEMENT_EXCEPTION = "com.azure.core.management.exception.ManagementException";
+
+    private BuiltinErrorDetailExtractors() {
+    }
+
+    /**
+     * All built-in extractors, in the order they are tried.
+     */
+    static List<ErrorDetailExtractor> all() {
+        return List.of(new Aws(), new Gcp(GCP_API_EXCEPTION), new Azure(AZURE_MANAGEMENT_EXCEPTION));
+    }
+
+    /**
+     * AWS SDK v2: {@code AwsServiceException.awsErrorDetails()} with error code, error message
+     * and the HTTP status from {@code sdkHttpResponse().statusCode()}.
+     */
+    static final class Aws implements ErrorDetailExtractor {
+        private final CachedAccessor awsErrorDetails = new CachedAccessor("awsErrorDetails");
+        private final CachedAccessor errorCode = new CachedAccessor("errorCode");
+        private final CachedAccessor errorMessage = new CachedAccessor("errorMessage");
+        private final CachedAccessor sdkHttpResponse = new CachedAccessor("sdkHttpResponse");
+        private final CachedAccessor statusCode = new CachedAccessor("statusCode");
+
+        @Override
+        public ErrorDetails extract(Throwable error) {
+            if (!awsErrorDetails.isPresent(error.getClass())) {
+                return null;
+            }
+            try {
+                var details = awsErrorDetails.get(error);
+                if (details == null) {
+                    return null;
+                }
+                Integer status = null;
+                try {
+                    status = (Integer) statusCode.get(sdkHttpResponse.get(details));
+                } catch (Throwable httpEx) {
+                    log.debug("Could not extract HTTP status code from AWS error details", httpEx);
+                }
+                return new ErrorDetails((String) errorCode.get(details), (String) errorMessage.get(details), status);
+            } catch (Throwable t) {
+                log.debug("Failed to extract AWS error details from {}: {}", error.getClass().getSimpleName(), t.getMessage());
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Google Cloud (gax): {@code ApiException.getReason()} as error code, falling back to the
+     * canonical code name from {@code getStatusCode().getCode()}, whose
+     * {@code getHttpStatusCode()} gives the HTTP status.
+     */
+    static final class Gcp implements ErrorDetailExtractor {
+        private final ClassValue<Boolean> matches;
+        private final CachedAccessor reason = new CachedAccessor("getReason");
+        private final CachedAccessor statusCode = new CachedAccessor("getStatusCode");
+        private final CachedAccessor code = new CachedAccessor("getCode");
+        private final CachedAccessor httpStatusCode = new CachedAccessor("getHttpStatusCode");
+
+        Gcp(String exceptionClassName) {
+            this.matches = subclassOf(exceptionClassName);
+        }
+
+        @Override
+        public ErrorDetails extract(Throwable error) {
+            if (!matches.get(error.getClass())) {
+                return null;
+            }
+            try {
+                var canonicalCode = code.get(statusCode.get(error));
+                var errorCode = (String) reason.get(error);
+                if (errorCode == null && canonicalCode != null) {
+                    errorCode = canonicalCode.toString();
+                }
+                var status = (Integer) httpStatusCode.get(canonicalCode);
+                return new ErrorDetails(errorCode, null, status);
+            } catch (Throwable t) {
+                log.debug("Failed to extract GCP error details from {}: {}", error.getClass().getSimpleName(), t.getMessage());
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Azure: {@code ManagementException.getValue()} with the management error's code and message,
+     * and the HTTP status from {@code getResponse().getStatusCode()}.
+     */
+    static final class Azure implements ErrorDetailExtractor {
+        private final ClassValue<Boolean> matches;
+        private final CachedAccessor value = new CachedAccessor("getValue");
+        private final CachedAccessor code = new CachedAccessor("getCode");
+        private final CachedAccessor message = new CachedAccessor("getMessage");
+        private final CachedAccessor response = new CachedAccessor("getResponse");
+        private final CachedAccessor statusCode = new CachedAccessor("getStatusCode");
+
+        Azure(String exceptionClassName) {
+            this.matches = subclassOf(exceptionClassName);
+        }
+
+        @Override
+        public ErrorDetails extract(Throwable error) {
+            if (!matches.get(error.getClass())) {
+                return null;
+            }
+            try {
+                var managementError = value.get(error);
+                var status = (Integer) statusCode.get(response.get(error));
+                return new ErrorDetails((String) code.get(managementError), (String) message.get(managementError), status);
+            } catch (Throwable t) {
+                log.debug("Failed to extract Azure error details from {}: {}", error.getClass().getSimpleName(), t.getMessage());
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Match classes by the name of a superclass, so the SDK need not be on the classpath.
+     */
+    private static ClassValue<Boolean> subclassOf(String className) {
+        return new ClassValue<>() {
+            @Override
+            protected Boolean computeValue(Class<?> type) {
+                for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+                    if (c.getName().equals(className)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+        };
+    }
+}
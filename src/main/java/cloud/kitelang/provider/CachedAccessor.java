@@ -0,0 +1,92 @@
+package cloud.kitelang.provider;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A public no-argument method looked up by name, resolved to a {@link MethodHandle} once per
+ * receiver class. Classes without the method are cached too, so probing unrelated objects
+ * costs a map lookup rather than a {@link NoSuchMethodException}.
+ *
+ * <p>When the method is declared by a class outside this package that is not public
+ * (typical for SDK implementation classes), the handle is resolved through the nearest
+ * public superclass or interface declaring it instead.</p>
+ */
+final class CachedAccessor {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private final String methodName;
+    private final ClassValue<Optional<MethodHandle>> handles = new ClassValue<>() {
+        @Override
+        protected Optional<MethodHandle> computeValue(Class<?> type) {
+            return Optional.ofNullable(resolve(type));
+        }
+    };
+
+    CachedAccessor(String methodName) {
+        this.methodName = methodName;
+    }
+
+    /**
+     * Check whether objects of the given class have the method.
+     */
+    boolean isPresent(Class<?> type) {
+        return handles.get(type).isPresent();
+    }
+
+    /**
+     * Invoke the method on a target.
+     *
+     * @return The result, or null if the target is null or has no such method
+     */
+    Object get(Object target) throws Throwable {
+        if (target == null) {
+            return null;
+        }
+        var handle = handles.get(target.getClass());
+        return handle.isPresent() ? handle.get().invokeExact(target) : null;
+    }
+
+    private MethodHandle resolve(Class<?> type) {
+        Method method;
+        try {
+            method = type.getMethod(methodName);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+        if (method.getReturnType() == void.class) {
+            return null;
+        }
+
+        // Search the class and its supertypes for an accessible declaration; virtual
+        // dispatch still reaches the override in the receiver's class
+        var queue = new ArrayDeque<Class<?>>();
+        var seen = new HashSet<Class<?>>();
+        queue.add(type);
+        while (!queue.isEmpty()) {
+            var candidate = queue.removeFirst();
+            if (!seen.add(candidate)) {
+                continue;
+            }
+            try {
+                var returnType = candidate.getMethod(methodName).getReturnType();
+                return LOOKUP.findVirtual(candidate, methodName, MethodType.methodType(returnType))
+                        .asType(GETTER_TYPE);
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                // Not declared or not accessible through this type; keep looking in supertypes
+            }
+            if (candidate.getSuperclass() != null) {
+                queue.add(candidate.getSuperclass());
+            }
+            queue.addAll(List.of(candidate.getInterfaces()));
+        }
+        return null;
+    }
+}
@@ -0,0 +1,151 @@
+package cloud.kitelang.provider;
+
+import com.google.protobuf.MessageLite;
+import io.grpc.Codec;
+import io.grpc.CompressorRegistry;
+import io.grpc.DecompressorRegistry;
+import io.grpc.ForwardingServerCall;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Chooses the response compression of each call.
+ *
+ * <p>The encoding is the first of the preferred encodings that the client lists in
+ * {@code grpc-accept-encoding}, unless a per-method override applies. Responses smaller than
+ * the threshold are sent uncompressed, since compressing them costs more CPU than it saves
+ * on the wire. Requests are decompressed in whatever registered encoding the client used.</p>
+ */
+@Slf4j
+final class CompressionInterceptor implements ServerInterceptor {
+    /** Encoding name that turns compression off. */
+    static final String IDENTITY = "identity";
+    private static final Metadata.Key<String> ACCEPT_ENCODING =
+            Metadata.Key.of("grpc-accept-encoding", Metadata.ASCII_STRING_MARSHALLER);
+    private static final Set<String> SUPPORTED = Set.of(IDENTITY, SnappyCodec.ENCODING, "gzip");
+
+    private final List<String> encodings;
+    private final Map<String, String> methodEncodings;
+    private final int threshold;
+
+    /**
+     * Create an interceptor.
+     *
+     * @param encodings       Encodings in order of preference; empty disables compression
+     * @param methodEncodings Encoding per method, by full ({@code kite.v1.Provider/ReadResource})
+     *                        or bare ({@code ReadResource}) method name
+     * @param threshold       Responses smaller than this many serialized bytes are not compressed
+     */
+    CompressionInterceptor(List<String> encodings, Map<String, String> methodEncodings, int threshold) {
+        this.encodings = supported(encodings);
+        this.methodEncodings = new HashMap<>();
+        methodEncodings.forEach((method, encoding) -> {
+            if (SUPPORTED.contains(encoding)) {
+                this.methodEncodings.put(method, encoding);
+            } else {
+                log.warn("Unsupported compression '{}' for {}, using the default", encoding, method);
+            }
+        });
+        this.threshold = threshold;
+    }
+
+    /**
+     * Compressors for every encoding the server can send.
+     */
+    static CompressorRegistry compressorRegistry() {
+        var registry = CompressorRegistry.newEmptyInstance();
+        registry.register(new Codec.Gzip());
+        registry.register(new SnappyCodec());
+        return registry;
+    }
+
+    /**
+     * Decompressors for every encoding the server accepts, all advertised to clients.
+     */
+    static DecompressorRegistry decompressorRegistry() {
+        return DecompressorRegistry.getDefaultInstance().with(new SnappyCodec(), true);
+    }
+
+    @Override
+    public <Q, R> ServerCall.Listener<Q> interceptCall(ServerCall<Q, R> call, Metadata headers,
+                                                      ServerCallHandler<Q, R> next) {
+        var encoding = choose(call.getMethodDescriptor(), headers.get(ACCEPT_ENCODING));
+        if (encoding == null) {
+            return next.startCall(call, headers);
+        }
+        call.setCompression(encoding);
+        return next.startCall(new ThresholdCall<>(call, threshold), headers);
+    }
+
+    /**
+     * Pick the response encoding of a call.
+     *
+     * @param acceptEncoding The client's {@code grpc-accept-encoding} header, or null
+     * @return The encoding, or null to send uncompressed
+     */
+    String choose(MethodDescriptor<?, ?> method, String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isBlank()) {
+            return null;
+        }
+        var accepted = List.of(acceptEncoding.split("\\s*,\\s*"));
+        var override = methodEncodings.getOrDefault(method.getFullMethodName(),
+                methodEncodings.get(method.getBareMethodName()));
+        if (override != null) {
+            return IDENTITY.equals(override) || !accepted.contains(override) ? null : override;
+        }
+        for (var encoding : encodings) {
+            if (accepted.contains(encoding)) {
+                return encoding;
+            }
+        }
+        return null;
+    }
+
+    private static List<String> supported(List<String> encodings) {
+        var result = new ArrayList<String>();
+        for (var encoding : encodings) {
+            if (IDENTITY.equals(encoding)) {
+                continue;
+            }
+            if (SUPPORTED.contains(encoding)) {
+                result.add(encoding);
+            } else {
+                log.warn("Unsupported compression '{}', ignoring it", encoding);
+            }
+        }
+        return List.copyOf(result);
+    }
+
+    /**
+     * Turns compression off for responses below the threshold.
+     */
+    private static final class ThresholdCall<Q, R> extends ForwardingServerCall.SimpleForwardingServerCall<Q, R> {
+        private final int threshold;
+
+        private ThresholdCall(ServerCall<Q, R> delegate, int threshold) {
+            super(delegate);
+            this.threshold = threshold;
+        }
+
+        @Override
+        public void sendMessage(R message) {
+            int size = switch (message) {
+                case MessageLite lite -> lite.getSerializedSize();
+                case OperationFrame frame -> frame.payload().getSerializedSize();
+                default -> Integer.MAX_VALUE;
+            };
+            setMessageCompression(size >= threshold);
+            super.sendMessage(message);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package cloud.kitelang.provider;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Adaptive limit on concurrent handler calls against one cloud API.
+ *
+ * <p>The limit follows AIMD (additive increase, multiplicative decrease): every successful
+ * call made while the limit is actually in use grows it by {@code 1/limit}, so it rises by
+ * about one per round of calls, and a throttling error halves it. Only calls started after
+ * the last decrease can decrease it again, so one burst of throttling errors halves the limit
+ * once rather than collapsing it to the minimum.</p>
+ *
+ * <p>A call may take several permits, e.g. one per resource of a batch read, so a batch
+ * counts against the limit like the calls it replaces. A call wanting more permits than the
+ * limit is admitted alone once nothing else is in flight.</p>
+ *
+ * <p>Calls over the limit wait in a FIFO queue and are admitted in arrival order.
+ * Waiting parks the calling thread, which is cheap on the virtual threads gRPC calls run on.</p>
+ */
+public class ConcurrencyLimiter {
+    private final String key;
+    private final int minLimit;
+    private final int maxLimit;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ArrayDeque<Waiter> queue = new ArrayDeque<>();
+    private double limit;
+    private int inFlight;
+    private long lastDecreaseNanos = System.nanoTime();
+
+    /**
+     * Create a limiter.
+     *
+     * @param key          The resource type name or API family this limiter guards
+     * @param initialLimit Starting number of concurrent calls
+     * @param minLimit     The limit never drops below this
+     * @param maxLimit     The limit never grows above this
+     */
+    public ConcurrencyLimiter(String key, int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit < 1 || minLimit > maxLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Invalid limits for " + key + ": initial=" + initialLimit
+                    + ", min=" + minLimit + ", max=" + maxLimit);
+        }
+        this.key = key;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = initialLimit;
+    }
+
+    /**
+     * Outcome of a call, used to adapt the limit.
+     */
+    public enum Outcome {
+        /** The call succeeded. */
+        SUCCESS,
+        /** The cloud API rejected the call because of rate limiting. */
+        THROTTLED,
+        /** The call failed for another reason; the limit is left unchanged. */
+        FAILURE
+    }
+
+    /**
+     * Wait until a call may start, in arrival order.
+     *
+     * @return A permit that must be released exactly once when the call completes
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public Permit acquire() throws InterruptedException {
+        return acquire(1);
+    }
+
+    /**
+     * Wait until a call taking {@code weight} permits may start, in arrival order.
+     *
+     * @param weight Number of permits, at least 1
+     * @return A permit that must be released exactly once when the call completes
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public Permit acquire(int weight) throws InterruptedException {
+        if (weight < 1) {
+            throw new IllegalArgumentException("weight must be at least 1: " + weight);
+        }
+        Waiter waiter;
+        lock.lock();
+        try {
+            if (queue.isEmpty() && admits(weight)) {
+                inFlight += weight;
+                return new Permit(System.nanoTime(), weight);
+            }
+            waiter = new Waiter(Thread.currentThread(), weight);
+            queue.addLast(waiter);
+        } finally {
+            lock.unlock();
+        }
+
+        while (!waiter.granted) {
+            LockSupport.park(this);
+            if (Thread.interrupted()) {
+                lock.lock();
+                try {
+                    if (!waiter.granted) {
+                        queue.remove(waiter);
+                        throw new InterruptedException("Interrupted while waiting for " + key + " concurrency permit");
+                    }
+                } finally {
+                    lock.unlock();
+                }
+                // Granted concurrently with the interrupt: keep the permit and restore the flag
+                Thread.currentThread().interrupt();
+            }
+        }
+        return new Permit(System.nanoTime(), weight);
+    }
+
+    /**
+     * Get a point-in-time view of this limiter.
+     */
+    public Snapshot snapshot() {
+        lock.lock();
+        try {
+            return new Snapshot(key, (int) limit, inFlight, queue.size());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(Permit permit, Outcome outcome) {
+        lock.lock();
+        try {
+            inFlight -= permit.weight;
+            switch (outcome) {
+                case THROTTLED -> {
+                    if (permit.startNanos - lastDecreaseNanos > 0) {
+                        limit = Math.max(minLimit, limit / 2);
+                        lastDecreaseNanos = System.nanoTime();
+                    }
+                }
+                case SUCCESS -> {
+                    // Only grow when the limit is actually being used
+                    if (inFlight + permit.weight >= (int) limit / 2) {
+                        limit = Math.min(maxLimit, limit + permit.weight / limit);
+                    }
+                }
+                case FAILURE -> {
+                }
+            }
+
+            while (!queue.isEmpty() && admits(queue.peekFirst().weight)) {
+                var next = queue.removeFirst();
+                inFlight += next.weight;
+                next.granted = true;
+                LockSupport.unpark(next.thread);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean admits(int weight) {
+        return inFlight == 0 || inFlight + weight <= (int) limit;
+    }
+
+    /**
+     * Permission to run one call. Release it when the call completes.
+     */
+    public final class Permit {
+        private final long startNanos;
+        private final int weight;
+        private boolean released;
+
+        private Permit(long startNanos, int weight) {
+            this.startNanos = startNanos;
+            this.weight = weight;
+        }
+
+        /**
+         * Release the permit and adapt the limit to the call's outcome.
+         * Releasing more than once has no effect.
+         */
+        public void release(Outcome outcome) {
+            synchronized (this) {
+                if (released) {
+                    return;
+                }
+                released = true;
+            }
+            ConcurrencyLimiter.this.release(this, outcome);
+        }
+    }
+
+    /**
+     * Point-in-time view of a limiter.
+     *
+     * @param key      The resource type name or API family
+     * @param limit    The current concurrency limit
+     * @param inFlight Permits held by running calls
+     * @param queued   Calls waiting for a permit
+     */
+    public record Snapshot(String key, int limit, int inFlight, int queued) {
+    }
+
+    private static final class Waiter {
+        private final Thread thread;
+        private final int weight;
+        private volatile boolean granted;
+
+        private Waiter(Thread thread, int weight) {
+            this.thread = thread;
+            this.weight = weight;
+        }
+    }
+}
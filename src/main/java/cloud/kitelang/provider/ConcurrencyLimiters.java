@@ -0,0 +1,99 @@
+package cloud.kitelang.provider;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Registry of {@link ConcurrencyLimiter}s, one per resource type or per
+ * API family declared by {@link ResourceTypeHandler#getApiFamily()}.
+ */
+public class ConcurrencyLimiters {
+    public static final int DEFAULT_INITIAL_LIMIT = 20;
+    public static final int DEFAULT_MIN_LIMIT = 1;
+    public static final int DEFAULT_MAX_LIMIT = 256;
+
+    private final boolean enabled;
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final ConcurrentMap<String, ConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+
+    /**
+     * Create a registry whose limiters use the given bounds.
+     */
+    public ConcurrencyLimiters(int initialLimit, int minLimit, int maxLimit) {
+        this(true, initialLimit, minLimit, maxLimit);
+    }
+
+    private ConcurrencyLimiters(boolean enabled, int initialLimit, int minLimit, int maxLimit) {
+        this.enabled = enabled;
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+    }
+
+    /**
+     * Create a registry with the default bounds.
+     */
+    public static ConcurrencyLimiters defaults() {
+        return new ConcurrencyLimiters(DEFAULT_INITIAL_LIMIT, DEFAULT_MIN_LIMIT, DEFAULT_MAX_LIMIT);
+    }
+
+    /**
+     * Create a registry that never limits.
+     */
+    public static ConcurrencyLimiters unlimited() {
+        return new ConcurrencyLimiters(false, 0, 0, 0);
+    }
+
+    /**
+     * Get the limiter for a handler, keyed by its API family if declared, else by type name.
+     *
+     * @return The limiter, or null if limiting is disabled
+     */
+    public ConcurrencyLimiter forHandler(String typeName, ResourceTypeHandler<?> handler) {
+        if (!enabled) {
+            return null;
+        }
+        var apiFamily = handler.getApiFamily();
+        var key = apiFamily != null && !apiFamily.isBlank() ? apiFamily : typeName;
+        return limiters.computeIfAbsent(key, k -> new ConcurrencyLimiter(k,
+                Math.min(initialLimit, maxLimit), minLimit, maxLimit));
+    }
+
+    /**
+     * Get a snapshot of every limiter, sorted by key.
+     */
+    public List<ConcurrencyLimiter.Snapshot> snapshots() {
+        return limiters.values().stream()
+                .map(ConcurrencyLimiter::snapshot)
+                .sorted(Comparator.comparing(ConcurrencyLimiter.Snapshot::key))
+                .toList();
+    }
+
+    /**
+     * Classify the failure of a handler call for the limiter.
+     *
+     * @param error The failure, or null if the call succeeded
+     */
+    static ConcurrencyLimiter.Outcome outcomeOf(Throwable error) {
+        return outcomeOf(error, null);
+    }
+
+    /**
+     * Classify the failure of a handler call for the limiter, using the handler's retry rules.
+     *
+     * @param error The failure, or null if the call succeeded
+     * @param rules The handler's classifier, or null for the defaults
+     */
+    static ConcurrencyLimiter.Outcome outcomeOf(Throwable error, RetryClassifier rules) {
+        if (error == null) {
+            return ConcurrencyLimiter.Outcome.SUCCESS;
+        }
+        return RetryClassifier.classify(rules, error) == RetryClassifier.Category.THROTTLING
+                ? ConcurrencyLimiter.Outcome.THROTTLED
+                : ConcurrencyLimiter.Outcome.FAILURE;
+    }
+}
@@ -0,0 +1,59 @@
+package cloud.kitelang.provider;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The rules behind {@link RetryClassifier#defaults()}. Returns null for exceptions it
+ * does not recognize so {@link RetryClassifier#classify(RetryClassifier, Throwable)}
+ * moves on to their cause.
+ */
+final class DefaultRetryClassifier implements RetryClassifier {
+    static final DefaultRetryClassifier INSTANCE = new DefaultRetryClassifier();
+
+    private static final List<String> THROTTLING_MARKERS = List.of(
+            "throttl", "too many requests", "toomanyrequests", "requestlimitexceeded",
+            "rate exceeded", "(http 429)", "resource_exhausted");
+
+    private static final String[] THROTTLING_CODES = {
+            "Throttling", "ThrottlingException", "ThrottledException", "RequestThrottled",
+            "RequestThrottledException", "TooManyRequestsException", "RequestLimitExceeded",
+            "ProvisionedThroughputExceededException", "SlowDown", "BandwidthLimitExceeded",
+            "PriorRequestNotComplete", "EC2ThrottledException"};
+
+    private static final String[] TRANSIENT_CODES = {
+            "InternalError", "InternalFailure", "InternalServerError", "ServiceUnavailable",
+            "ServiceUnavailableException", "RequestTimeout", "RequestTimeoutException", "IDPCommunicationError",
+            // Conflicts with a concurrent write, which clear once it commits
+            "TransactionInProgressException"};
+
+    private DefaultRetryClassifier() {
+    }
+
+    @Override
+    public Category classify(Throwable error, ErrorDetails details) {
+        if (details != null) {
+            var status = details.statusCode();
+            if (details.hasErrorCode(THROTTLING_CODES) || (status != null && status == 429)) {
+                return Category.THROTTLING;
+            }
+            if (details.hasErrorCode(TRANSIENT_CODES) || (status != null && status >= 500)) {
+                return Category.TRANSIENT;
+            }
+            var code = details.errorCode();
+            if ((code != null && (code.endsWith("NotFound") || code.endsWith("NotFoundException")
+                    || code.startsWith("NoSuch"))) || (status != null && status == 404)) {
+                return Category.NOT_FOUND;
+            }
+        }
+
+        var message = error instanceof Exception e ? ProviderServiceImpl.extractErrorMessage(e) : error.getMessage();
+        var text = (error.getClass().getSimpleName() + " " + message).toLowerCase(Locale.ROOT);
+        for (var marker : THROTTLING_MARKERS) {
+            if (text.contains(marker)) {
+                return Category.THROTTLING;
+            }
+        }
+        return details != null ? Category.PERMANENT : null;
+    }
+}
@@ -0,0 +1,25 @@
+package cloud.kitelang.provider;
+
+/**
+ * Extracts structured {@link ErrorDetails} from the exceptions of one cloud SDK.
+ *
+ * <p>Built-in extractors cover the AWS SDK v2 ({@code awsErrorDetails()}), Google Cloud
+ * ({@code ApiException}) and Azure ({@code ManagementException}) without depending on those SDKs.
+ * Providers for other clouds can add their own by listing an implementation in
+ * {@code META-INF/services/cloud.kitelang.provider.ErrorDetailExtractor}; those are consulted
+ * before the built-ins.</p>
+ *
+ * <p>Extractors are called for every handler failure, so implementations must be cheap for
+ * exceptions they do not recognize and must not throw.</p>
+ */
+@FunctionalInterface
+public interface ErrorDetailExtractor {
+
+    /**
+     * Extract the error details of an exception.
+     *
+     * @param error The exception (not its causes)
+     * @return The details, or null if this extractor does not recognize the exception
+     */
+    ErrorDetails extract(Throwable error);
+}
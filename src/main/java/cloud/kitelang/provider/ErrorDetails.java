@@ -0,0 +1,67 @@
+package cloud.kitelang.provider;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+/**
+ * Structured error details of a cloud SDK exception: the service error code, the
+ * service's own message and the HTTP status. Extracted by {@link ErrorDetailExtractor}s,
+ * so the SDK has no hard dependency on any cloud SDK.
+ *
+ * @param errorCode    The service error code (e.g. "ThrottlingException"), or null
+ * @param errorMessage The service error message, or null
+ * @param statusCode   The HTTP status code, or null if unknown
+ */
+@Slf4j
+public record ErrorDetails(String errorCode, String errorMessage, Integer statusCode) {
+
+    private static final List<ErrorDetailExtractor> EXTRACTORS = loadExtractors();
+
+    /**
+     * Extract the error details of an exception with the registered {@link ErrorDetailExtractor}s.
+     *
+     * @return The details, or null if the exception carries none
+     */
+    public static ErrorDetails of(Throwable e) {
+        for (var extractor : EXTRACTORS) {
+            var details = extractor.extract(e);
+            if (details != null) {
+                return details;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Check whether the error code equals one of the given codes, ignoring case.
+     */
+    public boolean hasErrorCode(String... codes) {
+        if (errorCode == null) {
+            return false;
+        }
+        for (var code : codes) {
+            if (errorCode.equalsIgnoreCase(code)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<ErrorDetailExtractor> loadExtractors() {
+        var extractors = new ArrayList<ErrorDetailExtractor>();
+        try {
+            for (var extractor : ServiceLoader.load(ErrorDetailExtractor.class)) {
+                extractors.add(extractor);
+                log.debug("Loaded error detail extractor {}", extractor.getClass().getName());
+            }
+        } catch (ServiceConfigurationError e) {
+            log.warn("Failed to load error detail extractors: {}", e.getMessage());
+        }
+        extractors.addAll(BuiltinErrorDetailExtractors.all());
+        return List.copyOf(extractors);
+    }
+}
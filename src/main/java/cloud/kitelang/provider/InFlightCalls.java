@@ -0,0 +1,270 @@
+package cloud.kitelang.provider;
+
+import io.grpc.ForwardingServerCall;
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Calls and handler work in flight, so the provider can drain before shutting down
+ * and only counts as idle while nothing is running.
+ *
+ * <p>Calls are counted per RPC method in {@link LongAdder}s, which spread concurrent updates
+ * over separate cells instead of contending on one counter; the counts are only summed
+ * when read.</p>
+ *
+ * <p>Draining stops admitting new calls, which fail with {@code UNAVAILABLE} so the engine
+ * retries them elsewhere, and waits for the running ones. Handler work that outlives the
+ * deadline is cancelled cooperatively: threads running a synchronous handler are interrupted,
+ * and stages returned by asynchronous handlers are completed with a
+ * {@link CancellationException}, which also stops their {@link OperationTracker} polling.</p>
+ */
+@Slf4j
+final class InFlightCalls {
+    /** Methods that are neither counted nor rejected while draining. */
+    private static final Set<String> UNTRACKED_METHODS = Set.of("HealthCheck", "StopProvider");
+    private static final long POLL_INTERVAL_MS = 50;
+    private static final long PROGRESS_INTERVAL_MS = 5_000;
+
+    private final ConcurrentMap<String, LongAdder> calls = new ConcurrentHashMap<>();
+    private final Set<Thread> handlerThreads = ConcurrentHashMap.newKeySet();
+    private final Set<CompletableFuture<?>> handlerStages = ConcurrentHashMap.newKeySet();
+    private final Set<Runnable> drainListeners = ConcurrentHashMap.newKeySet();
+    private volatile boolean draining;
+    private volatile long lastEndMs = System.currentTimeMillis();
+
+    /**
+     * Admit a call.
+     *
+     * @param method The RPC method name, e.g. {@code CreateResource}
+     * @return false if the provider is draining; the call must not run
+     */
+    boolean tryBegin(String method) {
+        var counter = counter(method);
+        counter.increment();
+        if (draining) {
+            counter.decrement();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Finish a call admitted by {@link #tryBegin(String)}.
+     */
+    void end(String method) {
+        lastEndMs = System.currentTimeMillis();
+        counter(method).decrement();
+    }
+
+    /**
+     * Get the number of calls in flight across all methods.
+     */
+    int getCount() {
+        long total = 0;
+        for (var counter : calls.values()) {
+            total += counter.sum();
+        }
+        return (int) total;
+    }
+
+    /**
+     * Get the number of calls in flight per RPC method, leaving out methods with none.
+     */
+    Map<String, Integer> getCounts() {
+        var counts = new TreeMap<String, Integer>();
+        calls.forEach((method, counter) -> {
+            long count = counter.sum();
+            if (count > 0) {
+                counts.put(method, (int) count);
+            }
+        });
+        return counts;
+    }
+
+    /**
+     * Get the time the last call finished, in epoch milliseconds.
+     */
+    long getLastEndMs() {
+        return lastEndMs;
+    }
+
+    /**
+     * Check whether no calls or handler work are in flight.
+     */
+    boolean isIdle() {
+        return getCount() == 0 && handlerThreads.isEmpty() && handlerStages.isEmpty();
+    }
+
+    boolean isDraining() {
+        return draining;
+    }
+
+    /**
+     * Stop admitting calls, and tell the drain listeners.
+     */
+    void startDraining() {
+        draining = true;
+        for (var listener : drainListeners) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Run a listener when draining starts, or right away if it has. It may run more than once.
+     * Open streams use this to finish even when no operation of theirs is running.
+     */
+    void addDrainListener(Runnable listener) {
+        drainListeners.add(listener);
+        if (draining) {
+            listener.run();
+        }
+    }
+
+    void removeDrainListener(Runnable listener) {
+        drainListeners.remove(listener);
+    }
+
+    /**
+     * Wait until no calls or handler work are in flight, logging progress.
+     *
+     * @return true if everything finished before the timeout
+     */
+    boolean awaitDrained(Duration timeout) throws InterruptedException {
+        long start = System.nanoTime();
+        long deadline = start + timeout.toNanos();
+        long nextProgress = start + TimeUnit.MILLISECONDS.toNanos(PROGRESS_INTERVAL_MS);
+        while (!isIdle()) {
+            long now = System.nanoTime();
+            if (now - deadline >= 0) {
+                return false;
+            }
+            if (now - nextProgress >= 0) {
+                log.info("Draining: {} calls in flight {}, {}s left", getCount(), getCounts(),
+                        TimeUnit.NANOSECONDS.toSeconds(deadline - now));
+                nextProgress = now + TimeUnit.MILLISECONDS.toNanos(PROGRESS_INTERVAL_MS);
+            }
+            Thread.sleep(Math.min(POLL_INTERVAL_MS, Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - now))));
+        }
+        return true;
+    }
+
+    /**
+     * Cancel all handler work still running.
+     *
+     * @return The number of handler threads interrupted and stages cancelled
+     */
+    int cancelAll() {
+        int cancelled = 0;
+        for (var thread : handlerThreads) {
+            thread.interrupt();
+            cancelled++;
+        }
+        for (var stage : handlerStages) {
+            if (stage.completeExceptionally(new CancellationException("Provider is shutting down"))) {
+                cancelled++;
+            }
+        }
+        return cancelled;
+    }
+
+    /**
+     * Start a handler operation, tracking its thread while it runs synchronously
+     * and its stage until it completes.
+     */
+    <R> CompletionStage<R> runHandler(Callable<CompletionStage<R>> operation) throws Exception {
+        var thread = Thread.currentThread();
+        handlerThreads.add(thread);
+        CompletionStage<R> stage;
+        try {
+            stage = operation.call();
+        } finally {
+            handlerThreads.remove(thread);
+        }
+        if (stage != null) {
+            var future = stage.toCompletableFuture();
+            if (!future.isDone()) {
+                handlerStages.add(future);
+                future.whenComplete((result, error) -> handlerStages.remove(future));
+            }
+        }
+        return stage;
+    }
+
+    /**
+     * Count calls to a service and reject them while draining.
+     */
+    ServerInterceptor interceptor() {
+        return new ServerInterceptor() {
+            @Override
+            public <Q, R> ServerCall.Listener<Q> interceptCall(ServerCall<Q, R> call, Metadata headers,
+                                                              ServerCallHandler<Q, R> next) {
+                var method = call.getMethodDescriptor().getBareMethodName();
+                if (UNTRACKED_METHODS.contains(method)) {
+                    return next.startCall(call, headers);
+                }
+                if (!tryBegin(method)) {
+                    call.close(Status.UNAVAILABLE.withDescription("Provider is shutting down"), new Metadata());
+                    return new ServerCall.Listener<>() {
+                    };
+                }
+
+                var ended = new AtomicBoolean();
+                Runnable finish = () -> {
+                    if (ended.compareAndSet(false, true)) {
+                        end(method);
+                    }
+                };
+                ServerCall.Listener<Q> listener;
+                try {
+                    listener = next.startCall(new ForwardingServerCall.SimpleForwardingServerCall<>(call) {
+                        @Override
+                        public void close(Status status, Metadata trailers) {
+                            try {
+                                super.close(status, trailers);
+                            } finally {
+                                finish.run();
+                            }
+                        }
+                    }, headers);
+                } catch (RuntimeException e) {
+                    finish.run();
+                    throw e;
+                }
+                return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(listener) {
+                    @Override
+                    public void onCancel() {
+                        try {
+                            super.onCancel();
+                        } finally {
+                            finish.run();
+                        }
+                    }
+                };
+            }
+        };
+    }
+
+    private LongAdder counter(String method) {
+        var counter = calls.get(method);
+        return counter != null ? counter : calls.computeIfAbsent(method, m -> new LongAdder());
+    }
+}
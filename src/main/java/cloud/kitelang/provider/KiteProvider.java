@@ -3,6 +3,7 @@ package cloud.kitelang.provider;
 import cloud.kitelang.api.annotations.TypeName;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
@@ -14,6 +15,9 @@ import java.lang.reflect.Modifier;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 /**
  * Base class for Kite provider implementations.
@@ -21,7 +25,10 @@ import java.util.*;
  *
  * <p>Auto-discovery is enabled by default. It first checks for a manifest file
  * (META-INF/kite/resource-types.txt) generated by {@link ResourceTypeProcessor},
- * then falls back to runtime classpath scanning.</p>
+ * then falls back to runtime classpath scanning. Manifest entries that name their
+ * resource type are registered lazily: the handler is instantiated on first use, or by the
+ * background warmup after the handshake, which keeps startup fast for providers with
+ * hundreds of types.</p>
  *
  * <p>Provider name and version are automatically read from
  * META-INF/kite/provider.json (generated by the kite-provider-gradle-plugin).
@@ -50,8 +57,20 @@ public abstract class KiteProvider {
     private final String name;
     private final String version;
     private final String logoUrl;
-    private final Map<String, ResourceTypeHandler<?>> resourceTypes = new HashMap<>();
+    private final Map<String, ResourceTypeHandler<?>> resourceTypes = new ConcurrentHashMap<>();
+    @Getter(AccessLevel.NONE)
+    private final Map<String, Supplier<? extends ResourceTypeHandler<?>>> lazyResourceTypes = new ConcurrentHashMap<>();
+    /** Schema digests from the resource types manifest, see {@link SchemaIndex#fingerprint}. */
+    @Getter(AccessLevel.NONE)
+    private final Map<String, String> schemaDigests = new ConcurrentHashMap<>();
+    /** Bumped whenever the set of resource types changes, so cached schemas can be rebuilt. */
+    @Getter(AccessLevel.NONE)
+    private final AtomicLong registrationVersion = new AtomicLong();
     private final Map<String, StandardTypeAdapter<?>> standardTypeAdapters = new HashMap<>();
+    @Getter(AccessLevel.NONE)
+    private volatile RateLimiterRegistry rateLimiters = new RateLimiterRegistry();
+    /** Polls long-running operations of this provider's handlers; shut down with the server. */
+    private final OperationTracker operationTracker = OperationTracker.defaults();
     private Object config;
 
     /**
@@ -181,7 +200,11 @@ public abstract class KiteProvider {
      * Discover and register ResourceTypeHandler classes from a manifest file.
      * This method is GraalVM native-image compatible as it doesn't use runtime classpath scanning.
      *
-     * <p>Create META-INF/kite/resource-types.txt with one ResourceTypeHandler class name per line.</p>
+     * <p>Create META-INF/kite/resource-types.txt with one {@code TypeName=handler.Class} entry per
+     * line, optionally followed by a schema digest, as {@link ResourceTypeProcessor} generates it.
+     * Those handlers are registered lazily.
+     * Lines with only a class name are instantiated right away, since their type name is only
+     * known from the handler.</p>
      */
     @SuppressWarnings("unchecked")
     protected void discoverResourcesFromManifest() {
@@ -196,28 +219,54 @@ public abstract class KiteProvider {
         }
 
         try (var reader = new BufferedReader(new InputStreamReader(resource, StandardCharsets.UTF_8))) {
-            String className;
-            while ((className = reader.readLine()) != null) {
-                className = className.trim();
-                if (className.isEmpty() || className.startsWith("#")) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+
+                int separator = line.indexOf('=');
+                if (separator > 0) {
+                    var typeName = line.substring(0, separator).trim();
+                    var value = line.substring(separator + 1).trim().split("\\s+", 2);
+                    var className = value[0];
+                    registerResource(typeName, () -> instantiate(classLoader, className));
+                    if (value.length > 1) {
+                        schemaDigests.put(typeName, value[1]);
+                    }
                     continue;
                 }
 
                 try {
-                    var clazz = (Class<? extends ResourceTypeHandler<?>>) classLoader.loadClass(className);
+                    var clazz = (Class<? extends ResourceTypeHandler<?>>) classLoader.loadClass(line);
                     var resourceType = clazz.getDeclaredConstructor().newInstance();
                     registerResource(resourceType);
                 } catch (Exception e) {
-                    log.warn("Failed to load ResourceTypeHandler {}: {}", className, e.getMessage());
+                    log.warn("Failed to load ResourceTypeHandler {}: {}", line, e.getMessage());
                 }
             }
 
-            log.info("Loaded {} resource types from manifest", resourceTypes.size());
+            log.info("Loaded {} resource types from manifest ({} deferred)",
+                    resourceTypes.size() + lazyResourceTypes.size(), lazyResourceTypes.size());
         } catch (IOException e) {
             log.error("Failed to read resource types manifest", e);
         }
     }
 
+    /**
+     * Load and instantiate a handler named in the manifest.
+     */
+    @SuppressWarnings("unchecked")
+    private static ResourceTypeHandler<?> instantiate(ClassLoader classLoader, String className) {
+        try {
+            var clazz = (Class<? extends ResourceTypeHandler<?>>) classLoader.loadClass(className);
+            return clazz.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            throw new IllegalStateException("Failed to load ResourceTypeHandler " + className + ": " + e, e);
+        }
+    }
+
     /**
      * Find all ResourceTypeHandler subclasses in a package.
      */
@@ -285,9 +334,26 @@ public abstract class KiteProvider {
      */
     protected <T> void registerResource(String typeName, ResourceTypeHandler<T> resourceType) {
         resourceTypes.put(typeName, resourceType);
+        lazyResourceTypes.remove(typeName);
+        schemaDigests.remove(typeName);
+        registrationVersion.incrementAndGet();
         log.debug("Registered resource type: {}", typeName);
     }
 
+    /**
+     * Register a resource type whose handler is created on first use.
+     *
+     * @param typeName The resource type name (e.g., "S3Bucket", "File")
+     * @param factory  Creates the handler; called at most once unless it fails
+     */
+    protected void registerResource(String typeName, Supplier<? extends ResourceTypeHandler<?>> factory) {
+        resourceTypes.remove(typeName);
+        lazyResourceTypes.put(typeName, factory);
+        schemaDigests.remove(typeName);
+        registrationVersion.incrementAndGet();
+        log.debug("Registered resource type: {} (deferred)", typeName);
+    }
+
     /**
      * Register a resource type with this provider.
      * The type name is auto-discovered from the @TypeName annotation on the resource class.
@@ -306,6 +372,9 @@ public abstract class KiteProvider {
 
         var typeName = typeNameAnnotation.value();
         resourceTypes.put(typeName, resourceType);
+        lazyResourceTypes.remove(typeName);
+        schemaDigests.remove(typeName);
+        registrationVersion.incrementAndGet();
         log.debug("Registered resource type: {} (from @TypeName)", typeName);
     }
 
@@ -317,7 +386,91 @@ public abstract class KiteProvider {
      */
     @SuppressWarnings("unchecked")
     public <T> ResourceTypeHandler<T> getResourceType(String typeName) {
-        return (ResourceTypeHandler<T>) resourceTypes.get(typeName);
+        var resourceType = resourceTypes.get(typeName);
+        if (resourceType == null && lazyResourceTypes.containsKey(typeName)) {
+            resourceType = resolve(typeName);
+        }
+        return (ResourceTypeHandler<T>) resourceType;
+    }
+
+    /**
+     * Get all registered resource types, creating the handlers of deferred ones.
+     *
+     * @return Handlers by type name
+     */
+    public Map<String, ResourceTypeHandler<?>> getResourceTypes() {
+        for (var typeName : lazyResourceTypes.keySet()) {
+            resolve(typeName);
+        }
+        return resourceTypes;
+    }
+
+    /**
+     * Get the names of all registered resource types without creating deferred handlers.
+     */
+    public Set<String> getResourceTypeNames() {
+        var names = new TreeSet<>(resourceTypes.keySet());
+        names.addAll(lazyResourceTypes.keySet());
+        return names;
+    }
+
+    /**
+     * Schema digest of a resource type from the resource types manifest, or null if the type
+     * was not registered from one.
+     */
+    String getSchemaDigest(String typeName) {
+        return schemaDigests.get(typeName);
+    }
+
+    /**
+     * Counter that changes whenever a resource type is registered or dropped.
+     */
+    long getRegistrationVersion() {
+        return registrationVersion.get();
+    }
+
+    /**
+     * Create the handler of a deferred resource type, once.
+     *
+     * <p>The handler is created outside the map and published with {@code putIfAbsent}, so a
+     * constructor that looks up other resource types cannot deadlock on the map. Threads racing
+     * on the same type may each create a handler; all of them get the one published first.</p>
+     *
+     * @return The handler, or null if it could not be created
+     */
+    private ResourceTypeHandler<?> resolve(String typeName) {
+        var existing = resourceTypes.get(typeName);
+        if (existing != null) {
+            return existing;
+        }
+        var factory = lazyResourceTypes.get(typeName);
+        if (factory == null) {
+            return resourceTypes.get(typeName);
+        }
+
+        ResourceTypeHandler<?> resourceType;
+        try {
+            resourceType = factory.get();
+        } catch (RuntimeException e) {
+            log.warn("Failed to create resource type {}: {}", typeName, e.getMessage());
+            if (lazyResourceTypes.remove(typeName, factory)) {
+                registrationVersion.incrementAndGet();
+            }
+            return null;
+        }
+
+        existing = resourceTypes.putIfAbsent(typeName, resourceType);
+        lazyResourceTypes.remove(typeName, factory);
+        if (existing != null) {
+            return existing;
+        }
+        var annotation = resourceType.getResourceClass().getAnnotation(TypeName.class);
+        if (annotation != null && !annotation.value().equals(typeName)) {
+            log.warn("Resource type {} is registered as {} but annotated @TypeName(\"{}\")",
+                    resourceType.getResourceClass().getName(), typeName, annotation.value());
+        }
+        log.debug("Created deferred resource type: {}", typeName);
+        return resourceType;
     }
 
     /**
@@ -331,6 +484,46 @@ public abstract class KiteProvider {
         log.debug("Provider {} configured", name);
     }
 
+    /**
+     * Configure one engine session of a pooled provider, see {@link ProviderSession}.
+     * The default only leaves the configuration on the session, where handlers read it through
+     * {@link ProviderSession#current()}; {@link #configure(Object)} is not called, so sessions
+     * never overwrite each other's configuration in shared provider state. Override to set up
+     * per-session resources such as cloud clients.
+     *
+     * @param session       The session, which already holds the configuration
+     * @param configuration The session's provider configuration
+     */
+    public void configureSession(ProviderSession session, Object configuration) {
+        log.debug("Provider {} configured {}", name, session);
+    }
+
+    /**
+     * Called when an engine session of a pooled provider ends.
+     * Override to release resources held for the session.
+     */
+    public void closeSession(ProviderSession session) {
+        log.debug("Provider {} closed {}", name, session);
+    }
+
+    /**
+     * Get the rate limiters shared by this provider's handlers, keyed by service and region.
+     * Limits can be overridden from the provider configuration, see {@link RateLimiterRegistry}.
+     * During a pool session's calls, the session's own registry is returned.
+     */
+    public RateLimiterRegistry getRateLimiters() {
+        var session = ProviderSession.current();
+        return session != null ? session.getRateLimiters() : rateLimiters;
+    }
+
+    /**
+     * Replace the registry used outside pool sessions, e.g. to share one between providers
+     * that call the same cloud account.
+     */
+    public void setRateLimiters(RateLimiterRegistry rateLimiters) {
+        this.rateLimiters = Objects.requireNonNull(rateLimiters, "rateLimiters");
+    }
+
     /**
      * Register a standard type adapter.
      * Called by providers that support standard library types.
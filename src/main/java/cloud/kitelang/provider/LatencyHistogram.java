@@ -0,0 +1,191 @@
+package cloud.kitelang.provider;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of durations in nanoseconds, laid out like HdrHistogram: each power of two
+ * is split into {@value #SUB_BUCKETS} linear sub-buckets, so a recorded value is known to within
+ * 1/{@value #SUB_BUCKETS} of itself, from 1ns up to about 73 minutes. Longer values land in the
+ * last bucket.
+ *
+ * <p>A histogram can also be given fixed bounds, such as the {@code le} buckets of a Prometheus
+ * export. Values at or below each bound are then counted exactly, since the sub-buckets do not
+ * line up with arbitrary bounds.</p>
+ *
+ * <p>Recording is a handful of atomic adds and never blocks. {@link #snapshot()} copies the
+ * counts while writers keep recording, so a snapshot may be off by the calls recorded during
+ * the copy.</p>
+ */
+public final class LatencyHistogram {
+    static final int SUB_BUCKET_BITS = 3;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    /** Values from 2^MAX_EXPONENT ns (about 73 minutes) on share the last bucket. */
+    static final int MAX_EXPONENT = 42;
+    static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final long[] bounds;
+    private final AtomicLongArray boundCounts;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Create a histogram without fixed bounds.
+     */
+    public LatencyHistogram() {
+        this(new long[0]);
+    }
+
+    /**
+     * Create a histogram that also counts values at or below each of the given bounds exactly.
+     *
+     * @param boundsNanos Bounds in nanoseconds, in ascending order
+     */
+    public LatencyHistogram(long... boundsNanos) {
+        for (int i = 1; i < boundsNanos.length; i++) {
+            if (boundsNanos[i] <= boundsNanos[i - 1]) {
+                throw new IllegalArgumentException("Bounds must be ascending: " + Arrays.toString(boundsNanos));
+            }
+        }
+        this.bounds = boundsNanos.clone();
+        this.boundCounts = new AtomicLongArray(bounds.length);
+    }
+
+    /**
+     * Record one duration.
+     *
+     * @param nanos Duration in nanoseconds; negative values count as 0
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketOf(value));
+        if (bounds.length > 0) {
+            int bound = Arrays.binarySearch(bounds, value);
+            bound = bound >= 0 ? bound : -bound - 1;
+            if (bound < bounds.length) {
+                boundCounts.incrementAndGet(bound);
+            }
+        }
+        count.increment();
+        sum.add(value);
+        long current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+            // Lost a race with a larger or concurrent value, re-read
+        }
+    }
+
+    /**
+     * Copy the current counts.
+     */
+    public Snapshot snapshot() {
+        var copy = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+        }
+        var cumulative = new long[bounds.length];
+        long below = 0;
+        for (int i = 0; i < bounds.length; i++) {
+            below += boundCounts.get(i);
+            cumulative[i] = below;
+        }
+        return new Snapshot(count.sum(), sum.sum(), max.get(), copy, bounds.clone(), cumulative);
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent >= MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Smallest value that falls in a bucket.
+     */
+    static long lowerBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+    }
+
+    /**
+     * Smallest value above a bucket.
+     */
+    static long upperBound(int bucket) {
+        return bucket == BUCKETS - 1 ? Long.MAX_VALUE : lowerBound(bucket + 1);
+    }
+
+    /**
+     * Point-in-time copy of a histogram.
+     *
+     * @param count     Values recorded
+     * @param sumNanos  Sum of the recorded values
+     * @param maxNanos  Largest recorded value
+     * @param counts    Values per bucket
+     * @param bounds    The fixed bounds, in nanoseconds
+     * @param atOrBelow Values at or below each fixed bound
+     */
+    public record Snapshot(long count, long sumNanos, long maxNanos, long[] counts, long[] bounds, long[] atOrBelow) {
+
+        /**
+         * Mean of the recorded values, or 0 when empty.
+         */
+        public double meanNanos() {
+            return count == 0 ? 0 : (double) sumNanos / count;
+        }
+
+        /**
+         * Value at or below which the given share of recorded values fall, to bucket precision.
+         *
+         * @param percentile Between 0 and 100
+         * @return The value in nanoseconds, or 0 when empty
+         */
+        public long valueAtPercentile(double percentile) {
+            long total = 0;
+            for (long bucketCount : counts) {
+                total += bucketCount;
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(Math.min(100, percentile) / 100 * total));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(upperBound(i) - 1, maxNanos);
+                }
+            }
+            return maxNanos;
+        }
+
+        /**
+         * Number of recorded values at or below a bound, for cumulative ({@code le}) histogram
+         * exports. Exact for the histogram's fixed bounds. For other bounds, only buckets that
+         * lie entirely at or below the bound are counted.
+         *
+         * @param nanos Inclusive upper bound
+         */
+        public long countAtOrBelow(long nanos) {
+            int bound = Arrays.binarySearch(bounds, nanos);
+            if (bound >= 0) {
+                return atOrBelow[bound];
+            }
+            long below = 0;
+            for (int i = 0; i < counts.length && upperBound(i) - 1 <= nanos; i++) {
+                below += counts[i];
+            }
+            return below;
+        }
+    }
+}
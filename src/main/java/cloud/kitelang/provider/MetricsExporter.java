@@ -0,0 +1,34 @@
+package cloud.kitelang.provider;
+
+import java.io.IOException;
+import java.util.function.Supplier;
+
+/**
+ * Publishes provider metrics somewhere outside the process.
+ *
+ * <p>Built-in exporters serve Prometheus text over HTTP ({@link PrometheusExporter}) and write an
+ * OpenMetrics file periodically ({@link OpenMetricsFileExporter}), each enabled by its
+ * {@link ProviderServerOptions}. Others are added by listing an implementation in
+ * {@code META-INF/services/cloud.kitelang.provider.MetricsExporter}; they are started with the
+ * built-ins once the server has sent its handshake, and closed when it stops.</p>
+ *
+ * <p>Snapshots are cheap but not free, so exporters should take one per scrape or interval
+ * rather than per metric.</p>
+ */
+public interface MetricsExporter extends AutoCloseable {
+
+    /**
+     * Start exporting, if this exporter is enabled.
+     *
+     * @param metrics Takes a snapshot of the provider's metrics
+     * @param options Server options, for exporter settings
+     * @return false if the options leave this exporter disabled
+     */
+    boolean start(Supplier<MetricsSnapshot> metrics, ProviderServerOptions options) throws IOException;
+
+    /**
+     * Stop exporting and release resources. Does not throw.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,70 @@
+package cloud.kitelang.provider;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.function.Supplier;
+
+/**
+ * The started {@link MetricsExporter}s of a server: the built-ins and those listed in
+ * {@code META-INF/services/cloud.kitelang.provider.MetricsExporter}.
+ */
+@Slf4j
+final class MetricsExporters implements AutoCloseable {
+    private final List<MetricsExporter> started;
+
+    private MetricsExporters(List<MetricsExporter> started) {
+        this.started = started;
+    }
+
+    /**
+     * Start every enabled exporter. Exporters that fail to start are logged and skipped.
+     */
+    static MetricsExporters start(Supplier<MetricsSnapshot> metrics, ProviderServerOptions options) {
+        var candidates = new ArrayList<MetricsExporter>();
+        candidates.add(new PrometheusExporter());
+        candidates.add(new OpenMetricsFileExporter());
+        try {
+            for (var exporter : ServiceLoader.load(MetricsExporter.class)) {
+                candidates.add(exporter);
+            }
+        } catch (ServiceConfigurationError e) {
+            log.warn("Failed to load metrics exporters: {}", e.getMessage());
+        }
+
+        var started = new ArrayList<MetricsExporter>();
+        for (var exporter : candidates) {
+            try {
+                if (exporter.start(metrics, options)) {
+                    started.add(exporter);
+                    log.debug("Started metrics exporter {}", exporter.getClass().getName());
+                }
+            } catch (Exception e) {
+                log.warn("Failed to start metrics exporter {}: {}", exporter.getClass().getName(), e.getMessage());
+                exporter.close();
+            }
+        }
+        return new MetricsExporters(List.copyOf(started));
+    }
+
+    /**
+     * The exporters that started.
+     */
+    List<MetricsExporter> getStarted() {
+        return started;
+    }
+
+    @Override
+    public void close() {
+        for (var exporter : started) {
+            try {
+                exporter.close();
+            } catch (RuntimeException e) {
+                log.warn("Error closing metrics exporter {}", exporter.getClass().getName(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package cloud.kitelang.provider;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Writes a {@link MetricsSnapshot} in the Prometheus text exposition format (0.0.4) or in
+ * OpenMetrics 1.0. The two differ only in how counters are named and in the closing
+ * {@code # EOF}.
+ */
+final class MetricsFormat {
+    static final String PROMETHEUS_CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    static final String OPENMETRICS_CONTENT_TYPE = "application/openmetrics-text; version=1.0.0; charset=utf-8";
+
+    /** Histogram bucket bounds in seconds, from sub-millisecond decoding to multi-minute handlers. */
+    private static final double[] BUCKETS = {
+            0.0001, 0.0005, 0.001, 0.005, 0.01, 0.05, 0.1, 0.5, 1, 5, 10, 30, 60, 300, 900
+    };
+    /** {@link #BUCKETS} in nanoseconds, which {@link ProviderMetrics} histograms count exactly. */
+    static final long[] BUCKET_NANOS = Arrays.stream(BUCKETS).mapToLong(bound -> Math.round(bound * 1e9)).toArray();
+    private static final String PREFIX = "kite_provider_";
+
+    private final StringBuilder out = new StringBuilder(4096);
+    private final boolean openMetrics;
+
+    private MetricsFormat(boolean openMetrics) {
+        this.openMetrics = openMetrics;
+    }
+
+    static String prometheus(MetricsSnapshot snapshot) {
+        return new MetricsFormat(false).write(snapshot);
+    }
+
+    static String openMetrics(MetricsSnapshot snapshot) {
+        return new MetricsFormat(true).write(snapshot);
+    }
+
+    private String write(MetricsSnapshot snapshot) {
+        var provider = snapshot.provider();
+
+        family("uptime_seconds", "gauge", "Time since the provider service started.");
+        sample("uptime_seconds", snapshot.uptimeMs() / 1000.0, "provider", provider);
+
+        family("rpc_duration_seconds", "histogram", "RPC latency by method, resource type, outcome and phase.");
+        for (var call : snapshot.calls()) {
+            var key = call.key();
+            for (var entry : call.latencies().entrySet()) {
+                var histogram = entry.getValue();
+                String[] labels = {"provider", provider, "method", key.method(), "type", key.typeName(),
+                        "outcome", key.outcome().label(), "phase", entry.getKey().name().toLowerCase(Locale.ROOT)};
+                for (int i = 0; i < BUCKETS.length; i++) {
+                    sample("rpc_duration_seconds_bucket", histogram.countAtOrBelow(BUCKET_NANOS[i]),
+                            labels, "le", BigDecimal.valueOf(BUCKETS[i]).toPlainString());
+                }
+                sample("rpc_duration_seconds_bucket", histogram.count(), labels, "le", "+Inf");
+                sample("rpc_duration_seconds_sum", histogram.sumNanos() / 1e9, labels);
+                sample("rpc_duration_seconds_count", histogram.count(), labels);
+            }
+        }
+
+        counter("payload_bytes", "Resource payload bytes decoded (in) and encoded (out).");
+        for (var call : snapshot.calls()) {
+            var key = call.key();
+            sample(total("payload_bytes"), call.bytesIn(), "provider", provider, "method", key.method(),
+                    "type", key.typeName(), "direction", "in");
+            sample(total("payload_bytes"), call.bytesOut(), "provider", provider, "method", key.method(),
+                    "type", key.typeName(), "direction", "out");
+        }
+
+        family("in_flight_calls", "gauge", "Calls running now by method.");
+        for (var entry : snapshot.inFlight().entrySet()) {
+            sample("in_flight_calls", entry.getValue(), "provider", provider, "method", entry.getKey());
+        }
+
+        counter("handler_errors", "Handler failures by method, resource type and cloud error code.");
+        for (var error : snapshot.errors()) {
+            sample(total("handler_errors"), error.count(), "provider", provider, "method", error.method(),
+                    "type", error.typeName(), "code", error.code());
+        }
+
+        counter("retry_attempts", "Handler attempts, including first attempts.");
+        for (var retry : snapshot.retries()) {
+            sample(total("retry_attempts"), retry.attempts(), "provider", provider, "key", retry.key());
+        }
+        counter("retries", "Handler attempts that were retries.");
+        for (var retry : snapshot.retries()) {
+            sample(total("retries"), retry.retries(), "provider", provider, "key", retry.key());
+        }
+        counter("retries_exhausted", "Calls that failed after using all attempts.");
+        for (var retry : snapshot.retries()) {
+            sample(total("retries_exhausted"), retry.exhausted(), "provider", provider, "key", retry.key());
+        }
+        counter("retry_budget_rejected", "Retries skipped because the retry budget was spent.");
+        for (var retry : snapshot.retries()) {
+            sample(total("retry_budget_rejected"), retry.budgetRejected(), "provider", provider, "key", retry.key());
+        }
+
+        counter("rate_limit_waits", "Rate limiter acquisitions that had to wait.");
+        for (var limiter : snapshot.rateLimits()) {
+            sample(total("rate_limit_waits"), limiter.waited(), "provider", provider, "key", limiter.key());
+        }
+        counter("rate_limit_wait_seconds", "Time spent waiting for rate limiter tokens.");
+        for (var limiter : snapshot.rateLimits()) {
+            sample(total("rate_limit_wait_seconds"), limiter.totalWait().toNanos() / 1e9,
+                    "provider", provider, "key", limiter.key());
+        }
+
+        family("concurrency_limit", "gauge", "Current adaptive concurrency limit.");
+        for (var limiter : snapshot.concurrency()) {
+            sample("concurrency_limit", limiter.limit(), "provider", provider, "key", limiter.key());
+        }
+        family("concurrency_queued", "gauge", "Calls waiting for a concurrency permit.");
+        for (var limiter : snapshot.concurrency()) {
+            sample("concurrency_queued", limiter.queued(), "provider", provider, "key", limiter.key());
+        }
+
+        var jvm = snapshot.jvm();
+        if (jvm.allocatedBytes() >= 0) {
+            counter("jvm_allocated_bytes", "Bytes allocated by all threads; its rate is the allocation rate.");
+            sample(total("jvm_allocated_bytes"), jvm.allocatedBytes(), "provider", provider);
+        }
+        family("jvm_heap_used_bytes", "gauge", "Heap in use.");
+        sample("jvm_heap_used_bytes", jvm.heapUsedBytes(), "provider", provider);
+        if (jvm.heapMaxBytes() >= 0) {
+            family("jvm_heap_max_bytes", "gauge", "Maximum heap.");
+            sample("jvm_heap_max_bytes", jvm.heapMaxBytes(), "provider", provider);
+        }
+        counter("jvm_gc_collections", "Garbage collections.");
+        sample(total("jvm_gc_collections"), jvm.gcCount(), "provider", provider);
+        counter("jvm_gc_seconds", "Time spent in garbage collection.");
+        sample(total("jvm_gc_seconds"), jvm.gcTimeMs() / 1000.0, "provider", provider);
+        family("jvm_threads", "gauge", "Live platform threads.");
+        sample("jvm_threads", jvm.threads(), "provider", provider);
+
+        if (openMetrics) {
+            out.append("# EOF\n");
+        }
+        return out.toString();
+    }
+
+    private void counter(String name, String help) {
+        // OpenMetrics names the counter family without _total, Prometheus text with it
+        family(openMetrics ? name : total(name), "counter", help);
+    }
+
+    private static String total(String name) {
+        return name + "_total";
+    }
+
+    private void family(String name, String type, String help) {
+        out.append("# HELP ").append(PREFIX).append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(PREFIX).append(name).append(' ').append(type).append('\n');
+    }
+
+    private void sample(String name, double value, String... labels) {
+        sample(name, value, labels, new String[0]);
+    }
+
+    private void sample(String name, double value, String[] labels, String... extraLabels) {
+        out.append(PREFIX).append(name);
+        if (labels.length + extraLabels.length > 0) {
+            out.append('{');
+            appendLabels(labels, false);
+            appendLabels(extraLabels, labels.length > 0);
+            out.append('}');
+        }
+        out.append(' ').append(format(value)).append('\n');
+    }
+
+    private void appendLabels(String[] labels, boolean separate) {
+        for (int i = 0; i < labels.length; i += 2) {
+            if (separate || i > 0) {
+                out.append(',');
+            }
+            out.append(labels[i]).append("=\"").append(escape(labels[i + 1])).append('"');
+        }
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String format(double value) {
+        if (value == Math.rint(value) && !Double.isInfinite(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+}
@@ -0,0 +1,130 @@
+package cloud.kitelang.provider;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.grpc.BindableService;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.stub.ServerCalls;
+import io.grpc.stub.StreamObserver;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Unary {@code GetMetrics} RPC returning {@link ProviderMetrics} as JSON, so the engine can print
+ * a per-provider performance summary at the end of an apply.
+ *
+ * <p>The request body is ignored. The response is a UTF-8 JSON document:</p>
+ * <pre>{@code
+ * {
+ *   "uptimeMs": 81234,
+ *   "inFlight": {"CreateResource": 2},
+ *   "calls": [{
+ *     "method": "CreateResource", "type": "S3Bucket", "outcome": "ok", "count": 12,
+ *     "bytesIn": 5120, "bytesOut": 7340,
+ *     "latency": {
+ *       "total": {"count": 12, "sumNanos": ..., "maxNanos": ..., "p50Nanos": ..., "p90Nanos": ..., "p99Nanos": ...},
+ *       "decode": {...}, "handler": {...}, "encode": {...}
+ *     }
+ *   }]
+ * }
+ * }</pre>
+ */
+public class MetricsService implements BindableService {
+    public static final String SERVICE_NAME = "kite.v1.Metrics";
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final MethodDescriptor<byte[], byte[]> GET_METRICS_METHOD =
+            MethodDescriptor.<byte[], byte[]>newBuilder()
+                    .setType(MethodDescriptor.MethodType.UNARY)
+                    .setFullMethodName(MethodDescriptor.generateFullMethodName(SERVICE_NAME, "GetMetrics"))
+                    .setRequestMarshaller(BytesMarshaller.INSTANCE)
+                    .setResponseMarshaller(BytesMarshaller.INSTANCE)
+                    .build();
+
+    private final ProviderServiceImpl service;
+
+    public MetricsService(ProviderServiceImpl service) {
+        this.service = service;
+    }
+
+    /**
+     * The metrics method, for building clients. Requests and responses are raw bytes.
+     */
+    public static MethodDescriptor<byte[], byte[]> getGetMetricsMethod() {
+        return GET_METRICS_METHOD;
+    }
+
+    @Override
+    public ServerServiceDefinition bindService() {
+        return ServerServiceDefinition.builder(SERVICE_NAME)
+                .addMethod(GET_METRICS_METHOD, ServerCalls.asyncUnaryCall(this::getMetrics))
+                .build();
+    }
+
+    private void getMetrics(byte[] request, StreamObserver<byte[]> responseObserver) {
+        try {
+            responseObserver.onNext(JSON.writeValueAsBytes(toJson(service)));
+            responseObserver.onCompleted();
+        } catch (IOException e) {
+            responseObserver.onError(new UncheckedIOException(e));
+        }
+    }
+
+    /**
+     * The metrics document as maps and lists, ready for a JSON writer.
+     */
+    static Map<String, Object> toJson(ProviderServiceImpl service) {
+        var calls = service.getMetrics().snapshots().stream().map(snapshot -> {
+            var latency = new LinkedHashMap<String, Object>();
+            for (var entry : snapshot.latencies().entrySet()) {
+                var histogram = entry.getValue();
+                latency.put(entry.getKey().name().toLowerCase(Locale.ROOT), Map.of(
+                        "count", histogram.count(),
+                        "sumNanos", histogram.sumNanos(),
+                        "maxNanos", histogram.maxNanos(),
+                        "p50Nanos", histogram.valueAtPercentile(50),
+                        "p90Nanos", histogram.valueAtPercentile(90),
+                        "p99Nanos", histogram.valueAtPercentile(99)));
+            }
+            var call = new LinkedHashMap<String, Object>();
+            call.put("method", snapshot.key().method());
+            call.put("type", snapshot.key().typeName());
+            call.put("outcome", snapshot.key().outcome().label());
+            call.put("count", snapshot.count());
+            call.put("bytesIn", snapshot.bytesIn());
+            call.put("bytesOut", snapshot.bytesOut());
+            call.put("latency", latency);
+            return call;
+        }).toList();
+
+        var document = new LinkedHashMap<String, Object>();
+        document.put("uptimeMs", service.getUptimeMs());
+        document.put("inFlight", service.getInFlightCounts());
+        document.put("calls", calls);
+        return document;
+    }
+
+    private enum BytesMarshaller implements MethodDescriptor.Marshaller<byte[]> {
+        INSTANCE;
+
+        @Override
+        public InputStream stream(byte[] value) {
+            return new ByteArrayInputStream(value);
+        }
+
+        @Override
+        public byte[] parse(InputStream stream) {
+            try {
+                return stream.readAllBytes();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
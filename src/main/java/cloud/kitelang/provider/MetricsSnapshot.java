@@ -0,0 +1,64 @@
+package cloud.kitelang.provider;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Everything a {@link MetricsExporter} exports, taken at one point in time with
+ * {@link ProviderServiceImpl#metricsSnapshot()}.
+ *
+ * @param provider    Provider name
+ * @param uptimeMs    Time since the service started
+ * @param calls       Latency and bytes per method, resource type and outcome
+ * @param errors      Handler failures per method, resource type and error code
+ * @param inFlight    Calls running per method
+ * @param retries     Retry counts per operation and resource type
+ * @param rateLimits  Throttling per rate limiter
+ * @param concurrency Adaptive concurrency limits and queues
+ * @param jvm         Process memory, allocation and GC numbers
+ */
+public record MetricsSnapshot(String provider,
+                              long uptimeMs,
+                              List<ProviderMetrics.Snapshot> calls,
+                              List<ProviderMetrics.ErrorCount> errors,
+                              Map<String, Integer> inFlight,
+                              List<RetryEngine.Snapshot> retries,
+                              List<RateLimiter.Snapshot> rateLimits,
+                              List<ConcurrencyLimiter.Snapshot> concurrency,
+                              Jvm jvm) {
+
+    /**
+     * JVM numbers. Counters only grow; the allocation rate is the increase of
+     * {@code allocatedBytes} over time.
+     *
+     * @param allocatedBytes Bytes allocated by all threads since start, or -1 if the JVM does not tell
+     * @param heapUsedBytes  Heap in use
+     * @param heapMaxBytes   Maximum heap, or -1 if undefined
+     * @param gcCount        Garbage collections since start
+     * @param gcTimeMs       Time spent in garbage collection since start
+     * @param threads        Live platform threads
+     */
+    public record Jvm(long allocatedBytes, long heapUsedBytes, long heapMaxBytes,
+                      long gcCount, long gcTimeMs, int threads) {
+
+        /**
+         * Read the numbers of the running JVM.
+         */
+        public static Jvm current() {
+            var heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+            long gcCount = 0;
+            long gcTimeMs = 0;
+            for (var gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                gcCount += Math.max(0, gc.getCollectionCount());
+                gcTimeMs += Math.max(0, gc.getCollectionTime());
+            }
+            var threads = ManagementFactory.getThreadMXBean();
+            long allocated = threads instanceof com.sun.management.ThreadMXBean hotspot
+                    && hotspot.isThreadAllocatedMemorySupported() && hotspot.isThreadAllocatedMemoryEnabled()
+                    ? hotspot.getTotalThreadAllocatedBytes()
+                    : -1;
+            return new Jvm(allocated, heap.getUsed(), heap.getMax(), gcCount, gcTimeMs, threads.getThreadCount());
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package cloud.kitelang.provider;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Writes metrics in OpenMetrics format to a file every
+ * {@link ProviderServerOptions#getMetricsInterval()}, and once more on close, for node exporters'
+ * textfile collectors or for reading after a run. Each write replaces the file atomically, so
+ * readers never see a partial file.
+ *
+ * <p>Enabled by {@link ProviderServerOptions#getMetricsFile()}.</p>
+ */
+@Slf4j
+public class OpenMetricsFileExporter implements MetricsExporter {
+    private Path file;
+    private Supplier<MetricsSnapshot> metrics;
+    private ScheduledExecutorService scheduler;
+
+    @Override
+    public boolean start(Supplier<MetricsSnapshot> metrics, ProviderServerOptions options) {
+        if (options.getMetricsFile() == null) {
+            return false;
+        }
+        this.file = options.getMetricsFile();
+        this.metrics = metrics;
+        long intervalMs = options.getMetricsInterval().toMillis();
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-file");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleAtFixedRate(this::writeQuietly, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        log.info("Writing metrics to {} every {}s", file, intervalMs / 1000);
+        return true;
+    }
+
+    /**
+     * Write the current metrics to the file.
+     */
+    void write() throws IOException {
+        var parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        var temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            Files.writeString(temp, MetricsFormat.openMetrics(metrics.get()), StandardCharsets.UTF_8);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private void writeQuietly() {
+        try {
+            write();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to write metrics to {}: {}", file, e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            writeQuietly();
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package cloud.kitelang.provider;
+
+import cloud.kitelang.proto.v1.CreateResource;
+import cloud.kitelang.proto.v1.DeleteResource;
+import cloud.kitelang.proto.v1.Diagnostic;
+import cloud.kitelang.proto.v1.PlanResourceChange;
+import cloud.kitelang.proto.v1.ReadResource;
+import cloud.kitelang.proto.v1.UpdateResource;
+import cloud.kitelang.proto.v1.ValidateResourceConfig;
+import com.google.protobuf.Message;
+import io.grpc.BindableService;
+import io.grpc.Context;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.ServerCalls;
+import io.grpc.stub.StreamObserver;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bidirectional stream multiplexing many resource operations over one gRPC call.
+ *
+ * <p>The engine sends tagged {@link OperationFrame}s (create, read, update, delete, plan or
+ * validate). Each is dispatched onto its own virtual thread through {@link ProviderServiceImpl},
+ * so it gets the same decoding, concurrency limiting and retries as the unary RPCs, and its
+ * result is sent back with the same tag as soon as it completes, in any order. An operation that
+ * fails outside its handler is answered with an error result for its tag; the stream itself only
+ * fails on stream-level faults.</p>
+ *
+ * <p>At most {@code maxInFlight} operations run at once: further frames are only requested from
+ * the transport as operations finish, and not while the engine is not reading results, so HTTP/2
+ * flow control pushes back on an engine that sends faster than the provider can work.</p>
+ *
+ * <p>Once the provider starts draining, a stream stops requesting frames. Frames already received
+ * are answered with an {@code UNAVAILABLE} error result for their tag, and the stream completes as
+ * soon as its running operations have sent their results, or right away if none are running.</p>
+ */
+@Slf4j
+public class OperationChannel implements BindableService {
+    public static final String SERVICE_NAME = "kite.v1.OperationChannel";
+    public static final int DEFAULT_MAX_IN_FLIGHT = 128;
+
+    private static final MethodDescriptor<OperationFrame, OperationFrame> OPERATE_METHOD =
+            MethodDescriptor.<OperationFrame, OperationFrame>newBuilder()
+                    .setType(MethodDescriptor.MethodType.BIDI_STREAMING)
+                    .setFullMethodName(MethodDescriptor.generateFullMethodName(SERVICE_NAME, "Operate"))
+                    .setRequestMarshaller(OperationFrame.requestMarshaller())
+                    .setResponseMarshaller(OperationFrame.responseMarshaller())
+                    .build();
+
+    private final ProviderServiceImpl service;
+    private final int maxInFlight;
+
+    /**
+     * @param service     Executes the operations
+     * @param maxInFlight Operations allowed to run at once per stream
+     */
+    public OperationChannel(ProviderServiceImpl service, int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be positive: " + maxInFlight);
+        }
+        this.service = service;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * The streaming method, for building clients.
+     */
+    public static MethodDescriptor<OperationFrame, OperationFrame> getOperateMethod() {
+        return OPERATE_METHOD;
+    }
+
+    @Override
+    public ServerServiceDefinition bindService() {
+        return ServerServiceDefinition.builder(SERVICE_NAME)
+                .addMethod(OPERATE_METHOD, ServerCalls.asyncBidiStreamingCall(this::operate))
+                .build();
+    }
+
+    private StreamObserver<OperationFrame> operate(StreamObserver<OperationFrame> responseObserver) {
+        var stream = new Stream((ServerCallStreamObserver<OperationFrame>) responseObserver);
+        stream.start();
+        return stream;
+    }
+
+    private static Message failedResult(OperationFrame.Kind kind, Diagnostic diagnostic) {
+        return switch (kind) {
+            case CREATE -> CreateResource.Response.newBuilder().addDiagnostics(diagnostic).build();
+            case READ -> ReadResource.Response.newBuilder().addDiagnostics(diagnostic).build();
+            case UPDATE -> UpdateResource.Response.newBuilder().addDiagnostics(diagnostic).build();
+            case DELETE -> DeleteResource.Response.newBuilder().addDiagnostics(diagnostic).build();
+            case PLAN -> PlanResourceChange.Response.newBuilder().addDiagnostics(diagnostic).build();
+            case VALIDATE -> ValidateResourceConfig.Response.newBuilder().addDiagnostics(diagnostic).build();
+        };
+    }
+
+    /**
+     * State of one open stream. Responses and flow-control requests are serialized on
+     * {@code this}, since gRPC observers are not thread-safe.
+     */
+    private final class Stream implements StreamObserver<OperationFrame> {
+        private final ServerCallStreamObserver<OperationFrame> responses;
+        private final Runnable drainListener = this::drain;
+        private int inFlight;
+        private int deferredRequests;
+        private boolean halfClosed;
+        private boolean draining;
+        private boolean closed;
+
+        private Stream(ServerCallStreamObserver<OperationFrame> responses) {
+            this.responses = responses;
+        }
+
+        private void start() {
+            responses.disableAutoRequest();
+            responses.setOnReadyHandler(this::onReady);
+            responses.setOnCancelHandler(() -> {
+                synchronized (this) {
+                    close();
+                }
+                log.debug("Operation stream cancelled");
+            });
+            responses.request(maxInFlight);
+            service.getInFlightCalls().addDrainListener(drainListener);
+        }
+
+        @Override
+        public void onNext(OperationFrame frame) {
+            synchronized (this) {
+                inFlight++;
+            }
+            // Carry the call's context, and with it the pool session, to the operation's thread
+            Thread.ofVirtual().name("operation-" + frame.tag()).start(Context.current().wrap(() -> dispatch(frame)));
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            synchronized (this) {
+                close();
+            }
+            log.debug("Operation stream failed: {}", t.getMessage());
+        }
+
+        @Override
+        public void onCompleted() {
+            synchronized (this) {
+                halfClosed = true;
+                completeIfDone();
+            }
+        }
+
+        private void dispatch(OperationFrame frame) {
+            var calls = service.getInFlightCalls();
+            if (!calls.tryBegin(frame.kind().methodName())) {
+                fail(frame, Status.UNAVAILABLE.withDescription("Provider is shutting down").asRuntimeException());
+                return;
+            }
+            var session = ProviderSession.current();
+            var sessionCalls = session != null ? session.getInFlightCalls() : null;
+            if (sessionCalls != null && !sessionCalls.tryBegin(frame.kind().methodName())) {
+                calls.end(frame.kind().methodName());
+                fail(frame, Status.UNAVAILABLE.withDescription("Session is ending").asRuntimeException());
+                return;
+            }
+            var observer = new ResultObserver(frame, calls, sessionCalls);
+            try {
+                switch (frame.kind()) {
+                    case CREATE -> service.createResource((CreateResource.Request) frame.payload(), observer.as());
+                    case READ -> service.readResource((ReadResource.Request) frame.payload(), observer.as());
+                    case UPDATE -> service.updateResource((UpdateResource.Request) frame.payload(), observer.as());
+                    case DELETE -> service.deleteResource((DeleteResource.Request) frame.payload(), observer.as());
+                    case PLAN -> service.planResourceChange((PlanResourceChange.Request) frame.payload(), observer.as());
+                    case VALIDATE -> service.validateResourceConfig((ValidateResourceConfig.Request) frame.payload(), observer.as());
+                }
+            } catch (RuntimeException e) {
+                log.error("Operation {} {} failed", frame.kind(), frame.tag(), e);
+                observer.onError(e);
+            }
+        }
+
+        private synchronized void send(OperationFrame result) {
+            if (closed) {
+                return;
+            }
+            responses.onNext(result);
+            release();
+        }
+
+        /**
+         * Answer an operation that failed outside its handler with an error result for its tag.
+         * The stream stays open for the other operations.
+         */
+        private void fail(OperationFrame frame, Throwable error) {
+            var detail = error instanceof StatusRuntimeException statusError
+                    ? statusError.getStatus().getDescription()
+                    : error.getMessage();
+            var diagnostic = ProviderServiceImpl.errorDiagnostic("Operation failed", detail);
+            send(new OperationFrame(frame.tag(), frame.kind(), failedResult(frame.kind(), diagnostic)));
+        }
+
+        /**
+         * Finish an operation and let the next frame in, unless the engine is not keeping up with
+         * results or the provider is draining.
+         */
+        private void release() {
+            inFlight--;
+            if (draining || service.getInFlightCalls().isDraining()) {
+                drain();
+                return;
+            }
+            if (responses.isReady()) {
+                responses.request(1);
+            } else {
+                deferredRequests++;
+            }
+            completeIfDone();
+        }
+
+        /**
+         * Stop letting frames in because the provider is draining, and complete the stream if no
+         * operation is running.
+         */
+        private synchronized void drain() {
+            draining = true;
+            deferredRequests = 0;
+            completeIfDone();
+        }
+
+        private synchronized void onReady() {
+            if (deferredRequests > 0 && !closed && !draining) {
+                responses.request(deferredRequests);
+                deferredRequests = 0;
+            }
+        }
+
+        private void completeIfDone() {
+            if ((halfClosed || draining) && inFlight == 0 && !closed) {
+                close();
+                responses.onCompleted();
+            }
+        }
+
+        private void close() {
+            closed = true;
+            service.getInFlightCalls().removeDrainListener(drainListener);
+        }
+
+        /**
+         * Receives the single response of one dispatched operation.
+         */
+        private final class ResultObserver implements StreamObserver<Message> {
+            private final OperationFrame frame;
+            private final InFlightCalls calls;
+            private final InFlightCalls sessionCalls;
+            private Message result;
+
+            private ResultObserver(OperationFrame frame, InFlightCalls calls, InFlightCalls sessionCalls) {
+                this.frame = frame;
+                this.calls = calls;
+                this.sessionCalls = sessionCalls;
+            }
+
+            @SuppressWarnings("unchecked")
+            private <V extends Message> StreamObserver<V> as() {
+                return (StreamObserver<V>) (StreamObserver<?>) this;
+            }
+
+            @Override
+            public void onNext(Message value) {
+                result = value;
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                end();
+                fail(frame, t);
+            }
+
+            @Override
+            public void onCompleted() {
+                end();
+                send(new OperationFrame(frame.tag(), frame.kind(), result));
+            }
+
+            private void end() {
+                calls.end(frame.kind().methodName());
+                if (sessionCalls != null) {
+                    sessionCalls.end(frame.kind().methodName());
+                }
+            }
+        }
+    }
+}
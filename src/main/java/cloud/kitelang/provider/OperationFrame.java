@@ -0,0 +1,151 @@
+package cloud.kitelang.provider;
+
+import cloud.kitelang.proto.v1.CreateResource;
+import cloud.kitelang.proto.v1.DeleteResource;
+import cloud.kitelang.proto.v1.PlanResourceChange;
+import cloud.kitelang.proto.v1.ReadResource;
+import cloud.kitelang.proto.v1.UpdateResource;
+import cloud.kitelang.proto.v1.ValidateResourceConfig;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.ExtensionRegistryLite;
+import com.google.protobuf.Message;
+import com.google.protobuf.Parser;
+import com.google.protobuf.WireFormat;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * One tagged request or result on the {@link OperationChannel} stream.
+ *
+ * <p>Frames are encoded as protobuf, wire-compatible with:</p>
+ * <pre>
+ * message OperationFrame {
+ *   uint64 tag = 1;
+ *   oneof operation {
+ *     CreateResource.Request|Response create = 2;
+ *     ReadResource.Request|Response read = 3;
+ *     UpdateResource.Request|Response update = 4;
+ *     DeleteResource.Request|Response delete = 5;
+ *     PlanResourceChange.Request|Response plan = 6;
+ *     ValidateResourceConfig.Request|Response validate = 7;
+ *   }
+ * }
+ * </pre>
+ *
+ * @param tag     Chosen by the engine to match results to requests
+ * @param kind    The operation
+ * @param payload The operation's request or response message
+ */
+public record OperationFrame(long tag, Kind kind, Message payload) {
+
+    /**
+     * Operations that can be sent on the stream, with their field numbers, the unary RPC
+     * they correspond to and message parsers.
+     */
+    public enum Kind {
+        CREATE(2, "CreateResource", CreateResource.Request.parser(), CreateResource.Response.parser()),
+        READ(3, "ReadResource", ReadResource.Request.parser(), ReadResource.Response.parser()),
+        UPDATE(4, "UpdateResource", UpdateResource.Request.parser(), UpdateResource.Response.parser()),
+        DELETE(5, "DeleteResource", DeleteResource.Request.parser(), DeleteResource.Response.parser()),
+        PLAN(6, "PlanResourceChange", PlanResourceChange.Request.parser(), PlanResourceChange.Response.parser()),
+        VALIDATE(7, "ValidateResourceConfig", ValidateResourceConfig.Request.parser(), ValidateResourceConfig.Response.parser());
+
+        private final int fieldNumber;
+        private final String methodName;
+        private final Parser<? extends Message> requestParser;
+        private final Parser<? extends Message> responseParser;
+
+        Kind(int fieldNumber, String methodName,
+             Parser<? extends Message> requestParser, Parser<? extends Message> responseParser) {
+            this.fieldNumber = fieldNumber;
+            this.methodName = methodName;
+            this.requestParser = requestParser;
+            this.responseParser = responseParser;
+        }
+
+        /**
+         * Get the name of the unary RPC this operation corresponds to, e.g. {@code CreateResource}.
+         */
+        public String methodName() {
+            return methodName;
+        }
+
+        private static Kind forField(int fieldNumber) {
+            for (var kind : values()) {
+                if (kind.fieldNumber == fieldNumber) {
+                    return kind;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Marshaller for frames carrying requests (engine to provider).
+     */
+    static MethodDescriptor.Marshaller<OperationFrame> requestMarshaller() {
+        return new FrameMarshaller(true);
+    }
+
+    /**
+     * Marshaller for frames carrying responses (provider to engine).
+     */
+    static MethodDescriptor.Marshaller<OperationFrame> responseMarshaller() {
+        return new FrameMarshaller(false);
+    }
+
+    private record FrameMarshaller(boolean requests) implements MethodDescriptor.Marshaller<OperationFrame> {
+
+        @Override
+        public InputStream stream(OperationFrame frame) {
+            int size = CodedOutputStream.computeUInt64Size(1, frame.tag())
+                    + CodedOutputStream.computeMessageSize(frame.kind().fieldNumber, frame.payload());
+            var bytes = new byte[size];
+            var output = CodedOutputStream.newInstance(bytes);
+            try {
+                output.writeUInt64(1, frame.tag());
+                output.writeMessage(frame.kind().fieldNumber, frame.payload());
+                output.checkNoSpaceLeft();
+            } catch (IOException e) {
+                throw Status.INTERNAL.withDescription("Failed to encode operation frame").withCause(e).asRuntimeException();
+            }
+            return new ByteArrayInputStream(bytes);
+        }
+
+        @Override
+        public OperationFrame parse(InputStream stream) {
+            try {
+                var input = CodedInputStream.newInstance(stream);
+                long tag = 0;
+                Kind kind = null;
+                Message payload = null;
+                int wireTag;
+                while ((wireTag = input.readTag()) != 0) {
+                    int field = WireFormat.getTagFieldNumber(wireTag);
+                    var fieldKind = field == 1 ? null : Kind.forField(field);
+                    if (field == 1) {
+                        tag = input.readUInt64();
+                    } else if (fieldKind != null) {
+                        var parser = requests ? fieldKind.requestParser : fieldKind.responseParser;
+                        kind = fieldKind;
+                        payload = input.readMessage(parser, ExtensionRegistryLite.getEmptyRegistry());
+                    } else if (!input.skipField(wireTag)) {
+                        break;
+                    }
+                }
+                if (kind == null) {
+                    throw Status.INVALID_ARGUMENT.withDescription("Operation frame " + tag + " has no operation")
+                            .asRuntimeException();
+                }
+                return new OperationFrame(tag, kind, payload);
+            } catch (IOException e) {
+                throw Status.INVALID_ARGUMENT.withDescription("Malformed operation frame").withCause(e).asRuntimeException();
+            }
+        }
+    }
+}
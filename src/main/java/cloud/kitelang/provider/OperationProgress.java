@@ -0,0 +1,19 @@
+package cloud.kitelang.provider;
+
+import java.time.Duration;
+
+/**
+ * Progress event for a long-running operation tracked by {@link OperationTracker}.
+ *
+ * @param operationType The operation type name (e.g. "rds:cluster")
+ * @param operationId   The cloud-side identifier of the operation or resource
+ * @param state         The current state
+ * @param message       The latest progress or failure message (may be null)
+ * @param elapsed       Time since tracking started
+ */
+public record OperationProgress(String operationType,
+                                String operationId,
+                                OperationStatus.State state,
+                                String message,
+                                Duration elapsed) {
+}
@@ -0,0 +1,45 @@
+package cloud.kitelang.provider;
+
+/**
+ * Status of a long-running cloud operation, as reported by an
+ * {@link OperationTracker.StatusFetcher}.
+ *
+ * @param state   Whether the operation is still running, succeeded or failed
+ * @param result  The resulting resource state once succeeded, otherwise null
+ * @param message Human-readable progress or failure message (optional)
+ * @param <T>     The resource class type
+ */
+public record OperationStatus<T>(State state, T result, String message) {
+
+    /**
+     * State of a long-running operation.
+     */
+    public enum State {
+        PENDING,
+        SUCCEEDED,
+        FAILED
+    }
+
+    /**
+     * The operation is still running.
+     *
+     * @param message progress message, e.g. the cloud-side status ("creating", "backing-up")
+     */
+    public static <T> OperationStatus<T> pending(String message) {
+        return new OperationStatus<>(State.PENDING, null, message);
+    }
+
+    /**
+     * The operation finished successfully.
+     */
+    public static <T> OperationStatus<T> succeeded(T result) {
+        return new OperationStatus<>(State.SUCCEEDED, result, null);
+    }
+
+    /**
+     * The operation failed.
+     */
+    public static <T> OperationStatus<T> failed(String message) {
+        return new OperationStatus<>(State.FAILED, null, message);
+    }
+}
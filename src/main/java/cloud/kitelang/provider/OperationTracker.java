@@ -0,0 +1,375 @@
+package cloud.kitelang.provider;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Polling engine for long-running cloud operations (RDS clusters, EKS node groups, ...).
+ * Each {@link KiteProvider} owns one, shut down with its server.
+ *
+ * <p>Instead of each handler sleeping in its own loop, a handler registers an operation type
+ * once with a {@link StatusFetcher} that can describe many operations in one call, and then
+ * tracks individual operations. A single scheduler polls all pending operations of a type
+ * together, backing off per operation, and completes each returned future when its
+ * operation finishes. Progress is published to listeners as {@link OperationProgress} events.</p>
+ *
+ * <p>Handlers get the provider's tracker when the provider creates them:</p>
+ * <pre>{@code
+ * public class RdsProvider extends KiteProvider {
+ *     public RdsProvider() {
+ *         registerResource("DbCluster", () -> new DbClusterResourceType(getOperationTracker()));
+ *     }
+ * }
+ *
+ * public class DbClusterResourceType extends AsyncResourceTypeHandler<DbCluster> {
+ *     private final OperationTracker.Type<DbCluster> clusterStatus;
+ *
+ *     public DbClusterResourceType(OperationTracker tracker) {
+ *         clusterStatus = tracker.register("rds:cluster", Duration.ofMinutes(60), ids -> describeClusters(ids));
+ *     }
+ *
+ *     @Override
+ *     public CompletionStage<DbCluster> createAsync(DbCluster cluster) {
+ *         rds.createDBCluster(toRequest(cluster));
+ *         return clusterStatus.track(cluster.getIdentifier());
+ *     }
+ * }
+ * }</pre>
+ */
+@Slf4j
+public class OperationTracker {
+    /** Upper bound on registered operation types, so registering per call cannot leak. */
+    public static final int MAX_TYPES = 1024;
+
+    private final long tickIntervalNanos;
+    private final long initialDelayNanos;
+    private final long maxDelayNanos;
+    private final double backoffMultiplier;
+    private final Map<String, Type<?>> types = new ConcurrentHashMap<>();
+    private final List<Consumer<OperationProgress>> listeners = new CopyOnWriteArrayList<>();
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Create a tracker.
+     *
+     * @param tickInterval      How often the scheduler looks for operations that are due
+     * @param initialDelay      Delay before the first poll of an operation
+     * @param maxDelay          Upper bound for the per-operation poll delay
+     * @param backoffMultiplier Factor applied to the poll delay after each pending status
+     */
+    public OperationTracker(Duration tickInterval, Duration initialDelay, Duration maxDelay, double backoffMultiplier) {
+        if (backoffMultiplier < 1.0) {
+            throw new IllegalArgumentException("backoffMultiplier must be >= 1.0: " + backoffMultiplier);
+        }
+        this.tickIntervalNanos = tickInterval.toNanos();
+        this.initialDelayNanos = initialDelay.toNanos();
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.backoffMultiplier = backoffMultiplier;
+    }
+
+    /**
+     * Create a tracker polling every second, starting at 5 seconds and backing off to 30.
+     */
+    public static OperationTracker defaults() {
+        return new OperationTracker(Duration.ofSeconds(1), Duration.ofSeconds(5), Duration.ofSeconds(30), 1.5);
+    }
+
+    /**
+     * Register an operation type. Registering a name again returns the existing type, whose
+     * timeout and fetcher are kept, so handler instances created more than once share it.
+     *
+     * @param name    Operation type name used in logs and progress events (e.g. "rds:cluster")
+     * @param timeout Maximum time an operation may stay pending before it fails, or null for no limit
+     * @param fetcher Describes the status of many operations of this type in one call
+     * @return A handle used to track operations of this type
+     * @throws IllegalStateException if {@link #MAX_TYPES} types are already registered
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Type<T> register(String name, Duration timeout, StatusFetcher<T> fetcher) {
+        return (Type<T>) types.computeIfAbsent(name, key -> {
+            if (types.size() >= MAX_TYPES) {
+                throw new IllegalStateException("Cannot register operation type " + key + ": "
+                        + MAX_TYPES + " types are already registered");
+            }
+            return new Type<>(key, timeout, fetcher);
+        });
+    }
+
+    /**
+     * Subscribe to progress events of all tracked operations.
+     * Listeners are called from the polling threads and must not block.
+     */
+    public void addListener(Consumer<OperationProgress> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Unsubscribe a listener added with {@link #addListener(Consumer)}.
+     */
+    public void removeListener(Consumer<OperationProgress> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Get the number of operations currently being tracked.
+     */
+    public int getPendingCount() {
+        return types.values().stream().mapToInt(type -> type.pending.size()).sum();
+    }
+
+    /**
+     * Stop the polling scheduler. Pending operations complete with a {@link CancellationException},
+     * so nothing waits on them forever.
+     */
+    public synchronized void shutdown() {
+        for (var type : types.values()) {
+            for (var entry : type.pending.values()) {
+                entry.future.completeExceptionally(new CancellationException("Provider is shutting down"));
+            }
+        }
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    private synchronized void ensureStarted() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "operation-poller");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::tick, tickIntervalNanos, tickIntervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void tick() {
+        long now = System.nanoTime();
+        for (var type : types.values()) {
+            try {
+                type.expire(now);
+                type.pollDue(now);
+            } catch (Exception e) {
+                log.warn("Failed to poll {} operations: {}", type.name, e.getMessage());
+            }
+        }
+    }
+
+    private void publish(OperationProgress progress) {
+        for (var listener : listeners) {
+            try {
+                listener.accept(progress);
+            } catch (Exception e) {
+                log.warn("Operation progress listener failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Describes the status of many operations of one type in a single cloud call.
+     *
+     * @param <T> The resource class type
+     */
+    @FunctionalInterface
+    public interface StatusFetcher<T> {
+        /**
+         * Fetch the status of the given operations.
+         * Operations missing from the returned map are treated as still pending.
+         *
+         * @param operationIds The operations to describe
+         * @return Status per operation id
+         */
+        Map<String, OperationStatus<T>> fetch(Collection<String> operationIds) throws Exception;
+    }
+
+    /**
+     * A registered operation type. Tracks its pending operations and polls them together.
+     *
+     * @param <T> The resource class type
+     */
+    public final class Type<T> {
+        private final String name;
+        private final long timeoutNanos;
+        private final StatusFetcher<T> fetcher;
+        private final Map<String, Pending<T>> pending = new ConcurrentHashMap<>();
+        private final AtomicBoolean polling = new AtomicBoolean();
+
+        private Type(String name, Duration timeout, StatusFetcher<T> fetcher) {
+            this.name = name;
+            this.timeoutNanos = timeout != null ? timeout.toNanos() : Long.MAX_VALUE;
+            this.fetcher = fetcher;
+        }
+
+        /**
+         * Track an operation until it succeeds, fails or times out.
+         * Tracking an operation that is already pending returns the existing future.
+         * Cancelling the returned future stops tracking.
+         *
+         * @param operationId The cloud-side identifier of the operation or resource
+         * @return Completes with the resulting resource state
+         */
+        public CompletableFuture<T> track(String operationId) {
+            var isNew = new boolean[1];
+            var entry = pending.computeIfAbsent(operationId, id -> {
+                var created = new Pending<T>(id, System.nanoTime(), initialDelayNanos);
+                created.future.whenComplete((result, error) -> pending.remove(id, created));
+                isNew[0] = true;
+                return created;
+            });
+            if (isNew[0]) {
+                publish(progress(entry, OperationStatus.State.PENDING, "started", System.nanoTime()));
+            }
+            ensureStarted();
+            return entry.future;
+        }
+
+        /**
+         * Fail operations pending longer than the timeout. Runs on every tick, even while a
+         * fetch is in flight, so a hung fetch cannot hold operations past their timeout.
+         */
+        private void expire(long now) {
+            for (var entry : pending.values()) {
+                if (now - entry.startNanos >= timeoutNanos) {
+                    var elapsed = Duration.ofNanos(now - entry.startNanos);
+                    if (entry.future.completeExceptionally(new ProviderException(
+                            "Operation " + name + "/" + entry.id + " timed out after " + elapsed.toSeconds()
+                                    + "s and " + entry.polls + " polls"))) {
+                        publish(progress(entry, OperationStatus.State.FAILED, "timed out", now));
+                    }
+                }
+            }
+        }
+
+        /**
+         * Poll all operations that are due in a single fetch, on a virtual thread
+         * so a slow cloud call does not hold up the scheduler.
+         */
+        private void pollDue(long now) {
+            if (pending.isEmpty() || !polling.compareAndSet(false, true)) {
+                return;
+            }
+
+            var due = new ArrayList<Pending<T>>();
+            var upcoming = new ArrayList<Pending<T>>();
+            for (var entry : pending.values()) {
+                if (entry.future.isDone()) {
+                    continue;
+                }
+                if (now - entry.nextPollNanos >= 0) {
+                    due.add(entry);
+                } else if (now - entry.nextPollNanos + Math.max(tickIntervalNanos, entry.delayNanos / 2) >= 0) {
+                    upcoming.add(entry);
+                }
+            }
+            // Operations at least halfway to their next poll ride along with the due ones,
+            // so operations started around the same time end up sharing fetches
+            if (!due.isEmpty()) {
+                due.addAll(upcoming);
+            }
+            if (due.isEmpty()) {
+                polling.set(false);
+                return;
+            }
+
+            Thread.ofVirtual().name("operation-poll-" + name).start(() -> {
+                try {
+                    poll(due);
+                } finally {
+                    polling.set(false);
+                }
+            });
+        }
+
+        private void poll(List<Pending<T>> due) {
+            Map<String, OperationStatus<T>> statuses;
+            try {
+                statuses = fetcher.fetch(due.stream().map(entry -> entry.id).toList());
+            } catch (Exception e) {
+                log.warn("Failed to fetch status of {} {} operations: {}",
+                        due.size(), name, ProviderServiceImpl.extractErrorMessage(e));
+                due.forEach(entry -> reschedule(entry, System.nanoTime()));
+                return;
+            }
+
+            long now = System.nanoTime();
+            for (var entry : due) {
+                if (entry.future.isDone()) {
+                    // Timed out or cancelled while the fetch ran
+                    continue;
+                }
+                var status = statuses != null ? statuses.get(entry.id) : null;
+                if (status == null || status.state() == OperationStatus.State.PENDING) {
+                    var message = status != null ? status.message() : null;
+                    if (message != null && !message.equals(entry.lastMessage)) {
+                        entry.lastMessage = message;
+                        log.info("{} {}: {} ({}s)", name, entry.id, message,
+                                Duration.ofNanos(now - entry.startNanos).toSeconds());
+                        publish(progress(entry, OperationStatus.State.PENDING, message, now));
+                    }
+                    reschedule(entry, now);
+                } else if (status.state() == OperationStatus.State.SUCCEEDED) {
+                    publish(progress(entry, OperationStatus.State.SUCCEEDED, status.message(), now));
+                    entry.future.complete(status.result());
+                } else {
+                    var message = status.message() != null ? status.message() : "Operation failed";
+                    publish(progress(entry, OperationStatus.State.FAILED, message, now));
+                    entry.future.completeExceptionally(new ProviderException(message));
+                }
+            }
+        }
+
+        /**
+         * Schedule the next poll with multiplicative backoff and +/-10% jitter,
+         * so operations started together spread out over time.
+         */
+        private void reschedule(Pending<T> entry, long now) {
+            entry.polls++;
+            entry.delayNanos = Math.min(maxDelayNanos, (long) (entry.delayNanos * backoffMultiplier));
+            double jitter = 0.9 + ThreadLocalRandom.current().nextDouble() * 0.2;
+            entry.nextPollNanos = now + (long) (entry.delayNanos * jitter);
+        }
+
+        private OperationProgress progress(Pending<T> entry, OperationStatus.State state, String message, long now) {
+            return new OperationProgress(name, entry.id, state, message, Duration.ofNanos(now - entry.startNanos));
+        }
+    }
+
+    /**
+     * Bookkeeping for one tracked operation.
+     * Mutable fields are only touched by the single poll in flight for its type.
+     */
+    private static final class Pending<T> {
+        private final String id;
+        private final long startNanos;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private volatile long delayNanos;
+        private volatile long nextPollNanos;
+        /** Polls that left the operation pending, reported when it times out. */
+        private volatile int polls;
+        private volatile String lastMessage;
+
+        private Pending(String id, long startNanos, long initialDelayNanos) {
+            this.id = id;
+            this.startNanos = startNanos;
+            this.delayNanos = initialDelayNanos;
+            this.nextPollNanos = startNanos + initialDelayNanos;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package cloud.kitelang.provider;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Appends spans to a file in the OTLP JSON format, one {@code ExportTraceServiceRequest} per
+ * line, as written by the OpenTelemetry Collector's file exporter. The file can be replayed into
+ * a collector with its {@code otlpjsonfile} receiver, or read directly.
+ *
+ * <p>Spans are queued by {@link #export} and written in batches every second by a background
+ * thread, and once more on close, so handler threads never do file I/O. At most
+ * {@link #MAX_QUEUED} spans are queued; further spans are dropped and counted.</p>
+ *
+ * <p>Enabled by {@link ProviderServerOptions#getTraceFile()}.</p>
+ */
+@Slf4j
+public class OtlpFileSpanExporter implements SpanExporter {
+    static final int MAX_QUEUED = 65_536;
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final long FLUSH_INTERVAL_MS = 1000;
+
+    private final ConcurrentLinkedQueue<Span> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong dropped = new AtomicLong();
+    private Path file;
+    private Map<String, Object> resource;
+    private ScheduledExecutorService scheduler;
+
+    @Override
+    public boolean start(String providerName, ProviderServerOptions options) throws IOException {
+        if (options.getTraceFile() == null) {
+            return false;
+        }
+        this.file = options.getTraceFile();
+        this.resource = Map.of("attributes", List.of(attribute("service.name", providerName)));
+        var parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "trace-file");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        log.info("Writing traces to {}", file);
+        return true;
+    }
+
+    @Override
+    public void export(Span span) {
+        if (queued.incrementAndGet() > MAX_QUEUED) {
+            queued.decrementAndGet();
+            dropped.incrementAndGet();
+            return;
+        }
+        queue.add(span);
+    }
+
+    /**
+     * Spans dropped because the queue was full.
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Write the queued spans to the file as one line.
+     */
+    synchronized void flush() throws IOException {
+        var spans = new ArrayList<Map<String, Object>>();
+        Span span;
+        while ((span = queue.poll()) != null) {
+            queued.decrementAndGet();
+            spans.add(toOtlp(span));
+        }
+        if (spans.isEmpty()) {
+            return;
+        }
+        var request = Map.of("resourceSpans", List.of(Map.of(
+                "resource", resource,
+                "scopeSpans", List.of(Map.of(
+                        "scope", Map.of("name", "cloud.kitelang.provider"),
+                        "spans", spans)))));
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            writer.write(JSON.writeValueAsString(request));
+            writer.write('\n');
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to write traces to {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * A span in the OTLP JSON encoding: hex ids, nanosecond times as strings, enums as numbers.
+     */
+    static Map<String, Object> toOtlp(Span span) {
+        var json = new LinkedHashMap<String, Object>();
+        json.put("traceId", span.getTraceId());
+        json.put("spanId", span.getSpanId());
+        if (span.getParentSpanId() != null) {
+            json.put("parentSpanId", span.getParentSpanId());
+        }
+        json.put("name", span.getName());
+        json.put("kind", switch (span.getKind()) {
+            case INTERNAL -> 1;
+            case SERVER -> 2;
+            case CLIENT -> 3;
+        });
+        json.put("startTimeUnixNano", Long.toString(span.getStartEpochNanos()));
+        json.put("endTimeUnixNano", Long.toString(span.getEndEpochNanos()));
+        json.put("attributes", span.getAttributes().entrySet().stream()
+                .map(entry -> attribute(entry.getKey(), entry.getValue()))
+                .toList());
+        var status = new LinkedHashMap<String, Object>();
+        status.put("code", span.getStatus().ordinal());
+        if (span.getStatusMessage() != null) {
+            status.put("message", span.getStatusMessage());
+        }
+        json.put("status", status);
+        return json;
+    }
+
+    private static Map<String, Object> attribute(String key, Object value) {
+        Map<String, Object> any = switch (value) {
+            case Boolean b -> Map.of("boolValue", b);
+            case Integer i -> Map.of("intValue", Long.toString(i));
+            case Long l -> Map.of("intValue", Long.toString(l));
+            case Double d -> Map.of("doubleValue", d);
+            case Float f -> Map.of("doubleValue", f.doubleValue());
+            default -> Map.of("stringValue", String.valueOf(value));
+        };
+        return Map.of("key", key, "value", any);
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            flushQuietly();
+            if (dropped.get() > 0) {
+                log.warn("Dropped {} spans because the trace file could not keep up", dropped.get());
+            }
+        }
+    }
+}
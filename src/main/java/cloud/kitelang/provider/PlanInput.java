@@ -0,0 +1,11 @@
+package cloud.kitelang.provider;
+
+/**
+ * One entry of a batch plan: the prior and proposed state of a single resource.
+ *
+ * @param priorState    The current state (null for create)
+ * @param proposedState The desired state
+ * @param <T>           The resource class type
+ */
+public record PlanInput<T>(T priorState, T proposedState) {
+}
@@ -0,0 +1,78 @@
+package cloud.kitelang.provider;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Serves metrics for Prometheus scrapes at {@code http://127.0.0.1:<port>/metrics}, using the
+ * JDK's built-in HTTP server. Scrapers that accept OpenMetrics get OpenMetrics, others the
+ * Prometheus text format.
+ *
+ * <p>Enabled by {@link ProviderServerOptions#getMetricsPort()}. Listens on loopback only.</p>
+ */
+@Slf4j
+public class PrometheusExporter implements MetricsExporter {
+    public static final String PATH = "/metrics";
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    @Override
+    public boolean start(Supplier<MetricsSnapshot> metrics, ProviderServerOptions options) throws IOException {
+        if (options.getMetricsPort() < 0) {
+            return false;
+        }
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), options.getMetricsPort()), 0);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext(PATH, exchange -> scrape(exchange, metrics));
+        server.start();
+        log.info("Serving metrics at http://127.0.0.1:{}{}", getPort(), PATH);
+        return true;
+    }
+
+    /**
+     * The port the server listens on, which the OS chose if the option was 0.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private static void scrape(HttpExchange exchange, Supplier<MetricsSnapshot> metrics) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            var accept = exchange.getRequestHeaders().getFirst("Accept");
+            boolean openMetrics = accept != null && accept.contains("application/openmetrics-text");
+            var snapshot = metrics.get();
+            var body = (openMetrics ? MetricsFormat.openMetrics(snapshot) : MetricsFormat.prometheus(snapshot))
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type",
+                    openMetrics ? MetricsFormat.OPENMETRICS_CONTENT_TYPE : MetricsFormat.PROMETHEUS_CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+        }
+        if (executor != null) {
+            // Scrapes still running are cut off; the process is stopping
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package cloud.kitelang.provider;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms and payload byte counters per RPC method, resource type and outcome.
+ *
+ * <p>Each call is timed with a {@link Timer} from {@link #start(String, String)}: decoding and
+ * encoding of resource payloads are timed as they happen, the handler phase is the rest of the
+ * call (including waits for concurrency permits and retry backoff), and everything is recorded
+ * when the call finishes, once its outcome is known. Recording is lock-free.</p>
+ *
+ * <p>Read the numbers with {@link #snapshots()} or {@link #summary()}, or over the
+ * {@link MetricsService} RPC.</p>
+ */
+public final class ProviderMetrics {
+
+    /** Type label for calls naming a resource type the provider does not have. */
+    public static final String UNKNOWN_TYPE = "unknown";
+
+    /**
+     * Parts of a call that are timed separately.
+     */
+    public enum Phase {
+        /** Decoding request payloads into resource objects. */
+        DECODE,
+        /** Running the handler, including queueing and retries. */
+        HANDLER,
+        /** Encoding results into response payloads. */
+        ENCODE,
+        /** The whole call. */
+        TOTAL
+    }
+
+    /**
+     * How a call ended.
+     */
+    public enum Outcome {
+        /** The response carries no error diagnostics. */
+        OK,
+        /** The call failed or the response carries an error diagnostic. */
+        ERROR;
+
+        /**
+         * Lowercase name, for labels.
+         */
+        public String label() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * What calls are grouped by.
+     *
+     * @param method   RPC method name (e.g. {@code CreateResource})
+     * @param typeName Resource type, {@link #UNKNOWN_TYPE}, or empty for calls not about one type
+     * @param outcome  How the calls ended
+     */
+    public record Key(String method, String typeName, Outcome outcome) {
+        private static final Comparator<Key> ORDER = Comparator.comparing(Key::method)
+                .thenComparing(Key::typeName)
+                .thenComparing(Key::outcome);
+    }
+
+    /**
+     * Point-in-time numbers for one key.
+     *
+     * @param key       The method, type and outcome
+     * @param latencies Histogram per phase
+     * @param bytesIn   Request payload bytes decoded
+     * @param bytesOut  Response payload bytes encoded
+     */
+    public record Snapshot(Key key, Map<Phase, LatencyHistogram.Snapshot> latencies, long bytesIn, long bytesOut) {
+
+        /**
+         * Number of calls.
+         */
+        public long count() {
+            return latencies.get(Phase.TOTAL).count();
+        }
+    }
+
+    /**
+     * Handler failures of one method and resource type with the same error code.
+     *
+     * @param method   RPC method name
+     * @param typeName Resource type, or empty
+     * @param code     Cloud error code from {@link ErrorDetails}, or the exception's simple class name
+     * @param count    Failures
+     */
+    public record ErrorCount(String method, String typeName, String code, long count) {
+    }
+
+    private record ErrorKey(String method, String typeName, String code) {
+    }
+
+    private final ConcurrentMap<Key, CallStats> calls = new ConcurrentHashMap<>();
+    private final ConcurrentMap<ErrorKey, LongAdder> errors = new ConcurrentHashMap<>();
+
+    /**
+     * Start timing a call.
+     *
+     * @param method   RPC method name
+     * @param typeName Resource type, or empty
+     */
+    public Timer start(String method, String typeName) {
+        return new Timer(method, typeName == null ? "" : typeName);
+    }
+
+    /**
+     * Numbers for every method, type and outcome seen so far, sorted by method, type and outcome.
+     */
+    public List<Snapshot> snapshots() {
+        var result = new ArrayList<Snapshot>(calls.size());
+        for (var entry : calls.entrySet()) {
+            var stats = entry.getValue();
+            var latencies = new EnumMap<Phase, LatencyHistogram.Snapshot>(Phase.class);
+            for (var phase : Phase.values()) {
+                latencies.put(phase, stats.latencies[phase.ordinal()].snapshot());
+            }
+            result.add(new Snapshot(entry.getKey(), latencies, stats.bytesIn.sum(), stats.bytesOut.sum()));
+        }
+        result.sort(Comparator.comparing(Snapshot::key, Key.ORDER));
+        return result;
+    }
+
+    /**
+     * Failures per method, resource type and error code, sorted by method, type and code.
+     */
+    public List<ErrorCount> errorCounts() {
+        return errors.entrySet().stream()
+                .map(entry -> new ErrorCount(entry.getKey().method(), entry.getKey().typeName(),
+                        entry.getKey().code(), entry.getValue().sum()))
+                .sorted(Comparator.comparing(ErrorCount::method)
+                        .thenComparing(ErrorCount::typeName)
+                        .thenComparing(ErrorCount::code))
+                .toList();
+    }
+
+    /**
+     * One line per method, type and outcome with call count, latency percentiles, phase means
+     * and bytes, for printing at the end of a run.
+     */
+    public String summary() {
+        var lines = new StringBuilder();
+        for (var snapshot : snapshots()) {
+            var key = snapshot.key();
+            var total = snapshot.latencies().get(Phase.TOTAL);
+            lines.append(String.format(Locale.ROOT,
+                    "%s %s %s: count=%d p50=%.1fms p99=%.1fms max=%.1fms"
+                            + " (decode=%.2fms handler=%.1fms encode=%.2fms mean) in=%dB out=%dB%n",
+                    key.method(), key.typeName().isEmpty() ? "-" : key.typeName(), key.outcome().label(),
+                    total.count(), millis(total.valueAtPercentile(50)), millis(total.valueAtPercentile(99)),
+                    millis(total.maxNanos()),
+                    millis(snapshot.latencies().get(Phase.DECODE).meanNanos()),
+                    millis(snapshot.latencies().get(Phase.HANDLER).meanNanos()),
+                    millis(snapshot.latencies().get(Phase.ENCODE).meanNanos()),
+                    snapshot.bytesIn(), snapshot.bytesOut()));
+        }
+        return lines.toString();
+    }
+
+    private static double millis(double nanos) {
+        return nanos / 1_000_000;
+    }
+
+    private void record(Timer timer, Outcome outcome) {
+        var stats = calls.computeIfAbsent(new Key(timer.method, timer.typeName, outcome), key -> new CallStats());
+        long total = System.nanoTime() - timer.startNanos;
+        stats.latencies[Phase.DECODE.ordinal()].record(timer.decodeNanos);
+        stats.latencies[Phase.ENCODE.ordinal()].record(timer.encodeNanos);
+        stats.latencies[Phase.HANDLER.ordinal()].record(total - timer.decodeNanos - timer.encodeNanos);
+        stats.latencies[Phase.TOTAL.ordinal()].record(total);
+        stats.bytesIn.add(timer.bytesIn);
+        stats.bytesOut.add(timer.bytesOut);
+    }
+
+    private static final class CallStats {
+        private final LatencyHistogram[] latencies = new LatencyHistogram[Phase.values().length];
+        private final LongAdder bytesIn = new LongAdder();
+        private final LongAdder bytesOut = new LongAdder();
+
+        private CallStats() {
+            for (int i = 0; i < latencies.length; i++) {
+                latencies[i] = new LatencyHistogram(MetricsFormat.BUCKET_NANOS);
+            }
+        }
+    }
+
+    /**
+     * Times one call. The phases of a call run one after another, possibly on different
+     * threads, so a timer is not shared between concurrent calls.
+     */
+    public final class Timer {
+        private final String method;
+        private final String typeName;
+        private final long startNanos = System.nanoTime();
+        private long decodeNanos;
+        private long encodeNanos;
+        private long bytesIn;
+        private long bytesOut;
+        private boolean finished;
+        private Span span = Span.NOOP;
+
+        private Timer(String method, String typeName) {
+            this.method = method;
+            this.typeName = typeName;
+        }
+
+        /**
+         * Attach the call's server span, ended by {@link #finish(Outcome)}.
+         */
+        Timer traced(Span span) {
+            this.span = span;
+            return this;
+        }
+
+        /**
+         * The call's server span, or {@link Span#NOOP} when tracing is off.
+         */
+        public Span getSpan() {
+            return span;
+        }
+
+        /**
+         * Add a decoded request payload.
+         *
+         * @param bytes Payload size
+         * @param nanos Time spent decoding it
+         */
+        public void decoded(long bytes, long nanos) {
+            bytesIn += bytes;
+            decodeNanos += nanos;
+        }
+
+        /**
+         * Add an encoded response payload.
+         *
+         * @param bytes Payload size
+         * @param nanos Time spent encoding it
+         */
+        public void encoded(long bytes, long nanos) {
+            bytesOut += bytes;
+            encodeNanos += nanos;
+        }
+
+        /**
+         * Count a failure by its cloud error code, or its exception class when it has none, and
+         * record it on the span. The call still needs {@link #finish(Outcome)}.
+         */
+        public void failed(Throwable error) {
+            var details = ErrorDetails.of(error);
+            var code = details != null && details.errorCode() != null
+                    ? details.errorCode()
+                    : error.getClass().getSimpleName();
+            errors.computeIfAbsent(new ErrorKey(method, typeName, code), key -> new LongAdder()).increment();
+            span.recordException(error);
+        }
+
+        /**
+         * Time since the call started, in milliseconds.
+         */
+        public long elapsedMillis() {
+            return (System.nanoTime() - startNanos) / 1_000_000;
+        }
+
+        /**
+         * Record the call. Only the first call has an effect.
+         */
+        public void finish(Outcome outcome) {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            record(this, outcome);
+            if (outcome == Outcome.ERROR && span.getStatus() != Span.Status.ERROR) {
+                span.setStatus(Span.Status.ERROR, "error diagnostic");
+            }
+            span.end();
+        }
+    }
+}
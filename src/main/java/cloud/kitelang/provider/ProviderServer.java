@@ -1,15 +1,15 @@
 package cloud.kitelang.provider;
 
 import io.grpc.Server;
-import io.grpc.ServerBuilder;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
-import java.net.ServerSocket;
-import java.time.Duration;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Server that hosts a Kite provider as a gRPC service.
@@ -17,8 +17,21 @@ import java.util.concurrent.TimeUnit;
  * <p>Uses a handshake protocol where the engine sets environment variables
  * (magic cookie, protocol version) and the provider outputs its port to stdout.</p>
  *
+ * <p>With {@code KITE_PLUGIN_TRANSPORT=unix} the server listens on a Unix domain socket
+ * instead of a TCP port, avoiding the loopback TCP stack on every call. This needs Netty's
+ * native epoll transport (Linux); elsewhere the server falls back to TCP. Transport, event
+ * loop and gRPC limits are set with {@link ProviderServerOptions}.</p>
+ *
  * <p>Supports persistent mode with idle timeout - provider will auto-shutdown
  * after a configurable period of inactivity.</p>
+ *
+ * <p>In pool mode ({@link ProviderServerOptions#isPool()}) one warm process serves several
+ * engine sessions over separate connections, each with its own {@link ProviderSession}
+ * configuration, so later runs skip JVM startup, handler registration and JIT warmup.</p>
+ *
+ * <p>On {@code StopProvider}, idle timeout or SIGTERM the server drains: it stops accepting
+ * calls, waits up to {@link ProviderServerOptions#getDrainTimeout()} for in-flight calls,
+ * cancels what is left, and only then stops the provider and the gRPC server.</p>
  */
 @Slf4j
 public class ProviderServer {
@@ -26,16 +39,27 @@ public class ProviderServer {
     private static final int PROTOCOL_VERSION = 1;
     private static final String MAGIC_COOKIE_ENV = "KITE_PLUGIN_MAGIC_COOKIE";
     private static final String PROTOCOL_VERSION_ENV = "KITE_PLUGIN_PROTOCOL_VERSION";
-    private static final String IDLE_TIMEOUT_ENV = "KITE_PLUGIN_IDLE_TIMEOUT";
-    private static final long DEFAULT_IDLE_TIMEOUT_MS = Duration.ofMinutes(30).toMillis();
 
     private final KiteProvider provider;
+    private final ProviderServerOptions options;
     private Server server;
+    private ServerTransport transport;
     private ScheduledExecutorService idleChecker;
     private ProviderServiceImpl serviceImpl;
+    private MetricsExporters metricsExporters;
+    private final AtomicBoolean stopping = new AtomicBoolean();
+    private final CountDownLatch stopped = new CountDownLatch(1);
 
+    /**
+     * Create a server configured from {@code KITE_PLUGIN_*} environment variables.
+     */
     public ProviderServer(KiteProvider provider) {
+        this(provider, ProviderServerOptions.fromEnvironment());
+    }
+
+    public ProviderServer(KiteProvider provider, ProviderServerOptions options) {
         this.provider = provider;
+        this.options = options;
     }
 
     /**
@@ -75,38 +99,37 @@ public class ProviderServer {
             System.exit(1);
         }
 
-        // Read idle timeout from environment
-        long idleTimeoutMs = DEFAULT_IDLE_TIMEOUT_MS;
-        String idleTimeoutStr = System.getenv(IDLE_TIMEOUT_ENV);
-        if (idleTimeoutStr != null && !idleTimeoutStr.isEmpty()) {
-            try {
-                idleTimeoutMs = Long.parseLong(idleTimeoutStr);
-            } catch (NumberFormatException e) {
-                log.warn("Invalid idle timeout '{}', using default {}ms", idleTimeoutStr, DEFAULT_IDLE_TIMEOUT_MS);
-            }
-        }
-
-        // Find an available port
-        int port = findAvailablePort();
+        long idleTimeoutMs = options.getIdleTimeoutMs();
 
         // Create the gRPC service implementation with idle tracking
-        serviceImpl = new ProviderServiceImpl(provider, idleTimeoutMs);
+        serviceImpl = new ProviderServiceImpl(provider, idleTimeoutMs,
+                createConcurrencyLimiters(options), createRetryEngine(options));
+        serviceImpl.setStopHandler(this::shutdown);
 
-        // Build and start the server
-        server = ServerBuilder.forPort(port)
-                .executor(Executors.newVirtualThreadPerTaskExecutor())  // Add this
-                .addService(serviceImpl)
-                .build()
-                .start();
+        // Build and start the server, on a Unix domain socket if requested and supported
+        transport = ServerTransport.start(options, provider.getName(), serviceImpl,
+                Executors.newVirtualThreadPerTaskExecutor());
+        server = transport.getServer();
+        log.info("Provider server started on {} (idle timeout: {}s{})",
+                transport.getSocketPath() != null ? transport.getSocketPath() : "port " + server.getPort(),
+                idleTimeoutMs / 1000, options.isPool() ? ", pool mode" : "");
 
-        log.info("Provider server started on port {} (idle timeout: {}s)", port, idleTimeoutMs / 1000);
+        // Before the handshake, so the engine's first calls are traced
+        serviceImpl.getTracer().start(options);
 
         // Print the handshake line to stdout (must use System.out, not logging,
         // because provider logging config may suppress INFO level)
         // Format: KITE_PLUGIN|<protocol_version>|<port>|grpc
-        var handshake = HANDSHAKE_PREFIX + "|" + PROTOCOL_VERSION + "|" + port + "|grpc";
+        //     or: KITE_PLUGIN|<protocol_version>|unix|<socket_path>|grpc
+        var handshake = HANDSHAKE_PREFIX + "|" + PROTOCOL_VERSION + "|" + transport.getHandshakeAddress() + "|grpc";
         System.out.println(handshake);
         System.out.flush();
+        log.debug("Handshake sent {}ms after JVM start", ManagementFactory.getRuntimeMXBean().getUptime());
+
+        // Create handlers, schemas and serializers in the background so the first call of each type is fast
+        Thread.ofVirtual().name("serializer-warmup").start(serviceImpl::warmUp);
+
+        metricsExporters = MetricsExporters.start(serviceImpl::metricsSnapshot, options);
 
         // Start idle timeout checker
         startIdleChecker(idleTimeoutMs);
@@ -115,7 +138,7 @@ public class ProviderServer {
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             log.info("Shutting down provider server...");
             try {
-                ProviderServer.this.stop();
+                drainAndStop();
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
             }
@@ -146,16 +169,45 @@ public class ProviderServer {
             long idleMs = serviceImpl.getIdleTimeMs();
             if (idleMs >= idleTimeoutMs) {
                 log.info("Provider idle for {}s, shutting down", idleMs / 1000);
-                try {
-                    stop();
-                    System.exit(0);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                }
+                // Not on the checker thread, which stop() interrupts
+                idleChecker.shutdown();
+                Thread.ofVirtual().name("provider-stop").start(this::shutdown);
             }
         }, checkIntervalMs, checkIntervalMs, TimeUnit.MILLISECONDS);
     }
 
+    /**
+     * Drain, stop the provider and the server, and exit the process.
+     */
+    private void shutdown() {
+        try {
+            drainAndStop();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Drain in-flight calls, then stop the provider and the server.
+     * Later calls wait for the first one to finish.
+     */
+    private void drainAndStop() throws InterruptedException {
+        if (!stopping.compareAndSet(false, true)) {
+            stopped.await();
+            return;
+        }
+        try {
+            if (serviceImpl != null) {
+                serviceImpl.drain(options.getDrainTimeout());
+                serviceImpl.stopProviderQuietly();
+            }
+            stop();
+        } finally {
+            stopped.countDown();
+        }
+    }
+
     /**
      * Stop the server gracefully.
      */
@@ -169,16 +221,42 @@ public class ProviderServer {
                 server.shutdownNow();
             }
         }
+        if (transport != null) {
+            transport.close();
+        }
+        if (metricsExporters != null) {
+            metricsExporters.close();
+        }
+        if (serviceImpl != null) {
+            serviceImpl.getTracer().close();
+        }
+        provider.getOperationTracker().shutdown();
     }
 
     /**
-     * Find an available port for the server.
+     * Create the concurrency limiters; a max concurrency of 0 disables limiting.
      */
-    private int findAvailablePort() throws IOException {
-        try (ServerSocket socket = new ServerSocket(0)) {
-            socket.setReuseAddress(true);
-            return socket.getLocalPort();
+    static ConcurrencyLimiters createConcurrencyLimiters(ProviderServerOptions options) {
+        int maxConcurrency = options.getMaxConcurrency();
+        if (maxConcurrency <= 0) {
+            return ConcurrencyLimiters.unlimited();
         }
+        return new ConcurrencyLimiters(
+                Math.min(ConcurrencyLimiters.DEFAULT_INITIAL_LIMIT, maxConcurrency),
+                ConcurrencyLimiters.DEFAULT_MIN_LIMIT,
+                maxConcurrency);
+    }
+
+    /**
+     * Create the retry engine; a max of 1 attempt disables retries.
+     */
+    static RetryEngine createRetryEngine(ProviderServerOptions options) {
+        int maxAttempts = options.getMaxAttempts();
+        if (maxAttempts <= 1) {
+            return RetryEngine.disabled();
+        }
+        return new RetryEngine(maxAttempts, RetryEngine.DEFAULT_BASE_DELAY, RetryEngine.DEFAULT_MAX_DELAY,
+                RetryEngine.DEFAULT_NOT_FOUND_WINDOW, RetryEngine.DEFAULT_BUDGET);
     }
 
     /**
@@ -189,4 +267,14 @@ public class ProviderServer {
     public static void serve(KiteProvider provider) throws IOException, InterruptedException {
         new ProviderServer(provider).serve();
     }
+
+    /**
+     * Convenience method to create and start a provider server with explicit options.
+     *
+     * @param provider The provider to serve
+     * @param options  Server settings
+     */
+    public static void serve(KiteProvider provider, ProviderServerOptions options) throws IOException, InterruptedException {
+        new ProviderServer(provider, options).serve();
+    }
 }
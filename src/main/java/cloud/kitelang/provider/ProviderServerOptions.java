@@ -0,0 +1,293 @@
+package cloud.kitelang.provider;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Settings of a {@link ProviderServer}: transport, Netty event loops, gRPC limits and the
+ * handler call policies. Unset values keep the gRPC and SDK defaults.
+ *
+ * <p>Build them in code, or read them from {@code KITE_PLUGIN_*} environment variables:</p>
+ * <pre>{@code
+ * var options = ProviderServerOptions.fromEnvironment().toBuilder()
+ *         .maxInboundMessageSize(64 * 1024 * 1024)
+ *         .build();
+ * new ProviderServer(provider, options).serve();
+ * }</pre>
+ */
+@Slf4j
+@Getter
+@Builder(toBuilder = true)
+public class ProviderServerOptions {
+    public static final long DEFAULT_IDLE_TIMEOUT_MS = Duration.ofMinutes(30).toMillis();
+    /** gRPC's default maximum inbound message size. */
+    public static final int DEFAULT_MAX_INBOUND_MESSAGE_SIZE = 4 * 1024 * 1024;
+    /** gRPC's default maximum inbound metadata size. */
+    public static final int DEFAULT_MAX_INBOUND_METADATA_SIZE = 8 * 1024;
+    /** HTTP/2's smallest flow-control window. */
+    public static final int MIN_FLOW_CONTROL_WINDOW = 65_535;
+    /** Responses smaller than this are sent uncompressed. */
+    public static final int DEFAULT_COMPRESSION_THRESHOLD = 1024;
+    public static final Duration DEFAULT_METRICS_INTERVAL = Duration.ofSeconds(15);
+
+    /**
+     * Transport the server listens on.
+     */
+    public enum Transport {
+        /** A TCP port chosen by the OS. */
+        TCP,
+        /** A Unix domain socket (needs native epoll, falls back to TCP without it). */
+        UNIX
+    }
+
+    /**
+     * Netty transport implementation for TCP.
+     */
+    public enum NativeTransport {
+        /** Use native epoll when available, NIO otherwise. */
+        AUTO,
+        /** Always use native epoll; fails to start where it is unavailable. */
+        EPOLL,
+        /** Always use Java NIO. */
+        NIO
+    }
+
+    /** Shut down after this much inactivity; 0 disables. Env: {@code KITE_PLUGIN_IDLE_TIMEOUT}. */
+    @Builder.Default
+    private final long idleTimeoutMs = DEFAULT_IDLE_TIMEOUT_MS;
+
+    /**
+     * How long shutdown waits for in-flight calls before cancelling them.
+     * Env: {@code KITE_PLUGIN_DRAIN_TIMEOUT} (ms).
+     */
+    @Builder.Default
+    private final Duration drainTimeout = ProviderServiceImpl.DEFAULT_DRAIN_TIMEOUT;
+
+    /**
+     * Serve several engine sessions from this process, one per connection, instead of one
+     * engine per process. {@code StopProvider} then ends only the calling session.
+     * Env: {@code KITE_PLUGIN_POOL}.
+     */
+    private final boolean pool;
+
+    /**
+     * Cap on the adaptive per-type concurrency limit; 0 (the default) disables limiting.
+     * Env: {@code KITE_PLUGIN_MAX_CONCURRENCY}.
+     */
+    private final int maxConcurrency;
+
+    /** Attempts per handler call, including the first; 1 disables retries. Env: {@code KITE_PLUGIN_MAX_ATTEMPTS}. */
+    @Builder.Default
+    private final int maxAttempts = RetryEngine.DEFAULT_MAX_ATTEMPTS;
+
+    /** Env: {@code KITE_PLUGIN_TRANSPORT} ({@code tcp} or {@code unix}). */
+    @Builder.Default
+    private final Transport transport = Transport.TCP;
+
+    /** Unix domain socket path, or null for a per-process path in the temp directory. Env: {@code KITE_PLUGIN_SOCKET_PATH}. */
+    private final Path socketPath;
+
+    /** Env: {@code KITE_PLUGIN_NATIVE_TRANSPORT} ({@code auto}, {@code epoll} or {@code nio}). */
+    @Builder.Default
+    private final NativeTransport nativeTransport = NativeTransport.AUTO;
+
+    /** Threads accepting connections. Env: {@code KITE_PLUGIN_BOSS_THREADS}. */
+    @Builder.Default
+    private final int bossThreads = 1;
+
+    /** Threads doing network I/O; 0 uses Netty's default of twice the CPU count. Env: {@code KITE_PLUGIN_WORKER_THREADS}. */
+    @Builder.Default
+    private final int workerThreads = 0;
+
+    /** Largest request the server accepts, in bytes. Env: {@code KITE_PLUGIN_MAX_INBOUND_MESSAGE_SIZE}. */
+    @Builder.Default
+    private final int maxInboundMessageSize = DEFAULT_MAX_INBOUND_MESSAGE_SIZE;
+
+    /** Largest request metadata the server accepts, in bytes. Env: {@code KITE_PLUGIN_MAX_INBOUND_METADATA_SIZE}. */
+    @Builder.Default
+    private final int maxInboundMetadataSize = DEFAULT_MAX_INBOUND_METADATA_SIZE;
+
+    /**
+     * Initial HTTP/2 flow-control window per stream, in bytes, which Netty still grows by measuring
+     * the bandwidth-delay product; 0 keeps Netty's default of 1 MiB.
+     * Env: {@code KITE_PLUGIN_FLOW_CONTROL_WINDOW}.
+     */
+    private final int flowControlWindow;
+
+    /** Interval of server keepalive pings, or null for the gRPC default. Env: {@code KITE_PLUGIN_KEEPALIVE_TIME} (ms). */
+    private final Duration keepAliveTime;
+
+    /** How long to wait for a keepalive ack, or null for the gRPC default. Env: {@code KITE_PLUGIN_KEEPALIVE_TIMEOUT} (ms). */
+    private final Duration keepAliveTimeout;
+
+    /** Concurrent calls allowed on one connection. Env: {@code KITE_PLUGIN_MAX_CONCURRENT_CALLS_PER_CONNECTION}. */
+    @Builder.Default
+    private final int maxConcurrentCallsPerConnection = Integer.MAX_VALUE;
+
+    /** Operations running at once per {@link OperationChannel} stream. Env: {@code KITE_PLUGIN_MAX_STREAM_IN_FLIGHT}. */
+    @Builder.Default
+    private final int maxStreamInFlight = OperationChannel.DEFAULT_MAX_IN_FLIGHT;
+
+    /**
+     * Response encodings in order of preference, used when the client accepts them;
+     * empty (the default) disables compression. Env: {@code KITE_PLUGIN_COMPRESSION} (e.g. {@code snappy,gzip}).
+     */
+    @Builder.Default
+    private final List<String> compression = List.of();
+
+    /** Responses smaller than this many bytes are sent uncompressed. Env: {@code KITE_PLUGIN_COMPRESSION_THRESHOLD}. */
+    @Builder.Default
+    private final int compressionThreshold = DEFAULT_COMPRESSION_THRESHOLD;
+
+    /**
+     * Encoding per method name (e.g. {@code HealthCheck=identity}), overriding {@link #compression}.
+     * Env: {@code KITE_PLUGIN_METHOD_COMPRESSION} (e.g. {@code ReadResource=snappy,GetProviderSchema=gzip}).
+     */
+    @Builder.Default
+    private final Map<String, String> methodCompression = Map.of();
+
+    /**
+     * Loopback port of the Prometheus metrics endpoint; 0 picks a free port, negative disables it.
+     * Env: {@code KITE_PLUGIN_METRICS_PORT}.
+     */
+    @Builder.Default
+    private final int metricsPort = -1;
+
+    /** File the OpenMetrics exporter rewrites, or null to disable it. Env: {@code KITE_PLUGIN_METRICS_FILE}. */
+    private final Path metricsFile;
+
+    /** How often the metrics file is rewritten. Env: {@code KITE_PLUGIN_METRICS_INTERVAL} (ms). */
+    @Builder.Default
+    private final Duration metricsInterval = DEFAULT_METRICS_INTERVAL;
+
+    /** Spans kept in memory by the ring-buffer exporter; 0 disables it. Env: {@code KITE_PLUGIN_TRACE_BUFFER}. */
+    private final int traceBufferSize;
+
+    /** File the OTLP JSON span exporter appends to, or null to disable it. Env: {@code KITE_PLUGIN_TRACE_FILE}. */
+    private final Path traceFile;
+
+    /**
+     * Options with every default.
+     */
+    public static ProviderServerOptions defaults() {
+        return builder().build();
+    }
+
+    /**
+     * Read options from the process environment.
+     */
+    public static ProviderServerOptions fromEnvironment() {
+        return fromEnvironment(System.getenv());
+    }
+
+    /**
+     * Read options from {@code KITE_PLUGIN_*} variables. Invalid and out-of-range values are
+     * logged and ignored.
+     *
+     * @param env The environment variables
+     */
+    public static ProviderServerOptions fromEnvironment(Map<String, String> env) {
+        var builder = builder();
+        var reader = new EnvReader(env);
+        reader.read("KITE_PLUGIN_IDLE_TIMEOUT", Long::parseLong, value -> value >= 0, builder::idleTimeoutMs);
+        reader.read("KITE_PLUGIN_DRAIN_TIMEOUT", ProviderServerOptions::parseMillis, value -> !value.isNegative(),
+                builder::drainTimeout);
+        reader.read("KITE_PLUGIN_POOL", ProviderServerOptions::parseBoolean, builder::pool);
+        reader.read("KITE_PLUGIN_MAX_CONCURRENCY", Integer::parseInt, value -> value >= 0, builder::maxConcurrency);
+        reader.read("KITE_PLUGIN_MAX_ATTEMPTS", Integer::parseInt, value -> value >= 1, builder::maxAttempts);
+        reader.read("KITE_PLUGIN_TRANSPORT", value -> Transport.valueOf(value.toUpperCase(Locale.ROOT)), builder::transport);
+        reader.read("KITE_PLUGIN_SOCKET_PATH", Path::of, builder::socketPath);
+        reader.read("KITE_PLUGIN_NATIVE_TRANSPORT",
+                value -> NativeTransport.valueOf(value.toUpperCase(Locale.ROOT)), builder::nativeTransport);
+        reader.read("KITE_PLUGIN_BOSS_THREADS", Integer::parseInt, value -> value >= 1, builder::bossThreads);
+        reader.read("KITE_PLUGIN_WORKER_THREADS", Integer::parseInt, value -> value >= 0, builder::workerThreads);
+        reader.read("KITE_PLUGIN_MAX_INBOUND_MESSAGE_SIZE", Integer::parseInt, value -> value >= 1,
+                builder::maxInboundMessageSize);
+        reader.read("KITE_PLUGIN_MAX_INBOUND_METADATA_SIZE", Integer::parseInt, value -> value >= 1,
+                builder::maxInboundMetadataSize);
+        reader.read("KITE_PLUGIN_FLOW_CONTROL_WINDOW", Integer::parseInt,
+                value -> value == 0 || value >= MIN_FLOW_CONTROL_WINDOW, builder::flowControlWindow);
+        reader.read("KITE_PLUGIN_KEEPALIVE_TIME", ProviderServerOptions::parseMillis, value -> value.toMillis() > 0,
+                builder::keepAliveTime);
+        reader.read("KITE_PLUGIN_KEEPALIVE_TIMEOUT", ProviderServerOptions::parseMillis, value -> value.toMillis() > 0,
+                builder::keepAliveTimeout);
+        reader.read("KITE_PLUGIN_MAX_CONCURRENT_CALLS_PER_CONNECTION", Integer::parseInt, value -> value >= 1,
+                builder::maxConcurrentCallsPerConnection);
+        reader.read("KITE_PLUGIN_MAX_STREAM_IN_FLIGHT", Integer::parseInt, value -> value >= 1, builder::maxStreamInFlight);
+        reader.read("KITE_PLUGIN_COMPRESSION", value -> parseList(value.toLowerCase(Locale.ROOT)), builder::compression);
+        reader.read("KITE_PLUGIN_COMPRESSION_THRESHOLD", Integer::parseInt, value -> value >= 0,
+                builder::compressionThreshold);
+        reader.read("KITE_PLUGIN_METHOD_COMPRESSION", ProviderServerOptions::parseMap, builder::methodCompression);
+        reader.read("KITE_PLUGIN_METRICS_PORT", Integer::parseInt, value -> value <= 65_535, builder::metricsPort);
+        reader.read("KITE_PLUGIN_METRICS_FILE", Path::of, builder::metricsFile);
+        reader.read("KITE_PLUGIN_METRICS_INTERVAL", ProviderServerOptions::parseMillis, value -> value.toMillis() > 0,
+                builder::metricsInterval);
+        reader.read("KITE_PLUGIN_TRACE_BUFFER", Integer::parseInt, value -> value >= 0, builder::traceBufferSize);
+        reader.read("KITE_PLUGIN_TRACE_FILE", Path::of, builder::traceFile);
+        return builder.build();
+    }
+
+    private static Duration parseMillis(String value) {
+        return Duration.ofMillis(Long.parseLong(value));
+    }
+
+    private static boolean parseBoolean(String value) {
+        return switch (value.toLowerCase(Locale.ROOT)) {
+            case "true", "1", "yes" -> true;
+            case "false", "0", "no" -> false;
+            default -> throw new IllegalArgumentException("Not a boolean: " + value);
+        };
+    }
+
+    private static List<String> parseList(String value) {
+        return Arrays.stream(value.split(",")).map(String::trim).filter(item -> !item.isEmpty()).toList();
+    }
+
+    private static Map<String, String> parseMap(String value) {
+        var result = new LinkedHashMap<String, String>();
+        for (var entry : parseList(value)) {
+            int eq = entry.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Expected method=encoding: " + entry);
+            }
+            result.put(entry.substring(0, eq).trim(), entry.substring(eq + 1).trim().toLowerCase(Locale.ROOT));
+        }
+        return result;
+    }
+
+    private record EnvReader(Map<String, String> env) {
+        <V> void read(String name, Function<String, V> parser, Function<V, ?> setter) {
+            read(name, parser, value -> true, setter);
+        }
+
+        <V> void read(String name, Function<String, V> parser, Predicate<V> valid, Function<V, ?> setter) {
+            var value = env.get(name);
+            if (value == null || value.isBlank()) {
+                return;
+            }
+            V parsed;
+            try {
+                parsed = parser.apply(value.trim());
+            } catch (RuntimeException e) {
+                log.warn("Invalid {} '{}', using default", name, value);
+                return;
+            }
+            if (!valid.test(parsed)) {
+                log.warn("{} '{}' is out of range, using default", name, value);
+                return;
+            }
+            setter.apply(parsed);
+        }
+    }
+}
@@ -1,14 +1,26 @@
 package cloud.kitelang.provider;
 
-import cloud.kitelang.api.schema.Schema;
+import cloud.kitelang.provider.RetryEngine.Operation;
 import cloud.kitelang.proto.v1.*;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.protobuf.ByteString;
+import io.grpc.Context;
+import io.grpc.Status;
 import io.grpc.stub.StreamObserver;
 import lombok.extern.slf4j.Slf4j;
-import org.msgpack.jackson.dataformat.MessagePackMapper;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
 
 /**
  * gRPC service implementation that delegates to a KiteProvider.
@@ -16,22 +28,63 @@ import java.util.List;
  */
 @Slf4j
 public class ProviderServiceImpl extends ProviderGrpc.ProviderImplBase {
+    /**
+     * Default number of resources handed to {@link ResourceTypeHandler#readBatch} at once.
+     */
+    public static final int DEFAULT_READ_CHUNK_SIZE = 100;
+    /**
+     * Default time {@link #drain(Duration)} waits for in-flight calls before cancelling them.
+     */
+    public static final Duration DEFAULT_DRAIN_TIMEOUT = Duration.ofSeconds(30);
+    /** Time cancelled calls get to send their responses. */
+    private static final Duration CANCEL_GRACE = Duration.ofSeconds(2);
+
     private final KiteProvider provider;
-    private final ObjectMapper msgpackMapper;
+    private final ResourcePayloadCodec payloadCodec;
+    private final ConcurrencyLimiters concurrencyLimiters;
+    private final RetryEngine retryEngine;
+    private final InFlightCalls inFlightCalls = new InFlightCalls();
+    private final ProviderMetrics metrics = new ProviderMetrics();
+    private final Tracer tracer;
+    private final ProviderSessions sessions = new ProviderSessions(this::closeSession);
+    /** Schema precomputed at build time, or null to build it from the handlers. */
+    private final GetProviderSchema.Response schemaIndex;
+    private volatile CachedSchema cachedSchema;
     private final long startTimeMs;
     private final long idleTimeoutMs;
     private volatile long lastActivityMs;
+    private volatile Runnable stopHandler;
 
     public ProviderServiceImpl(KiteProvider provider) {
         this(provider, 0);
     }
 
     public ProviderServiceImpl(KiteProvider provider, long idleTimeoutMs) {
+        this(provider, idleTimeoutMs, ConcurrencyLimiters.unlimited());
+    }
+
+    /**
+     * @param concurrencyLimiters Limits concurrent handler calls per resource type or API family
+     */
+    public ProviderServiceImpl(KiteProvider provider, long idleTimeoutMs, ConcurrencyLimiters concurrencyLimiters) {
+        this(provider, idleTimeoutMs, concurrencyLimiters, RetryEngine.defaults());
+    }
+
+    /**
+     * @param concurrencyLimiters Limits concurrent handler calls per resource type or API family
+     * @param retryEngine         Retries handler calls that fail with transient errors
+     */
+    public ProviderServiceImpl(KiteProvider provider, long idleTimeoutMs, ConcurrencyLimiters concurrencyLimiters,
+                               RetryEngine retryEngine) {
         this.provider = provider;
-        this.msgpackMapper = new MessagePackMapper();
+        this.payloadCodec = new ResourcePayloadCodec();
+        this.concurrencyLimiters = concurrencyLimiters;
+        this.retryEngine = retryEngine;
         this.startTimeMs = System.currentTimeMillis();
         this.lastActivityMs = startTimeMs;
         this.idleTimeoutMs = idleTimeoutMs;
+        this.tracer = new Tracer(provider.getName());
+        this.schemaIndex = SchemaIndex.load(Thread.currentThread().getContextClassLoader(), provider);
     }
 
     /**
@@ -42,10 +95,14 @@ public class ProviderServiceImpl extends ProviderGrpc.ProviderImplBase {
     }
 
     /**
-     * Get milliseconds since last activity.
+     * Get milliseconds the provider has been idle: 0 while any call or handler work is in flight,
+     * otherwise the time since the last call started or finished, whichever is later.
      */
     public long getIdleTimeMs() {
-        return System.currentTimeMillis() - lastActivityMs;
+        if (!inFlightCalls.isIdle()) {
+            return 0;
+        }
+        return System.currentTimeMillis() - Math.max(lastActivityMs, inFlightCalls.getLastEndMs());
     }
 
     /**
@@ -55,26 +112,192 @@ public class ProviderServiceImpl extends ProviderGrpc.ProviderImplBase {
         return System.currentTimeMillis() - startTimeMs;
     }
 
+    /**
+     * Get the current limit, in-flight calls and queue depth of every concurrency limiter.
+     */
+    public List<ConcurrencyLimiter.Snapshot> getConcurrencySnapshots() {
+        return concurrencyLimiters.snapshots();
+    }
+
+    /**
+     * Get the retry statistics per operation and resource type.
+     */
+    public List<RetryEngine.Snapshot> getRetrySnapshots() {
+        return retryEngine.snapshots();
+    }
+
+    /**
+     * Get the latency histograms and byte counters per method, resource type and outcome.
+     */
+    public ProviderMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Tracer of this service's calls; off until an exporter is started or added.
+     */
+    Tracer getTracer() {
+        return tracer;
+    }
+
+    /**
+     * Start timing and tracing a call.
+     */
+    private ProviderMetrics.Timer startCall(String method, String typeName) {
+        // Type names come from the client, so unknown ones share a label instead of each getting histograms
+        var metricsType = typeName.isEmpty() || provider.getResourceType(typeName) != null
+                ? typeName
+                : ProviderMetrics.UNKNOWN_TYPE;
+        return metrics.start(method, metricsType).traced(tracer.startServerSpan(method, typeName));
+    }
+
+    /**
+     * Take a snapshot of all metrics for a {@link MetricsExporter}.
+     */
+    public MetricsSnapshot metricsSnapshot() {
+        return new MetricsSnapshot(provider.getName(), getUptimeMs(), metrics.snapshots(), metrics.errorCounts(),
+                getInFlightCounts(), retryEngine.snapshots(), provider.getRateLimiters().snapshots(),
+                concurrencyLimiters.snapshots(), MetricsSnapshot.Jvm.current());
+    }
+
+    /**
+     * Get the number of calls in flight, not counting health checks.
+     */
+    public int getInFlightCount() {
+        return inFlightCalls.getCount();
+    }
+
+    /**
+     * Get the number of calls in flight per RPC method (e.g. {@code CreateResource}),
+     * counting operations on the {@link OperationChannel} under their unary method.
+     * Methods without calls in flight are left out.
+     */
+    public Map<String, Integer> getInFlightCounts() {
+        return inFlightCalls.getCounts();
+    }
+
+    /**
+     * Get the open engine sessions in pool mode, oldest first.
+     */
+    public List<ProviderSession> getSessions() {
+        return sessions.list();
+    }
+
+    /**
+     * Sessions in pool mode; the server must install their transport filter and interceptor.
+     */
+    ProviderSessions getSessionRegistry() {
+        return sessions;
+    }
+
+    /**
+     * Check whether the provider has stopped accepting calls because it is shutting down.
+     */
+    public boolean isDraining() {
+        return inFlightCalls.isDraining();
+    }
+
+    /**
+     * Calls in flight; the server must intercept this service with its interceptor.
+     */
+    InFlightCalls getInFlightCalls() {
+        return inFlightCalls;
+    }
+
+    /**
+     * Set what happens after {@code StopProvider} has replied; it runs on its own thread.
+     * By default the provider drains for {@link #DEFAULT_DRAIN_TIMEOUT}, stops and exits the process.
+     */
+    public void setStopHandler(Runnable stopHandler) {
+        this.stopHandler = stopHandler;
+    }
+
+    /**
+     * Stop accepting calls and wait for the ones in flight. New calls fail with
+     * {@code UNAVAILABLE} and health checks report unhealthy from now on.
+     * Handler work still running at the deadline is cancelled: synchronous handlers are
+     * interrupted and the stages of asynchronous handlers are cancelled.
+     *
+     * @param timeout How long to wait before cancelling
+     * @return true if every call finished before the deadline
+     */
+    public boolean drain(Duration timeout) throws InterruptedException {
+        inFlightCalls.startDraining();
+        log.info("Draining {} in-flight calls (timeout {}s)", inFlightCalls.getCount(), timeout.toSeconds());
+        if (inFlightCalls.awaitDrained(timeout)) {
+            log.info("Drained all calls");
+            return true;
+        }
+
+        int cancelled = inFlightCalls.cancelAll();
+        log.warn("Drain timed out after {}s, cancelled {} handler operations", timeout.toSeconds(), cancelled);
+        if (!inFlightCalls.awaitDrained(CANCEL_GRACE)) {
+            log.warn("{} calls still in flight after cancellation", inFlightCalls.getCount());
+        }
+        return false;
+    }
+
+    /**
+     * Create deferred handlers and build the schema and msgpack readers and writers for every
+     * registered resource type, so the first plan or create of each type does not pay for them.
+     */
+    public void warmUp() {
+        var startTime = System.currentTimeMillis();
+        // Creates deferred handlers
+        for (var resourceType : provider.getResourceTypes().values()) {
+            try {
+                payloadCodec.register(resourceType.getResourceClass());
+            } catch (Exception e) {
+                log.warn("Failed to warm up serializers for {}: {}",
+                        resourceType.getResourceClass().getName(), e.getMessage());
+            }
+        }
+        try {
+            getSchemaResponse();
+        } catch (Exception e) {
+            log.warn("Failed to build provider schema: {}", e.getMessage());
+        }
+        log.debug("Warmed up serializers for {} resource types ({}ms)",
+                provider.getResourceTypes().size(), System.currentTimeMillis() - startTime);
+    }
+
     @Override
     public void getProviderSchema(GetProviderSchema.Request request,
                                   StreamObserver<GetProviderSchema.Response> responseObserver) {
         touchActivity();
         log.debug("GetProviderSchema called for provider: {}", provider.getName());
+        var timer = startCall("GetProviderSchema", "");
 
-        var responseBuilder = GetProviderSchema.Response.newBuilder();
-
-        // Convert each resource type's schema
-        for (var entry : provider.getResourceTypes().entrySet()) {
-            var typeName = entry.getKey();
-            var resourceType = entry.getValue();
-            Schema apiSchema = resourceType.getSchema();
+        var response = getSchemaResponse();
+        timer.encoded(response.getSerializedSize(), 0);
+        timer.finish(ProviderMetrics.Outcome.OK);
+        responseObserver.onNext(response);
+        responseObserver.onCompleted();
+    }
 
-            var protoSchema = convertSchema(apiSchema);
-            responseBuilder.putResourceSchemas(typeName, protoSchema);
+    /**
+     * The GetProviderSchema response, built once and rebuilt only after the provider's
+     * resource types change.
+     */
+    GetProviderSchema.Response getSchemaResponse() {
+        // Read before building, so a registration during the build leaves the cache stale
+        long version = provider.getRegistrationVersion();
+        var cached = cachedSchema;
+        if (cached != null && cached.registrationVersion() == version) {
+            return cached.response();
         }
 
-        responseObserver.onNext(responseBuilder.build());
-        responseObserver.onCompleted();
+        var startTime = System.nanoTime();
+        var response = schemaIndex != null
+                && schemaIndex.getResourceSchemasMap().keySet().equals(provider.getResourceTypeNames())
+                ? schemaIndex
+                : SchemaIndex.build(provider);
+        // Protobuf memoizes the size, so later calls skip the size pass when serializing
+        response.getSerializedSize();
+        cachedSchema = new CachedSchema(version, response);
+        log.debug("Built provider schema for {} resource types ({}ms)",
+                response.getResourceSchemasCount(), (System.nanoTime() - startTime) / 1_000_000);
+        return response;
     }
 
     @Override
@@ -86,10 +309,15 @@ public class ProviderServiceImpl extends ProviderGrpc.ProviderImplBase {
         try {
             // Deserialize config if provided
             if (request.hasConfig() && !request.getConfig().getMsgpack().isEmpty()) {
-                Object config = msgpackMapper.readValue(
-                        request.getConfig().getMsgpack().toByteArray(),
-                        Object.class);
-                provider.configure(config);
+                Object config = payloadCodec.decode(request.getConfig(), Object.class);
+                var session = ProviderSession.current();
+                if (session != null) {
+                    session.configure(config);
+                    provider.configureSession(session, config);
+                } else {
+                    provider.getRateLimiters().configure(config);
+                    provider.configure(config);
+                }
             }
 
             responseObserver.onNext(ConfigureProvider.Response.newBuilder().build());
@@ -108,6 +336,7 @@ public class ProviderServiceImpl extends ProviderGrpc.ProviderImplBase {
                                        StreamObserver<ValidateResourceConfig.Response> responseObserver) {
         touchActivity();
         log.debug("ValidateResourceConfig called for type: {}", request.getTypeName());
+        var timer = startCall("ValidateResourceConfig", request.getTypeName());
 
         var responseBuilder = ValidateResourceConfig.Response.newBuilder();
 
@@ -118,18 +347,22 @@ public class ProviderServiceImpl extends ProviderGrpc.ProviderImplBase {
                         "Unknown resource type",
                         "Resource type '" + request.getTypeName() + "' not found"));
             } else {
-                Object resource = fromResourcePayload(request.getConfig(), resourceType.getResourceClass());
-                List<Diagnostic> diagnostics = resourceType.validate(resource);
+                Object resource = fromResourcePayload(request.getConfig(), resourceType.getResourceClass(), timer);
+                List<Diagnostic> diagnostics = Tracing.inSpan(handlerSpan(timer.getSpan(), "validate"),
+                        () -> resourceType.validate(resource));
                 for (Diagnostic d : diagnostics) {
                     responseBuilder.addDiagnostics(convertDiagnostic(d));
                 }
             }
         } catch (Exception e) {
             log.error("Validation failed", e);
+            timer.failed(e);
             responseBuilder.addDiagnostics(errorDiagnostic("Validation error", extractErrorMessage(e)));
         }
 
-        responseObserver.onNext(responseBuilder.build());
+        var response = responseBuilder.build();
+        timer.finish(outcomeOf(response.getDiagnosticsList()));
+        responseObserver.onNext(response);
         responseObserver.onCompleted();
     }
 
@@ -138,29 +371,52 @@ public class ProviderServiceImpl extends ProviderGrpc.ProviderImplBase {
                                StreamObserver<CreateResource.Response> responseObserver) {
         touchActivity();
         log.debug("CreateResource called for type: {}", request.getTypeName());
-        var startTime = System.currentTimeMillis();
-
-        var responseBuilder = CreateResource.Response.newBuilder();
+        var timer = startCall("CreateResource", request.getTypeName());
+
+        ResourceTypeHandler<Object> resourceType = provider.getResourceType(request.getTypeName());
+        if (resourceType == null) {
+            timer.finish(ProviderMetrics.Outcome.ERROR);
+            responseObserver.onNext(CreateResource.Response.newBuilder()
+                    .addDiagnostics(errorDiagnostic(
+                            "Unknown resource type",
+                            "Resource type '" + request.getTypeName() + "' not found"))
+                    .build());
+            responseObserver.onCompleted();
+            return;
+        }
 
+        // Decode outside the retried call, so retries neither decode nor count the payload again
+        CompletionStage<Object> result;
         try {
-            ResourceTypeHandler<Object> resourceType = provider.getResourceType(request.getTypeName());
-            if (resourceType == null) {
-                responseBuilder.addDiagnostics(errorDiagnostic(
-                        "Unknown resource type",
-                        "Resource type '" + request.getTypeName() + "' not found"));
-            } else {
-                Object resource = fromResourcePayload(request.getConfig(), resourceType.getResourceClass());
-                Object created = resourceType.create(resource);
-                responseBuilder.setNewState(toResourcePayload(created));
-                log.info("Created {} ({}ms)", request.getTypeName(), System.currentTimeMillis() - startTime);
-            }
+            Object resource = fromResourcePayload(request.getConfig(), resourceType.getResourceClass(), timer);
+            result = invokeLimited(Operation.CREATE, request.getTypeName(), resourceType, timer.getSpan(), () ->
+                    resourceType instanceof AsyncResourceTypeHandler<Object> asyncType
+                            ? asyncType.createAsync(resource)
+                            : CompletableFuture.completedFuture(resourceType.create(resource)));
         } catch (Exception e) {
-            log.error("Create failed", e);
-            responseBuilder.addDiagnostics(errorDiagnostic("Create failed", extractErrorMessage(e)));
+            result = CompletableFuture.failedFuture(e);
         }
 
-        responseObserver.onNext(responseBuilder.build());
-        responseObserver.onCompleted();
+        result.whenComplete((created, error) -> {
+            var responseBuilder = CreateResource.Response.newBuilder();
+            try {
+                if (error != null) {
+                    throw unwrap(error);
+                }
+                responseBuilder.setNewState(toResourcePayload(created, timer));
+                log.debug("Created {} ({}ms)", request.getTypeName(), timer.elapsedMillis());
+            } catch (Error e) {
+                throw failCall(e, timer, responseObserver);
+            } catch (Exception e) {
+                log.error("Create failed", e);
+                timer.failed(e);
+                responseBuilder.addDiagnostics(errorDiagnostic("Create failed", extractErrorMessage(e)));
+            }
+            var response = responseBuilder.build();
+            timer.finish(outcomeOf(response.getDiagnosticsList()));
+            responseObserver.onNext(response);
+            responseObserver.onCompleted();
+        });
     }
 
     @Override
@@ -168,31 +424,222 @@ public class ProviderServiceImpl extends ProviderGrpc.ProviderImplBase {
                              StreamObserver<ReadResource.Response> responseObserver) {
         touchActivity();
         log.debug("ReadResource called for type: {}", request.getTypeName());
-        var startTime = System.currentTimeMillis();
-
-        var responseBuilder = ReadResource.Response.newBuilder();
+        var timer = startCall("ReadResource", request.getTypeName());
+
+        ResourceTypeHandler<Object> resourceType = provider.getResourceType(request.getTypeName());
+        if (resourceType == null) {
+            timer.finish(ProviderMetrics.Outcome.ERROR);
+            responseObserver.onNext(ReadResource.Response.newBuilder()
+                    .addDiagnostics(errorDiagnostic(
+                            "Unknown resource type",
+                            "Resource type '" + request.getTypeName() + "' not found"))
+                    .build());
+            responseObserver.onCompleted();
+            return;
+        }
 
+        CompletionStage<Object> result;
         try {
-            ResourceTypeHandler<Object> resourceType = provider.getResourceType(request.getTypeName());
-            if (resourceType == null) {
-                responseBuilder.addDiagnostics(errorDiagnostic(
-                        "Unknown resource type",
-                        "Resource type '" + request.getTypeName() + "' not found"));
-            } else {
-                Object resource = fromResourcePayload(request.getCurrentState(), resourceType.getResourceClass());
-                Object current = resourceType.read(resource);
+            Object resource = fromResourcePayload(request.getCurrentState(), resourceType.getResourceClass(), timer);
+            result = invokeLimited(Operation.READ, request.getTypeName(), resourceType, timer.getSpan(), () ->
+                    resourceType instanceof AsyncResourceTypeHandler<Object> asyncType
+                            ? asyncType.readAsync(resource)
+                            : CompletableFuture.completedFuture(resourceType.read(resource)));
+        } catch (Exception e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+
+        result.whenComplete((current, error) -> {
+            var responseBuilder = ReadResource.Response.newBuilder();
+            try {
+                if (error != null) {
+                    throw unwrap(error);
+                }
                 if (current != null) {
-                    responseBuilder.setNewState(toResourcePayload(current));
+                    responseBuilder.setNewState(toResourcePayload(current, timer));
                 }
-                log.info("Read {} ({}ms)", request.getTypeName(), System.currentTimeMillis() - startTime);
+                log.debug("Read {} ({}ms)", request.getTypeName(), timer.elapsedMillis());
+            } catch (Error e) {
+                throw failCall(e, timer, responseObserver);
+            } catch (Exception e) {
+                log.error("Read failed", e);
+                timer.failed(e);
+                responseBuilder.addDiagnostics(errorDiagnostic("Read failed", extractErrorMessage(e)));
+            }
+            var response = responseBuilder.build();
+            timer.finish(outcomeOf(response.getDiagnosticsList()));
+            responseObserver.onNext(response);
+            responseObserver.onCompleted();
+        });
+    }
+
+    /**
+     * Read many resources, possibly of mixed types, using
+     * {@link ResourceTypeHandler#readBatch} with {@link #DEFAULT_READ_CHUNK_SIZE}.
+     *
+     * @see #readResources(List, int, BiConsumer)
+     */
+    public void readResources(List<ReadResource.Request> requests,
+                              BiConsumer<Integer, ReadResource.Response> onResult) {
+        readResources(requests, DEFAULT_READ_CHUNK_SIZE, onResult);
+    }
+
+    /**
+     * Read many resources, possibly of mixed types, in one pass.
+     * Requests are grouped by type name and split into chunks of at most {@code chunkSize},
+     * each handed to {@link ResourceTypeHandler#readBatch} on its own virtual thread.
+     * Results are streamed to {@code onResult} as each chunk completes, so they arrive
+     * out of request order. This is the implementation behind the batch read RPC.
+     *
+     * @param requests  The read requests
+     * @param chunkSize Maximum number of resources per {@code readBatch} call
+     * @param onResult  Receives the request index and its response; calls are serialized
+     */
+    public void readResources(List<ReadResource.Request> requests, int chunkSize,
+                              BiConsumer<Integer, ReadResource.Response> onResult) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        touchActivity();
+        log.debug("ReadResources called for {} resources (chunk size {})", requests.size(), chunkSize);
+
+        var indicesByType = new LinkedHashMap<String, List<Integer>>();
+        for (int i = 0; i < requests.size(); i++) {
+            indicesByType.computeIfAbsent(requests.get(i).getTypeName(), k -> new ArrayList<>()).add(i);
+        }
+
+        // StreamObserver is not thread-safe, so serialize callbacks from concurrent chunks
+        var lock = new Object();
+        BiConsumer<Integer, ReadResource.Response> emit = (index, response) -> {
+            synchronized (lock) {
+                onResult.accept(index, response);
+            }
+        };
+
+        var chunks = new ArrayList<Future<?>>();
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (var entry : indicesByType.entrySet()) {
+                var indices = entry.getValue();
+                for (int from = 0; from < indices.size(); from += chunkSize) {
+                    var chunk = indices.subList(from, Math.min(from + chunkSize, indices.size()));
+                    chunks.add(executor.submit(Context.current().wrap(
+                            () -> readChunkInFlight(entry.getKey(), chunk, requests, emit))));
+                }
+            }
+        }
+        // Chunks turn handler exceptions into diagnostics; only JVM errors escape, and must not be lost
+        for (var chunk : chunks) {
+            if (chunk.state() == Future.State.FAILED && chunk.exceptionNow() instanceof Error error) {
+                throw error;
+            }
+        }
+    }
+
+    /**
+     * Read one chunk as an in-flight call, so draining waits for it.
+     */
+    private void readChunkInFlight(String typeName, List<Integer> indices,
+                                   List<ReadResource.Request> requests,
+                                   BiConsumer<Integer, ReadResource.Response> emit) {
+        if (!inFlightCalls.tryBegin("ReadResources")) {
+            var diagnostic = errorDiagnostic("Read failed", "Provider is shutting down");
+            for (int index : indices) {
+                emit.accept(index, ReadResource.Response.newBuilder().addDiagnostics(diagnostic).build());
+            }
+            return;
+        }
+        try {
+            readChunk(typeName, indices, requests, emit);
+        } finally {
+            inFlightCalls.end("ReadResources");
+        }
+    }
+
+    /**
+     * Read one chunk of requests of the same resource type with a single {@code readBatch} call.
+     */
+    private void readChunk(String typeName, List<Integer> indices,
+                           List<ReadResource.Request> requests,
+                           BiConsumer<Integer, ReadResource.Response> emit) {
+        var timer = startCall("ReadResources", typeName);
+        ResourceTypeHandler<Object> resourceType = provider.getResourceType(typeName);
+        if (resourceType == null) {
+            timer.finish(ProviderMetrics.Outcome.ERROR);
+            var diagnostic = errorDiagnostic("Unknown resource type",
+                    "Resource type '" + typeName + "' not found");
+            for (int index : indices) {
+                emit.accept(index, ReadResource.Response.newBuilder().addDiagnostics(diagnostic).build());
+            }
+            return;
+        }
+
+        var outcome = ProviderMetrics.Outcome.OK;
+        var resources = new ArrayList<Object>(indices.size());
+        var resourceIndices = new ArrayList<Integer>(indices.size());
+        for (int index : indices) {
+            try {
+                resources.add(fromResourcePayload(requests.get(index).getCurrentState(), resourceType.getResourceClass(), timer));
+                resourceIndices.add(index);
+            } catch (Exception e) {
+                log.error("Read failed", e);
+                timer.failed(e);
+                outcome = ProviderMetrics.Outcome.ERROR;
+                emit.accept(index, ReadResource.Response.newBuilder()
+                        .addDiagnostics(errorDiagnostic("Read failed", extractErrorMessage(e)))
+                        .build());
+            }
+        }
+        if (resources.isEmpty()) {
+            timer.finish(outcome);
+            return;
+        }
+
+        List<BatchResult<Object>> results;
+        try {
+            results = await(invokeLimited(Operation.READ, typeName, resourceType, timer.getSpan(), resources.size(),
+                    () -> CompletableFuture.completedFuture(resourceType.readBatch(resources))));
+            if (results == null || results.size() != resources.size()) {
+                throw new ProviderException("readBatch for " + typeName + " returned "
+                        + (results == null ? "null" : results.size() + " results")
+                        + " for " + resources.size() + " resources");
             }
         } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
             log.error("Read failed", e);
-            responseBuilder.addDiagnostics(errorDiagnostic("Read failed", extractErrorMessage(e)));
+            timer.failed(e);
+            timer.finish(ProviderMetrics.Outcome.ERROR);
+            var diagnostic = errorDiagnostic("Read failed", extractErrorMessage(e));
+            for (int index : resourceIndices) {
+                emit.accept(index, ReadResource.Response.newBuilder().addDiagnostics(diagnostic).build());
+            }
+            return;
         }
 
-        responseObserver.onNext(responseBuilder.build());
-        responseObserver.onCompleted();
+        for (int i = 0; i < results.size(); i++) {
+            var result = results.get(i);
+            var responseBuilder = ReadResource.Response.newBuilder();
+            for (Diagnostic d : result.diagnostics()) {
+                responseBuilder.addDiagnostics(convertDiagnostic(d));
+            }
+            if (!result.hasErrors() && result.value() != null) {
+                try {
+                    responseBuilder.setNewState(toResourcePayload(result.value(), timer));
+                } catch (Exception e) {
+                    log.error("Read failed", e);
+                    timer.failed(e);
+                    responseBuilder.addDiagnostics(errorDiagnostic("Read failed", extractErrorMessage(e)));
+                }
+            }
+            var response = responseBuilder.build();
+            if (outcomeOf(response.getDiagnosticsList()) == ProviderMetrics.Outcome.ERROR) {
+                outcome = ProviderMetrics.Outcome.ERROR;
+            }
+            emit.accept(resourceIndices.get(i), response);
+        }
+        timer.finish(outcome);
+        log.debug("Read {} {} resources ({}ms)", resources.size(), typeName, timer.elapsedMillis());
     }
 
     @Override
@@ -200,29 +647,51 @@ public class ProviderServiceImpl extends ProviderGrpc.ProviderImplBase {
                                StreamObserver<UpdateResource.Response> responseObserver) {
         touchActivity();
         log.debug("UpdateResource called for type: {}", request.getTypeName());
-        var startTime = System.currentTimeMillis();
-
-        var responseBuilder = UpdateResource.Response.newBuilder();
+        var timer = startCall("UpdateResource", request.getTypeName());
+
+        ResourceTypeHandler<Object> resourceType = provider.getResourceType(request.getTypeName());
+        if (resourceType == null) {
+            timer.finish(ProviderMetrics.Outcome.ERROR);
+            responseObserver.onNext(UpdateResource.Response.newBuilder()
+                    .addDiagnostics(errorDiagnostic(
+                            "Unknown resource type",
+                            "Resource type '" + request.getTypeName() + "' not found"))
+                    .build());
+            responseObserver.onCompleted();
+            return;
+        }
 
+        CompletionStage<Object> result;
         try {
-            ResourceTypeHandler<Object> resourceType = provider.getResourceType(request.getTypeName());
-            if (resourceType == null) {
-                responseBuilder.addDiagnostics(errorDiagnostic(
-                        "Unknown resource type",
-                        "Resource type '" + request.getTypeName() + "' not found"));
-            } else {
-                Object resource = fromResourcePayload(request.getPlannedState(), resourceType.getResourceClass());
-                Object updated = resourceType.update(resource);
-                responseBuilder.setNewState(toResourcePayload(updated));
-                log.info("Updated {} ({}ms)", request.getTypeName(), System.currentTimeMillis() - startTime);
-            }
+            Object resource = fromResourcePayload(request.getPlannedState(), resourceType.getResourceClass(), timer);
+            result = invokeLimited(Operation.UPDATE, request.getTypeName(), resourceType, timer.getSpan(), () ->
+                    resourceType instanceof AsyncResourceTypeHandler<Object> asyncType
+                            ? asyncType.updateAsync(resource)
+                            : CompletableFuture.completedFuture(resourceType.update(resource)));
         } catch (Exception e) {
-            log.error("Update failed", e);
-            responseBuilder.addDiagnostics(errorDiagnostic("Update failed", extractErrorMessage(e)));
+            result = CompletableFuture.failedFuture(e);
         }
 
-        responseObserver.onNext(responseBuilder.build());
-        responseObserver.onCompleted();
+        result.whenComplete((updated, error) -> {
+            var responseBuilder = UpdateResource.Response.newBuilder();
+            try {
+                if (error != null) {
+                    throw unwrap(error);
+                }
+                responseBuilder.setNewState(toResourcePayload(updated, timer));
+                log.debug("Updated {} ({}ms)", request.getTypeName(), timer.elapsedMillis());
+            } catch (Error e) {
+                throw failCall(e, timer, responseObserver);
+            } catch (Exception e) {
+                log.error("Update failed", e);
+                timer.failed(e);
+                responseBuilder.addDiagnostics(errorDiagnostic("Update failed", extractErrorMessage(e)));
+            }
+            var response = responseBuilder.build();
+            timer.finish(outcomeOf(response.getDiagnosticsList()));
+            responseObserver.onNext(response);
+            responseObserver.onCompleted();
+        });
     }
 
     @Override
@@ -230,34 +699,56 @@ public class ProviderServiceImpl extends ProviderGrpc.ProviderImplBase {
                                StreamObserver<DeleteResource.Response> responseObserver) {
         touchActivity();
         log.debug("DeleteResource called for type: {}", request.getTypeName());
-        var startTime = System.currentTimeMillis();
-
-        var responseBuilder = DeleteResource.Response.newBuilder();
+        var timer = startCall("DeleteResource", request.getTypeName());
+
+        ResourceTypeHandler<Object> resourceType = provider.getResourceType(request.getTypeName());
+        if (resourceType == null) {
+            timer.finish(ProviderMetrics.Outcome.ERROR);
+            responseObserver.onNext(DeleteResource.Response.newBuilder()
+                    .addDiagnostics(errorDiagnostic(
+                            "Unknown resource type",
+                            "Resource type '" + request.getTypeName() + "' not found"))
+                    .build());
+            responseObserver.onCompleted();
+            return;
+        }
 
+        CompletionStage<Boolean> result;
         try {
-            ResourceTypeHandler<Object> resourceType = provider.getResourceType(request.getTypeName());
-            if (resourceType == null) {
-                responseBuilder.addDiagnostics(errorDiagnostic(
-                        "Unknown resource type",
-                        "Resource type '" + request.getTypeName() + "' not found"));
-            } else {
-                Object resource = fromResourcePayload(request.getPriorState(), resourceType.getResourceClass());
-                boolean deleted = resourceType.delete(resource);
-                if (!deleted) {
+            Object resource = fromResourcePayload(request.getPriorState(), resourceType.getResourceClass(), timer);
+            result = invokeLimited(Operation.DELETE, request.getTypeName(), resourceType, timer.getSpan(), () ->
+                    resourceType instanceof AsyncResourceTypeHandler<Object> asyncType
+                            ? asyncType.deleteAsync(resource)
+                            : CompletableFuture.completedFuture(resourceType.delete(resource)));
+        } catch (Exception e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+
+        result.whenComplete((deleted, error) -> {
+            var responseBuilder = DeleteResource.Response.newBuilder();
+            try {
+                if (error != null) {
+                    throw unwrap(error);
+                }
+                if (!Boolean.TRUE.equals(deleted)) {
                     responseBuilder.addDiagnostics(cloud.kitelang.proto.v1.Diagnostic.newBuilder()
                             .setSeverity(cloud.kitelang.proto.v1.Diagnostic.Severity.WARNING)
                             .setSummary("Resource not found")
                             .build());
                 }
-                log.info("Deleted {} ({}ms)", request.getTypeName(), System.currentTimeMillis() - startTime);
+                log.debug("Deleted {} ({}ms)", request.getTypeName(), timer.elapsedMillis());
+            } catch (Error e) {
+                throw failCall(e, timer, responseObserver);
+            } catch (Exception e) {
+                log.error("Delete failed", e);
+                timer.failed(e);
+                responseBuilder.addDiagnostics(errorDiagnostic("Delete failed", extractErrorMessage(e)));
             }
-        } catch (Exception e) {
-            log.error("Delete failed", e);
-            responseBuilder.addDiagnostics(errorDiagnostic("Delete failed", extractErrorMessage(e)));
-        }
-
-        responseObserver.onNext(responseBuilder.build());
-        responseObserver.onCompleted();
+            var response = responseBuilder.build();
+            timer.finish(outcomeOf(response.getDiagnosticsList()));
+            responseObserver.onNext(response);
+            responseObserver.onCompleted();
+        });
     }
 
     @Override
@@ -265,6 +756,7 @@ public class ProviderServiceImpl extends ProviderGrpc.ProviderImplBase {
                                    StreamObserver<PlanResourceChange.Response> responseObserver) {
         touchActivity();
         log.debug("PlanResourceChange called for type: {}", request.getTypeName());
+        var timer = startCall("PlanResourceChange", request.getTypeName());
 
         var responseBuilder = PlanResourceChange.Response.newBuilder();
 
@@ -276,44 +768,208 @@ public class ProviderServiceImpl extends ProviderGrpc.ProviderImplBase {
                         "Resource type '" + request.getTypeName() + "' not found"));
             } else {
                 Object priorState = request.hasPriorState() && !request.getPriorState().getMsgpack().isEmpty()
-                        ? fromResourcePayload(request.getPriorState(), resourceType.getResourceClass())
+                        ? fromResourcePayload(request.getPriorState(), resourceType.getResourceClass(), timer)
                         : null;
-                Object proposedState = fromResourcePayload(request.getProposedNewState(), resourceType.getResourceClass());
-                Object plannedState = resourceType.plan(priorState, proposedState);
-                responseBuilder.setPlannedState(toResourcePayload(plannedState));
+                Object proposedState = fromResourcePayload(request.getProposedNewState(), resourceType.getResourceClass(), timer);
+                Object plannedState = await(invokeLimited(Operation.PLAN, request.getTypeName(), resourceType, timer.getSpan(),
+                        () -> CompletableFuture.completedFuture(resourceType.plan(priorState, proposedState))));
+                responseBuilder.setPlannedState(toResourcePayload(plannedState, timer));
             }
         } catch (Exception e) {
             log.error("Plan failed", e);
+            timer.failed(e);
             responseBuilder.addDiagnostics(errorDiagnostic("Plan failed", extractErrorMessage(e)));
         }
 
-        responseObserver.onNext(responseBuilder.build());
+        var response = responseBuilder.build();
+        timer.finish(outcomeOf(response.getDiagnosticsList()));
+        responseObserver.onNext(response);
         responseObserver.onCompleted();
     }
 
+    /**
+     * Plan many resource changes, possibly of mixed types, in one pass.
+     * Requests are grouped by type name and each group is handed to
+     * {@link ResourceTypeHandler#planBatch(List)}, so handlers can answer many plans
+     * from one cloud call. This is the implementation behind the batch plan RPC.
+     *
+     * @param requests The plan requests
+     * @return One response per request, in request order, each with its own diagnostics
+     */
+    public List<PlanResourceChange.Response> planResourceChanges(List<PlanResourceChange.Request> requests) {
+        touchActivity();
+        log.debug("PlanResourceChanges called for {} resources", requests.size());
+
+        var responses = new PlanResourceChange.Response[requests.size()];
+        var indicesByType = new LinkedHashMap<String, List<Integer>>();
+        for (int i = 0; i < requests.size(); i++) {
+            indicesByType.computeIfAbsent(requests.get(i).getTypeName(), k -> new ArrayList<>()).add(i);
+        }
+
+        for (var entry : indicesByType.entrySet()) {
+            planGroup(entry.getKey(), entry.getValue(), requests, responses);
+        }
+
+        return List.of(responses);
+    }
+
+    /**
+     * Plan all requests of one resource type with a single {@code planBatch} call.
+     */
+    private void planGroup(String typeName, List<Integer> indices,
+                           List<PlanResourceChange.Request> requests,
+                           PlanResourceChange.Response[] responses) {
+        var timer = startCall("PlanResourceChanges", typeName);
+        ResourceTypeHandler<Object> resourceType = provider.getResourceType(typeName);
+        if (resourceType == null) {
+            timer.finish(ProviderMetrics.Outcome.ERROR);
+            var diagnostic = errorDiagnostic("Unknown resource type",
+                    "Resource type '" + typeName + "' not found");
+            for (int index : indices) {
+                responses[index] = PlanResourceChange.Response.newBuilder().addDiagnostics(diagnostic).build();
+            }
+            return;
+        }
+
+        // Decode each request on its own so one bad payload does not fail the whole group
+        var outcome = ProviderMetrics.Outcome.OK;
+        var inputs = new ArrayList<PlanInput<Object>>(indices.size());
+        var inputIndices = new ArrayList<Integer>(indices.size());
+        for (int index : indices) {
+            var request = requests.get(index);
+            try {
+                Object priorState = request.hasPriorState() && !request.getPriorState().getMsgpack().isEmpty()
+                        ? fromResourcePayload(request.getPriorState(), resourceType.getResourceClass(), timer)
+                        : null;
+                Object proposedState = fromResourcePayload(request.getProposedNewState(), resourceType.getResourceClass(), timer);
+                inputs.add(new PlanInput<>(priorState, proposedState));
+                inputIndices.add(index);
+            } catch (Exception e) {
+                log.error("Plan failed", e);
+                timer.failed(e);
+                outcome = ProviderMetrics.Outcome.ERROR;
+                responses[index] = PlanResourceChange.Response.newBuilder()
+                        .addDiagnostics(errorDiagnostic("Plan failed", extractErrorMessage(e)))
+                        .build();
+            }
+        }
+        if (inputs.isEmpty()) {
+            timer.finish(outcome);
+            return;
+        }
+
+        List<BatchResult<Object>> results;
+        try {
+            results = await(invokeLimited(Operation.PLAN, typeName, resourceType, timer.getSpan(), inputs.size(),
+                    () -> CompletableFuture.completedFuture(resourceType.planBatch(inputs))));
+            if (results == null || results.size() != inputs.size()) {
+                throw new ProviderException("planBatch for " + typeName + " returned "
+                        + (results == null ? "null" : results.size() + " results")
+                        + " for " + inputs.size() + " inputs");
+            }
+        } catch (Exception e) {
+            log.error("Plan failed", e);
+            timer.failed(e);
+            timer.finish(ProviderMetrics.Outcome.ERROR);
+            var diagnostic = errorDiagnostic("Plan failed", extractErrorMessage(e));
+            for (int index : inputIndices) {
+                responses[index] = PlanResourceChange.Response.newBuilder().addDiagnostics(diagnostic).build();
+            }
+            return;
+        }
+
+        for (int i = 0; i < results.size(); i++) {
+            var result = results.get(i);
+            var responseBuilder = PlanResourceChange.Response.newBuilder();
+            for (Diagnostic d : result.diagnostics()) {
+                responseBuilder.addDiagnostics(convertDiagnostic(d));
+            }
+            if (!result.hasErrors()) {
+                try {
+                    responseBuilder.setPlannedState(toResourcePayload(result.value(), timer));
+                } catch (Exception e) {
+                    log.error("Plan failed", e);
+                    timer.failed(e);
+                    responseBuilder.addDiagnostics(errorDiagnostic("Plan failed", extractErrorMessage(e)));
+                }
+            }
+            var response = responseBuilder.build();
+            if (outcomeOf(response.getDiagnosticsList()) == ProviderMetrics.Outcome.ERROR) {
+                outcome = ProviderMetrics.Outcome.ERROR;
+            }
+            responses[inputIndices.get(i)] = response;
+        }
+        timer.finish(outcome);
+    }
+
     @Override
     public void stopProvider(StopProvider.Request request,
                              StreamObserver<StopProvider.Response> responseObserver) {
         log.debug("StopProvider called");
-
-        try {
-            provider.stop();
-        } catch (Exception e) {
-            log.warn("Error during provider stop", e);
+        var session = ProviderSession.current();
+        if (session != null) {
+            // Pool mode: end this session only, the process keeps serving the others
+            drainSession(session);
+            sessions.close(session);
+            responseObserver.onNext(StopProvider.Response.newBuilder().build());
+            responseObserver.onCompleted();
+            return;
         }
+        inFlightCalls.startDraining();
 
         responseObserver.onNext(StopProvider.Response.newBuilder().build());
         responseObserver.onCompleted();
 
-        // Schedule graceful shutdown
-        Thread.ofVirtual().start(() -> {
-            try {
-                Thread.sleep(100);
-                System.exit(0);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
+        var handler = stopHandler != null ? stopHandler : (Runnable) this::drainAndExit;
+        Thread.ofVirtual().name("provider-stop").start(handler);
+    }
+
+    /**
+     * Stop admitting calls of a session and wait for the ones in flight.
+     */
+    private void drainSession(ProviderSession session) {
+        var calls = session.getInFlightCalls();
+        calls.startDraining();
+        try {
+            if (!calls.awaitDrained(DEFAULT_DRAIN_TIMEOUT)) {
+                log.warn("{} still has {} calls in flight after {}s, ending it anyway",
+                        session, calls.getCount(), DEFAULT_DRAIN_TIMEOUT.toSeconds());
             }
-        });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Default stop handler: drain, stop the provider and exit.
+     */
+    private void drainAndExit() {
+        try {
+            drain(DEFAULT_DRAIN_TIMEOUT);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        stopProviderQuietly();
+        System.exit(0);
+    }
+
+    private void closeSession(ProviderSession session) {
+        try {
+            provider.closeSession(session);
+        } catch (Exception e) {
+            log.warn("Error closing {}", session, e);
+        }
+    }
+
+    /**
+     * Call {@link KiteProvider#stop()}, logging failures.
+     */
+    void stopProviderQuietly() {
+        try {
+            provider.stop();
+        } catch (Exception e) {
+            log.warn("Error during provider stop", e);
+        }
     }
 
     @Override
@@ -321,9 +977,22 @@ public class ProviderServiceImpl extends ProviderGrpc.ProviderImplBase {
                             StreamObserver<HealthCheck.Response> responseObserver) {
         // Don't touch activity for health checks - they shouldn't reset idle timer
         log.debug("HealthCheck called");
+        if (log.isDebugEnabled()) {
+            log.debug("In flight: {}{}", inFlightCalls.getCounts(), inFlightCalls.isDraining() ? " (draining)" : "");
+            for (var snapshot : concurrencyLimiters.snapshots()) {
+                log.debug("Concurrency {}: limit={}, inFlight={}, queued={}",
+                        snapshot.key(), snapshot.limit(), snapshot.inFlight(), snapshot.queued());
+            }
+            for (var snapshot : retryEngine.snapshots()) {
+                log.debug("Retries {}: attempts={}, retries={}, recovered={}, exhausted={}, budgetRejected={}, delay={}ms",
+                        snapshot.key(), snapshot.attempts(), snapshot.retries(), snapshot.recovered(),
+                        snapshot.exhausted(), snapshot.budgetRejected(), snapshot.totalDelay().toMillis());
+            }
+            metrics.summary().lines().forEach(line -> log.debug("Metrics {}", line));
+        }
 
         var response = HealthCheck.Response.newBuilder()
-                .setHealthy(true)
+                .setHealthy(!inFlightCalls.isDraining())
                 .setUptimeMs(getUptimeMs())
                 .setLastActivityMs(getIdleTimeMs())
                 .setIdleTimeoutMs(idleTimeoutMs)
@@ -334,76 +1003,140 @@ public class ProviderServiceImpl extends ProviderGrpc.ProviderImplBase {
     }
 
     /**
-     * Convert API Schema to proto Schema.
+     * Start a handler operation and return its completion stage.
+     * Synchronous handlers have finished by the time this returns; asynchronous handlers
+     * complete the stage later, and the response is sent from that completion.
+     * Exceptions thrown while starting the operation become a failed stage.
+     * The operation is tracked so that draining can wait for and cancel it.
      */
-    private cloud.kitelang.proto.v1.Schema convertSchema(Schema apiSchema) {
-        var schemaBuilder = cloud.kitelang.proto.v1.Schema.newBuilder()
-                .setVersion(1);
+    private <R> CompletionStage<R> invoke(Callable<CompletionStage<R>> operation) {
+        try {
+            var stage = inFlightCalls.runHandler(operation);
+            return stage != null ? stage : CompletableFuture.completedFuture(null);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
 
-        var blockBuilder = Block.newBuilder();
+    /**
+     * Like {@link #invoke(Callable)}, but retries transient failures through the {@link RetryEngine}
+     * and waits for a permit from the concurrency limiter of the handler's resource type or
+     * API family before each attempt, releasing it when the attempt completes.
+     */
+    private <R> CompletionStage<R> invokeLimited(Operation operation, String typeName,
+                                                 ResourceTypeHandler<?> handler, Span parent,
+                                                 Callable<CompletionStage<R>> call) {
+        return invokeLimited(operation, typeName, handler, parent, 1, call);
+    }
 
-        for (cloud.kitelang.api.resource.Property property : apiSchema.getProperties()) {
-            var propBuilder = cloud.kitelang.proto.v1.Property.newBuilder()
-                    .setName(property.name())
-                    .setType(ByteString.copyFromUtf8(mapType(property.type(), property.typeClass())))
-                    .setRequired(true) // Default to required
-                    .setComputed(property.isCloud());
+    /**
+     * Like {@link #invokeLimited(Operation, String, ResourceTypeHandler, Span, Callable)}, taking
+     * {@code weight} limiter permits, one per resource of a batch call.
+     */
+    private <R> CompletionStage<R> invokeLimited(Operation operation, String typeName,
+                                                 ResourceTypeHandler<?> handler, Span parent, int weight,
+                                                 Callable<CompletionStage<R>> call) {
+        var rules = handler.getRetryClassifier();
+        // Retries run on other threads, so each attempt restores the call's context (and pool session)
+        boolean retried = handler.getRetriedOperations().contains(operation);
+        return retryEngine.execute(operation, typeName, rules, retried, Context.current().wrap(() -> {
+            var limiter = concurrencyLimiters.forHandler(typeName, handler);
+            if (limiter == null) {
+                return invokeTraced(handlerSpan(parent, operation.name().toLowerCase(Locale.ROOT)), call);
+            }
 
-            // Include default value if present
-            if (property.defaultValue() != null) {
-                propBuilder.setDefaultValue(property.defaultValue());
+            ConcurrencyLimiter.Permit permit;
+            try {
+                permit = limiter.acquire(weight);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return CompletableFuture.failedFuture(e);
             }
 
-            blockBuilder.addProperties(propBuilder.build());
-        }
+            var stage = invokeTraced(handlerSpan(parent, operation.name().toLowerCase(Locale.ROOT)), call);
+            stage.whenComplete((result, error) -> permit.release(ConcurrencyLimiters.outcomeOf(error, rules)));
+            return stage;
+        }));
+    }
 
-        schemaBuilder.setBlock(blockBuilder.build());
-        return schemaBuilder.build();
+    /**
+     * Like {@link #invoke(Callable)}, with {@code span} current while the handler runs and
+     * ended when its stage completes.
+     */
+    private <R> CompletionStage<R> invokeTraced(Span span, Callable<CompletionStage<R>> call) {
+        if (!span.isRecording()) {
+            return invoke(call);
+        }
+        var context = Context.current().withValue(Tracing.SPAN_KEY, span);
+        var previous = context.attach();
+        CompletionStage<R> stage;
+        try {
+            stage = invoke(call);
+        } finally {
+            context.detach(previous);
+        }
+        stage.whenComplete((result, error) -> {
+            if (error != null) {
+                span.recordException(causeOf(error));
+            }
+            span.end();
+        });
+        return stage;
     }
 
     /**
-     * Map Java type to Kite type string.
-     * Kite types: string, number, boolean, object (for dynamic maps), schema name (for structs)
-     *
-     * @param type The type name string (lowercase simple name)
-     * @param typeClass The actual Java class (used to detect structs with @TypeName)
+     * Span of one handler attempt.
      */
-    private String mapType(Object type, Class<?> typeClass) {
-        if (type == null) return "any";
+    private static Span handlerSpan(Span parent, String operation) {
+        return parent.child("handler").setAttribute("kite.operation", operation);
+    }
 
-        // First check if it's a struct (class with @TypeName annotation)
-        if (typeClass != null && typeClass.isAnnotationPresent(cloud.kitelang.api.annotations.TypeName.class)) {
-            var typeName = typeClass.getAnnotation(cloud.kitelang.api.annotations.TypeName.class);
-            return typeName.value();  // Return the schema name
+    /**
+     * Wait for a stage started by {@link #invokeLimited} and rethrow the handler's exception.
+     */
+    private static <R> R await(CompletionStage<R> stage) throws Exception {
+        try {
+            return stage.toCompletableFuture().join();
+        } catch (CompletionException e) {
+            throw unwrap(e);
         }
+    }
 
-        // type is a String from Schema.toSchema() which uses field.getType().getSimpleName().toLowerCase()
-        if (type instanceof String typeName) {
-            return switch (typeName) {
-                case "string" -> "string";
-                case "int", "integer", "long", "double", "float", "number" -> "number";
-                case "boolean", "bool" -> "boolean";
-                case "list", "arraylist" -> "any[]";  // Kite uses array syntax
-                case "map", "hashmap", "linkedhashmap" -> "object"; // Dynamic maps use object
-                default -> typeName; // pass through as-is (could be a schema name)
-            };
+    /**
+     * Unwrap the failure of a completion stage to the exception the handler raised.
+     * JVM {@link Error}s such as {@link OutOfMemoryError} are rethrown, not turned into diagnostics.
+     */
+    private static Exception unwrap(Throwable error) {
+        var cause = causeOf(error);
+        if (cause instanceof Error e) {
+            throw e;
         }
-        if (type instanceof Class<?> clazz) {
-            // Check for @TypeName annotation (struct)
-            if (clazz.isAnnotationPresent(cloud.kitelang.api.annotations.TypeName.class)) {
-                var typeName = clazz.getAnnotation(cloud.kitelang.api.annotations.TypeName.class);
-                return typeName.value();
-            }
-            if (clazz == String.class) return "string";
-            if (clazz == Integer.class || clazz == int.class) return "number";
-            if (clazz == Long.class || clazz == long.class) return "number";
-            if (clazz == Double.class || clazz == double.class) return "number";
-            if (clazz == Float.class || clazz == float.class) return "number";
-            if (clazz == Boolean.class || clazz == boolean.class) return "boolean";
-            if (List.class.isAssignableFrom(clazz)) return "any[]";
-            if (java.util.Map.class.isAssignableFrom(clazz)) return "object";
+        return cause instanceof Exception exception ? exception : new ProviderException(cause.toString(), cause);
+    }
+
+    /**
+     * Strip the {@link CompletionException} and {@link ExecutionException} wrappers of a failure.
+     */
+    private static Throwable causeOf(Throwable error) {
+        var cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
         }
-        return "any";
+        return cause;
+    }
+
+    /**
+     * Fail a call whose handler raised a JVM {@link Error}, so the engine is not left waiting.
+     *
+     * @return The error, for the caller to rethrow
+     */
+    private static Error failCall(Error error, ProviderMetrics.Timer timer, StreamObserver<?> responseObserver) {
+        log.error("Handler raised {}", error.toString(), error);
+        timer.failed(error);
+        timer.finish(ProviderMetrics.Outcome.ERROR);
+        responseObserver.onError(Status.INTERNAL.withDescription(error.toString()).asRuntimeException());
+        return error;
     }
 
     /**
@@ -436,7 +1169,7 @@ public class ProviderServiceImpl extends ProviderGrpc.ProviderImplBase {
     /**
      * Create an error diagnostic.
      */
-    private cloud.kitelang.proto.v1.Diagnostic errorDiagnostic(String summary, String detail) {
+    static cloud.kitelang.proto.v1.Diagnostic errorDiagnostic(String summary, String detail) {
         return cloud.kitelang.proto.v1.Diagnostic.newBuilder()
                 .setSeverity(cloud.kitelang.proto.v1.Diagnostic.Severity.ERROR)
                 .setSummary(summary)
@@ -453,54 +1186,36 @@ public class ProviderServiceImpl extends ProviderGrpc.ProviderImplBase {
      * structured error information (error code, error message, HTTP status). The generic
      * {@code getMessage()} often returns an unhelpful string like
      * {@code " (Service: S3, Status Code: 400, Request ID: ...)"} with an empty message body.
-     * This method extracts the structured details via reflection to avoid a hard dependency
-     * on the AWS SDK.</p>
+     * This method uses the structured details from {@link ErrorDetails#of(Throwable)}, which
+     * reads them via reflection to avoid a hard dependency on the AWS SDK.</p>
      */
     // Package-private for testing
     static String extractErrorMessage(Exception e) {
         var message = e.getMessage();
 
-        // Try to extract AWS SDK error details via reflection (avoids hard dependency on AWS SDK)
-        try {
-            var awsErrorDetailsMethod = e.getClass().getMethod("awsErrorDetails");
-            var details = awsErrorDetailsMethod.invoke(e);
-            if (details != null) {
-                var errorCode = (String) details.getClass().getMethod("errorCode").invoke(details);
-                var errorMessage = (String) details.getClass().getMethod("errorMessage").invoke(details);
-
-                // Extract HTTP status code from sdkHttpResponse
-                Integer statusCode = null;
-                try {
-                    var sdkHttpResponse = details.getClass().getMethod("sdkHttpResponse").invoke(details);
-                    if (sdkHttpResponse != null) {
-                        statusCode = (Integer) sdkHttpResponse.getClass().getMethod("statusCode").invoke(sdkHttpResponse);
-                    }
-                } catch (Exception httpEx) {
-                    log.debug("Could not extract HTTP status code from AWS error details", httpEx);
-                }
+        // Use structured cloud SDK error details when available (avoids hard dependency on AWS SDK)
+        var details = ErrorDetails.of(e);
+        if (details != null) {
+            var errorCode = details.errorCode();
+            var errorMessage = details.errorMessage();
+            var statusCode = details.statusCode();
 
-                var sb = new StringBuilder();
-                if (errorCode != null && !errorCode.isEmpty()) {
-                    sb.append("[").append(errorCode).append("] ");
-                }
-                if (errorMessage != null && !errorMessage.isEmpty()) {
-                    sb.append(errorMessage);
-                } else if (message != null && !message.isBlank()) {
-                    // errorMessage is empty but exception has a message - use it as fallback
-                    sb.append(message);
-                }
-                if (statusCode != null) {
-                    sb.append(" (HTTP ").append(statusCode).append(")");
-                }
-
-                var result = sb.toString().trim();
-                if (!result.isEmpty()) return result;
+            var sb = new StringBuilder();
+            if (errorCode != null && !errorCode.isEmpty()) {
+                sb.append("[").append(errorCode).append("] ");
+            }
+            if (errorMessage != null && !errorMessage.isEmpty()) {
+                sb.append(errorMessage);
+            } else if (message != null && !message.isBlank()) {
+                // errorMessage is empty but exception has a message - use it as fallback
+                sb.append(message);
             }
-        } catch (NoSuchMethodException nsme) {
-            // Not an AWS exception - fall through to default handling
-        } catch (Exception reflectionEx) {
-            log.debug("Failed to extract AWS error details via reflection from {}: {}",
-                    e.getClass().getSimpleName(), reflectionEx.getMessage());
+            if (statusCode != null) {
+                sb.append(" (HTTP ").append(statusCode).append(")");
+            }
+
+            var result = sb.toString().trim();
+            if (!result.isEmpty()) return result;
         }
 
         // Fall back to cause chain if message is empty or unhelpful
@@ -517,23 +1232,47 @@ public class ProviderServiceImpl extends ProviderGrpc.ProviderImplBase {
     /**
      * Convert a ResourcePayload to a Java object.
      */
-    private <T> T fromResourcePayload(ResourcePayload value, Class<T> clazz) throws Exception {
-        if (value == null || value.getMsgpack().isEmpty()) {
-            return null;
+    private <T> T fromResourcePayload(ResourcePayload value, Class<T> clazz, ProviderMetrics.Timer timer)
+            throws Exception {
+        var span = timer.getSpan().child("decode");
+        long start = System.nanoTime();
+        try {
+            return payloadCodec.decode(value, clazz);
+        } catch (Exception e) {
+            span.recordException(e);
+            throw e;
+        } finally {
+            timer.decoded(value.getMsgpack().size(), System.nanoTime() - start);
+            span.setAttribute("kite.payload_bytes", value.getMsgpack().size()).end();
         }
-        return msgpackMapper.readValue(value.getMsgpack().toByteArray(), clazz);
     }
 
     /**
      * Convert a Java object to a ResourcePayload.
      */
-    private ResourcePayload toResourcePayload(Object value) throws Exception {
-        if (value == null) {
-            return ResourcePayload.getDefaultInstance();
+    private ResourcePayload toResourcePayload(Object value, ProviderMetrics.Timer timer) throws Exception {
+        try (var span = timer.getSpan().child("encode")) {
+            long start = System.nanoTime();
+            var payload = payloadCodec.encode(value);
+            timer.encoded(payload.getMsgpack().size(), System.nanoTime() - start);
+            span.setAttribute("kite.payload_bytes", payload.getMsgpack().size());
+            return payload;
         }
-        byte[] msgpack = msgpackMapper.writeValueAsBytes(value);
-        return ResourcePayload.newBuilder()
-                .setMsgpack(ByteString.copyFrom(msgpack))
-                .build();
+    }
+
+    /**
+     * Outcome of a call for metrics: an error if the response carries an error diagnostic.
+     */
+    private static ProviderMetrics.Outcome outcomeOf(List<cloud.kitelang.proto.v1.Diagnostic> diagnostics) {
+        for (var diagnostic : diagnostics) {
+            if (diagnostic.getSeverity() == cloud.kitelang.proto.v1.Diagnostic.Severity.ERROR) {
+                return ProviderMetrics.Outcome.ERROR;
+            }
+        }
+        return ProviderMetrics.Outcome.OK;
+    }
+
+    /** A schema response and the provider registration version it was built from. */
+    private record CachedSchema(long registrationVersion, GetProviderSchema.Response response) {
     }
 }
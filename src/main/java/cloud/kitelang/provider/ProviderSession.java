@@ -0,0 +1,69 @@
+package cloud.kitelang.provider;
+
+import io.grpc.Context;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One engine session served by a pooled provider process.
+ *
+ * <p>In pool mode ({@code KITE_PLUGIN_POOL=true}) a single warm process serves several engine
+ * sessions. Each connection is a session, and so is each distinct {@code kite-session-id}
+ * request header. The configuration an engine passes to {@code ConfigureProvider} is kept per
+ * session, and handlers read it through {@link #current()} rather than from shared provider
+ * state:</p>
+ * <pre>{@code
+ * var config = ProviderSession.current().getConfiguration();
+ * }</pre>
+ *
+ * <p>Rate limit overrides in the configuration apply to the session's own
+ * {@link RateLimiterRegistry}, which {@link KiteProvider#getRateLimiters()} returns during its calls.</p>
+ */
+@Getter
+public final class ProviderSession {
+    /** Request header naming the session, for engines that share one connection between sessions. */
+    public static final String SESSION_ID_HEADER = "kite-session-id";
+
+    static final Context.Key<ProviderSession> CONTEXT_KEY = Context.key("kite-provider-session");
+
+    private final String id;
+    private final Instant createdAt = Instant.now();
+    /** The configuration passed to {@code ConfigureProvider} in this session, or null before that. */
+    private volatile Object configuration;
+    /** Rate limiters configured by this session's {@code rateLimits}. */
+    private final RateLimiterRegistry rateLimiters = new RateLimiterRegistry();
+    /** Unary calls of this session, so it can drain before it ends. */
+    @Getter(AccessLevel.PACKAGE)
+    private final InFlightCalls inFlightCalls = new InFlightCalls();
+    /** Connections a {@code kite-session-id} session was used on; it ends with the last of them. */
+    @Getter(AccessLevel.NONE)
+    final Set<String> connections = ConcurrentHashMap.newKeySet();
+
+    ProviderSession(String id) {
+        this.id = id;
+    }
+
+    /**
+     * Get the session of the call running on the current thread.
+     * Asynchronous handlers should capture it before leaving the calling thread.
+     *
+     * @return The session, or null outside pool mode or outside a call
+     */
+    public static ProviderSession current() {
+        return CONTEXT_KEY.get();
+    }
+
+    void configure(Object configuration) {
+        this.configuration = configuration;
+        rateLimiters.configure(configuration);
+    }
+
+    @Override
+    public String toString() {
+        return "ProviderSession[" + id + "]";
+    }
+}
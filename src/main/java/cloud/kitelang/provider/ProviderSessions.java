@@ -0,0 +1,123 @@
+package cloud.kitelang.provider;
+
+import io.grpc.Attributes;
+import io.grpc.Context;
+import io.grpc.Contexts;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.ServerTransportFilter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Sessions of a pooled provider process: one per connection, or per {@code kite-session-id}
+ * header when the engine names sessions itself. The session of each call is bound to its
+ * gRPC {@link Context}, where {@link ProviderSession#current()} finds it.
+ */
+@Slf4j
+final class ProviderSessions {
+    private static final Attributes.Key<String> CONNECTION_SESSION = Attributes.Key.create("kite-session-id");
+    private static final Metadata.Key<String> SESSION_HEADER =
+            Metadata.Key.of(ProviderSession.SESSION_ID_HEADER, Metadata.ASCII_STRING_MARSHALLER);
+
+    private final ConcurrentMap<String, ProviderSession> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong connections = new AtomicLong();
+    private final Consumer<ProviderSession> onClose;
+
+    /**
+     * @param onClose Called once for every session that ends
+     */
+    ProviderSessions(Consumer<ProviderSession> onClose) {
+        this.onClose = onClose;
+    }
+
+    /**
+     * Get the open sessions, oldest first.
+     */
+    List<ProviderSession> list() {
+        return sessions.values().stream()
+                .sorted(Comparator.comparing(ProviderSession::getCreatedAt))
+                .toList();
+    }
+
+    /**
+     * End a session. Ending a session that is not open has no effect.
+     */
+    void close(ProviderSession session) {
+        if (sessions.remove(session.getId(), session)) {
+            log.info("Session {} ended, {} open", session.getId(), sessions.size());
+            onClose.accept(session);
+        }
+    }
+
+    /**
+     * Give every connection its own session, ending it when the connection closes. Sessions
+     * named by the {@code kite-session-id} header end when the last connection using them closes.
+     */
+    ServerTransportFilter transportFilter() {
+        return new ServerTransportFilter() {
+            @Override
+            public Attributes transportReady(Attributes attributes) {
+                var id = "connection-" + connections.incrementAndGet();
+                return attributes.toBuilder().set(CONNECTION_SESSION, id).build();
+            }
+
+            @Override
+            public void transportTerminated(Attributes attributes) {
+                var id = attributes.get(CONNECTION_SESSION);
+                if (id == null) {
+                    return;
+                }
+                for (var session : sessions.values()) {
+                    if (session.getId().equals(id)
+                            || (session.connections.remove(id) && session.connections.isEmpty())) {
+                        close(session);
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Bind the session of each call to its context, and count its unary calls in the session.
+     */
+    ServerInterceptor interceptor() {
+        return new ServerInterceptor() {
+            @Override
+            public <Q, R> ServerCall.Listener<Q> interceptCall(ServerCall<Q, R> call, Metadata headers,
+                                                              ServerCallHandler<Q, R> next) {
+                var connection = call.getAttributes().get(CONNECTION_SESSION);
+                var id = headers.get(SESSION_HEADER);
+                boolean named = id != null && !id.isBlank();
+                if (!named) {
+                    id = connection;
+                }
+                if (id == null) {
+                    return next.startCall(call, headers);
+                }
+                var session = sessions.computeIfAbsent(id, key -> {
+                    log.info("Session {} started, {} open", key, sessions.size() + 1);
+                    return new ProviderSession(key);
+                });
+                if (named && connection != null) {
+                    session.connections.add(connection);
+                }
+                // Streams are counted per operation by the OperationChannel instead
+                ServerCallHandler<Q, R> handler = call.getMethodDescriptor().getType() == MethodDescriptor.MethodType.UNARY
+                        ? (c, h) -> session.getInFlightCalls().interceptor().interceptCall(c, h, next)
+                        : next;
+                return Contexts.interceptCall(Context.current().withValue(ProviderSession.CONTEXT_KEY, session),
+                        call, headers, handler);
+            }
+        };
+    }
+}
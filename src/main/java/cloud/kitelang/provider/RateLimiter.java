@@ -0,0 +1,161 @@
+package cloud.kitelang.provider;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Lock-free token bucket limiting the request rate against one cloud API.
+ *
+ * <p>The bucket is kept as a single "theoretical arrival time" updated with compare-and-set:
+ * each acquisition reserves its tokens by pushing that time forward, then sleeps until the
+ * reservation is due. Callers are therefore served in reservation order without a lock, and
+ * waiting parks the thread, which unmounts virtual threads instead of blocking a carrier.</p>
+ *
+ * <p>Obtain instances from {@link RateLimiterRegistry} so every handler in the process
+ * shares the same limiter per API.</p>
+ */
+public class RateLimiter {
+    private final String key;
+    private final AtomicLong theoreticalArrivalNanos = new AtomicLong(Long.MIN_VALUE);
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder waited = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private volatile Limits limits;
+
+    /**
+     * Create a limiter.
+     *
+     * @param key               The API key, e.g. "ec2:us-east-1"
+     * @param permitsPerSecond  Sustained request rate; infinite or non-positive disables limiting
+     * @param burst             Number of requests that may be made at once after a quiet period
+     */
+    public RateLimiter(String key, double permitsPerSecond, int burst) {
+        this.key = key;
+        setRate(permitsPerSecond, burst);
+    }
+
+    /**
+     * Change the rate and burst. Takes effect for subsequent acquisitions.
+     */
+    public void setRate(double permitsPerSecond, int burst) {
+        this.limits = new Limits(permitsPerSecond, Math.max(1, burst));
+    }
+
+    /**
+     * Wait until one request may be made.
+     *
+     * @return The time spent waiting
+     * @throws InterruptedException if interrupted while waiting; the reserved token is not returned
+     */
+    public Duration acquire() throws InterruptedException {
+        return acquire(1);
+    }
+
+    /**
+     * Wait until {@code permits} requests may be made.
+     *
+     * @return The time spent waiting
+     * @throws InterruptedException if interrupted while waiting; the reserved tokens are not returned
+     */
+    public Duration acquire(int permits) throws InterruptedException {
+        long waitFor = reserve(permits, false);
+        acquired.add(permits);
+        if (waitFor <= 0) {
+            return Duration.ZERO;
+        }
+
+        waited.increment();
+        waitNanos.add(waitFor);
+        long deadline = System.nanoTime() + waitFor;
+        long remaining = waitFor;
+        while (remaining > 0) {
+            LockSupport.parkNanos(this, remaining);
+            if (Thread.interrupted()) {
+                throw new InterruptedException("Interrupted while waiting for " + key + " rate limit");
+            }
+            remaining = deadline - System.nanoTime();
+        }
+        return Duration.ofNanos(waitFor);
+    }
+
+    /**
+     * Take one token only if it is available right now.
+     *
+     * @return true if the request may be made immediately
+     */
+    public boolean tryAcquire() {
+        if (reserve(1, true) < 0) {
+            return false;
+        }
+        acquired.increment();
+        return true;
+    }
+
+    /**
+     * Get the key of this limiter.
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Get a point-in-time view of this limiter's configuration and wait statistics.
+     */
+    public Snapshot snapshot() {
+        var current = limits;
+        return new Snapshot(key, current.permitsPerSecond, current.burst,
+                acquired.sum(), waited.sum(), Duration.ofNanos(waitNanos.sum()));
+    }
+
+    /**
+     * Reserve tokens by advancing the theoretical arrival time.
+     *
+     * @return Nanoseconds to wait before the reservation is due; with {@code onlyIfImmediate},
+     *         -1 when the tokens are not available right now (nothing is reserved)
+     */
+    private long reserve(int permits, boolean onlyIfImmediate) {
+        var current = limits;
+        if (current.intervalNanos == 0) {
+            return 0;
+        }
+        long burstNanos = current.intervalNanos * current.burst;
+        while (true) {
+            long now = System.nanoTime();
+            long tat = theoreticalArrivalNanos.get();
+            long base = tat == Long.MIN_VALUE || tat - now < 0 ? now : tat;
+            long next = base + current.intervalNanos * permits;
+            long wait = next - burstNanos - now;
+            if (onlyIfImmediate && wait > 0) {
+                return -1;
+            }
+            if (theoreticalArrivalNanos.compareAndSet(tat, next)) {
+                return Math.max(0, wait);
+            }
+        }
+    }
+
+    /**
+     * Point-in-time view of a rate limiter.
+     *
+     * @param key              The API key
+     * @param permitsPerSecond The configured sustained rate
+     * @param burst            The configured burst
+     * @param acquired         Total permits handed out
+     * @param waited           Acquisitions that had to wait
+     * @param totalWait        Total time spent waiting across all callers
+     */
+    public record Snapshot(String key, double permitsPerSecond, int burst,
+                           long acquired, long waited, Duration totalWait) {
+    }
+
+    private record Limits(double permitsPerSecond, int burst, long intervalNanos) {
+        Limits(double permitsPerSecond, int burst) {
+            this(permitsPerSecond, burst,
+                    permitsPerSecond <= 0 || Double.isInfinite(permitsPerSecond)
+                            ? 0
+                            : Math.max(1, (long) (1_000_000_000L / permitsPerSecond)));
+        }
+    }
+}
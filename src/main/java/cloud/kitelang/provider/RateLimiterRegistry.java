@@ -0,0 +1,142 @@
+package cloud.kitelang.provider;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Registry of {@link RateLimiter}s keyed by cloud service and region.
+ * One limiter per API keeps every handler sharing the registry within the account's quota.
+ * Each {@link KiteProvider} and each {@link ProviderSession} owns one; a provider can be given
+ * another with {@link KiteProvider#setRateLimiters}.
+ *
+ * <p>Handlers declare the published rate as a default; the provider configuration can
+ * override it under a {@code rateLimits} key, by service or by service and region:</p>
+ * <pre>{@code
+ * rateLimits = {
+ *     "ec2": { rate: 20, burst: 40 },
+ *     "ec2:us-east-1": { rate: 50 },
+ *     "route53": 5
+ * }
+ * }</pre>
+ *
+ * <p>Example:</p>
+ * <pre>{@code
+ * var limiter = provider.getRateLimiters().get("ec2", region, 20, 40);
+ * limiter.acquire();
+ * ec2.describeInstances(request);
+ * }</pre>
+ */
+@Slf4j
+public class RateLimiterRegistry {
+    /**
+     * Provider configuration key holding rate limit overrides.
+     */
+    public static final String CONFIG_KEY = "rateLimits";
+
+    private final ConcurrentMap<String, RateLimiter> limiters = new ConcurrentHashMap<>();
+    private volatile Map<String, RateOverride> overrides = Map.of();
+
+    /**
+     * Get the limiter for a service in a region, creating it on first use.
+     * Configured overrides for {@code service:region}, then {@code service}, take precedence
+     * over the given defaults.
+     *
+     * @param service                 The cloud service, e.g. "ec2"
+     * @param region                  The region, or null for global services
+     * @param defaultPermitsPerSecond The published request rate
+     * @param defaultBurst            The published burst
+     */
+    public RateLimiter get(String service, String region, double defaultPermitsPerSecond, int defaultBurst) {
+        var key = key(service, region);
+        return limiters.computeIfAbsent(key, k -> {
+            var limiter = new RateLimiter(k, defaultPermitsPerSecond, defaultBurst);
+            var override = overrideFor(service, region);
+            if (override != null) {
+                override.applyTo(limiter);
+            }
+            return limiter;
+        });
+    }
+
+    /**
+     * Apply rate limit overrides from the provider configuration, updating existing limiters.
+     * Called with the configuration passed to {@code ConfigureProvider}; configurations
+     * without a {@value #CONFIG_KEY} entry leave the limits unchanged.
+     *
+     * @param configuration The provider configuration (a map when set from Kite)
+     */
+    public void configure(Object configuration) {
+        if (!(configuration instanceof Map<?, ?> config) || !(config.get(CONFIG_KEY) instanceof Map<?, ?> rateLimits)) {
+            return;
+        }
+
+        var parsed = new ConcurrentHashMap<String, RateOverride>();
+        for (var entry : rateLimits.entrySet()) {
+            var override = RateOverride.parse(entry.getValue());
+            if (override == null) {
+                log.warn("Ignoring invalid rate limit for '{}': {}", entry.getKey(), entry.getValue());
+                continue;
+            }
+            parsed.put(String.valueOf(entry.getKey()), override);
+        }
+        overrides = Map.copyOf(parsed);
+
+        for (var limiter : limiters.values()) {
+            var key = limiter.getKey();
+            var separator = key.indexOf(':');
+            var service = separator < 0 ? key : key.substring(0, separator);
+            var region = separator < 0 ? null : key.substring(separator + 1);
+            var override = overrideFor(service, region);
+            if (override != null) {
+                override.applyTo(limiter);
+            }
+        }
+        log.debug("Configured {} rate limit overrides", parsed.size());
+    }
+
+    /**
+     * Get a snapshot of every limiter, sorted by key.
+     */
+    public List<RateLimiter.Snapshot> snapshots() {
+        return limiters.values().stream()
+                .map(RateLimiter::snapshot)
+                .sorted(Comparator.comparing(RateLimiter.Snapshot::key))
+                .toList();
+    }
+
+    private RateOverride overrideFor(String service, String region) {
+        var current = overrides;
+        var override = region != null ? current.get(key(service, region)) : null;
+        return override != null ? override : current.get(service);
+    }
+
+    private static String key(String service, String region) {
+        return region == null || region.isEmpty() ? service : service + ":" + region;
+    }
+
+    /**
+     * A configured rate, with an optional burst (defaults to the rate, rounded up).
+     */
+    private record RateOverride(double permitsPerSecond, Integer burst) {
+
+        static RateOverride parse(Object value) {
+            if (value instanceof Number rate) {
+                return new RateOverride(rate.doubleValue(), null);
+            }
+            if (value instanceof Map<?, ?> map && map.get("rate") instanceof Number rate) {
+                var burst = map.get("burst") instanceof Number b ? b.intValue() : null;
+                return new RateOverride(rate.doubleValue(), burst);
+            }
+            return null;
+        }
+
+        void applyTo(RateLimiter limiter) {
+            limiter.setRate(permitsPerSecond, burst != null ? burst : (int) Math.ceil(permitsPerSecond));
+        }
+    }
+}
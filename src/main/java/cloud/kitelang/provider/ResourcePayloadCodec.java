@@ -0,0 +1,82 @@
+package cloud.kitelang.provider;
+
+import cloud.kitelang.proto.v1.ResourcePayload;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.google.protobuf.UnsafeByteOperations;
+import org.msgpack.jackson.dataformat.MessagePackMapper;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Converts between {@link ResourcePayload} msgpack bytes and resource objects.
+ *
+ * <p>Decoding reads straight from the payload's {@code ByteString} instead of copying it
+ * into an intermediate array first. Encoding hands the array produced by Jackson to protobuf
+ * without a second copy. Both matter for providers that return multi-megabyte states.</p>
+ *
+ * <p>Readers and writers are cached per class so the root (de)serializer lookup is done
+ * once per resource type rather than on every call. {@link #register(Class)} builds them
+ * ahead of time so the first request of each type does not pay for serializer construction.</p>
+ */
+final class ResourcePayloadCodec {
+    private final ObjectMapper msgpackMapper;
+    private final ConcurrentMap<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    ResourcePayloadCodec() {
+        this(new MessagePackMapper());
+    }
+
+    ResourcePayloadCodec(ObjectMapper msgpackMapper) {
+        this.msgpackMapper = msgpackMapper;
+    }
+
+    /**
+     * Build and cache the reader and writer for a resource class.
+     * Jackson resolves the root (de)serializers eagerly when they are created.
+     */
+    void register(Class<?> clazz) {
+        readerFor(clazz);
+        writerFor(clazz);
+    }
+
+    /**
+     * Convert a ResourcePayload to a Java object.
+     *
+     * @return the decoded object, or null if the payload is absent or empty
+     */
+    <T> T decode(ResourcePayload payload, Class<T> clazz) throws IOException {
+        if (payload == null || payload.getMsgpack().isEmpty()) {
+            return null;
+        }
+        try (var in = payload.getMsgpack().newInput()) {
+            return readerFor(clazz).readValue(in);
+        }
+    }
+
+    /**
+     * Convert a Java object to a ResourcePayload.
+     */
+    ResourcePayload encode(Object value) throws IOException {
+        if (value == null) {
+            return ResourcePayload.getDefaultInstance();
+        }
+        // writeValueAsBytes returns a fresh array that is never touched again, so it is safe to wrap
+        byte[] msgpack = writerFor(value.getClass()).writeValueAsBytes(value);
+        return ResourcePayload.newBuilder()
+                .setMsgpack(UnsafeByteOperations.unsafeWrap(msgpack))
+                .build();
+    }
+
+    private ObjectReader readerFor(Class<?> clazz) {
+        return readers.computeIfAbsent(clazz, msgpackMapper::readerFor);
+    }
+
+    private ObjectWriter writerFor(Class<?> clazz) {
+        return writers.computeIfAbsent(clazz, msgpackMapper::writerFor);
+    }
+}
@@ -5,11 +5,19 @@ import lombok.Getter;
 
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Defines a resource type handler with CRUD operations.
  * Extend this class for each resource type your provider supports.
  * The resource class type is inferred automatically from the generic parameter.
+ * For asynchronous cloud SDKs, extend {@link AsyncResourceTypeHandler} instead.
  *
  * <p>Example:</p>
  * <pre>{@code
@@ -46,8 +54,13 @@ import java.lang.reflect.Type;
  */
 @Getter
 public abstract class ResourceTypeHandler<T> {
+    private static final Set<RetryEngine.Operation> DEFAULT_RETRIED_OPERATIONS =
+            Set.of(RetryEngine.Operation.READ, RetryEngine.Operation.PLAN);
+
     private final Class<T> resourceClass;
-    private final Schema schema;
+    /** Built by reflection on first use, so constructing a handler stays cheap at startup. */
+    @Getter(lazy = true)
+    private final Schema schema = Schema.toSchema(resourceClass);
 
     /**
      * Creates a resource type handler. The resource class is inferred
@@ -55,15 +68,29 @@ public abstract class ResourceTypeHandler<T> {
      */
     protected ResourceTypeHandler() {
         this.resourceClass = (Class<T>) resolveGenericParameter(getClass());
-        this.schema = Schema.toSchema(resourceClass);
     }
 
+    /**
+     * Walk up to ResourceTypeHandler, binding the type variables of generic base classes
+     * in between (such as {@link AsyncResourceTypeHandler}) to the concrete arguments below them.
+     */
     private Class<?> resolveGenericParameter(Class<?> clazz) {
+        Map<TypeVariable<?>, Type> bindings = new HashMap<>();
         while (clazz != null) {
             Type type = clazz.getGenericSuperclass();
             if (type instanceof ParameterizedType pType) {
-                if (pType.getRawType().equals(ResourceTypeHandler.class)) {
-                    Type actualType = pType.getActualTypeArguments()[0];
+                var rawType = (Class<?>) pType.getRawType();
+                var typeParameters = rawType.getTypeParameters();
+                var typeArguments = pType.getActualTypeArguments();
+                for (int i = 0; i < typeParameters.length; i++) {
+                    Type argument = typeArguments[i];
+                    if (argument instanceof TypeVariable<?> variable && bindings.containsKey(variable)) {
+                        argument = bindings.get(variable);
+                    }
+                    bindings.put(typeParameters[i], argument);
+                }
+                if (rawType.equals(ResourceTypeHandler.class)) {
+                    Type actualType = bindings.get(typeParameters[0]);
                     if (actualType instanceof Class<?> c) return c;
                     if (actualType instanceof ParameterizedType pt) return (Class<?>) pt.getRawType();
                 }
@@ -77,7 +104,40 @@ public abstract class ResourceTypeHandler<T> {
      * Get the resource type name.
      */
     public String getTypeName() {
-        return schema.getName();
+        return getSchema().getName();
+    }
+
+    /**
+     * Get the key of the cloud API this handler calls. Resource types that return the
+     * same key share one concurrency limit (e.g. every EC2 type returning "ec2").
+     * Override to group handlers; the default gives each resource type its own limit.
+     *
+     * @return The API family key, or null to use the resource type name
+     */
+    public String getApiFamily() {
+        return null;
+    }
+
+    /**
+     * Get rules for classifying this handler's failures as retryable.
+     * Override to recognize service-specific transient errors; the default rules
+     * (throttling, 5xx, not found) apply to everything the rules leave unclassified.
+     *
+     * @return The classifier, or null to use only the default rules
+     */
+    public RetryClassifier getRetryClassifier() {
+        return null;
+    }
+
+    /**
+     * Get the operations whose retryable failures are retried, see {@link RetryEngine}.
+     * By default only reads and plans are. Create, update and delete change cloud state and
+     * may not be idempotent, so override to add them for handlers whose calls are safe to repeat.
+     *
+     * @return The retried operations
+     */
+    public Set<RetryEngine.Operation> getRetriedOperations() {
+        return DEFAULT_RETRIED_OPERATIONS;
     }
 
     /**
@@ -96,6 +156,28 @@ public abstract class ResourceTypeHandler<T> {
      */
     public abstract T read(T resource);
 
+    /**
+     * Read the current state of many resources of this type at once.
+     * The default reads each resource with {@link #read(Object)}; a failure of one
+     * resource is reported on that resource only. Override when the cloud API can
+     * describe many resources in one call (e.g. {@code DescribeInstances} with a filter list).
+     *
+     * @param resources The resources to read (with identifying fields populated)
+     * @return One result per resource, in iteration order; a null value means not found
+     */
+    public List<BatchResult<T>> readBatch(Collection<T> resources) {
+        var results = new ArrayList<BatchResult<T>>(resources.size());
+        for (var resource : resources) {
+            try {
+                results.add(BatchResult.success(read(resource)));
+            } catch (Exception e) {
+                results.add(BatchResult.failure(
+                        Diagnostic.error("Read failed", ProviderServiceImpl.extractErrorMessage(e))));
+            }
+        }
+        return results;
+    }
+
     /**
      * Update an existing resource.
      *
@@ -119,8 +201,8 @@ public abstract class ResourceTypeHandler<T> {
      * @param resource The resource to validate
      * @return Diagnostics from validation (empty if valid)
      */
-    public java.util.List<Diagnostic> validate(T resource) {
-        return java.util.List.of();
+    public List<Diagnostic> validate(T resource) {
+        return List.of();
     }
 
     /**
@@ -134,4 +216,26 @@ public abstract class ResourceTypeHandler<T> {
     public T plan(T priorState, T proposedState) {
         return proposedState;
     }
+
+    /**
+     * Plan many resource changes of this type at once.
+     * The default plans each input with {@link #plan(Object, Object)}; a failure of one
+     * input is reported on that input only. Override when a single cloud call
+     * (e.g. a {@code Describe*} with a filter list) can answer many plans.
+     *
+     * @param inputs The prior and proposed states to plan
+     * @return One result per input, in the same order
+     */
+    public List<BatchResult<T>> planBatch(List<PlanInput<T>> inputs) {
+        var results = new ArrayList<BatchResult<T>>(inputs.size());
+        for (var input : inputs) {
+            try {
+                results.add(BatchResult.success(plan(input.priorState(), input.proposedState())));
+            } catch (Exception e) {
+                results.add(BatchResult.failure(
+                        Diagnostic.error("Plan failed", ProviderServiceImpl.extractErrorMessage(e))));
+            }
+        }
+        return results;
+    }
 }
@@ -6,6 +6,8 @@ import javax.annotation.processing.SupportedAnnotationTypes;
 import javax.annotation.processing.SupportedSourceVersion;
 import javax.lang.model.SourceVersion;
 import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.type.DeclaredType;
 import javax.lang.model.type.TypeMirror;
@@ -14,19 +16,31 @@ import javax.tools.FileObject;
 import javax.tools.StandardLocation;
 import java.io.IOException;
 import java.io.Writer;
-import java.util.HashSet;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.TreeMap;
 
 /**
  * Annotation processor that discovers ResourceTypeHandler classes and provider main classes at compile time.
  * Generates:
  * <ul>
- *   <li>META-INF/kite/resource-types.txt - listing all ResourceTypeHandler subclasses</li>
+ *   <li>META-INF/kite/resource-types.txt - one {@code TypeName=handler.Class digest} line per
+ *       ResourceTypeHandler, so the runtime can register handlers without instantiating them. The
+ *       digest covers what the type's schema is built from, see {@link SchemaIndex#fingerprint}</li>
  *   <li>META-INF/kite/provider-main.txt - the main ProviderServer class</li>
  * </ul>
  *
  * <p>This enables GraalVM native-image compatibility by avoiding runtime classpath scanning,
  * and allows the Gradle plugin to auto-detect the main class.</p>
+ *
+ * <p>The precomputed provider schema ({@value SchemaIndex#PATH}) is not written here: property
+ * types and default values come from the compiled classes, so {@link SchemaIndex} writes it
+ * after compilation.</p>
  */
 @SupportedAnnotationTypes("cloud.kitelang.api.annotations.TypeName")
 @SupportedSourceVersion(SourceVersion.RELEASE_21)
@@ -34,7 +48,10 @@ public class ResourceTypeProcessor extends AbstractProcessor {
 
     private static final String RESOURCE_TYPES_PATH = "META-INF/kite/resource-types.txt";
     private static final String PROVIDER_MAIN_PATH = "META-INF/kite/provider-main.txt";
-    private final Set<String> resourceTypeClasses = new HashSet<>();
+    /** Handler class names by resource type name, sorted for a reproducible manifest. */
+    private final Map<String, String> resourceTypeClasses = new TreeMap<>();
+    /** Schema digests by resource type name. */
+    private final Map<String, String> schemaDigests = new TreeMap<>();
     private String providerMainClass = null;
 
     @Override
@@ -70,12 +87,23 @@ public class ResourceTypeProcessor extends AbstractProcessor {
     private void findResourceTypeFor(TypeElement resourceClass) {
         var packageElement = processingEnv.getElementUtils().getPackageOf(resourceClass);
         var resourceClassName = resourceClass.getQualifiedName().toString();
+        var typeName = typeNameOf(resourceClass);
 
         // Look for classes in the same package that extend ResourceTypeHandler<resourceClass>
         for (Element sibling : packageElement.getEnclosedElements()) {
             if (sibling instanceof TypeElement candidate) {
                 if (isResourceTypeFor(candidate, resourceClassName)) {
-                    resourceTypeClasses.add(candidate.getQualifiedName().toString());
+                    var handlerClassName = candidate.getQualifiedName().toString();
+                    var previous = resourceTypeClasses.putIfAbsent(typeName, handlerClassName);
+                    if (previous != null && !previous.equals(handlerClassName)) {
+                        processingEnv.getMessager().printMessage(
+                                Diagnostic.Kind.ERROR,
+                                "Duplicate resource type name '" + typeName + "': handled by both "
+                                        + previous + " and " + handlerClassName,
+                                candidate);
+                        continue;
+                    }
+                    schemaDigests.put(typeName, schemaDigestOf(resourceClass));
                     processingEnv.getMessager().printMessage(
                             Diagnostic.Kind.NOTE,
                             "Found ResourceTypeHandler: " + candidate.getQualifiedName() + " for " + resourceClassName);
@@ -85,7 +113,60 @@ public class ResourceTypeProcessor extends AbstractProcessor {
     }
 
     /**
-     * Check if candidate extends ResourceTypeHandler<resourceClassName>.
+     * Read the value of the resource class's {@code @TypeName}.
+     */
+    private String typeNameOf(TypeElement resourceClass) {
+        for (var mirror : resourceClass.getAnnotationMirrors()) {
+            var annotationType = (TypeElement) mirror.getAnnotationType().asElement();
+            if (annotationType.getQualifiedName().contentEquals("cloud.kitelang.api.annotations.TypeName")) {
+                for (var entry : mirror.getElementValues().entrySet()) {
+                    if (entry.getKey().getSimpleName().contentEquals("value")) {
+                        return entry.getValue().getValue().toString();
+                    }
+                }
+            }
+        }
+        return resourceClass.getSimpleName().toString();
+    }
+
+    /**
+     * Digest of what the resource's schema is built from: its annotations and, for each instance
+     * field up the class hierarchy, the name, type, annotations and doc comment, plus the
+     * annotations of the field's type (a struct's {@code @TypeName}).
+     */
+    private String schemaDigestOf(TypeElement resourceClass) {
+        var elements = processingEnv.getElementUtils();
+        var text = new StringBuilder(resourceClass.getAnnotationMirrors().toString()).append('\n');
+        for (var type = resourceClass; type != null; type = superclassOf(type)) {
+            for (var member : type.getEnclosedElements()) {
+                if (member.getKind() != ElementKind.FIELD || member.getModifiers().contains(Modifier.STATIC)) {
+                    continue;
+                }
+                text.append(member.getSimpleName()).append(' ').append(member.asType())
+                        .append(' ').append(member.getAnnotationMirrors());
+                if (member.asType() instanceof DeclaredType fieldType) {
+                    text.append(' ').append(fieldType.asElement().getAnnotationMirrors());
+                }
+                text.append(' ').append(Objects.toString(elements.getDocComment(member), "")).append('\n');
+            }
+        }
+        try {
+            var digest = MessageDigest.getInstance("SHA-256").digest(text.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static TypeElement superclassOf(TypeElement type) {
+        return type.getSuperclass() instanceof DeclaredType superclass
+                ? (TypeElement) superclass.asElement()
+                : null;
+    }
+
+    /**
+     * Check if candidate extends ResourceTypeHandler<resourceClassName>
+     * (directly or through AsyncResourceTypeHandler<resourceClassName>).
      */
     private boolean isResourceTypeFor(TypeElement candidate, String resourceClassName) {
         TypeMirror superclass = candidate.getSuperclass();
@@ -94,7 +175,9 @@ public class ResourceTypeProcessor extends AbstractProcessor {
             var typeElement = (TypeElement) declaredType.asElement();
             var typeName = typeElement.getQualifiedName().toString();
 
-            if (typeName.equals("cloud.kitelang.provider.ResourceTypeHandler")) {
+            // AsyncResourceTypeHandler<T> passes T straight through to ResourceTypeHandler<T>
+            if (typeName.equals("cloud.kitelang.provider.ResourceTypeHandler")
+                    || typeName.equals("cloud.kitelang.provider.AsyncResourceTypeHandler")) {
                 // Check type argument
                 var typeArgs = declaredType.getTypeArguments();
                 if (!typeArgs.isEmpty()) {
@@ -169,8 +252,12 @@ public class ResourceTypeProcessor extends AbstractProcessor {
 
             try (Writer writer = file.openWriter()) {
                 writer.write("# Generated by ResourceTypeProcessor - do not edit\n");
-                for (String className : resourceTypeClasses) {
-                    writer.write(className);
+                for (var entry : resourceTypeClasses.entrySet()) {
+                    writer.write(entry.getKey() + "=" + entry.getValue());
+                    var digest = schemaDigests.get(entry.getKey());
+                    if (digest != null) {
+                        writer.write(" " + digest);
+                    }
                     writer.write("\n");
                 }
             }
@@ -0,0 +1,71 @@
+package cloud.kitelang.provider;
+
+/**
+ * Classifies handler failures to decide whether a call is worth retrying.
+ *
+ * <p>Handlers can declare their own rules by overriding
+ * {@link ResourceTypeHandler#getRetryClassifier()}; rules returning null defer to
+ * {@link #defaults()}:</p>
+ * <pre>{@code
+ * @Override
+ * public RetryClassifier getRetryClassifier() {
+ *     return (error, details) -> details != null && details.hasErrorCode("DependencyViolation")
+ *             ? RetryClassifier.Category.TRANSIENT
+ *             : null;
+ * }
+ * }</pre>
+ */
+@FunctionalInterface
+public interface RetryClassifier {
+
+    /**
+     * Kind of failure, in terms of what retrying can achieve.
+     */
+    enum Category {
+        /** The cloud API rejected the call because of rate limiting. Retried for every operation. */
+        THROTTLING,
+        /** A server-side (5xx) or otherwise transient error. Retried except for create, which may not be idempotent. */
+        TRANSIENT,
+        /** The resource was not found, possibly because a recent create is not yet visible. */
+        NOT_FOUND,
+        /** Any other failure. Never retried. */
+        PERMANENT
+    }
+
+    /**
+     * Classify a failure.
+     *
+     * @param error   The exception raised by the handler
+     * @param details Its structured cloud SDK error details, or null if it has none
+     * @return The category, or null to defer to the default rules
+     */
+    Category classify(Throwable error, ErrorDetails details);
+
+    /**
+     * The default rules: throttling by HTTP 429, error code or message; 5xx and well-known
+     * service errors as transient; HTTP 404 and "NotFound"/"NoSuch" error codes as not found.
+     * The cause chain is searched for the first classifiable exception.
+     */
+    static RetryClassifier defaults() {
+        return DefaultRetryClassifier.INSTANCE;
+    }
+
+    /**
+     * Classify a failure with the given rules, falling back to the defaults.
+     *
+     * @param rules Handler-specific rules, or null
+     */
+    static Category classify(RetryClassifier rules, Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            var details = ErrorDetails.of(t);
+            var category = rules != null ? rules.classify(t, details) : null;
+            if (category == null) {
+                category = defaults().classify(t, details);
+            }
+            if (category != null) {
+                return category;
+            }
+        }
+        return Category.PERMANENT;
+    }
+}
@@ -0,0 +1,328 @@
+package cloud.kitelang.provider;
+
+import io.grpc.Context;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Retries failed handler calls that {@link RetryClassifier} deems transient.
+ *
+ * <p>Which failures are retried depends on the operation: throttling is retried for
+ * every operation, transient server errors for everything but create (which may not be
+ * idempotent), and "not found" only for read, update and delete of a resource type that
+ * had a successful create within the consistency window, since such errors are usually
+ * the cloud API's eventual consistency catching up.</p>
+ *
+ * <p>Delays use decorrelated jitter ({@code min(maxDelay, random(baseDelay, 3 * previous))}),
+ * so retries of calls that failed together spread out. Every retry draws from a global
+ * retry budget that successful calls refill; when it runs dry, failures are returned
+ * immediately, so retries cannot multiply the load on an API that is already failing.</p>
+ *
+ * <p>Only operations the handler opts into are retried at all, see
+ * {@link ResourceTypeHandler#getRetriedOperations()}; by default that is reads and plans.</p>
+ *
+ * <p>Retries are scheduled without blocking, and each attempt runs on a fresh virtual thread.
+ * No further attempt is started once the gRPC call that started the first one is cancelled.</p>
+ */
+@Slf4j
+public class RetryEngine {
+    public static final int DEFAULT_MAX_ATTEMPTS = 5;
+    public static final Duration DEFAULT_BASE_DELAY = Duration.ofMillis(100);
+    public static final Duration DEFAULT_MAX_DELAY = Duration.ofSeconds(20);
+    public static final Duration DEFAULT_NOT_FOUND_WINDOW = Duration.ofSeconds(30);
+    public static final int DEFAULT_BUDGET = 500;
+
+    /** Budget tokens taken by one retry. */
+    static final int RETRY_COST = 5;
+    /** Budget tokens returned by a call that succeeded on its first attempt. */
+    static final int SUCCESS_REFUND = 1;
+
+    private static final Executor ATTEMPT_EXECUTOR = task -> Thread.ofVirtual().name("handler-retry").start(task);
+
+    private final int maxAttempts;
+    private final long baseDelayNanos;
+    private final long maxDelayNanos;
+    private final long notFoundWindowNanos;
+    private final int budgetCapacity;
+    private final AtomicInteger budget;
+    private final ConcurrentMap<String, Long> lastCreateNanos = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Counters> counters = new ConcurrentHashMap<>();
+
+    /**
+     * Create a retry engine.
+     *
+     * @param maxAttempts    Attempts per call, including the first; 1 disables retries
+     * @param baseDelay      Lower bound of every retry delay
+     * @param maxDelay       Upper bound of every retry delay
+     * @param notFoundWindow How long after a create "not found" errors of the same type are retried
+     * @param budget         Retry budget capacity; each retry costs {@value #RETRY_COST} tokens
+     */
+    public RetryEngine(int maxAttempts, Duration baseDelay, Duration maxDelay, Duration notFoundWindow, int budget) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be >= 1: " + maxAttempts);
+        }
+        this.maxAttempts = maxAttempts;
+        this.baseDelayNanos = baseDelay.toNanos();
+        this.maxDelayNanos = Math.max(baseDelayNanos, maxDelay.toNanos());
+        this.notFoundWindowNanos = notFoundWindow.toNanos();
+        this.budgetCapacity = budget;
+        this.budget = new AtomicInteger(budget);
+    }
+
+    /**
+     * Create a retry engine with the default settings.
+     */
+    public static RetryEngine defaults() {
+        return new RetryEngine(DEFAULT_MAX_ATTEMPTS, DEFAULT_BASE_DELAY, DEFAULT_MAX_DELAY,
+                DEFAULT_NOT_FOUND_WINDOW, DEFAULT_BUDGET);
+    }
+
+    /**
+     * Create a retry engine that never retries.
+     */
+    public static RetryEngine disabled() {
+        return new RetryEngine(1, Duration.ZERO, Duration.ZERO, Duration.ZERO, 0);
+    }
+
+    /**
+     * Handler operation being retried.
+     */
+    public enum Operation {
+        CREATE, READ, UPDATE, DELETE, PLAN
+    }
+
+    /**
+     * Run a call, retrying it while it fails with a retryable error.
+     *
+     * @param operation The handler operation
+     * @param typeName  The resource type name
+     * @param rules     The handler's classification rules, or null for the defaults
+     * @param attempt   Starts one attempt; invoked again for every retry
+     * @return Completes with the result of the last attempt
+     */
+    public <R> CompletionStage<R> execute(Operation operation, String typeName, RetryClassifier rules,
+                                          Callable<CompletionStage<R>> attempt) {
+        return execute(operation, typeName, rules, true, attempt);
+    }
+
+    /**
+     * Run a call, retrying it while it fails with a retryable error if {@code retried} is set.
+     *
+     * @param retried Whether the handler opted into retries of this operation
+     * @see #execute(Operation, String, RetryClassifier, Callable)
+     */
+    public <R> CompletionStage<R> execute(Operation operation, String typeName, RetryClassifier rules,
+                                          boolean retried, Callable<CompletionStage<R>> attempt) {
+        var call = new Call<>(operation, typeName, rules, retried, attempt, countersFor(operation, typeName));
+        call.run();
+        return call.result;
+    }
+
+    /**
+     * Get a snapshot of the retry statistics per operation and resource type, sorted by key.
+     */
+    public List<Snapshot> snapshots() {
+        return counters.entrySet().stream()
+                .map(entry -> entry.getValue().snapshot(entry.getKey()))
+                .sorted(Comparator.comparing(Snapshot::key))
+                .toList();
+    }
+
+    /**
+     * Get the remaining retry budget, in tokens.
+     */
+    public int getRemainingBudget() {
+        return budget.get();
+    }
+
+    private Counters countersFor(Operation operation, String typeName) {
+        return counters.computeIfAbsent(operation.name().toLowerCase(Locale.ROOT) + " " + typeName, k -> new Counters());
+    }
+
+    /**
+     * Decide whether a failure is retried for an operation.
+     */
+    boolean isRetryable(Operation operation, String typeName, RetryClassifier.Category category) {
+        return switch (category) {
+            case THROTTLING -> true;
+            case TRANSIENT -> operation != Operation.CREATE;
+            case NOT_FOUND -> {
+                if (operation == Operation.CREATE || operation == Operation.PLAN) {
+                    yield false;
+                }
+                var created = lastCreateNanos.get(typeName);
+                yield created != null && System.nanoTime() - created < notFoundWindowNanos;
+            }
+            case PERMANENT -> false;
+        };
+    }
+
+    private boolean tryWithdraw() {
+        while (true) {
+            int current = budget.get();
+            if (current < RETRY_COST) {
+                return false;
+            }
+            if (budget.compareAndSet(current, current - RETRY_COST)) {
+                return true;
+            }
+        }
+    }
+
+    private void deposit(int tokens) {
+        budget.accumulateAndGet(tokens, (current, add) -> Math.min(budgetCapacity, current + add));
+    }
+
+    private long nextDelayNanos(long previousNanos) {
+        long upper = Math.max(baseDelayNanos + 1, previousNanos * 3);
+        return Math.min(maxDelayNanos, ThreadLocalRandom.current().nextLong(baseDelayNanos, upper));
+    }
+
+    /**
+     * One logical call across its attempts.
+     */
+    private final class Call<R> {
+        private final Operation operation;
+        private final String typeName;
+        private final RetryClassifier rules;
+        private final boolean retried;
+        private final Callable<CompletionStage<R>> attempt;
+        private final Counters stats;
+        private final CompletableFuture<R> result = new CompletableFuture<>();
+        private final long startNanos = System.nanoTime();
+        /** Context of the call that started the first attempt, cancelled when the client gives up. */
+        private final Context context = Context.current();
+        private int attempts;
+        private long delayNanos = baseDelayNanos;
+
+        private Call(Operation operation, String typeName, RetryClassifier rules, boolean retried,
+                     Callable<CompletionStage<R>> attempt, Counters stats) {
+            this.operation = operation;
+            this.typeName = typeName;
+            this.rules = rules;
+            this.retried = retried;
+            this.attempt = attempt;
+            this.stats = stats;
+        }
+
+        private void run() {
+            attempts++;
+            stats.attempts.increment();
+            CompletionStage<R> stage;
+            try {
+                stage = attempt.call();
+            } catch (Exception e) {
+                stage = CompletableFuture.failedFuture(e);
+            }
+            stage.whenComplete(this::onComplete);
+        }
+
+        private void onComplete(R value, Throwable error) {
+            if (error == null) {
+                if (operation == Operation.CREATE) {
+                    lastCreateNanos.put(typeName, System.nanoTime());
+                }
+                if (attempts == 1) {
+                    deposit(SUCCESS_REFUND);
+                } else {
+                    deposit(RETRY_COST);
+                    stats.recovered.increment();
+                    stats.retriedCallNanos.add(System.nanoTime() - startNanos);
+                }
+                result.complete(value);
+                return;
+            }
+
+            var category = RetryClassifier.classify(rules, error);
+            if (!retried || !isRetryable(operation, typeName, category)) {
+                finish(error);
+                return;
+            }
+            if (context.isCancelled()) {
+                log.debug("Call cancelled, not retrying {} {}", operation, typeName);
+                finish(error);
+                return;
+            }
+            if (attempts >= maxAttempts) {
+                stats.exhausted.increment();
+                finish(error);
+                return;
+            }
+            if (!tryWithdraw()) {
+                stats.budgetRejected.increment();
+                log.debug("Retry budget exhausted, not retrying {} {}", operation, typeName);
+                finish(error);
+                return;
+            }
+
+            delayNanos = nextDelayNanos(delayNanos);
+            stats.retries.increment();
+            stats.delayNanos.add(delayNanos);
+            log.debug("Retrying {} {} in {}ms after {} error (attempt {}/{})", operation, typeName,
+                    TimeUnit.NANOSECONDS.toMillis(delayNanos), category, attempts + 1, maxAttempts);
+            CompletableFuture.delayedExecutor(delayNanos, TimeUnit.NANOSECONDS, ATTEMPT_EXECUTOR).execute(this::retry);
+        }
+
+        private void retry() {
+            if (context.isCancelled()) {
+                log.debug("Call cancelled during backoff, not retrying {} {}", operation, typeName);
+                finish(new CancellationException("Call cancelled before retry of " + operation + " " + typeName));
+                return;
+            }
+            run();
+        }
+
+        private void finish(Throwable error) {
+            if (attempts > 1) {
+                stats.retriedCallNanos.add(System.nanoTime() - startNanos);
+            }
+            result.completeExceptionally(error);
+        }
+    }
+
+    private static final class Counters {
+        private final LongAdder attempts = new LongAdder();
+        private final LongAdder retries = new LongAdder();
+        private final LongAdder recovered = new LongAdder();
+        private final LongAdder exhausted = new LongAdder();
+        private final LongAdder budgetRejected = new LongAdder();
+        private final LongAdder delayNanos = new LongAdder();
+        private final LongAdder retriedCallNanos = new LongAdder();
+
+        private Snapshot snapshot(String key) {
+            return new Snapshot(key, attempts.sum(), retries.sum(), recovered.sum(), exhausted.sum(),
+                    budgetRejected.sum(), Duration.ofNanos(delayNanos.sum()), Duration.ofNanos(retriedCallNanos.sum()));
+        }
+    }
+
+    /**
+     * Retry statistics of one operation on one resource type.
+     *
+     * @param key            Operation and resource type, e.g. "read Bucket"
+     * @param attempts       Attempts made, including first attempts
+     * @param retries        Retries scheduled
+     * @param recovered      Calls that succeeded after at least one retry
+     * @param exhausted      Calls that still failed after the maximum number of attempts
+     * @param budgetRejected Retries refused because the retry budget was exhausted
+     * @param totalDelay     Total backoff delay of all retries
+     * @param retriedLatency Total latency of calls that were retried, from first attempt to outcome
+     */
+    public record Snapshot(String key, long attempts, long retries, long recovered, long exhausted,
+                           long budgetRejected, Duration totalDelay, Duration retriedLatency) {
+    }
+}
@@ -0,0 +1,75 @@
+package cloud.kitelang.provider;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Keeps the most recent spans in memory, for tests and for inspecting a running provider
+ * without a collector. Older spans are overwritten once the buffer is full.
+ *
+ * <p>Enabled by {@link ProviderServerOptions#getTraceBufferSize()}.</p>
+ */
+public class RingBufferSpanExporter implements SpanExporter {
+    private AtomicReferenceArray<Span> slots = new AtomicReferenceArray<>(0);
+    private final AtomicLong written = new AtomicLong();
+
+    public RingBufferSpanExporter() {
+    }
+
+    /**
+     * Create an exporter holding up to {@code capacity} spans, already started.
+     */
+    public RingBufferSpanExporter(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    @Override
+    public boolean start(String providerName, ProviderServerOptions options) {
+        if (options.getTraceBufferSize() <= 0) {
+            return false;
+        }
+        slots = new AtomicReferenceArray<>(options.getTraceBufferSize());
+        return true;
+    }
+
+    @Override
+    public void export(Span span) {
+        var buffer = slots;
+        if (buffer.length() > 0) {
+            buffer.set((int) (written.getAndIncrement() % buffer.length()), span);
+        }
+    }
+
+    /**
+     * The buffered spans, oldest first.
+     */
+    public List<Span> getSpans() {
+        var buffer = slots;
+        long end = written.get();
+        long begin = Math.max(0, end - buffer.length());
+        var spans = new ArrayList<Span>((int) (end - begin));
+        for (long i = begin; i < end; i++) {
+            var span = buffer.get((int) (i % buffer.length()));
+            if (span != null) {
+                spans.add(span);
+            }
+        }
+        return spans;
+    }
+
+    /**
+     * The buffered spans of one trace, oldest first.
+     */
+    public List<Span> getTrace(String traceId) {
+        return getSpans().stream().filter(span -> span.getTraceId().equals(traceId)).toList();
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,281 @@
+package cloud.kitelang.provider;
+
+import cloud.kitelang.api.annotations.TypeName;
+import cloud.kitelang.api.schema.Schema;
+import cloud.kitelang.proto.v1.Block;
+import cloud.kitelang.proto.v1.GetProviderSchema;
+import cloud.kitelang.proto.v1.Property;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The provider schema precomputed at build time: the serialized {@code GetProviderSchema}
+ * response stored at {@value #PATH}, after a line holding the {@link #fingerprint} of the
+ * provider it was built from.
+ *
+ * <p>When the index is on the classpath and its fingerprint matches the running provider,
+ * {@link ProviderServiceImpl} serves it as is, so no handler schema is built by reflection at
+ * startup, which also keeps reflection out of GraalVM native images. Otherwise the schema is
+ * built from the handlers.</p>
+ *
+ * <p>Generate the index after compilation, with the compiled classes on the classpath, and
+ * regenerate it on every build; the README shows a Gradle task that does so:</p>
+ * <pre>
+ * java -cp ... cloud.kitelang.provider.SchemaIndex \
+ *     --provider com.example.MyProvider \
+ *     --output build/resources/main
+ * </pre>
+ */
+@Slf4j
+public final class SchemaIndex {
+    /** Location of the index on the classpath. */
+    public static final String PATH = "META-INF/kite/provider-schema.bin";
+    /** Changes when the schema conversion does, so indexes written by other SDK versions are stale. */
+    private static final int FORMAT_VERSION = 3;
+
+    private SchemaIndex() {
+    }
+
+    /**
+     * Build the schema response from the provider's handlers, in type name order.
+     */
+    public static GetProviderSchema.Response build(KiteProvider provider) {
+        var responseBuilder = GetProviderSchema.Response.newBuilder();
+        for (var typeName : provider.getResourceTypeNames()) {
+            var resourceType = provider.getResourceType(typeName);
+            if (resourceType != null) {
+                responseBuilder.putResourceSchemas(typeName, convertSchema(resourceType.getSchema()));
+            }
+        }
+        return responseBuilder.build();
+    }
+
+    /**
+     * Fingerprint of what the schema is built from: the provider's name and version, the index
+     * format and, per resource type, its name and schema digest. The digest comes from the
+     * resource types manifest when {@link ResourceTypeProcessor} wrote it, so deferred handlers
+     * are not created; otherwise the type's converted schema is hashed.
+     */
+    public static String fingerprint(KiteProvider provider) {
+        var digest = sha256();
+        digest.update((FORMAT_VERSION + "\n" + provider.getName() + "\n" + provider.getVersion() + "\n")
+                .getBytes(StandardCharsets.UTF_8));
+        for (var typeName : provider.getResourceTypeNames()) {
+            digest.update((typeName + "=" + schemaDigest(provider, typeName) + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static String schemaDigest(KiteProvider provider, String typeName) {
+        var manifestDigest = provider.getSchemaDigest(typeName);
+        if (manifestDigest != null) {
+            return manifestDigest;
+        }
+        var resourceType = provider.getResourceType(typeName);
+        if (resourceType == null) {
+            return "";
+        }
+        return HexFormat.of().formatHex(sha256().digest(convertSchema(resourceType.getSchema()).toByteArray()));
+    }
+
+    /**
+     * Read the index from the classpath.
+     *
+     * @param classLoader Loader to find {@value #PATH} with
+     * @param provider    The running provider, whose {@link #fingerprint} the index must carry
+     * @return The response, or null if there is no index or it is stale
+     */
+    public static GetProviderSchema.Response load(ClassLoader classLoader, KiteProvider provider) {
+        try (InputStream in = classLoader.getResourceAsStream(PATH)) {
+            if (in == null) {
+                return null;
+            }
+            var bytes = in.readAllBytes();
+            int newline = indexOf(bytes, (byte) '\n');
+            var stored = newline < 0 ? "" : new String(bytes, 0, newline, StandardCharsets.UTF_8);
+            var expected = fingerprint(provider);
+            if (!stored.equals(expected)) {
+                log.warn("Ignoring stale {}: fingerprint {} does not match provider {} {} ({})",
+                        PATH, stored.isEmpty() ? "missing" : stored, provider.getName(), provider.getVersion(), expected);
+                return null;
+            }
+            var response = GetProviderSchema.Response.parser().parseFrom(bytes, newline + 1, bytes.length - newline - 1);
+            log.debug("Loaded schema index with {} resource types", response.getResourceSchemasCount());
+            return response;
+        } catch (InvalidProtocolBufferException e) {
+            log.warn("Ignoring unreadable {}: {}", PATH, e.getMessage());
+            return null;
+        } catch (IOException e) {
+            log.warn("Failed to read {}: {}", PATH, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Write the index for the provider under an output directory.
+     *
+     * @param provider  The provider, with its handlers registered
+     * @param outputDir Root of the classpath resources (e.g. {@code build/resources/main})
+     * @return The written file
+     */
+    public static Path write(KiteProvider provider, Path outputDir) throws IOException {
+        var file = outputDir.resolve(PATH);
+        Files.createDirectories(file.getParent());
+        try (var out = Files.newOutputStream(file)) {
+            out.write((fingerprint(provider) + "\n").getBytes(StandardCharsets.UTF_8));
+            build(provider).writeTo(out);
+        }
+        return file;
+    }
+
+    private static int indexOf(byte[] bytes, byte value) {
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Convert API Schema to proto Schema.
+     */
+    static cloud.kitelang.proto.v1.Schema convertSchema(Schema apiSchema) {
+        var schemaBuilder = cloud.kitelang.proto.v1.Schema.newBuilder()
+                .setVersion(1);
+
+        var blockBuilder = Block.newBuilder();
+
+        for (cloud.kitelang.api.resource.Property property : apiSchema.getProperties()) {
+            var propBuilder = Property.newBuilder()
+                    .setName(property.name())
+                    .setType(ByteString.copyFromUtf8(mapType(property.type(), property.typeClass())))
+                    .setRequired(true) // Default to required
+                    .setComputed(property.isCloud());
+
+            // Include default value if present
+            if (property.defaultValue() != null) {
+                propBuilder.setDefaultValue(property.defaultValue());
+            }
+
+            blockBuilder.addProperties(propBuilder.build());
+        }
+
+        schemaBuilder.setBlock(blockBuilder.build());
+        return schemaBuilder.build();
+    }
+
+    /**
+     * Map Java type to Kite type string.
+     * Kite types: string, number, boolean, object (for dynamic maps), schema name (for structs)
+     *
+     * @param type The type name string (lowercase simple name)
+     * @param typeClass The actual Java class (used to detect structs with @TypeName)
+     */
+    static String mapType(Object type, Class<?> typeClass) {
+        if (type == null) return "any";
+
+        // First check if it's a struct (class with @TypeName annotation)
+        if (typeClass != null && typeClass.isAnnotationPresent(TypeName.class)) {
+            var typeName = typeClass.getAnnotation(TypeName.class);
+            return typeName.value();  // Return the schema name
+        }
+
+        // type is a String from Schema.toSchema() which uses field.getType().getSimpleName().toLowerCase()
+        if (type instanceof String typeName) {
+            return switch (typeName) {
+                case "string" -> "string";
+                case "int", "integer", "long", "double", "float", "number" -> "number";
+                case "boolean", "bool" -> "boolean";
+                case "list", "arraylist" -> "any[]";  // Kite uses array syntax
+                case "map", "hashmap", "linkedhashmap" -> "object"; // Dynamic maps use object
+                default -> typeName; // pass through as-is (could be a schema name)
+            };
+        }
+        if (type instanceof Class<?> clazz) {
+            // Check for @TypeName annotation (struct)
+            if (clazz.isAnnotationPresent(TypeName.class)) {
+                var typeName = clazz.getAnnotation(TypeName.class);
+                return typeName.value();
+            }
+            if (clazz == String.class) return "string";
+            if (clazz == Integer.class || clazz == int.class) return "number";
+            if (clazz == Long.class || clazz == long.class) return "number";
+            if (clazz == Double.class || clazz == double.class) return "number";
+            if (clazz == Float.class || clazz == float.class) return "number";
+            if (clazz == Boolean.class || clazz == boolean.class) return "boolean";
+            if (List.class.isAssignableFrom(clazz)) return "any[]";
+            if (Map.class.isAssignableFrom(clazz)) return "object";
+        }
+        return "any";
+    }
+
+    /**
+     * Command-line entry point, run after compilation.
+     */
+    public static void main(String[] args) throws Exception {
+        String providerClass = null;
+        String outputDir = "build/resources/main";
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--provider", "-p" -> providerClass = args[++i];
+                case "--output", "-o" -> outputDir = args[++i];
+                case "--help", "-h" -> {
+                    printHelp();
+                    return;
+                }
+            }
+        }
+
+        if (providerClass == null) {
+            log.error("--provider is required");
+            printHelp();
+            System.exit(1);
+        }
+
+        var clazz = Class.forName(providerClass);
+        if (!KiteProvider.class.isAssignableFrom(clazz)) {
+            log.error("{} does not extend KiteProvider", providerClass);
+            System.exit(1);
+        }
+
+        var provider = (KiteProvider) clazz.getDeclaredConstructor().newInstance();
+        var file = write(provider, Path.of(outputDir));
+        log.info("Generated schema index for {} resource types in {}", provider.getResourceTypeNames().size(), file);
+    }
+
+    private static void printHelp() {
+        log.info("""
+            Kite Provider Schema Index Generator
+
+            Usage:
+              java -cp ... cloud.kitelang.provider.SchemaIndex [options]
+
+            Options:
+              --provider, -p <class>   Provider class name (required)
+              --output, -o <dir>       Resources output directory (default: build/resources/main)
+              --help, -h               Show this help message
+            """);
+    }
+}
@@ -0,0 +1,195 @@
+package cloud.kitelang.provider;
+
+import io.grpc.Server;
+import io.grpc.ServerInterceptors;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.netty.shaded.io.netty.channel.EventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.ServerChannel;
+import io.grpc.netty.shaded.io.netty.channel.epoll.Epoll;
+import io.grpc.netty.shaded.io.netty.channel.epoll.EpollEventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.epoll.EpollServerDomainSocketChannel;
+import io.grpc.netty.shaded.io.netty.channel.epoll.EpollServerSocketChannel;
+import io.grpc.netty.shaded.io.netty.channel.nio.NioEventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.grpc.netty.shaded.io.netty.channel.unix.DomainSocketAddress;
+import io.grpc.netty.shaded.io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A started gRPC server with the Netty event loops and socket file it owns,
+ * configured from {@link ProviderServerOptions}.
+ */
+@Slf4j
+@Getter
+final class ServerTransport {
+    /** File type bits of {@code unix:mode}, and the type of a socket. */
+    private static final int S_IFMT = 0170000;
+    private static final int S_IFSOCK = 0140000;
+
+    private final Server server;
+    /** Address for the handshake line: a port, or {@code unix|<socket_path>}. */
+    private final String handshakeAddress;
+    private final EventLoopGroup bossGroup;
+    private final EventLoopGroup workerGroup;
+    private final Path socketPath;
+
+    private ServerTransport(Server server, String handshakeAddress, EventLoopGroup bossGroup,
+                            EventLoopGroup workerGroup, Path socketPath) {
+        this.server = server;
+        this.handshakeAddress = handshakeAddress;
+        this.bossGroup = bossGroup;
+        this.workerGroup = workerGroup;
+        this.socketPath = socketPath;
+    }
+
+    /**
+     * Build and start a server for the service.
+     *
+     * @param options      Transport and gRPC settings
+     * @param providerName Used in the default socket file name
+     * @param service      The provider service, also served over the {@link OperationChannel}
+     * @param executor     Executor running the calls
+     */
+    static ServerTransport start(ProviderServerOptions options, String providerName,
+                                 ProviderServiceImpl service, Executor executor) throws IOException {
+        boolean epoll = useEpoll(options);
+        boolean unix = options.getTransport() == ProviderServerOptions.Transport.UNIX;
+        if (unix && !epoll) {
+            log.warn("Unix domain socket transport needs native epoll, falling back to TCP");
+            unix = false;
+        }
+
+        Path socketPath = null;
+        if (unix) {
+            socketPath = options.getSocketPath() != null
+                    ? options.getSocketPath()
+                    : Path.of(System.getProperty("java.io.tmpdir"),
+                            "kite-" + providerName + "-" + ProcessHandle.current().pid() + ".sock");
+            deleteSocket(socketPath);
+        }
+
+        var bossGroup = eventLoopGroup(epoll, options.getBossThreads(), "kite-grpc-boss");
+        var workerGroup = eventLoopGroup(epoll, options.getWorkerThreads(), "kite-grpc-worker");
+        NettyServerBuilder builder;
+        Class<? extends ServerChannel> channelType;
+        if (unix) {
+            builder = NettyServerBuilder.forAddress(new DomainSocketAddress(socketPath.toString()));
+            channelType = EpollServerDomainSocketChannel.class;
+        } else {
+            // Bind port 0 and read back the port the OS chose, so no other process can take it in between
+            builder = NettyServerBuilder.forAddress(new InetSocketAddress(0));
+            channelType = epoll ? EpollServerSocketChannel.class : NioServerSocketChannel.class;
+        }
+
+        builder.channelType(channelType)
+                .bossEventLoopGroup(bossGroup)
+                .workerEventLoopGroup(workerGroup)
+                .executor(executor)
+                .maxInboundMessageSize(options.getMaxInboundMessageSize())
+                .maxInboundMetadataSize(options.getMaxInboundMetadataSize())
+                .maxConcurrentCallsPerConnection(options.getMaxConcurrentCallsPerConnection())
+                .compressorRegistry(CompressionInterceptor.compressorRegistry())
+                .decompressorRegistry(CompressionInterceptor.decompressorRegistry())
+                .intercept(new CompressionInterceptor(options.getCompression(), options.getMethodCompression(),
+                        options.getCompressionThreshold()))
+                .intercept(service.getTracer().interceptor())
+                .addService(ServerInterceptors.intercept(service, service.getInFlightCalls().interceptor()))
+                .addService(new OperationChannel(service, options.getMaxStreamInFlight()))
+                .addService(new MetricsService(service));
+        if (options.isPool()) {
+            var sessions = service.getSessionRegistry();
+            builder.addTransportFilter(sessions.transportFilter())
+                    .intercept(sessions.interceptor());
+        }
+        if (options.getFlowControlWindow() > 0) {
+            // Unlike flowControlWindow(), this keeps Netty's BDP-based window auto-tuning on
+            builder.initialFlowControlWindow(options.getFlowControlWindow());
+        }
+        if (options.getKeepAliveTime() != null) {
+            builder.keepAliveTime(options.getKeepAliveTime().toNanos(), TimeUnit.NANOSECONDS);
+        }
+        if (options.getKeepAliveTimeout() != null) {
+            builder.keepAliveTimeout(options.getKeepAliveTimeout().toNanos(), TimeUnit.NANOSECONDS);
+        }
+
+        Server server;
+        try {
+            server = builder.build().start();
+        } catch (IOException | RuntimeException e) {
+            bossGroup.shutdownGracefully();
+            workerGroup.shutdownGracefully();
+            throw e;
+        }
+        var address = unix ? "unix|" + socketPath : String.valueOf(server.getPort());
+        log.debug("gRPC server on {} ({}, {} worker threads, max message {} bytes, initial flow-control window {})",
+                address, epoll ? "epoll" : "nio", options.getWorkerThreads() > 0 ? options.getWorkerThreads() : "default",
+                options.getMaxInboundMessageSize(),
+                options.getFlowControlWindow() > 0 ? options.getFlowControlWindow() + " bytes" : "default");
+        return new ServerTransport(server, address, bossGroup, workerGroup, socketPath);
+    }
+
+    /**
+     * Delete a Unix socket file left by an earlier server. A missing file is fine. Any other kind
+     * of file is kept, since a misconfigured socket path must not delete user data.
+     *
+     * @throws IOException if the path exists and is not a socket, or cannot be deleted
+     */
+    static void deleteSocket(Path path) throws IOException {
+        int mode;
+        try {
+            mode = (int) Files.getAttribute(path, "unix:mode", LinkOption.NOFOLLOW_LINKS);
+        } catch (NoSuchFileException e) {
+            return;
+        }
+        if ((mode & S_IFMT) != S_IFSOCK) {
+            throw new IOException("Refusing to replace " + path + ": it exists and is not a Unix socket");
+        }
+        Files.deleteIfExists(path);
+    }
+
+    /**
+     * Release the event loops and the socket file. Call after the server has terminated.
+     */
+    void close() {
+        bossGroup.shutdownGracefully();
+        workerGroup.shutdownGracefully();
+        if (socketPath != null) {
+            try {
+                deleteSocket(socketPath);
+            } catch (IOException e) {
+                log.debug("Could not delete socket {}: {}", socketPath, e.getMessage());
+            }
+        }
+    }
+
+    private static boolean useEpoll(ProviderServerOptions options) {
+        return switch (options.getNativeTransport()) {
+            case NIO -> false;
+            case EPOLL -> {
+                Epoll.ensureAvailability();
+                yield true;
+            }
+            case AUTO -> {
+                if (!Epoll.isAvailable() && options.getTransport() == ProviderServerOptions.Transport.UNIX) {
+                    log.debug("Native epoll unavailable: {}", Epoll.unavailabilityCause().getMessage());
+                }
+                yield Epoll.isAvailable();
+            }
+        };
+    }
+
+    private static EventLoopGroup eventLoopGroup(boolean epoll, int threads, String name) {
+        var threadFactory = new DefaultThreadFactory(name, true);
+        return epoll ? new EpollEventLoopGroup(threads, threadFactory) : new NioEventLoopGroup(threads, threadFactory);
+    }
+}
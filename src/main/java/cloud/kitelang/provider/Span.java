@@ -0,0 +1,228 @@
+package cloud.kitelang.provider;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A timed operation within a trace, modelled on OpenTelemetry spans. Spans are created through
+ * {@link Tracing} or by {@link #child(String)}, and handed to the {@link SpanExporter}s when
+ * they {@link #end()}.
+ *
+ * <p>When tracing is off, {@link #NOOP} is used everywhere: it records nothing and its children
+ * are itself, so instrumented code costs next to nothing.</p>
+ */
+public final class Span implements AutoCloseable {
+
+    /**
+     * Role of a span, as in OpenTelemetry.
+     */
+    public enum Kind {
+        /** Work inside the provider. */
+        INTERNAL,
+        /** An RPC served by the provider. */
+        SERVER,
+        /** A call out of the provider, such as a cloud API call. */
+        CLIENT
+    }
+
+    /**
+     * Result of a span, as in OpenTelemetry.
+     */
+    public enum Status {
+        UNSET,
+        OK,
+        ERROR
+    }
+
+    /** Span that records nothing, used when tracing is off or the trace is not sampled. */
+    public static final Span NOOP = new Span(null, "", null, null, Kind.INTERNAL);
+
+    private final Tracer tracer;
+    private final String name;
+    private final String traceId;
+    private final String spanId;
+    private final String parentSpanId;
+    private final Kind kind;
+    private final long startEpochNanos;
+    private final long startNanos;
+    private final Map<String, Object> attributes = Collections.synchronizedMap(new LinkedHashMap<>());
+    private final AtomicBoolean ended = new AtomicBoolean();
+    private volatile long endEpochNanos;
+    private volatile Status status = Status.UNSET;
+    private volatile String statusMessage;
+
+    private Span(Tracer tracer, String name, TraceContext trace, String parentSpanId, Kind kind) {
+        this.tracer = tracer;
+        this.name = name;
+        this.traceId = trace != null ? trace.traceId() : "";
+        this.spanId = tracer != null ? randomHex(8) : "";
+        this.parentSpanId = parentSpanId;
+        this.kind = kind;
+        this.startNanos = System.nanoTime();
+        var now = tracer != null ? Instant.now() : Instant.EPOCH;
+        this.startEpochNanos = now.getEpochSecond() * 1_000_000_000L + now.getNano();
+    }
+
+    /**
+     * Start a root or remote-parented span.
+     *
+     * @param parent The caller's context, or null to start a new trace
+     */
+    static Span start(Tracer tracer, String name, TraceContext parent, Kind kind) {
+        var trace = parent != null ? parent : new TraceContext(randomHex(16), "", true);
+        return new Span(tracer, name, trace, parent != null ? parent.spanId() : null, kind);
+    }
+
+    /**
+     * Start a child span. It is not made current; see {@link Tracing#inSpan}.
+     */
+    public Span child(String name) {
+        return child(name, Kind.INTERNAL);
+    }
+
+    /**
+     * Start a child span of the given kind, e.g. {@link Kind#CLIENT} around a cloud SDK call.
+     */
+    public Span child(String name, Kind kind) {
+        if (tracer == null) {
+            return this;
+        }
+        return new Span(tracer, name, new TraceContext(traceId, spanId, true), spanId, kind);
+    }
+
+    /**
+     * Whether this span is recorded and exported.
+     */
+    public boolean isRecording() {
+        return tracer != null;
+    }
+
+    /**
+     * Set an attribute. Values should be strings, numbers or booleans.
+     */
+    public Span setAttribute(String key, Object value) {
+        if (tracer != null && value != null) {
+            attributes.put(key, value);
+        }
+        return this;
+    }
+
+    /**
+     * Mark the span as failed with the exception and, when known, its cloud error code.
+     */
+    public Span recordException(Throwable error) {
+        if (tracer == null) {
+            return this;
+        }
+        setAttribute("exception.type", error.getClass().getName());
+        setAttribute("exception.message", error.getMessage());
+        var details = ErrorDetails.of(error);
+        if (details != null && details.errorCode() != null) {
+            setAttribute("cloud.error_code", details.errorCode());
+        }
+        setStatus(Status.ERROR, error.getMessage());
+        return this;
+    }
+
+    /**
+     * Set the result of the span.
+     */
+    public Span setStatus(Status status, String message) {
+        if (tracer != null) {
+            this.status = status;
+            this.statusMessage = message;
+        }
+        return this;
+    }
+
+    /**
+     * The {@code traceparent} value identifying this span, for passing the trace on to
+     * downstream services. Null for {@link #NOOP}.
+     */
+    public String traceparent() {
+        return tracer != null ? new TraceContext(traceId, spanId, true).toTraceparent() : null;
+    }
+
+    /**
+     * End the span and export it. Only the first call has an effect.
+     */
+    public void end() {
+        if (tracer == null || !ended.compareAndSet(false, true)) {
+            return;
+        }
+        endEpochNanos = startEpochNanos + (System.nanoTime() - startNanos);
+        tracer.export(this);
+    }
+
+    @Override
+    public void close() {
+        end();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public String getSpanId() {
+        return spanId;
+    }
+
+    /**
+     * The parent span's id, or null for a root span.
+     */
+    public String getParentSpanId() {
+        return parentSpanId;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public long getStartEpochNanos() {
+        return startEpochNanos;
+    }
+
+    /**
+     * End time, or 0 while the span is running.
+     */
+    public long getEndEpochNanos() {
+        return endEpochNanos;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getStatusMessage() {
+        return statusMessage;
+    }
+
+    /**
+     * A copy of the attributes.
+     */
+    public Map<String, Object> getAttributes() {
+        synchronized (attributes) {
+            return Map.copyOf(attributes);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Span[" + name + " " + traceId + "/" + spanId + "]";
+    }
+
+    private static String randomHex(int bytes) {
+        var random = new byte[bytes];
+        ThreadLocalRandom.current().nextBytes(random);
+        return HexFormat.of().formatHex(random);
+    }
+}
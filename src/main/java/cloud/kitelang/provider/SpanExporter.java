@@ -0,0 +1,35 @@
+package cloud.kitelang.provider;
+
+import java.io.IOException;
+
+/**
+ * Receives finished {@link Span}s.
+ *
+ * <p>Built-in exporters keep recent spans in memory ({@link RingBufferSpanExporter}) and append
+ * them to an OTLP JSON file ({@link OtlpFileSpanExporter}), each enabled by its
+ * {@link ProviderServerOptions}; neither needs a network. Others are added by listing an
+ * implementation in {@code META-INF/services/cloud.kitelang.provider.SpanExporter}. Tracing is
+ * off, and spans are not created at all, unless at least one exporter starts.</p>
+ */
+public interface SpanExporter extends AutoCloseable {
+
+    /**
+     * Start exporting, if this exporter is enabled.
+     *
+     * @param providerName Name of the provider, the OpenTelemetry {@code service.name}
+     * @param options      Server options, for exporter settings
+     * @return false if the options leave this exporter disabled
+     */
+    boolean start(String providerName, ProviderServerOptions options) throws IOException;
+
+    /**
+     * Export an ended span. Called on the thread that ended it, so must not block for long.
+     */
+    void export(Span span);
+
+    /**
+     * Flush and stop exporting. Does not throw.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,58 @@
+package cloud.kitelang.provider;
+
+import java.util.HexFormat;
+
+/**
+ * W3C Trace Context ({@code traceparent}) identifying the caller's span.
+ *
+ * @param traceId 32 lowercase hex digits
+ * @param spanId  16 lowercase hex digits
+ * @param sampled Whether the caller records this trace
+ */
+public record TraceContext(String traceId, String spanId, boolean sampled) {
+    /** Metadata key of the W3C trace context header. */
+    public static final String TRACEPARENT = "traceparent";
+
+    private static final String INVALID_TRACE_ID = "0".repeat(32);
+    private static final String INVALID_SPAN_ID = "0".repeat(16);
+
+    /**
+     * Parse a {@code traceparent} header value.
+     *
+     * @return The context, or null if the value is missing or malformed
+     */
+    public static TraceContext parse(String traceparent) {
+        if (traceparent == null) {
+            return null;
+        }
+        var parts = traceparent.trim().split("-");
+        if (parts.length < 4 || parts[0].length() != 2 || parts[0].equals("ff")
+                || parts[1].length() != 32 || parts[2].length() != 16 || parts[3].length() != 2
+                || (parts[0].equals("00") && parts.length != 4)) {
+            return null;
+        }
+        if (!isHex(parts[0]) || !isHex(parts[1]) || !isHex(parts[2]) || !isHex(parts[3])
+                || parts[1].equals(INVALID_TRACE_ID) || parts[2].equals(INVALID_SPAN_ID)) {
+            return null;
+        }
+        boolean sampled = (HexFormat.fromHexDigits(parts[3]) & 1) != 0;
+        return new TraceContext(parts[1], parts[2], sampled);
+    }
+
+    /**
+     * Format as a version 00 {@code traceparent} header value.
+     */
+    public String toTraceparent() {
+        return "00-" + traceId + "-" + spanId + (sampled ? "-01" : "-00");
+    }
+
+    private static boolean isHex(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (!(c >= '0' && c <= '9') && !(c >= 'a' && c <= 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
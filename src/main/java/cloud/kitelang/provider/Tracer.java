@@ -0,0 +1,152 @@
+package cloud.kitelang.provider;
+
+import io.grpc.Context;
+import io.grpc.Contexts;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+/**
+ * Starts the server span of each provider call and hands ended spans to the started
+ * {@link SpanExporter}s: the built-ins and those listed in
+ * {@code META-INF/services/cloud.kitelang.provider.SpanExporter}.
+ *
+ * <p>With no exporter, {@link #startServerSpan} returns {@link Span#NOOP} and tracing costs
+ * nothing beyond reading the {@code traceparent} header.</p>
+ */
+@Slf4j
+final class Tracer implements AutoCloseable {
+    private static final Metadata.Key<String> TRACEPARENT_KEY =
+            Metadata.Key.of(TraceContext.TRACEPARENT, Metadata.ASCII_STRING_MARSHALLER);
+
+    private final String providerName;
+    private volatile List<SpanExporter> exporters = List.of();
+
+    Tracer(String providerName) {
+        this.providerName = providerName;
+    }
+
+    /**
+     * Start every enabled exporter. Exporters that fail to start are logged and skipped.
+     */
+    void start(ProviderServerOptions options) {
+        var candidates = new ArrayList<SpanExporter>();
+        candidates.add(new RingBufferSpanExporter());
+        candidates.add(new OtlpFileSpanExporter());
+        try {
+            for (var exporter : ServiceLoader.load(SpanExporter.class)) {
+                candidates.add(exporter);
+            }
+        } catch (ServiceConfigurationError e) {
+            log.warn("Failed to load span exporters: {}", e.getMessage());
+        }
+
+        for (var exporter : candidates) {
+            try {
+                if (exporter.start(providerName, options)) {
+                    addExporter(exporter);
+                    log.debug("Started span exporter {}", exporter.getClass().getName());
+                }
+            } catch (Exception e) {
+                log.warn("Failed to start span exporter {}: {}", exporter.getClass().getName(), e.getMessage());
+                exporter.close();
+            }
+        }
+    }
+
+    /**
+     * Add an already started exporter, enabling tracing.
+     */
+    synchronized void addExporter(SpanExporter exporter) {
+        var updated = new ArrayList<>(exporters);
+        updated.add(exporter);
+        exporters = List.copyOf(updated);
+    }
+
+    /**
+     * The started exporters.
+     */
+    List<SpanExporter> getExporters() {
+        return exporters;
+    }
+
+    /**
+     * Whether spans are recorded.
+     */
+    boolean isEnabled() {
+        return !exporters.isEmpty();
+    }
+
+    /**
+     * Start the span of a provider RPC, continuing the caller's trace when the call carried a
+     * {@code traceparent}. Unsampled callers get {@link Span#NOOP}.
+     *
+     * @param method   RPC method name, e.g. {@code CreateResource}
+     * @param typeName Resource type, or null
+     */
+    Span startServerSpan(String method, String typeName) {
+        if (exporters.isEmpty()) {
+            return Span.NOOP;
+        }
+        var parent = Tracing.REMOTE_PARENT_KEY.get();
+        if (parent != null && !parent.sampled()) {
+            return Span.NOOP;
+        }
+        var span = Span.start(this, "kite.v1.Provider/" + method, parent, Span.Kind.SERVER);
+        span.setAttribute("rpc.system", "grpc");
+        span.setAttribute("rpc.service", "kite.v1.Provider");
+        span.setAttribute("rpc.method", method);
+        span.setAttribute("kite.provider", providerName);
+        span.setAttribute("kite.resource_type", typeName);
+        return span;
+    }
+
+    void export(Span span) {
+        for (var exporter : exporters) {
+            try {
+                exporter.export(span);
+            } catch (RuntimeException e) {
+                log.debug("Span exporter {} failed", exporter.getClass().getName(), e);
+            }
+        }
+    }
+
+    /**
+     * Interceptor putting the caller's {@code traceparent} into the call's {@link Context}.
+     */
+    ServerInterceptor interceptor() {
+        return new ServerInterceptor() {
+            @Override
+            public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call,
+                                                                         Metadata headers,
+                                                                         ServerCallHandler<ReqT, RespT> next) {
+                var parent = TraceContext.parse(headers.get(TRACEPARENT_KEY));
+                if (parent == null) {
+                    return next.startCall(call, headers);
+                }
+                return Contexts.interceptCall(Context.current().withValue(Tracing.REMOTE_PARENT_KEY, parent),
+                        call, headers, next);
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        var started = exporters;
+        exporters = List.of();
+        for (var exporter : started) {
+            try {
+                exporter.close();
+            } catch (RuntimeException e) {
+                log.warn("Error closing span exporter {}", exporter.getClass().getName(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package cloud.kitelang.provider;
+
+import io.grpc.Context;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Tracing API for handlers. Every provider RPC runs in a span, with child spans for decoding
+ * the request, each handler attempt and encoding the response; handlers add their own spans
+ * under the current one, typically around cloud SDK calls:
+ *
+ * <pre>{@code
+ * var bucket = Tracing.inSpan("s3.CreateBucket", () -> s3.createBucket(request));
+ * }</pre>
+ *
+ * <p>The current span follows the gRPC {@link Context}, so it is visible on the thread that runs
+ * the handler, including retries. Work handed to another executor should be wrapped with
+ * {@link Context#wrap(Runnable)}. When tracing is off every method returns or runs with
+ * {@link Span#NOOP}.</p>
+ */
+public final class Tracing {
+
+    /** The current span. */
+    static final Context.Key<Span> SPAN_KEY = Context.key("kite-span");
+
+    /** The caller's span, from the {@code traceparent} request header. */
+    static final Context.Key<TraceContext> REMOTE_PARENT_KEY = Context.key("kite-remote-parent");
+
+    private Tracing() {
+    }
+
+    /**
+     * The current span, or {@link Span#NOOP} outside a traced call.
+     */
+    public static Span currentSpan() {
+        var span = SPAN_KEY.get();
+        return span != null ? span : Span.NOOP;
+    }
+
+    /**
+     * Start a child of the current span without making it current. The caller must
+     * {@link Span#end()} it, usually with try-with-resources.
+     */
+    public static Span startSpan(String name) {
+        return currentSpan().child(name);
+    }
+
+    /**
+     * Run {@code body} in a new child span of the current one, made current while it runs.
+     * The span records any exception thrown and ends when {@code body} returns.
+     */
+    public static <T> T inSpan(String name, Callable<T> body) throws Exception {
+        return inSpan(currentSpan().child(name), body);
+    }
+
+    /**
+     * Run {@code body} with {@code span} current, then end it.
+     */
+    public static <T> T inSpan(Span span, Callable<T> body) throws Exception {
+        if (!span.isRecording()) {
+            return body.call();
+        }
+        try {
+            return Context.current().withValue(SPAN_KEY, span).call(body);
+        } catch (Exception | Error e) {
+            span.recordException(e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package cloud.kitelang.provider;
+
+import cloud.kitelang.provider.TestFixtures.Cluster;
+import cloud.kitelang.provider.TestFixtures.ClusterHandler;
+import cloud.kitelang.provider.TestFixtures.RecordingObserver;
+import cloud.kitelang.provider.TestFixtures.TestProvider;
+import cloud.kitelang.proto.v1.CreateResource;
+import io.grpc.Status;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link AsyncResourceTypeHandler} and how {@link ProviderServiceImpl} completes calls from it.
+ */
+class AsyncResourceTypeHandlerTest {
+
+    private final ResourcePayloadCodec codec = new ResourcePayloadCodec();
+
+    @Test
+    @DisplayName("should resolve the resource class through AsyncResourceTypeHandler")
+    void shouldResolveResourceClass() {
+        var handler = new ClusterHandler();
+
+        assertEquals(Cluster.class, handler.getResourceClass());
+    }
+
+    @Test
+    @DisplayName("should respond only when the returned stage completes")
+    void shouldRespondWhenStageCompletes() throws Exception {
+        var handler = new ClusterHandler();
+        var service = new ProviderServiceImpl(new TestProvider(handler));
+        var observer = new RecordingObserver<CreateResource.Response>();
+
+        service.createResource(CreateResource.Request.newBuilder()
+                .setTypeName("Cluster")
+                .setConfig(codec.encode(new Cluster("c1", null)))
+                .build(), observer);
+
+        assertTrue(observer.values.isEmpty());
+        assertFalse(observer.isDone());
+
+        handler.pending.complete(new Cluster("c1", "arn:c1"));
+
+        var created = codec.decode(observer.await().get(0).getNewState(), Cluster.class);
+        assertEquals("arn:c1", created.arn());
+    }
+
+    @Test
+    @DisplayName("should report a failed stage as a diagnostic")
+    void shouldReportFailedStage() throws Exception {
+        var handler = new ClusterHandler();
+        var service = new ProviderServiceImpl(new TestProvider(handler));
+        var observer = new RecordingObserver<CreateResource.Response>();
+
+        service.createResource(CreateResource.Request.newBuilder()
+                .setTypeName("Cluster")
+                .setConfig(codec.encode(new Cluster("c1", null)))
+                .build(), observer);
+        handler.pending.completeExceptionally(new IllegalStateException("quota exceeded"));
+
+        var diagnostic = observer.await().get(0).getDiagnostics(0);
+        assertEquals("Create failed", diagnostic.getSummary());
+        assertEquals("quota exceeded", diagnostic.getDetail());
+    }
+
+    @Test
+    @DisplayName("should fail the call rather than report a JVM error as a diagnostic")
+    void shouldFailCallOnError() throws Exception {
+        var handler = new ClusterHandler();
+        var service = new ProviderServiceImpl(new TestProvider(handler));
+        var observer = new RecordingObserver<CreateResource.Response>();
+
+        service.createResource(CreateResource.Request.newBuilder()
+                .setTypeName("Cluster")
+                .setConfig(codec.encode(new Cluster("c1", null)))
+                .build(), observer);
+        handler.pending.completeExceptionally(new OutOfMemoryError("Java heap space"));
+
+        var status = Status.fromThrowable(observer.awaitError());
+        assertTrue(observer.values.isEmpty());
+        assertEquals(Status.Code.INTERNAL, status.getCode());
+        assertTrue(status.getDescription().contains("OutOfMemoryError"));
+    }
+
+    @Test
+    @DisplayName("should unwrap the failure in the blocking variant")
+    void shouldUnwrapFailureInBlockingVariant() {
+        var handler = new ClusterHandler();
+        handler.pending.completeExceptionally(new IllegalStateException("quota exceeded"));
+
+        var thrown = assertThrows(IllegalStateException.class, () -> handler.create(new Cluster("c1", null)));
+        assertEquals("quota exceeded", thrown.getMessage());
+    }
+}
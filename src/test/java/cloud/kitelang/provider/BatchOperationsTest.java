@@ -0,0 +1,146 @@
+package cloud.kitelang.provider;
+
+import cloud.kitelang.provider.TestFixtures.Bucket;
+import cloud.kitelang.provider.TestFixtures.BucketHandler;
+import cloud.kitelang.provider.TestFixtures.Queue;
+import cloud.kitelang.provider.TestFixtures.QueueHandler;
+import cloud.kitelang.provider.TestFixtures.TestProvider;
+import cloud.kitelang.proto.v1.PlanResourceChange;
+import cloud.kitelang.proto.v1.ReadResource;
+import cloud.kitelang.proto.v1.ResourcePayload;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the batch operations of {@link ProviderServiceImpl}.
+ */
+class BatchOperationsTest {
+
+    private ResourcePayloadCodec codec;
+    private BucketHandler bucketHandler;
+    private ProviderServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        codec = new ResourcePayloadCodec();
+        bucketHandler = new BucketHandler();
+        service = new ProviderServiceImpl(new TestProvider(bucketHandler, new QueueHandler()));
+    }
+
+    @Test
+    @DisplayName("should plan mixed types in request order with one planBatch call per type")
+    void shouldPlanMixedTypesInOrder() throws Exception {
+        var requests = List.of(
+                planRequest("Bucket", new Bucket("a")),
+                planRequest("Queue", new Queue("q")),
+                planRequest("Bucket", new Bucket("b")));
+
+        var responses = service.planResourceChanges(requests);
+
+        assertEquals(3, responses.size());
+        assertEquals("a-planned", decode(responses.get(0), Bucket.class).name());
+        assertEquals("q", decode(responses.get(1), Queue.class).name());
+        assertEquals("b-planned", decode(responses.get(2), Bucket.class).name());
+        assertEquals(1, bucketHandler.batchCalls.get());
+    }
+
+    @Test
+    @DisplayName("should report a failing item without failing the rest of the batch")
+    void shouldIsolateItemFailures() throws Exception {
+        var requests = List.of(
+                planRequest("Queue", new Queue("ok")),
+                planRequest("Queue", new Queue("fail")));
+
+        var responses = service.planResourceChanges(requests);
+
+        assertEquals(0, responses.get(0).getDiagnosticsCount());
+        assertEquals("ok", decode(responses.get(0), Queue.class).name());
+        assertEquals(1, responses.get(1).getDiagnosticsCount());
+        assertEquals("Plan failed", responses.get(1).getDiagnostics(0).getSummary());
+        assertEquals("queue rejected", responses.get(1).getDiagnostics(0).getDetail());
+        assertFalse(responses.get(1).hasPlannedState());
+    }
+
+    @Test
+    @DisplayName("should report unknown resource types per item")
+    void shouldReportUnknownTypes() throws Exception {
+        var responses = service.planResourceChanges(List.of(planRequest("Missing", new Bucket("x"))));
+
+        assertEquals("Unknown resource type", responses.get(0).getDiagnostics(0).getSummary());
+    }
+
+    @Test
+    @DisplayName("should read in chunks and report every request exactly once")
+    void shouldReadInChunks() throws Exception {
+        var requests = new ArrayList<ReadResource.Request>();
+        for (int i = 0; i < 5; i++) {
+            requests.add(readRequest("Bucket", new Bucket("b" + i)));
+        }
+        requests.add(readRequest("Queue", new Queue("gone")));
+        Map<Integer, ReadResource.Response> results = new ConcurrentHashMap<>();
+        var duplicates = new AtomicInteger();
+
+        // The callback runs on chunk threads, so record there and assert here
+        service.readResources(requests, 2, (index, response) -> {
+            if (results.put(index, response) != null) {
+                duplicates.incrementAndGet();
+            }
+        });
+
+        assertEquals(0, duplicates.get());
+        assertEquals(6, results.size());
+        assertEquals(3, bucketHandler.batchCalls.get());
+        for (int i = 0; i < 5; i++) {
+            assertEquals("b" + i, codec.decode(results.get(i).getNewState(), Bucket.class).name());
+        }
+        // Queue "gone" reads as not found: no state and no diagnostics
+        assertFalse(results.get(5).hasNewState());
+        assertEquals(0, results.get(5).getDiagnosticsCount());
+    }
+
+    @Test
+    @DisplayName("should rethrow JVM errors from a chunk instead of dropping its results")
+    void shouldRethrowErrorsFromChunks() throws Exception {
+        var failing = new ProviderServiceImpl(new TestProvider(new BucketHandler() {
+            @Override
+            public List<BatchResult<Bucket>> readBatch(Collection<Bucket> resources) {
+                throw new StackOverflowError();
+            }
+        }));
+
+        var results = new AtomicInteger();
+
+        assertThrows(StackOverflowError.class, () -> failing.readResources(
+                List.of(readRequest("Bucket", new Bucket("b"))), 2, (index, response) -> results.incrementAndGet()));
+        assertEquals(0, results.get());
+    }
+
+    private ReadResource.Request readRequest(String typeName, Object current) throws Exception {
+        return ReadResource.Request.newBuilder()
+                .setTypeName(typeName)
+                .setCurrentState(codec.encode(current))
+                .build();
+    }
+
+    private PlanResourceChange.Request planRequest(String typeName, Object proposed) throws Exception {
+        return PlanResourceChange.Request.newBuilder()
+                .setTypeName(typeName)
+                .setProposedNewState(codec.encode(proposed))
+                .build();
+    }
+
+    private <T> T decode(PlanResourceChange.Response response, Class<T> clazz) throws Exception {
+        ResourcePayload payload = response.getPlannedState();
+        return codec.decode(payload, clazz);
+    }
+}
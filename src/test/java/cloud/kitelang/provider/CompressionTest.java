@@ -0,0 +1,257 @@
+package cloud.kitelang.provider;
+
+import cloud.kitelang.proto.v1.CreateResource;
+import cloud.kitelang.proto.v1.HealthCheck;
+import cloud.kitelang.proto.v1.ProviderGrpc;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.DecompressorRegistry;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import org.iq80.snappy.SnappyFramedInputStream;
+import org.iq80.snappy.SnappyFramedOutputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link SnappyCodec} and {@link CompressionInterceptor}.
+ */
+class CompressionTest {
+    private static final Metadata.Key<String> ENCODING =
+            Metadata.Key.of("grpc-encoding", Metadata.ASCII_STRING_MARSHALLER);
+
+    private final ResourcePayloadCodec codec = new ResourcePayloadCodec();
+    private final AtomicReference<String> responseEncoding = new AtomicReference<>();
+    private ServerTransport transport;
+    private ManagedChannel channel;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (channel != null) {
+            channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        }
+        if (transport != null) {
+            transport.getServer().shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+            transport.close();
+        }
+    }
+
+    @Test
+    @DisplayName("should round-trip data of any size through the snappy codec")
+    void shouldRoundTripSnappy() throws IOException {
+        var random = new Random(42);
+        var incompressible = new byte[150_000];
+        random.nextBytes(incompressible);
+        var repetitive = "{\"Tags\":{\"env\":\"prod\",\"team\":\"platform\"}}".repeat(5_000).getBytes();
+
+        for (var data : List.of(new byte[0], "short".getBytes(), repetitive, incompressible)) {
+            var compressed = compress(data);
+
+            assertArrayEquals(data, decompress(compressed));
+        }
+        assertTrue(compress(repetitive).length < repetitive.length / 10);
+        assertTrue(compress(incompressible).length < incompressible.length + 100);
+    }
+
+    @Test
+    @DisplayName("should decode framed streams written by the reference implementation")
+    void shouldDecodeGoldenVectors() throws IOException {
+        // Written by org.iq80.snappy.SnappyFramedOutputStream: a stored chunk, then a compressed one
+        var stored = HexFormat.of().parseHex("ff060000734e61507059010900005eac794f73686f7274");
+        var compressed = HexFormat.of().parseHex("ff060000734e6150705900220000f07c2f355c587b2254616773223a7b22656e76"
+                + "223a2270726f64227d7dfe17000517");
+
+        assertArrayEquals("short".getBytes(StandardCharsets.UTF_8), decompress(stored));
+        assertEquals("{\"Tags\":{\"env\":\"prod\"}}".repeat(4),
+                new String(decompress(compressed), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("should interoperate with the reference implementation in both directions")
+    void shouldInteroperateWithReference() throws IOException {
+        var random = new Random(7);
+        var incompressible = new byte[100_000];
+        random.nextBytes(incompressible);
+        var repetitive = "{\"Tags\":{\"env\":\"prod\",\"team\":\"platform\"}}".repeat(5_000).getBytes();
+
+        for (var data : List.of(new byte[0], "short".getBytes(), repetitive, incompressible)) {
+            try (var in = new SnappyFramedInputStream(new ByteArrayInputStream(compress(data)), true)) {
+                assertArrayEquals(data, in.readAllBytes());
+            }
+
+            var reference = new ByteArrayOutputStream();
+            try (var out = new SnappyFramedOutputStream(reference)) {
+                out.write(data);
+            }
+            assertArrayEquals(data, decompress(reference.toByteArray()));
+        }
+    }
+
+    @Test
+    @DisplayName("should reject snappy data with a bad checksum")
+    void shouldRejectCorruptSnappy() throws IOException {
+        var compressed = compress("some state that is long enough to compress, state state state".getBytes());
+        compressed[12] ^= 1; // first byte of the chunk checksum
+
+        assertThrows(IOException.class, () -> decompress(compressed));
+    }
+
+    @Test
+    @DisplayName("should pick the preferred encoding the client accepts unless the method overrides it")
+    void shouldChooseEncoding() {
+        var interceptor = new CompressionInterceptor(List.of("snappy", "gzip", "lz4"),
+                Map.of("HealthCheck", "identity", "kite.v1.Provider/GetProviderSchema", "gzip"), 0);
+        var read = method("kite.v1.Provider/ReadResource");
+
+        assertEquals("snappy", interceptor.choose(read, "gzip, snappy"));
+        assertEquals("gzip", interceptor.choose(read, "gzip"));
+        assertNull(interceptor.choose(read, "deflate"));
+        assertNull(interceptor.choose(read, null));
+        assertNull(interceptor.choose(method("kite.v1.Provider/HealthCheck"), "snappy,gzip"));
+        assertEquals("gzip", interceptor.choose(method("kite.v1.Provider/GetProviderSchema"), "snappy,gzip"));
+    }
+
+    @Test
+    @DisplayName("should compress large responses in both directions with snappy")
+    void shouldCompressLargeMessages() throws Exception {
+        start(ProviderServerOptions.builder()
+                .compression(List.of(SnappyCodec.ENCODING, "gzip"))
+                .compressionThreshold(1024));
+        var name = "bucket-" + "x".repeat(20_000);
+
+        var response = ProviderGrpc.newBlockingStub(channel)
+                .withCompression(SnappyCodec.ENCODING)
+                .createResource(CreateResource.Request.newBuilder()
+                        .setTypeName("Bucket")
+                        .setConfig(codec.encode(new TestFixtures.Bucket(name)))
+                        .build());
+
+        assertEquals(name, codec.decode(response.getNewState(), TestFixtures.Bucket.class).name());
+        assertEquals(SnappyCodec.ENCODING, responseEncoding.get());
+    }
+
+    @Test
+    @DisplayName("should send responses uncompressed unless compression is configured")
+    void shouldNotCompressByDefault() throws Exception {
+        start(ProviderServerOptions.builder().compressionThreshold(0));
+
+        ProviderGrpc.newBlockingStub(channel)
+                .withCompression(SnappyCodec.ENCODING)
+                .createResource(CreateResource.Request.newBuilder()
+                        .setTypeName("Bucket")
+                        .setConfig(codec.encode(new TestFixtures.Bucket("bucket-" + "x".repeat(20_000))))
+                        .build());
+
+        assertEquals(CompressionInterceptor.IDENTITY, responseEncoding.get());
+    }
+
+    @Test
+    @DisplayName("should not compress methods configured as identity")
+    void shouldHonorMethodOverride() {
+        start(ProviderServerOptions.builder()
+                .compressionThreshold(0)
+                .methodCompression(Map.of("HealthCheck", CompressionInterceptor.IDENTITY)));
+
+        var response = ProviderGrpc.newBlockingStub(channel).healthCheck(HealthCheck.Request.getDefaultInstance());
+
+        assertTrue(response.getHealthy());
+        assertEquals(CompressionInterceptor.IDENTITY, responseEncoding.get());
+    }
+
+    private void start(ProviderServerOptions.ProviderServerOptionsBuilder options) {
+        try {
+            transport = ServerTransport.start(options
+                            .nativeTransport(ProviderServerOptions.NativeTransport.NIO)
+                            .workerThreads(1)
+                            .build(),
+                    "test", new ProviderServiceImpl(new TestFixtures.TestProvider(
+                            new TestFixtures.BucketHandler())),
+                    Executors.newVirtualThreadPerTaskExecutor());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        channel = NettyChannelBuilder.forAddress("localhost", transport.getServer().getPort())
+                .usePlaintext()
+                .compressorRegistry(CompressionInterceptor.compressorRegistry())
+                .decompressorRegistry(DecompressorRegistry.getDefaultInstance().with(new SnappyCodec(), true))
+                .intercept(new ResponseEncodingRecorder())
+                .build();
+    }
+
+    private static byte[] compress(byte[] data) throws IOException {
+        var out = new ByteArrayOutputStream();
+        try (var compressing = new SnappyCodec().compress(out)) {
+            compressing.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] decompress(byte[] data) throws IOException {
+        try (var in = new SnappyCodec().decompress(new ByteArrayInputStream(data))) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static MethodDescriptor<Void, Void> method(String fullName) {
+        return MethodDescriptor.<Void, Void>newBuilder()
+                .setType(MethodDescriptor.MethodType.UNARY)
+                .setFullMethodName(fullName)
+                .setRequestMarshaller(new VoidMarshaller())
+                .setResponseMarshaller(new VoidMarshaller())
+                .build();
+    }
+
+    private static final class VoidMarshaller implements MethodDescriptor.Marshaller<Void> {
+        @Override
+        public java.io.InputStream stream(Void value) {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+
+        @Override
+        public Void parse(java.io.InputStream stream) {
+            return null;
+        }
+    }
+
+    /**
+     * Records the {@code grpc-encoding} of responses.
+     */
+    private final class ResponseEncodingRecorder implements ClientInterceptor {
+        @Override
+        public <Q, R> ClientCall<Q, R> interceptCall(MethodDescriptor<Q, R> method, CallOptions callOptions, Channel next) {
+            return new ForwardingClientCall.SimpleForwardingClientCall<>(next.newCall(method, callOptions)) {
+                @Override
+                public void start(Listener<R> listener, Metadata headers) {
+                    super.start(new ForwardingClientCallListener.SimpleForwardingClientCallListener<>(listener) {
+                        @Override
+                        public void onHeaders(Metadata responseHeaders) {
+                            responseEncoding.set(responseHeaders.get(ENCODING));
+                            super.onHeaders(responseHeaders);
+                        }
+                    }, headers);
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package cloud.kitelang.provider;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link ConcurrencyLimiter} and {@link ConcurrencyLimiters}.
+ */
+class ConcurrencyLimiterTest {
+
+    @Test
+    @DisplayName("should halve the limit once per burst of throttling errors")
+    void shouldHalveOncePerBurst() throws Exception {
+        var limiter = new ConcurrencyLimiter("ec2", 8, 1, 16);
+        var permits = new ArrayList<ConcurrencyLimiter.Permit>();
+        for (int i = 0; i < 4; i++) {
+            permits.add(limiter.acquire());
+        }
+
+        for (var permit : permits) {
+            permit.release(ConcurrencyLimiter.Outcome.THROTTLED);
+        }
+
+        assertEquals(4, limiter.snapshot().limit());
+        assertEquals(0, limiter.snapshot().inFlight());
+    }
+
+    @Test
+    @DisplayName("should grow the limit on successes while it is in use")
+    void shouldGrowOnSuccess() throws Exception {
+        var limiter = new ConcurrencyLimiter("s3", 2, 1, 16);
+
+        for (int i = 0; i < 10; i++) {
+            var first = limiter.acquire();
+            var second = limiter.acquire();
+            first.release(ConcurrencyLimiter.Outcome.SUCCESS);
+            second.release(ConcurrencyLimiter.Outcome.SUCCESS);
+        }
+
+        assertTrue(limiter.snapshot().limit() > 2);
+    }
+
+    @Test
+    @DisplayName("should admit queued calls in arrival order")
+    void shouldAdmitInArrivalOrder() throws Exception {
+        var limiter = new ConcurrencyLimiter("iam", 1, 1, 1);
+        var holder = limiter.acquire();
+        List<Integer> admitted = new CopyOnWriteArrayList<>();
+        var done = new CountDownLatch(3);
+
+        for (int i = 0; i < 3; i++) {
+            int id = i;
+            Thread.ofVirtual().start(() -> {
+                try {
+                    var permit = limiter.acquire();
+                    admitted.add(id);
+                    permit.release(ConcurrencyLimiter.Outcome.SUCCESS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+            // Wait until this caller is queued before starting the next one
+            while (limiter.snapshot().queued() < id + 1) {
+                Thread.onSpinWait();
+            }
+        }
+        holder.release(ConcurrencyLimiter.Outcome.SUCCESS);
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(0, 1, 2), admitted);
+    }
+
+    @Test
+    @DisplayName("should count batch permits by weight and admit oversized batches alone")
+    void shouldWeighBatchPermits() throws Exception {
+        var limiter = new ConcurrencyLimiter("s3", 4, 1, 4);
+        var batch = limiter.acquire(3);
+        assertEquals(3, limiter.snapshot().inFlight());
+
+        var admitted = new CountDownLatch(1);
+        Thread.ofVirtual().start(() -> {
+            try {
+                limiter.acquire(2).release(ConcurrencyLimiter.Outcome.SUCCESS);
+                admitted.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        while (limiter.snapshot().queued() < 1) {
+            Thread.onSpinWait();
+        }
+        batch.release(ConcurrencyLimiter.Outcome.SUCCESS);
+        assertTrue(admitted.await(5, TimeUnit.SECONDS));
+
+        var oversized = limiter.acquire(10);
+        assertEquals(10, limiter.snapshot().inFlight());
+        oversized.release(ConcurrencyLimiter.Outcome.FAILURE);
+        assertEquals(0, limiter.snapshot().inFlight());
+        assertThrows(IllegalArgumentException.class, () -> limiter.acquire(0));
+    }
+
+    @Test
+    @DisplayName("should share one limiter between handlers of the same API family")
+    void shouldShareLimiterByApiFamily() {
+        var limiters = ConcurrencyLimiters.defaults();
+        var vpc = new Ec2Handler<TestFixtures.Bucket>() {};
+        var subnet = new Ec2Handler<TestFixtures.Queue>() {};
+
+        assertSame(limiters.forHandler("Vpc", vpc), limiters.forHandler("Subnet", subnet));
+        assertNull(ConcurrencyLimiters.unlimited().forHandler("Vpc", vpc));
+    }
+
+    @Test
+    @DisplayName("should classify throttling errors")
+    void shouldClassifyThrottling() {
+        var throttled = new ExtractErrorMessageTest.FakeAwsException("ThrottlingException", "Rate exceeded", 400);
+
+        assertEquals(ConcurrencyLimiter.Outcome.THROTTLED, ConcurrencyLimiters.outcomeOf(throttled));
+        assertEquals(ConcurrencyLimiter.Outcome.FAILURE, ConcurrencyLimiters.outcomeOf(new IllegalStateException("boom")));
+        assertEquals(ConcurrencyLimiter.Outcome.SUCCESS, ConcurrencyLimiters.outcomeOf(null));
+    }
+
+    abstract static class Ec2Handler<T> extends ResourceTypeHandler<T> {
+        @Override
+        public String getApiFamily() {
+            return "ec2";
+        }
+
+        @Override
+        public T create(T resource) {
+            return resource;
+        }
+
+        @Override
+        public T read(T resource) {
+            return resource;
+        }
+
+        @Override
+        public T update(T resource) {
+            return resource;
+        }
+
+        @Override
+        public boolean delete(T resource) {
+            return true;
+        }
+    }
+}
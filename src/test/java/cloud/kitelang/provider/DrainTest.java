@@ -0,0 +1,240 @@
+package cloud.kitelang.provider;
+
+import cloud.kitelang.proto.v1.CreateResource;
+import cloud.kitelang.proto.v1.HealthCheck;
+import cloud.kitelang.proto.v1.ProviderGrpc;
+import cloud.kitelang.proto.v1.ReadResource;
+import io.grpc.CallOptions;
+import io.grpc.ManagedChannel;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.stub.ClientCalls;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for in-flight call accounting in {@link ProviderServiceImpl}: idle tracking and
+ * draining before shutdown.
+ */
+class DrainTest {
+
+    private final ResourcePayloadCodec codec = new ResourcePayloadCodec();
+    private final TestFixtures.ClusterHandler handler = new TestFixtures.ClusterHandler();
+    private ProviderServiceImpl service;
+    private ServerTransport transport;
+    private ManagedChannel channel;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        service = new ProviderServiceImpl(new TestFixtures.TestProvider(handler));
+        transport = ServerTransport.start(ProviderServerOptions.builder()
+                        .nativeTransport(ProviderServerOptions.NativeTransport.NIO)
+                        .workerThreads(1)
+                        .build(),
+                "test", service, Executors.newVirtualThreadPerTaskExecutor());
+        channel = NettyChannelBuilder.forAddress("localhost", transport.getServer().getPort())
+                .usePlaintext()
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        transport.getServer().shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        transport.close();
+    }
+
+    @Test
+    @DisplayName("should count calls per method and not be idle while one is in flight")
+    void shouldTrackInFlightCalls() throws Exception {
+        Thread.sleep(20);
+        assertTrue(service.getIdleTimeMs() > 0);
+
+        var inFlight = ProviderGrpc.newFutureStub(channel).createResource(createRequest("c1"));
+        awaitTrue(() -> service.getInFlightCount() == 1);
+
+        assertEquals(Map.of("CreateResource", 1), service.getInFlightCounts());
+        Thread.sleep(20);
+        assertEquals(0, service.getIdleTimeMs());
+
+        handler.pending.complete(new TestFixtures.Cluster("c1", "arn:c1"));
+        inFlight.get(5, TimeUnit.SECONDS);
+        awaitTrue(() -> service.getInFlightCount() == 0);
+
+        assertEquals(Map.of(), service.getInFlightCounts());
+        assertTrue(service.getIdleTimeMs() < 1_000);
+    }
+
+    @Test
+    @DisplayName("should wait for in-flight calls while rejecting new ones and reporting unhealthy")
+    void shouldDrainInFlightCalls() throws Exception {
+        var inFlight = ProviderGrpc.newFutureStub(channel).createResource(createRequest("c1"));
+        awaitTrue(() -> service.getInFlightCount() == 1);
+
+        var drained = CompletableFuture.supplyAsync(() -> drain(Duration.ofSeconds(10)));
+        awaitTrue(service::isDraining);
+
+        var blocking = ProviderGrpc.newBlockingStub(channel);
+        assertFalse(blocking.healthCheck(HealthCheck.Request.getDefaultInstance()).getHealthy());
+        var rejected = assertThrows(StatusRuntimeException.class, () -> blocking.createResource(createRequest("c2")));
+        assertEquals(Status.Code.UNAVAILABLE, rejected.getStatus().getCode());
+        assertFalse(drained.isDone());
+
+        handler.pending.complete(new TestFixtures.Cluster("c1", "arn:c1"));
+
+        assertTrue(drained.get(5, TimeUnit.SECONDS));
+        var created = codec.decode(inFlight.get(5, TimeUnit.SECONDS).getNewState(), TestFixtures.Cluster.class);
+        assertEquals("arn:c1", created.arn());
+        assertEquals(0, service.getInFlightCount());
+    }
+
+    @Test
+    @DisplayName("should cancel handler work still running at the drain deadline")
+    void shouldCancelAtDeadline() throws Exception {
+        var inFlight = ProviderGrpc.newFutureStub(channel).createResource(createRequest("c1"));
+        awaitTrue(() -> service.getInFlightCount() == 1);
+
+        assertFalse(service.drain(Duration.ofMillis(200)));
+
+        assertTrue(handler.pending.isCancelled());
+        var response = inFlight.get(5, TimeUnit.SECONDS);
+        assertEquals("Create failed", response.getDiagnostics(0).getSummary());
+        assertEquals(0, service.getInFlightCount());
+    }
+
+    @Test
+    @DisplayName("should reject new stream operations per tag and complete the stream once running ones finish")
+    void shouldDrainOperationStream() throws Exception {
+        var results = new ConcurrentHashMap<Long, OperationFrame>();
+        var error = new AtomicReference<Throwable>();
+        var done = new CountDownLatch(1);
+        var requests = operate(results, error, done);
+        requests.onNext(new OperationFrame(1, OperationFrame.Kind.CREATE, createRequest("c1")));
+        awaitTrue(() -> service.getInFlightCount() == 1);
+
+        var drained = CompletableFuture.supplyAsync(() -> drain(Duration.ofSeconds(10)));
+        awaitTrue(service::isDraining);
+        requests.onNext(new OperationFrame(2, OperationFrame.Kind.CREATE, createRequest("c2")));
+        awaitTrue(() -> results.containsKey(2L));
+
+        var rejected = (CreateResource.Response) results.get(2L).payload();
+        assertEquals("Provider is shutting down", rejected.getDiagnostics(0).getDetail());
+        assertEquals(1, done.getCount());
+
+        handler.pending.complete(new TestFixtures.Cluster("c1", "arn:c1"));
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertNull(error.get());
+        var created = (CreateResource.Response) results.get(1L).payload();
+        assertEquals("arn:c1", codec.decode(created.getNewState(), TestFixtures.Cluster.class).arn());
+        assertTrue(drained.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("should complete an idle operation stream when draining starts, so the server stops promptly")
+    void shouldCompleteIdleOperationStream() throws Exception {
+        var results = new ConcurrentHashMap<Long, OperationFrame>();
+        var error = new AtomicReference<Throwable>();
+        var done = new CountDownLatch(1);
+        var requests = operate(results, error, done);
+        requests.onNext(new OperationFrame(1, OperationFrame.Kind.READ, ReadResource.Request.newBuilder()
+                .setTypeName("Cluster")
+                .setCurrentState(codec.encode(new TestFixtures.Cluster("c1", "arn:c1")))
+                .build()));
+        awaitTrue(() -> results.containsKey(1L));
+        assertEquals(1, done.getCount());
+
+        assertTrue(service.drain(Duration.ofSeconds(10)));
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertNull(error.get());
+        transport.getServer().shutdown();
+        assertTrue(transport.getServer().awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("should count batch read chunks as in-flight calls and reject them while draining")
+    void shouldRejectReadChunksWhileDraining() throws Exception {
+        var read = ReadResource.Request.newBuilder()
+                .setTypeName("Cluster")
+                .setCurrentState(codec.encode(new TestFixtures.Cluster("c1", "arn:c1")))
+                .build();
+        var results = new ConcurrentHashMap<Integer, ReadResource.Response>();
+
+        service.readResources(List.of(read, read), 1, results::put);
+        assertTrue(results.get(0).getDiagnosticsList().isEmpty());
+        assertEquals(0, service.getInFlightCount());
+
+        assertTrue(service.drain(Duration.ofSeconds(1)));
+        service.readResources(List.of(read, read), 1, results::put);
+
+        assertEquals("Provider is shutting down", results.get(1).getDiagnostics(0).getDetail());
+    }
+
+    private StreamObserver<OperationFrame> operate(Map<Long, OperationFrame> results, AtomicReference<Throwable> error,
+                                                   CountDownLatch done) {
+        return ClientCalls.asyncBidiStreamingCall(
+                channel.newCall(OperationChannel.getOperateMethod(), CallOptions.DEFAULT),
+                new StreamObserver<OperationFrame>() {
+                    @Override
+                    public void onNext(OperationFrame value) {
+                        results.put(value.tag(), value);
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        error.set(t);
+                        done.countDown();
+                    }
+
+                    @Override
+                    public void onCompleted() {
+                        done.countDown();
+                    }
+                });
+    }
+
+    private CreateResource.Request createRequest(String name) {
+        try {
+            return CreateResource.Request.newBuilder()
+                    .setTypeName("Cluster")
+                    .setConfig(codec.encode(new TestFixtures.Cluster(name, null)))
+                    .build();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private boolean drain(Duration timeout) {
+        try {
+            return service.drain(timeout);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met within 5s");
+            Thread.sleep(10);
+        }
+    }
+}
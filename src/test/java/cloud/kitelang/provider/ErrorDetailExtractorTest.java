@@ -0,0 +1,122 @@
+package cloud.kitelang.provider;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the built-in {@link ErrorDetailExtractor}s and {@link CachedAccessor}.
+ */
+class ErrorDetailExtractorTest {
+
+    @Test
+    @DisplayName("should extract AWS error details")
+    void shouldExtractAwsErrorDetails() {
+        var details = ErrorDetails.of(new ExtractErrorMessageTest.FakeAwsException("NoSuchBucket", "Not here", 404));
+
+        assertEquals(new ErrorDetails("NoSuchBucket", "Not here", 404), details);
+    }
+
+    @Test
+    @DisplayName("should return null for exceptions without error details")
+    void shouldReturnNullForPlainExceptions() {
+        assertNull(ErrorDetails.of(new IllegalStateException("boom")));
+        assertNull(ErrorDetails.of(new IllegalStateException("again")));
+    }
+
+    @Test
+    @DisplayName("should extract GCP ApiException details")
+    void shouldExtractGcpDetails() {
+        var extractor = new BuiltinErrorDetailExtractors.Gcp(FakeApiException.class.getName());
+
+        assertEquals(new ErrorDetails("RESOURCE_EXHAUSTED", null, 429),
+                extractor.extract(new FakeApiException(null)));
+        assertEquals(new ErrorDetails("RATE_LIMIT_EXCEEDED", null, 429),
+                extractor.extract(new FakeApiException("RATE_LIMIT_EXCEEDED")));
+        assertNull(extractor.extract(new IllegalStateException("boom")));
+    }
+
+    @Test
+    @DisplayName("should extract Azure ManagementException details")
+    void shouldExtractAzureDetails() {
+        var extractor = new BuiltinErrorDetailExtractors.Azure(FakeManagementException.class.getName());
+
+        var details = extractor.extract(new FakeManagementException());
+
+        assertEquals(new ErrorDetails("ResourceGroupNotFound", "Resource group 'rg' could not be found.", 404), details);
+    }
+
+    @Test
+    @DisplayName("should cache classes that lack the method")
+    void shouldCacheMissingMethods() throws Throwable {
+        var accessor = new CachedAccessor("awsErrorDetails");
+
+        assertFalse(accessor.isPresent(IllegalStateException.class));
+        assertNull(accessor.get(new IllegalStateException()));
+        assertTrue(accessor.isPresent(ExtractErrorMessageTest.FakeAwsException.class));
+    }
+
+    /** Mimics com.google.api.gax.rpc.ApiException */
+    static class FakeApiException extends RuntimeException {
+        private final String reason;
+
+        FakeApiException(String reason) {
+            super("Quota exceeded");
+            this.reason = reason;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        public FakeStatusCode getStatusCode() {
+            return new FakeStatusCode();
+        }
+    }
+
+    /** Mimics com.google.api.gax.rpc.StatusCode */
+    static class FakeStatusCode {
+        public FakeCode getCode() {
+            return FakeCode.RESOURCE_EXHAUSTED;
+        }
+    }
+
+    /** Mimics com.google.api.gax.rpc.StatusCode.Code */
+    enum FakeCode {
+        RESOURCE_EXHAUSTED;
+
+        public int getHttpStatusCode() {
+            return 429;
+        }
+    }
+
+    /** Mimics com.azure.core.management.exception.ManagementException */
+    static class FakeManagementException extends RuntimeException {
+        public FakeManagementError getValue() {
+            return new FakeManagementError();
+        }
+
+        public FakeHttpResponse getResponse() {
+            return new FakeHttpResponse();
+        }
+    }
+
+    /** Mimics com.azure.core.management.exception.ManagementError */
+    static class FakeManagementError {
+        public String getCode() {
+            return "ResourceGroupNotFound";
+        }
+
+        public String getMessage() {
+            return "Resource group 'rg' could not be found.";
+        }
+    }
+
+    /** Mimics com.azure.core.http.HttpResponse */
+    static class FakeHttpResponse {
+        public int getStatusCode() {
+            return 404;
+        }
+    }
+}
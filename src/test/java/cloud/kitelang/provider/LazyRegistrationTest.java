@@ -0,0 +1,105 @@
+package cloud.kitelang.provider;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for deferred handler registration in {@link KiteProvider}.
+ */
+class LazyRegistrationTest {
+
+    @Test
+    @DisplayName("should create a deferred handler once, on first use")
+    void shouldCreateDeferredHandlerOnFirstUse() {
+        var created = new AtomicInteger();
+        var provider = new TestFixtures.TestProvider() {
+            {
+                registerResource("Bucket", () -> {
+                    created.incrementAndGet();
+                    return new TestFixtures.BucketHandler();
+                });
+            }
+        };
+
+        assertEquals(Set.of("Bucket"), provider.getResourceTypeNames());
+        assertEquals(0, created.get());
+
+        var handler = provider.getResourceType("Bucket");
+        assertInstanceOf(TestFixtures.BucketHandler.class, handler);
+        assertSame(handler, provider.getResourceType("Bucket"));
+        assertSame(handler, provider.getResourceTypes().get("Bucket"));
+        assertEquals(1, created.get());
+    }
+
+    @Test
+    @DisplayName("should let a deferred handler look up other deferred handlers while it is created")
+    void shouldResolveNestedDeferredHandlers() {
+        var provider = new TestFixtures.TestProvider() {
+            {
+                registerResource("Bucket", TestFixtures.BucketHandler::new);
+                registerResource("Queue", () -> {
+                    assertNotNull(getResourceType("Bucket"));
+                    return new TestFixtures.QueueHandler();
+                });
+            }
+        };
+
+        assertInstanceOf(TestFixtures.QueueHandler.class, provider.getResourceType("Queue"));
+        assertEquals(Set.of("Bucket", "Queue"), provider.getResourceTypes().keySet());
+    }
+
+    @Test
+    @DisplayName("should drop a deferred handler that cannot be created")
+    void shouldDropFailingDeferredHandler() {
+        var provider = new TestFixtures.TestProvider() {
+            {
+                registerResource("Broken", () -> {
+                    throw new IllegalStateException("boom");
+                });
+            }
+        };
+
+        assertNull(provider.getResourceType("Broken"));
+        assertTrue(provider.getResourceTypeNames().isEmpty());
+        assertTrue(provider.getResourceTypes().isEmpty());
+    }
+
+    @Test
+    @DisplayName("should register manifest entries without instantiating them")
+    void shouldRegisterManifestEntriesLazily(@TempDir Path dir) throws Exception {
+        var manifest = dir.resolve("META-INF/kite/resource-types.txt");
+        Files.createDirectories(manifest.getParent());
+        Files.writeString(manifest, """
+                # Generated by ResourceTypeProcessor - do not edit
+                Bucket=%s
+                Missing=com.example.MissingHandler
+                """.formatted(TestFixtures.BucketHandler.class.getName()));
+
+        var thread = Thread.currentThread();
+        var original = thread.getContextClassLoader();
+        try (var loader = new URLClassLoader(new URL[]{dir.toUri().toURL()}, getClass().getClassLoader())) {
+            thread.setContextClassLoader(loader);
+            var provider = new TestFixtures.TestProvider() {
+                {
+                    discoverResourcesFromManifest();
+                }
+            };
+
+            assertEquals(Set.of("Bucket", "Missing"), provider.getResourceTypeNames());
+            assertInstanceOf(TestFixtures.BucketHandler.class, provider.getResourceType("Bucket"));
+            assertEquals(Set.of("Bucket"), provider.getResourceTypes().keySet());
+        } finally {
+            thread.setContextClassLoader(original);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package cloud.kitelang.provider;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link LoadGenerator} and {@link SyntheticHandler}.
+ */
+class LoadGeneratorTest {
+
+    @Test
+    @DisplayName("should drive every operation in the mix and report latency and allocation")
+    void shouldRunMixedWorkload() throws Exception {
+        var provider = new SyntheticProvider(3, () -> SyntheticHandler.builder()
+                .latency(Duration.ofMillis(2))
+                .jitter(Duration.ofMillis(1))
+                .build());
+
+        var report = LoadGenerator.builder()
+                .provider(provider)
+                .concurrency(8)
+                .warmup(Duration.ofMillis(100))
+                .duration(Duration.ofMillis(500))
+                .build()
+                .run();
+
+        assertEquals(LoadGenerator.DEFAULT_MIX.keySet(), report.operations().keySet());
+        assertTrue(report.calls() > 100, report.summary());
+        assertEquals(0, report.errors(), report.summary());
+        var reads = report.operations().get(LoadGenerator.Operation.READ);
+        assertTrue(reads.latency().valueAtPercentile(50) >= 1_000_000, report.summary());
+        assertTrue(report.summary().contains("plan"));
+        assertNotEquals(0, report.allocatedBytes());
+    }
+
+    @Test
+    @DisplayName("should report throttled calls as errors when retries are off")
+    void shouldReportThrottling() throws Exception {
+        var provider = new SyntheticProvider(1, () -> SyntheticHandler.builder()
+                .latency(Duration.ofMillis(5))
+                .maxConcurrent(2)
+                .build());
+
+        var report = LoadGenerator.builder()
+                .provider(provider)
+                .serverOptions(ProviderServerOptions.builder().maxAttempts(1).build())
+                .mix(Map.of(LoadGenerator.Operation.READ, 1))
+                .concurrency(8)
+                .warmup(Duration.ZERO)
+                .duration(Duration.ofMillis(300))
+                .build()
+                .run();
+
+        assertTrue(provider.getThrottled() > 0);
+        assertTrue(report.errors() > 0, report.summary());
+        assertEquals(report.calls(), report.operations().get(LoadGenerator.Operation.READ).calls());
+    }
+
+    @Test
+    @DisplayName("should call any provider over TCP given a state for each type")
+    void shouldRunOverTcp() throws Exception {
+        var provider = new TestFixtures.TestProvider(new TestFixtures.BucketHandler());
+        var generator = LoadGenerator.builder()
+                .provider(provider)
+                .target(LoadGenerator.Target.TCP)
+                .serverOptions(ProviderServerOptions.builder()
+                        .nativeTransport(ProviderServerOptions.NativeTransport.NIO)
+                        .workerThreads(1)
+                        .build())
+                .concurrency(2)
+                .warmup(Duration.ZERO)
+                .duration(Duration.ofMillis(200));
+
+        assertThrows(IllegalArgumentException.class, () -> generator.build().run());
+
+        var report = generator.resource("Bucket", () -> new TestFixtures.Bucket("b")).build().run();
+
+        assertTrue(report.calls() > 0);
+        assertEquals(0, report.errors(), report.summary());
+    }
+}
@@ -0,0 +1,91 @@
+package cloud.kitelang.provider;
+
+import cloud.kitelang.proto.v1.CreateResource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link MetricsExporter}s and {@link MetricsFormat}.
+ */
+class MetricsExporterTest {
+
+    private ProviderServiceImpl service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        service = new ProviderServiceImpl(new TestFixtures.TestProvider(new TestFixtures.BucketHandler()));
+        service.createResource(CreateResource.Request.newBuilder()
+                        .setTypeName("Bucket")
+                        .setConfig(new ResourcePayloadCodec().encode(new TestFixtures.Bucket("b")))
+                        .build(),
+                new TestFixtures.RecordingObserver<>());
+    }
+
+    @Test
+    @DisplayName("should write call latency, bytes and JVM numbers in Prometheus text")
+    void shouldWritePrometheusText() {
+        var text = MetricsFormat.prometheus(service.metricsSnapshot());
+
+        assertTrue(text.contains("# TYPE kite_provider_rpc_duration_seconds histogram\n"));
+        assertTrue(text.contains("kite_provider_rpc_duration_seconds_count{provider=\"test\",method=\"CreateResource\","
+                + "type=\"Bucket\",outcome=\"ok\",phase=\"total\"} 1\n"));
+        assertTrue(text.contains("le=\"+Inf\"} 1\n"));
+        assertTrue(text.contains("# TYPE kite_provider_payload_bytes_total counter\n"));
+        assertTrue(text.contains("kite_provider_jvm_heap_used_bytes{provider=\"test\"} "));
+        assertFalse(text.contains("# EOF"));
+    }
+
+    @Test
+    @DisplayName("should name counter families without _total and end with EOF in OpenMetrics")
+    void shouldWriteOpenMetrics() {
+        var text = MetricsFormat.openMetrics(service.metricsSnapshot());
+
+        assertTrue(text.contains("# TYPE kite_provider_payload_bytes counter\n"));
+        assertTrue(text.contains("kite_provider_payload_bytes_total{"));
+        assertTrue(text.endsWith("# EOF\n"));
+    }
+
+    @Test
+    @DisplayName("should serve metrics over HTTP on the configured port")
+    void shouldServePrometheusEndpoint() throws Exception {
+        var options = ProviderServerOptions.builder().metricsPort(0).build();
+        try (var exporter = new PrometheusExporter()) {
+            assertTrue(exporter.start(service::metricsSnapshot, options));
+
+            var response = HttpClient.newHttpClient().send(
+                    HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + exporter.getPort() + PrometheusExporter.PATH)).build(),
+                    HttpResponse.BodyHandlers.ofString());
+
+            assertEquals(200, response.statusCode());
+            assertEquals(MetricsFormat.PROMETHEUS_CONTENT_TYPE, response.headers().firstValue("Content-Type").orElseThrow());
+            assertTrue(response.body().contains("method=\"CreateResource\""));
+        }
+        assertFalse(new PrometheusExporter().start(service::metricsSnapshot, ProviderServerOptions.defaults()));
+    }
+
+    @Test
+    @DisplayName("should write the OpenMetrics file on close")
+    void shouldWriteMetricsFile(@TempDir Path dir) throws Exception {
+        var file = dir.resolve("metrics/provider.prom");
+        var options = ProviderServerOptions.builder().metricsFile(file).build();
+        var exporter = new OpenMetricsFileExporter();
+        assertTrue(exporter.start(service::metricsSnapshot, options));
+
+        exporter.close();
+
+        var text = Files.readString(file);
+        assertTrue(text.contains("phase=\"handler\""));
+        assertTrue(text.endsWith("# EOF\n"));
+    }
+}
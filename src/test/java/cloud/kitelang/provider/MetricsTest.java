@@ -0,0 +1,197 @@
+package cloud.kitelang.provider;
+
+import cloud.kitelang.proto.v1.CreateResource;
+import cloud.kitelang.proto.v1.ReadResource;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.grpc.CallOptions;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.stub.ClientCalls;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link LatencyHistogram}, {@link ProviderMetrics} and {@link MetricsService}.
+ */
+class MetricsTest {
+
+    private final ResourcePayloadCodec codec = new ResourcePayloadCodec();
+
+    @Test
+    @DisplayName("should place every value in a bucket that contains it")
+    void shouldBucketValues() {
+        for (long value : new long[]{0, 1, 7, 8, 15, 16, 1_000, 123_456_789, 1L << 41}) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            assertTrue(LatencyHistogram.lowerBound(bucket) <= value, "lower bound of " + value);
+            assertTrue(value < LatencyHistogram.upperBound(bucket), "upper bound of " + value);
+        }
+        assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.bucketOf(Long.MAX_VALUE));
+    }
+
+    @Test
+    @DisplayName("should report percentiles to within bucket precision")
+    void shouldReportPercentiles() {
+        var histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 1000; micros++) {
+            histogram.record(micros * 1000);
+        }
+
+        var snapshot = histogram.snapshot();
+
+        assertEquals(1000, snapshot.count());
+        assertEquals(1_000_000, snapshot.maxNanos());
+        assertEquals(500_000, snapshot.valueAtPercentile(50), 500_000 / LatencyHistogram.SUB_BUCKETS);
+        assertEquals(990_000, snapshot.valueAtPercentile(99), 990_000 / LatencyHistogram.SUB_BUCKETS);
+        assertEquals(1_000_000, snapshot.valueAtPercentile(100));
+        assertEquals(0, new LatencyHistogram().snapshot().valueAtPercentile(99));
+    }
+
+    @Test
+    @DisplayName("should count values at or below fixed bounds exactly for le buckets")
+    void shouldCountFixedBoundsExactly() {
+        var histogram = new LatencyHistogram(100_000, 500_000);
+        // 99us, 100us and 101us all fall in the sub-bucket [98304, 106496)
+        histogram.record(99_000);
+        histogram.record(100_000);
+        histogram.record(101_000);
+        histogram.record(2_000_000);
+
+        var snapshot = histogram.snapshot();
+
+        assertEquals(2, snapshot.countAtOrBelow(100_000));
+        assertEquals(3, snapshot.countAtOrBelow(500_000));
+        assertEquals(0, new LatencyHistogram().snapshot().countAtOrBelow(Long.MAX_VALUE));
+        assertThrows(IllegalArgumentException.class, () -> new LatencyHistogram(500_000, 100_000));
+    }
+
+    @Test
+    @DisplayName("should record calls by method, type and outcome with payload bytes")
+    void shouldRecordCalls() {
+        var service = new ProviderServiceImpl(new TestFixtures.TestProvider(new TestFixtures.BucketHandler()));
+
+        create(service, "Bucket");
+        create(service, "Bucket");
+        create(service, "Missing");
+
+        var snapshots = service.getMetrics().snapshots();
+        assertEquals(2, snapshots.size());
+        var ok = snapshots.get(0);
+        assertEquals(new ProviderMetrics.Key("CreateResource", "Bucket", ProviderMetrics.Outcome.OK), ok.key());
+        assertEquals(2, ok.count());
+        assertTrue(ok.bytesIn() > 0);
+        assertTrue(ok.bytesOut() > 0);
+        assertEquals(2, ok.latencies().get(ProviderMetrics.Phase.DECODE).count());
+        assertEquals(new ProviderMetrics.Key("CreateResource", ProviderMetrics.UNKNOWN_TYPE, ProviderMetrics.Outcome.ERROR),
+                snapshots.get(1).key());
+        assertTrue(service.getMetrics().summary().contains("CreateResource Bucket ok: count=2"));
+    }
+
+    @Test
+    @DisplayName("should decode and count the request payload once however often the handler is retried")
+    void shouldRecordDecodeOncePerCall() throws Exception {
+        var attempts = new AtomicInteger();
+        var handler = new TestFixtures.BucketHandler() {
+            @Override
+            public TestFixtures.Bucket create(TestFixtures.Bucket resource) {
+                if (attempts.incrementAndGet() < 3) {
+                    throw new ProviderException("Create failed",
+                            new ExtractErrorMessageTest.FakeAwsException("ThrottlingException", "Rate exceeded", 400));
+                }
+                return resource;
+            }
+
+            @Override
+            public Set<RetryEngine.Operation> getRetriedOperations() {
+                return Set.of(RetryEngine.Operation.CREATE);
+            }
+        };
+        var retries = new RetryEngine(4, Duration.ofMillis(1), Duration.ofMillis(5), Duration.ofSeconds(30),
+                RetryEngine.DEFAULT_BUDGET);
+        var service = new ProviderServiceImpl(new TestFixtures.TestProvider(handler), 0,
+                ConcurrencyLimiters.defaults(), retries);
+        var config = codec.encode(new TestFixtures.Bucket("b"));
+
+        var response = new CompletableFuture<CreateResource.Response>();
+        service.createResource(CreateResource.Request.newBuilder().setTypeName("Bucket").setConfig(config).build(),
+                new StreamObserver<>() {
+                    @Override
+                    public void onNext(CreateResource.Response value) {
+                        response.complete(value);
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        response.completeExceptionally(t);
+                    }
+
+                    @Override
+                    public void onCompleted() {
+                    }
+                });
+
+        assertTrue(response.get(5, TimeUnit.SECONDS).getDiagnosticsList().isEmpty());
+        assertEquals(3, attempts.get());
+        var snapshot = service.getMetrics().snapshots().get(0);
+        assertEquals(1, snapshot.latencies().get(ProviderMetrics.Phase.DECODE).count());
+        assertEquals(config.getMsgpack().size(), snapshot.bytesIn());
+    }
+
+    @Test
+    @DisplayName("should serve metrics as JSON over GetMetrics")
+    void shouldServeMetricsOverRpc() throws Exception {
+        var service = new ProviderServiceImpl(new TestFixtures.TestProvider(new TestFixtures.BucketHandler()));
+        var transport = ServerTransport.start(ProviderServerOptions.builder()
+                        .nativeTransport(ProviderServerOptions.NativeTransport.NIO)
+                        .workerThreads(1)
+                        .build(),
+                "test", service, Executors.newVirtualThreadPerTaskExecutor());
+        var channel = NettyChannelBuilder.forAddress("localhost", transport.getServer().getPort())
+                .usePlaintext()
+                .build();
+        try {
+            service.readResource(ReadResource.Request.newBuilder()
+                            .setTypeName("Bucket")
+                            .setCurrentState(codec.encode(new TestFixtures.Bucket("b")))
+                            .build(),
+                    new TestFixtures.RecordingObserver<>());
+
+            var body = ClientCalls.blockingUnaryCall(channel, MetricsService.getGetMetricsMethod(),
+                    CallOptions.DEFAULT, new byte[0]);
+
+            var document = new ObjectMapper().readValue(body, Map.class);
+            var calls = (List<?>) document.get("calls");
+            var call = (Map<?, ?>) calls.get(0);
+            assertEquals("ReadResource", call.get("method"));
+            assertEquals("Bucket", call.get("type"));
+            assertEquals(1, call.get("count"));
+            assertTrue(((Map<?, ?>) call.get("latency")).containsKey("handler"));
+        } finally {
+            channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+            transport.getServer().shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+            transport.close();
+        }
+    }
+
+    private void create(ProviderServiceImpl service, String typeName) {
+        try {
+            service.createResource(CreateResource.Request.newBuilder()
+                            .setTypeName(typeName)
+                            .setConfig(codec.encode(new TestFixtures.Bucket("b")))
+                            .build(),
+                    new TestFixtures.RecordingObserver<>());
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package cloud.kitelang.provider;
+
+import cloud.kitelang.proto.v1.CreateResource;
+import cloud.kitelang.proto.v1.ReadResource;
+import io.grpc.CallOptions;
+import io.grpc.ManagedChannel;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.stub.ClientCalls;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link OperationChannel} and {@link OperationFrame}.
+ */
+class OperationChannelTest {
+
+    private final ResourcePayloadCodec codec = new ResourcePayloadCodec();
+    private ServerTransport transport;
+    private ManagedChannel channel;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        var provider = new TestFixtures.TestProvider(new TestFixtures.BucketHandler());
+        transport = ServerTransport.start(ProviderServerOptions.builder()
+                        .nativeTransport(ProviderServerOptions.NativeTransport.NIO)
+                        .workerThreads(1)
+                        .maxStreamInFlight(2)
+                        .build(),
+                "test", new ProviderServiceImpl(provider), Executors.newVirtualThreadPerTaskExecutor());
+        channel = NettyChannelBuilder.forAddress("localhost", transport.getServer().getPort())
+                .usePlaintext()
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        transport.getServer().shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        transport.close();
+    }
+
+    @Test
+    @DisplayName("should answer every tagged operation on one stream")
+    void shouldAnswerTaggedOperations() throws Exception {
+        var results = new ConcurrentHashMap<Long, OperationFrame>();
+        var error = new AtomicReference<Throwable>();
+        var done = new CountDownLatch(1);
+        var requests = ClientCalls.asyncBidiStreamingCall(
+                channel.newCall(OperationChannel.getOperateMethod(), CallOptions.DEFAULT),
+                new StreamObserver<OperationFrame>() {
+                    @Override
+                    public void onNext(OperationFrame value) {
+                        results.put(value.tag(), value);
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        error.set(t);
+                        done.countDown();
+                    }
+
+                    @Override
+                    public void onCompleted() {
+                        done.countDown();
+                    }
+                });
+
+        for (long tag = 1; tag <= 10; tag++) {
+            requests.onNext(new OperationFrame(tag, OperationFrame.Kind.CREATE, CreateResource.Request.newBuilder()
+                    .setTypeName("Bucket")
+                    .setConfig(codec.encode(new TestFixtures.Bucket("b" + tag)))
+                    .build()));
+        }
+        requests.onNext(new OperationFrame(11, OperationFrame.Kind.READ, ReadResource.Request.newBuilder()
+                .setTypeName("Missing")
+                .build()));
+        requests.onCompleted();
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertNull(error.get());
+        assertEquals(11, results.size());
+        for (long tag = 1; tag <= 10; tag++) {
+            var response = (CreateResource.Response) results.get(tag).payload();
+            assertEquals("b" + tag, codec.decode(response.getNewState(), TestFixtures.Bucket.class).name());
+        }
+        var unknown = (ReadResource.Response) results.get(11L).payload();
+        assertEquals("Unknown resource type", unknown.getDiagnostics(0).getSummary());
+    }
+
+    @Test
+    @DisplayName("should round-trip frames through the marshallers")
+    void shouldRoundTripFrames() {
+        var request = new OperationFrame(42, OperationFrame.Kind.READ,
+                ReadResource.Request.newBuilder().setTypeName("Bucket").build());
+
+        var parsed = OperationFrame.requestMarshaller().parse(OperationFrame.requestMarshaller().stream(request));
+
+        assertEquals(request, parsed);
+    }
+}
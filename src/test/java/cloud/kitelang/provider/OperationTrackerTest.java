@@ -0,0 +1,129 @@
+package cloud.kitelang.provider;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link OperationTracker}.
+ */
+class OperationTrackerTest {
+
+    private final OperationTracker tracker = new OperationTracker(
+            Duration.ofMillis(20), Duration.ofMillis(40), Duration.ofMillis(80), 1.5);
+
+    @AfterEach
+    void tearDown() {
+        tracker.shutdown();
+    }
+
+    @Test
+    @DisplayName("should poll pending operations of the same type in one fetch")
+    void shouldBatchPolls() throws Exception {
+        var fetches = new CopyOnWriteArrayList<List<String>>();
+        var type = tracker.<String>register("cluster", null, ids -> {
+            fetches.add(new ArrayList<>(ids));
+            Map<String, OperationStatus<String>> statuses = new HashMap<>();
+            for (var id : ids) {
+                statuses.put(id, fetches.size() < 3
+                        ? OperationStatus.pending("creating")
+                        : OperationStatus.succeeded(id + "-ready"));
+            }
+            return statuses;
+        });
+
+        var first = type.track("a");
+        var second = type.track("b");
+
+        assertEquals("a-ready", first.get(5, TimeUnit.SECONDS));
+        assertEquals("b-ready", second.get(5, TimeUnit.SECONDS));
+        assertEquals(List.of("a", "b"), fetches.get(0).stream().sorted().toList());
+        assertEquals(0, tracker.getPendingCount());
+    }
+
+    @Test
+    @DisplayName("should fail the future when the operation fails and publish progress")
+    void shouldFailAndPublishProgress() {
+        var events = new CopyOnWriteArrayList<OperationProgress>();
+        tracker.addListener(events::add);
+        var polls = new AtomicInteger();
+        var type = tracker.<String>register("nodegroup", null, ids -> Map.of("ng", polls.incrementAndGet() == 1
+                ? OperationStatus.pending("scaling")
+                : OperationStatus.failed("capacity unavailable")));
+
+        var thrown = assertThrows(ExecutionException.class, () -> type.track("ng").get(5, TimeUnit.SECONDS));
+
+        assertEquals("capacity unavailable", thrown.getCause().getMessage());
+        assertEquals(List.of("started", "scaling", "capacity unavailable"),
+                events.stream().map(OperationProgress::message).toList());
+        assertEquals(OperationStatus.State.FAILED, events.get(events.size() - 1).state());
+    }
+
+    @Test
+    @DisplayName("should time out operations that stay pending")
+    void shouldTimeOut() {
+        var type = tracker.<String>register("slow", Duration.ofMillis(100), ids -> Map.of());
+
+        var thrown = assertThrows(ExecutionException.class, () -> type.track("s").get(5, TimeUnit.SECONDS));
+
+        assertTrue(thrown.getCause().getMessage().contains("timed out"));
+    }
+
+    @Test
+    @DisplayName("should cancel pending operations when shut down")
+    void shouldCancelPendingOnShutdown() {
+        var type = tracker.<String>register("stuck", null, ids -> Map.of());
+        var future = type.track("s");
+
+        tracker.shutdown();
+
+        assertTrue(future.isCancelled());
+        assertThrows(CancellationException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertEquals(0, tracker.getPendingCount());
+    }
+
+    @Test
+    @DisplayName("should time out operations while their fetch hangs")
+    void shouldTimeOutDuringHungFetch() throws Exception {
+        var release = new CountDownLatch(1);
+        var type = tracker.<String>register("hung", Duration.ofMillis(150), ids -> {
+            release.await();
+            return Map.of();
+        });
+
+        try {
+            var thrown = assertThrows(ExecutionException.class, () -> type.track("h").get(5, TimeUnit.SECONDS));
+
+            assertTrue(thrown.getCause().getMessage().contains("timed out"));
+            assertTrue(thrown.getCause().getMessage().endsWith("and 0 polls"), thrown.getCause().getMessage());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    @DisplayName("should return the existing type when a name is registered again")
+    void shouldRegisterEachNameOnce() {
+        var first = tracker.<String>register("cluster", null, ids -> Map.of());
+
+        assertSame(first, tracker.<String>register("cluster", null, ids -> Map.of()));
+        for (int i = 1; i < OperationTracker.MAX_TYPES; i++) {
+            tracker.register("type-" + i, null, ids -> Map.of());
+        }
+        assertThrows(IllegalStateException.class, () -> tracker.register("one-too-many", null, ids -> Map.of()));
+    }
+}
@@ -0,0 +1,132 @@
+package cloud.kitelang.provider;
+
+import cloud.kitelang.proto.v1.HealthCheck;
+import cloud.kitelang.proto.v1.ProviderGrpc;
+import io.grpc.ManagedChannel;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.shaded.io.netty.channel.epoll.Epoll;
+import io.grpc.netty.shaded.io.netty.channel.epoll.EpollDomainSocketChannel;
+import io.grpc.netty.shaded.io.netty.channel.unix.DomainSocketAddress;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Tests for the transports of {@link ProviderServer} and {@link ProviderServerOptions}.
+ */
+class ProviderServerTest {
+
+    @Test
+    @DisplayName("should serve calls over TCP on an OS-assigned port")
+    void shouldServeOverTcp() throws Exception {
+        var transport = start(ProviderServerOptions.builder()
+                .nativeTransport(ProviderServerOptions.NativeTransport.NIO)
+                .workerThreads(1)
+                .build());
+        var channel = NettyChannelBuilder.forAddress("localhost", transport.getServer().getPort())
+                .usePlaintext()
+                .build();
+
+        assertEquals(String.valueOf(transport.getServer().getPort()), transport.getHandshakeAddress());
+        assertHealthy(channel, transport);
+    }
+
+    @Test
+    @DisplayName("should serve calls over a Unix domain socket")
+    void shouldServeOverUnixDomainSocket(@TempDir Path dir) throws Exception {
+        assumeTrue(Epoll.isAvailable(), "native epoll transport is not available");
+        var socketPath = dir.resolve("provider.sock");
+        // Stale socket from a previous run
+        try (var stale = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            stale.bind(UnixDomainSocketAddress.of(socketPath));
+        }
+        assertTrue(Files.exists(socketPath));
+        var transport = start(ProviderServerOptions.builder()
+                .transport(ProviderServerOptions.Transport.UNIX)
+                .socketPath(socketPath)
+                .build());
+        var channel = NettyChannelBuilder.forAddress(new DomainSocketAddress(socketPath.toString()))
+                .channelType(EpollDomainSocketChannel.class)
+                .eventLoopGroup(transport.getWorkerGroup())
+                .usePlaintext()
+                .build();
+
+        assertEquals("unix|" + socketPath, transport.getHandshakeAddress());
+        assertHealthy(channel, transport);
+        assertFalse(Files.exists(socketPath));
+    }
+
+    @Test
+    @DisplayName("should refuse to replace a socket path that is not a socket")
+    void shouldNotDeleteRegularFileAtSocketPath(@TempDir Path dir) throws Exception {
+        assumeTrue(Epoll.isAvailable(), "native epoll transport is not available");
+        var file = Files.writeString(dir.resolve("provider.sock"), "user data");
+        var options = ProviderServerOptions.builder()
+                .transport(ProviderServerOptions.Transport.UNIX)
+                .socketPath(file)
+                .build();
+
+        assertThrows(IOException.class, () -> start(options));
+        assertThrows(IOException.class, () -> ServerTransport.deleteSocket(dir));
+        assertEquals("user data", Files.readString(file));
+        ServerTransport.deleteSocket(dir.resolve("missing.sock"));
+    }
+
+    @Test
+    @DisplayName("should read options from KITE_PLUGIN environment variables")
+    void shouldReadOptionsFromEnvironment() {
+        var options = ProviderServerOptions.fromEnvironment(Map.of(
+                "KITE_PLUGIN_TRANSPORT", "unix",
+                "KITE_PLUGIN_WORKER_THREADS", "4",
+                "KITE_PLUGIN_MAX_INBOUND_MESSAGE_SIZE", "67108864",
+                "KITE_PLUGIN_KEEPALIVE_TIME", "30000",
+                "KITE_PLUGIN_FLOW_CONTROL_WINDOW", "not a number",
+                "KITE_PLUGIN_BOSS_THREADS", "0",
+                "KITE_PLUGIN_MAX_ATTEMPTS", "-1"));
+
+        assertEquals(ProviderServerOptions.Transport.UNIX, options.getTransport());
+        assertEquals(4, options.getWorkerThreads());
+        assertEquals(64 * 1024 * 1024, options.getMaxInboundMessageSize());
+        assertEquals(Duration.ofSeconds(30), options.getKeepAliveTime());
+        assertEquals(0, options.getFlowControlWindow());
+        assertEquals(1, options.getBossThreads());
+        assertEquals(RetryEngine.DEFAULT_MAX_ATTEMPTS, options.getMaxAttempts());
+        assertEquals(0, ProviderServerOptions.fromEnvironment(Map.of("KITE_PLUGIN_FLOW_CONTROL_WINDOW", "1024"))
+                .getFlowControlWindow());
+        assertEquals(4 * 1024 * 1024, ProviderServerOptions.fromEnvironment(Map.of("KITE_PLUGIN_FLOW_CONTROL_WINDOW", "4194304"))
+                .getFlowControlWindow());
+        assertEquals(ProviderServerOptions.DEFAULT_IDLE_TIMEOUT_MS, options.getIdleTimeoutMs());
+    }
+
+    private static ServerTransport start(ProviderServerOptions options) throws Exception {
+        return ServerTransport.start(options, "test",
+                new ProviderServiceImpl(new TestFixtures.TestProvider()),
+                Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    private static void assertHealthy(ManagedChannel channel, ServerTransport transport) throws Exception {
+        try {
+            var response = ProviderGrpc.newBlockingStub(channel).healthCheck(HealthCheck.Request.getDefaultInstance());
+
+            assertTrue(response.getHealthy());
+        } finally {
+            channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+            transport.getServer().shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+            transport.close();
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package cloud.kitelang.provider;
+
+import cloud.kitelang.proto.v1.ConfigureProvider;
+import cloud.kitelang.proto.v1.CreateResource;
+import cloud.kitelang.proto.v1.HealthCheck;
+import cloud.kitelang.proto.v1.ProviderGrpc;
+import cloud.kitelang.proto.v1.StopProvider;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.stub.MetadataUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for pool mode: several engine sessions served by one provider process.
+ */
+class ProviderSessionTest {
+
+    private final ResourcePayloadCodec codec = new ResourcePayloadCodec();
+    private final List<String> closedSessions = new CopyOnWriteArrayList<>();
+    private final List<Object> sharedConfigurations = new CopyOnWriteArrayList<>();
+    private final RegionalBucketHandler handler = new RegionalBucketHandler();
+    private KiteProvider provider;
+    private ProviderServiceImpl service;
+    private ServerTransport transport;
+    private ManagedChannel first;
+    private ManagedChannel second;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        provider = new TestFixtures.TestProvider(handler) {
+            @Override
+            public void configure(Object configuration) {
+                sharedConfigurations.add(configuration);
+            }
+
+            @Override
+            public void closeSession(ProviderSession session) {
+                closedSessions.add(session.getId());
+            }
+        };
+        service = new ProviderServiceImpl(provider);
+        transport = ServerTransport.start(ProviderServerOptions.builder()
+                        .nativeTransport(ProviderServerOptions.NativeTransport.NIO)
+                        .workerThreads(1)
+                        .pool(true)
+                        .build(),
+                "test", service, Executors.newVirtualThreadPerTaskExecutor());
+        first = channel();
+        second = channel();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        first.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        second.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        transport.getServer().shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        transport.close();
+    }
+
+    @Test
+    @DisplayName("should keep the configuration of each connection's session apart")
+    void shouldIsolateSessionConfiguration() throws Exception {
+        configure(first, "us-east-1");
+        configure(second, "eu-west-1");
+
+        assertEquals("us-east-1", create(first));
+        assertEquals("eu-west-1", create(second));
+        assertEquals(2, service.getSessions().size());
+        assertEquals(List.of(), sharedConfigurations);
+    }
+
+    @Test
+    @DisplayName("should apply rate limit overrides to the configuring session only")
+    void shouldScopeRateLimitsToSession() throws Exception {
+        configure(first, Map.of("region", "us-east-1", RateLimiterRegistry.CONFIG_KEY, Map.of("ec2", 5)));
+        configure(second, Map.of("region", "eu-west-1", RateLimiterRegistry.CONFIG_KEY, Map.of("ec2", 50)));
+
+        var rates = service.getSessions().stream()
+                .map(session -> session.getRateLimiters().get("ec2", null, 20, 40).snapshot().permitsPerSecond())
+                .toList();
+
+        assertEquals(List.of(5.0, 50.0), rates);
+        assertEquals(20.0, provider.getRateLimiters().get("ec2", null, 20, 40).snapshot().permitsPerSecond());
+    }
+
+    @Test
+    @DisplayName("should let the session's calls in flight finish before StopProvider ends it")
+    void shouldDrainSessionBeforeStop() throws Exception {
+        configure(first, "us-east-1");
+        var slow = ProviderGrpc.newFutureStub(first).createResource(createRequest("slow"));
+        assertTrue(handler.started.await(5, TimeUnit.SECONDS));
+
+        var stop = ProviderGrpc.newFutureStub(first).stopProvider(StopProvider.Request.getDefaultInstance());
+        Thread.sleep(100);
+        assertFalse(stop.isDone());
+        assertTrue(closedSessions.isEmpty());
+
+        handler.release.complete(null);
+
+        stop.get(5, TimeUnit.SECONDS);
+        assertEquals("us-east-1", codec.decode(slow.get(5, TimeUnit.SECONDS).getNewState(), TestFixtures.Bucket.class).name());
+        assertEquals(1, closedSessions.size());
+    }
+
+    @Test
+    @DisplayName("should end sessions named by header when their connection closes")
+    void shouldEndNamedSessionsWithConnection() throws Exception {
+        var headers = new Metadata();
+        headers.put(Metadata.Key.of(ProviderSession.SESSION_ID_HEADER, Metadata.ASCII_STRING_MARSHALLER), "run-1");
+        ProviderGrpc.newBlockingStub(first)
+                .withInterceptors(MetadataUtils.newAttachHeadersInterceptor(headers))
+                .healthCheck(HealthCheck.Request.getDefaultInstance());
+        assertEquals(List.of("run-1"), service.getSessions().stream().map(ProviderSession::getId).toList());
+
+        first.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!closedSessions.contains("run-1") && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(List.of("run-1"), closedSessions);
+        assertTrue(service.getSessions().isEmpty());
+    }
+
+    @Test
+    @DisplayName("should end only the calling session on StopProvider")
+    void shouldStopOnlyCallingSession() throws Exception {
+        configure(first, "us-east-1");
+        configure(second, "eu-west-1");
+
+        ProviderGrpc.newBlockingStub(first).stopProvider(StopProvider.Request.getDefaultInstance());
+
+        assertFalse(service.isDraining());
+        assertEquals(1, service.getSessions().size());
+        assertEquals(1, closedSessions.size());
+        assertTrue(ProviderGrpc.newBlockingStub(second).healthCheck(HealthCheck.Request.getDefaultInstance()).getHealthy());
+        assertEquals("eu-west-1", create(second));
+    }
+
+    private ManagedChannel channel() {
+        return NettyChannelBuilder.forAddress("localhost", transport.getServer().getPort())
+                .usePlaintext()
+                .build();
+    }
+
+    private void configure(ManagedChannel channel, String region) throws Exception {
+        configure(channel, Map.of("region", region));
+    }
+
+    private void configure(ManagedChannel channel, Map<String, Object> config) throws Exception {
+        ProviderGrpc.newBlockingStub(channel).configureProvider(ConfigureProvider.Request.newBuilder()
+                .setConfig(codec.encode(config))
+                .build());
+    }
+
+    private String create(ManagedChannel channel) throws Exception {
+        var response = ProviderGrpc.newBlockingStub(channel).createResource(createRequest("b"));
+        return codec.decode(response.getNewState(), TestFixtures.Bucket.class).name();
+    }
+
+    private CreateResource.Request createRequest(String name) throws Exception {
+        return CreateResource.Request.newBuilder()
+                .setTypeName("Bucket")
+                .setConfig(codec.encode(new TestFixtures.Bucket(name)))
+                .build();
+    }
+
+    /**
+     * Names each bucket after the region of the session that created it.
+     * Creating a bucket named "slow" waits for {@link #release}.
+     */
+    static class RegionalBucketHandler extends TestFixtures.BucketHandler {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CompletableFuture<Void> release = new CompletableFuture<>();
+
+        @Override
+        public TestFixtures.Bucket create(TestFixtures.Bucket resource) {
+            if (resource.name().equals("slow")) {
+                started.countDown();
+                release.join();
+            }
+            var config = (Map<?, ?>) ProviderSession.current().getConfiguration();
+            return new TestFixtures.Bucket(String.valueOf(config.get("region")));
+        }
+    }
+}
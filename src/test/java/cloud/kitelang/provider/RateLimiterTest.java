@@ -0,0 +1,114 @@
+package cloud.kitelang.provider;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link RateLimiter} and {@link RateLimiterRegistry}.
+ */
+class RateLimiterTest {
+
+    @Test
+    @DisplayName("should allow a burst and then refuse until tokens refill")
+    void shouldAllowBurstThenRefuse() {
+        var limiter = new RateLimiter("ec2", 1, 3);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        assertEquals(3, limiter.snapshot().acquired());
+    }
+
+    @Test
+    @DisplayName("should wait for the next token and record the wait")
+    void shouldWaitForNextToken() throws Exception {
+        var limiter = new RateLimiter("ec2", 20, 1);
+
+        assertEquals(Duration.ZERO, limiter.acquire());
+        long start = System.nanoTime();
+        var waited = limiter.acquire();
+        long elapsed = System.nanoTime() - start;
+
+        assertTrue(waited.toMillis() > 30, "waited " + waited);
+        assertTrue(elapsed >= waited.toNanos() - 1_000_000);
+        var snapshot = limiter.snapshot();
+        assertEquals(2, snapshot.acquired());
+        assertEquals(1, snapshot.waited());
+        assertEquals(waited, snapshot.totalWait());
+    }
+
+    @Test
+    @DisplayName("should not limit when the rate is not positive")
+    void shouldNotLimitWithoutRate() {
+        var limiter = new RateLimiter("s3", 0, 1);
+
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+    }
+
+    @Test
+    @DisplayName("should share one limiter per service and region")
+    void shouldShareLimiterPerServiceAndRegion() {
+        var registry = new RateLimiterRegistry();
+
+        var first = registry.get("ec2", "us-east-1", 10, 10);
+        var second = registry.get("ec2", "us-east-1", 99, 99);
+
+        assertSame(first, second);
+        assertNotSame(first, registry.get("ec2", "eu-west-1", 10, 10));
+        assertEquals("ec2:us-east-1", first.getKey());
+        assertEquals(10, first.snapshot().permitsPerSecond());
+    }
+
+    @Test
+    @DisplayName("should apply overrides from the provider configuration")
+    void shouldApplyConfiguredOverrides() {
+        var registry = new RateLimiterRegistry();
+        var existing = registry.get("ec2", "us-east-1", 10, 10);
+
+        registry.configure(Map.of(RateLimiterRegistry.CONFIG_KEY, Map.of(
+                "ec2", Map.of("rate", 20, "burst", 40),
+                "ec2:us-east-1", Map.of("rate", 50),
+                "route53", 5)));
+
+        assertEquals(50, existing.snapshot().permitsPerSecond());
+        assertEquals(50, existing.snapshot().burst());
+        var other = registry.get("ec2", "eu-west-1", 10, 10).snapshot();
+        assertEquals(20, other.permitsPerSecond());
+        assertEquals(40, other.burst());
+        assertEquals(5, registry.get("route53", null, 1, 1).snapshot().permitsPerSecond());
+    }
+
+    @Test
+    @DisplayName("should ignore configurations without rate limits")
+    void shouldIgnoreConfigurationWithoutRateLimits() {
+        var registry = new RateLimiterRegistry();
+        var limiter = registry.get("ec2", null, 10, 10);
+
+        registry.configure(Map.of("region", "us-east-1"));
+        registry.configure("not a map");
+
+        assertEquals(10, limiter.snapshot().permitsPerSecond());
+    }
+
+    @Test
+    @DisplayName("should give each provider its own registry unless one is injected")
+    void shouldScopeRegistryToProvider() {
+        var first = new TestFixtures.TestProvider();
+        var second = new TestFixtures.TestProvider();
+
+        assertNotSame(first.getRateLimiters(), second.getRateLimiters());
+
+        var shared = new RateLimiterRegistry();
+        first.setRateLimiters(shared);
+        second.setRateLimiters(shared);
+        assertSame(first.getRateLimiters().get("ec2", null, 20, 40), second.getRateLimiters().get("ec2", null, 20, 40));
+    }
+}
@@ -1,10 +1,21 @@
 package cloud.kitelang.provider;
 
+import cloud.kitelang.proto.v1.ResourcePayload;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.msgpack.jackson.dataformat.MessagePackMapper;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -58,6 +69,137 @@ class ResourcePayloadSerializationTest {
         assertEquals(0, deserialized.count());
     }
 
+    @Test
+    void codecRoundTripThroughPayload() throws Exception {
+        var codec = new ResourcePayloadCodec(msgpackMapper);
+        var original = new TestResource("test-id", "Test Name", 42);
+
+        ResourcePayload payload = codec.encode(original);
+        var decoded = codec.decode(payload, TestResource.class);
+
+        assertEquals(original, decoded);
+    }
+
+    @Test
+    void codecRoundTripLargePayload() throws Exception {
+        var codec = new ResourcePayloadCodec(msgpackMapper);
+        Map<String, String> tags = new HashMap<>();
+        for (int i = 0; i < 50_000; i++) {
+            tags.put("key-" + i, "value-" + i);
+        }
+
+        ResourcePayload payload = codec.encode(tags);
+        var decoded = codec.decode(payload, Map.class);
+
+        assertTrue(payload.getMsgpack().size() > 1024 * 1024);
+        assertEquals(tags, decoded);
+    }
+
+    @Test
+    void codecDecodesEmptyPayloadToNull() throws Exception {
+        var codec = new ResourcePayloadCodec(msgpackMapper);
+
+        assertNull(codec.decode(ResourcePayload.getDefaultInstance(), TestResource.class));
+        assertNull(codec.decode(null, TestResource.class));
+    }
+
+    @Test
+    void codecEncodesNullToDefaultInstance() throws Exception {
+        var codec = new ResourcePayloadCodec(msgpackMapper);
+
+        assertSame(ResourcePayload.getDefaultInstance(), codec.encode(null));
+    }
+
+    @Test
+    void codecBuildsReaderAndWriterOncePerClass() throws Exception {
+        var mapper = new CountingMapper();
+        var codec = new ResourcePayloadCodec(mapper);
+        var original = new TestResource("test-id", "Test Name", 42);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(original, codec.decode(codec.encode(original), TestResource.class));
+        }
+
+        assertEquals(1, mapper.readers.get());
+        assertEquals(1, mapper.writers.get());
+    }
+
+    @Test
+    void codecRegisterBuildsReaderAndWriterAheadOfUse() throws Exception {
+        var mapper = new CountingMapper();
+        var codec = new ResourcePayloadCodec(mapper);
+
+        codec.register(TestResource.class);
+        assertEquals(1, mapper.readers.get());
+        assertEquals(1, mapper.writers.get());
+
+        var original = new TestResource("test-id", "Test Name", 42);
+        assertEquals(original, codec.decode(codec.encode(original), TestResource.class));
+        assertEquals(1, mapper.readers.get());
+        assertEquals(1, mapper.writers.get());
+    }
+
+    @Test
+    void codecKeepsSeparateReadersPerClass() throws Exception {
+        var mapper = new CountingMapper();
+        var codec = new ResourcePayloadCodec(mapper);
+        var resource = new TestResource("test-id", "Test Name", 42);
+        var tags = Map.of("env", "prod");
+
+        var resourcePayload = codec.encode(resource);
+        var tagsPayload = codec.encode(tags);
+
+        assertEquals(resource, codec.decode(resourcePayload, TestResource.class));
+        assertEquals(tags, codec.decode(tagsPayload, Map.class));
+        assertEquals(Map.of("id", "test-id", "name", "Test Name", "count", 42), codec.decode(resourcePayload, Map.class));
+        assertEquals(2, mapper.readers.get());
+    }
+
+    @Test
+    void codecBuildsReaderOnceUnderConcurrentFirstUse() throws Exception {
+        var mapper = new CountingMapper();
+        var codec = new ResourcePayloadCodec(mapper);
+        var original = new TestResource("test-id", "Test Name", 42);
+        var payload = new ResourcePayloadCodec(msgpackMapper).encode(original);
+        var start = new CountDownLatch(1);
+
+        var decoded = new ArrayList<Future<TestResource>>();
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 16; i++) {
+                decoded.add(executor.submit(() -> {
+                    start.await();
+                    return codec.decode(payload, TestResource.class);
+                }));
+            }
+            start.countDown();
+        }
+
+        for (var result : decoded) {
+            assertEquals(original, result.get());
+        }
+        assertEquals(1, mapper.readers.get());
+    }
+
+    /**
+     * Counts reader and writer construction, to observe the codec's cache.
+     */
+    static class CountingMapper extends MessagePackMapper {
+        final AtomicInteger readers = new AtomicInteger();
+        final AtomicInteger writers = new AtomicInteger();
+
+        @Override
+        public ObjectReader readerFor(Class<?> type) {
+            readers.incrementAndGet();
+            return super.readerFor(type);
+        }
+
+        @Override
+        public ObjectWriter writerFor(Class<?> type) {
+            writers.incrementAndGet();
+            return super.writerFor(type);
+        }
+    }
+
     /**
      * Simple test resource record.
      */
@@ -0,0 +1,159 @@
+package cloud.kitelang.provider;
+
+import cloud.kitelang.provider.ExtractErrorMessageTest.FakeAwsException;
+import cloud.kitelang.provider.RetryClassifier.Category;
+import cloud.kitelang.provider.RetryEngine.Operation;
+import io.grpc.Context;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link RetryEngine} and {@link RetryClassifier}.
+ */
+class RetryEngineTest {
+
+    private final RetryEngine engine = new RetryEngine(4, Duration.ofMillis(1), Duration.ofMillis(5),
+            Duration.ofSeconds(30), RetryEngine.DEFAULT_BUDGET);
+
+    @Test
+    @DisplayName("should classify throttling, server errors and not found from error details")
+    void shouldClassifyFromErrorDetails() {
+        assertEquals(Category.THROTTLING, RetryClassifier.classify(null,
+                new FakeAwsException("ThrottlingException", "Rate exceeded", 400)));
+        assertEquals(Category.THROTTLING, RetryClassifier.classify(null, new FakeAwsException("Foo", "slow", 429)));
+        assertEquals(Category.TRANSIENT, RetryClassifier.classify(null, new FakeAwsException("InternalError", null, 500)));
+        assertEquals(Category.TRANSIENT, RetryClassifier.classify(null,
+                new FakeAwsException("TransactionInProgressException", "Transaction is in progress", 400)));
+        assertEquals(Category.NOT_FOUND, RetryClassifier.classify(null,
+                new FakeAwsException("InvalidVpcID.NotFound", "The vpc does not exist", 400)));
+        assertEquals(Category.PERMANENT, RetryClassifier.classify(null, new FakeAwsException("AccessDenied", null, 403)));
+        assertEquals(Category.PERMANENT, RetryClassifier.classify(null, new IllegalStateException("boom")));
+        assertEquals(Category.PERMANENT, RetryClassifier.classify(null, new IllegalStateException("Disk slowdown detected")));
+    }
+
+    @Test
+    @DisplayName("should look through wrapping exceptions and apply handler rules first")
+    void shouldClassifyCauseAndHandlerRules() {
+        var wrapped = new ProviderException("Create failed", new FakeAwsException("SlowDown", null, 503));
+        RetryClassifier rules = (error, details) -> details != null && details.hasErrorCode("DependencyViolation")
+                ? Category.TRANSIENT : null;
+
+        assertEquals(Category.THROTTLING, RetryClassifier.classify(null, wrapped));
+        assertEquals(Category.TRANSIENT, RetryClassifier.classify(rules,
+                new FakeAwsException("DependencyViolation", "in use", 400)));
+        assertEquals(Category.THROTTLING, RetryClassifier.classify(rules, wrapped));
+    }
+
+    @Test
+    @DisplayName("should retry throttled calls until they succeed")
+    void shouldRetryThrottledCalls() {
+        var calls = new AtomicInteger();
+
+        var result = engine.execute(Operation.CREATE, "Bucket", null, () -> calls.incrementAndGet() < 3
+                ? failed(new FakeAwsException("Throttling", "Rate exceeded", 400))
+                : CompletableFuture.completedFuture("ok"));
+
+        assertEquals("ok", result.toCompletableFuture().join());
+        assertEquals(3, calls.get());
+        var snapshot = engine.snapshots().get(0);
+        assertEquals("create Bucket", snapshot.key());
+        assertEquals(3, snapshot.attempts());
+        assertEquals(2, snapshot.retries());
+        assertEquals(1, snapshot.recovered());
+    }
+
+    @Test
+    @DisplayName("should not retry server errors on create")
+    void shouldNotRetryServerErrorsOnCreate() {
+        var calls = new AtomicInteger();
+        var error = new FakeAwsException("InternalError", null, 500);
+
+        var create = engine.execute(Operation.CREATE, "Bucket", null, () -> {
+            calls.incrementAndGet();
+            return failed(error);
+        });
+        assertThrows(CompletionException.class, () -> create.toCompletableFuture().join());
+        assertEquals(1, calls.get());
+
+        var read = engine.execute(Operation.READ, "Bucket", null, () -> {
+            calls.incrementAndGet();
+            return failed(error);
+        });
+        assertThrows(CompletionException.class, () -> read.toCompletableFuture().join());
+        assertEquals(5, calls.get());
+        assertEquals(1, engine.snapshots().stream().filter(s -> s.key().equals("read Bucket")).findFirst().orElseThrow().exhausted());
+    }
+
+    @Test
+    @DisplayName("should retry not found only shortly after a create of the same type")
+    void shouldRetryNotFoundAfterCreate() {
+        var notFound = new FakeAwsException("NoSuchBucket", null, 404);
+
+        assertFalse(engine.isRetryable(Operation.READ, "Bucket", Category.NOT_FOUND));
+        engine.execute(Operation.CREATE, "Bucket", null, () -> CompletableFuture.completedFuture("ok"))
+                .toCompletableFuture().join();
+        assertTrue(engine.isRetryable(Operation.READ, "Bucket", RetryClassifier.classify(null, notFound)));
+        assertFalse(engine.isRetryable(Operation.READ, "Queue", Category.NOT_FOUND));
+        assertFalse(engine.isRetryable(Operation.CREATE, "Bucket", Category.NOT_FOUND));
+    }
+
+    @Test
+    @DisplayName("should stop retrying when the retry budget is exhausted")
+    void shouldStopWhenBudgetExhausted() {
+        var limited = new RetryEngine(10, Duration.ofMillis(1), Duration.ofMillis(2), Duration.ZERO,
+                2 * RetryEngine.RETRY_COST);
+        var calls = new AtomicInteger();
+
+        var result = limited.execute(Operation.READ, "Bucket", null, () -> {
+            calls.incrementAndGet();
+            return failed(new FakeAwsException("Throttling", null, 400));
+        });
+
+        assertThrows(CompletionException.class, () -> result.toCompletableFuture().join());
+        assertEquals(3, calls.get());
+        assertEquals(0, limited.getRemainingBudget());
+        assertEquals(1, limited.snapshots().get(0).budgetRejected());
+    }
+
+    @Test
+    @DisplayName("should not retry operations the handler did not opt into")
+    void shouldNotRetryWithoutOptIn() {
+        var calls = new AtomicInteger();
+
+        var result = engine.execute(Operation.UPDATE, "Bucket", null, false, () -> {
+            calls.incrementAndGet();
+            return failed(new FakeAwsException("Throttling", null, 400));
+        });
+
+        assertThrows(CompletionException.class, () -> result.toCompletableFuture().join());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    @DisplayName("should stop retrying once the call is cancelled")
+    void shouldStopRetryingCancelledCalls() throws Exception {
+        var calls = new AtomicInteger();
+        var context = Context.current().withCancellation();
+
+        var result = context.call(() -> engine.execute(Operation.READ, "Bucket", null, () -> {
+            calls.incrementAndGet();
+            context.cancel(null);
+            return failed(new FakeAwsException("Throttling", null, 400));
+        }));
+
+        assertThrows(CompletionException.class, () -> result.toCompletableFuture().join());
+        assertEquals(1, calls.get());
+    }
+
+    private static CompletionStage<String> failed(Exception e) {
+        return CompletableFuture.failedFuture(e);
+    }
+}
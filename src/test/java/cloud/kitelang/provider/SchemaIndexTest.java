@@ -0,0 +1,235 @@
+package cloud.kitelang.provider;
+
+import cloud.kitelang.api.annotations.TypeName;
+import cloud.kitelang.proto.v1.GetProviderSchema;
+import cloud.kitelang.proto.v1.Schema;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.tools.ToolProvider;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link SchemaIndex}.
+ */
+class SchemaIndexTest {
+
+    private final KiteProvider provider = new TestFixtures.TestProvider(new TestFixtures.BucketHandler());
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("should load the written index as the reflected schema")
+    void shouldRoundTripIndex() throws Exception {
+        SchemaIndex.write(provider, dir);
+
+        try (var loader = loader()) {
+            var loaded = SchemaIndex.load(loader, provider);
+
+            assertEquals(SchemaIndex.build(provider), loaded);
+            assertEquals("name", loaded.getResourceSchemasOrThrow("Bucket").getBlock().getProperties(0).getName());
+        }
+    }
+
+    @Test
+    @DisplayName("should ignore an index built for other types, another provider version or without a fingerprint")
+    void shouldIgnoreStaleIndex() throws Exception {
+        SchemaIndex.write(provider, dir);
+
+        try (var loader = loader()) {
+            var moreTypes = new TestFixtures.TestProvider(
+                    new TestFixtures.BucketHandler(), new TestFixtures.QueueHandler());
+            assertNull(SchemaIndex.load(loader, moreTypes));
+            assertNull(SchemaIndex.load(loader, new KiteProvider("test", "2.0.0", false) {
+                {
+                    registerResource(new TestFixtures.BucketHandler());
+                }
+            }));
+            Files.write(dir.resolve(SchemaIndex.PATH), SchemaIndex.build(provider).toByteArray());
+            assertNull(SchemaIndex.load(loader, provider));
+        }
+        assertNull(SchemaIndex.load(getClass().getClassLoader(), provider));
+    }
+
+    @Test
+    @DisplayName("should ignore an index whose resource type schema changed under the same name and version")
+    void shouldIgnoreIndexWithChangedSchema() throws Exception {
+        SchemaIndex.write(provider, dir);
+
+        try (var loader = loader()) {
+            assertNull(SchemaIndex.load(loader, new TestFixtures.TestProvider(new RegionalBucketHandler())));
+        }
+    }
+
+    @Test
+    @DisplayName("should fingerprint manifest entries by their schema digest without creating the handlers")
+    void shouldFingerprintManifestDigests() throws Exception {
+        var created = new AtomicInteger();
+        var manifest = dir.resolve("META-INF/kite/resource-types.txt");
+        Files.createDirectories(manifest.getParent());
+        var thread = Thread.currentThread();
+        var original = thread.getContextClassLoader();
+        try (var loader = loader()) {
+            thread.setContextClassLoader(loader);
+            Files.writeString(manifest, "Bucket=%s 0a1b\n".formatted(CountingBucketHandler.class.getName()));
+            var first = SchemaIndex.fingerprint(new TestFixtures.TestProvider() {
+                {
+                    discoverResourcesFromManifest();
+                }
+            });
+            Files.writeString(manifest, "Bucket=%s 0a1c\n".formatted(CountingBucketHandler.class.getName()));
+            var second = SchemaIndex.fingerprint(new TestFixtures.TestProvider() {
+                {
+                    discoverResourcesFromManifest();
+                }
+            });
+
+            assertNotEquals(first, second);
+            assertEquals(0, CountingBucketHandler.created.get());
+        } finally {
+            thread.setContextClassLoader(original);
+        }
+    }
+
+    @Test
+    @DisplayName("should write a manifest schema digest that changes with the resource class's fields")
+    void shouldDigestResourceFieldsAtCompileTime() throws Exception {
+        var first = compileAndReadManifest("String name;");
+        var second = compileAndReadManifest("String name; Integer size;");
+
+        assertTrue(first.startsWith("Bucket=example.BucketHandler "), first);
+        assertEquals(first, compileAndReadManifest("String name;"));
+        assertNotEquals(first, second);
+    }
+
+    @Test
+    @DisplayName("should serve the index instead of reflecting on the handlers")
+    void shouldServeIndex() throws Exception {
+        var index = GetProviderSchema.Response.newBuilder()
+                .putResourceSchemas("Bucket", Schema.newBuilder().setVersion(7).build())
+                .build();
+        var file = dir.resolve(SchemaIndex.PATH);
+        Files.createDirectories(file.getParent());
+        try (var out = Files.newOutputStream(file)) {
+            out.write((SchemaIndex.fingerprint(provider) + "\n").getBytes(StandardCharsets.UTF_8));
+            index.writeTo(out);
+        }
+
+        var thread = Thread.currentThread();
+        var original = thread.getContextClassLoader();
+        try (var loader = loader()) {
+            thread.setContextClassLoader(loader);
+            var service = new ProviderServiceImpl(provider);
+            var observer = new TestFixtures.RecordingObserver<GetProviderSchema.Response>();
+
+            service.getProviderSchema(GetProviderSchema.Request.getDefaultInstance(), observer);
+
+            assertEquals(index, observer.await().get(0));
+        } finally {
+            thread.setContextClassLoader(original);
+        }
+    }
+
+    @Test
+    @DisplayName("should reuse the schema response until a resource type is registered")
+    void shouldMemoizeSchemaResponse() {
+        var testProvider = new TestFixtures.TestProvider(new TestFixtures.BucketHandler());
+        var service = new ProviderServiceImpl(testProvider);
+
+        var first = service.getSchemaResponse();
+        assertSame(first, service.getSchemaResponse());
+
+        testProvider.registerResource(new TestFixtures.QueueHandler());
+        var second = service.getSchemaResponse();
+
+        assertNotSame(first, second);
+        assertEquals(Set.of("Bucket", "Queue"), second.getResourceSchemasMap().keySet());
+        assertSame(second, service.getSchemaResponse());
+    }
+
+    /**
+     * Compile a resource class with the given fields and its handler with {@link ResourceTypeProcessor},
+     * and return the manifest line.
+     */
+    private String compileAndReadManifest(String fields) throws Exception {
+        var sources = dir.resolve("src/example");
+        var output = Files.createTempDirectory(dir, "classes");
+        Files.createDirectories(sources);
+        Files.writeString(sources.resolve("Bucket.java"), """
+                package example;
+                @cloud.kitelang.api.annotations.TypeName("Bucket")
+                public class Bucket { %s }
+                """.formatted(fields));
+        Files.writeString(sources.resolve("BucketHandler.java"), """
+                package example;
+                public class BucketHandler extends cloud.kitelang.provider.ResourceTypeHandler<Bucket> {
+                    public Bucket create(Bucket resource) { return resource; }
+                    public Bucket read(Bucket resource) { return resource; }
+                    public Bucket update(Bucket resource) { return resource; }
+                    public boolean delete(Bucket resource) { return true; }
+                }
+                """);
+        var classpath = new StringJoiner(File.pathSeparator);
+        for (var type : List.of(ResourceTypeHandler.class, TypeName.class, GetProviderSchema.class)) {
+            classpath.add(Path.of(type.getProtectionDomain().getCodeSource().getLocation().toURI()).toString());
+        }
+        int status = ToolProvider.getSystemJavaCompiler().run(null, null, null,
+                "-classpath", classpath.toString(),
+                "-processor", ResourceTypeProcessor.class.getName(),
+                "-d", output.toString(),
+                sources.resolve("Bucket.java").toString(), sources.resolve("BucketHandler.java").toString());
+        assertEquals(0, status);
+        var lines = Files.readAllLines(output.resolve("META-INF/kite/resource-types.txt"));
+        return lines.get(lines.size() - 1);
+    }
+
+    @TypeName("Bucket")
+    public record RegionalBucket(String name, String region) {}
+
+    static class RegionalBucketHandler extends ResourceTypeHandler<RegionalBucket> {
+        @Override
+        public RegionalBucket create(RegionalBucket resource) {
+            return resource;
+        }
+
+        @Override
+        public RegionalBucket read(RegionalBucket resource) {
+            return resource;
+        }
+
+        @Override
+        public RegionalBucket update(RegionalBucket resource) {
+            return resource;
+        }
+
+        @Override
+        public boolean delete(RegionalBucket resource) {
+            return true;
+        }
+    }
+
+    public static class CountingBucketHandler extends TestFixtures.BucketHandler {
+        static final AtomicInteger created = new AtomicInteger();
+
+        public CountingBucketHandler() {
+            created.incrementAndGet();
+        }
+    }
+
+    private URLClassLoader loader() throws Exception {
+        return new URLClassLoader(new URL[]{dir.toUri().toURL()}, getClass().getClassLoader());
+    }
+}
@@ -0,0 +1,186 @@
+package cloud.kitelang.provider;
+
+import cloud.kitelang.api.annotations.TypeName;
+import io.grpc.stub.StreamObserver;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Providers, resource types and observers shared by the tests.
+ */
+final class TestFixtures {
+
+    private TestFixtures() {
+    }
+
+    @TypeName("Bucket")
+    public record Bucket(String name) {}
+
+    @TypeName("Queue")
+    public record Queue(String name) {}
+
+    static class TestProvider extends KiteProvider {
+        @SuppressWarnings("deprecation")
+        TestProvider(ResourceTypeHandler<?>... handlers) {
+            super("test", "1.0.0", false);
+            for (var handler : handlers) {
+                registerResource(handler);
+            }
+        }
+    }
+
+    /**
+     * Overrides planBatch to answer all plans at once.
+     */
+    static class BucketHandler extends ResourceTypeHandler<Bucket> {
+        final AtomicInteger batchCalls = new AtomicInteger();
+
+        @Override
+        public List<BatchResult<Bucket>> planBatch(List<PlanInput<Bucket>> inputs) {
+            batchCalls.incrementAndGet();
+            var results = new ArrayList<BatchResult<Bucket>>();
+            for (var input : inputs) {
+                results.add(BatchResult.success(new Bucket(input.proposedState().name() + "-planned")));
+            }
+            return results;
+        }
+
+        @Override
+        public List<BatchResult<Bucket>> readBatch(Collection<Bucket> resources) {
+            batchCalls.incrementAndGet();
+            return resources.stream().map(BatchResult::success).toList();
+        }
+
+        @Override
+        public Bucket create(Bucket resource) {
+            return resource;
+        }
+
+        @Override
+        public Bucket read(Bucket resource) {
+            return resource;
+        }
+
+        @Override
+        public Bucket update(Bucket resource) {
+            return resource;
+        }
+
+        @Override
+        public boolean delete(Bucket resource) {
+            return true;
+        }
+    }
+
+    /**
+     * Uses the default planBatch, which loops over plan.
+     */
+    static class QueueHandler extends ResourceTypeHandler<Queue> {
+        @Override
+        public Queue plan(Queue priorState, Queue proposedState) {
+            if (proposedState.name().equals("fail")) {
+                throw new IllegalStateException("queue rejected");
+            }
+            return proposedState;
+        }
+
+        @Override
+        public Queue create(Queue resource) {
+            return resource;
+        }
+
+        @Override
+        public Queue read(Queue resource) {
+            return resource.name().equals("gone") ? null : resource;
+        }
+
+        @Override
+        public Queue update(Queue resource) {
+            return resource;
+        }
+
+        @Override
+        public boolean delete(Queue resource) {
+            return true;
+        }
+    }
+
+    @TypeName("Cluster")
+    public record Cluster(String name, String arn) {}
+
+    static class ClusterHandler extends AsyncResourceTypeHandler<Cluster> {
+        final CompletableFuture<Cluster> pending = new CompletableFuture<>();
+
+        @Override
+        public CompletionStage<Cluster> createAsync(Cluster resource) {
+            return pending;
+        }
+
+        @Override
+        public CompletionStage<Cluster> readAsync(Cluster resource) {
+            return CompletableFuture.completedFuture(resource);
+        }
+
+        @Override
+        public CompletionStage<Cluster> updateAsync(Cluster resource) {
+            return CompletableFuture.completedFuture(resource);
+        }
+
+        @Override
+        public CompletionStage<Boolean> deleteAsync(Cluster resource) {
+            return CompletableFuture.completedFuture(true);
+        }
+    }
+
+    /**
+     * Records the responses of a call. Calls may complete on other threads, so tests wait with
+     * {@link #await()} or {@link #awaitError()} and assert on the test thread.
+     */
+    static class RecordingObserver<V> implements StreamObserver<V> {
+        final List<V> values = new CopyOnWriteArrayList<>();
+        private final CompletableFuture<List<V>> done = new CompletableFuture<>();
+
+        @Override
+        public void onNext(V value) {
+            values.add(value);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            done.completeExceptionally(t);
+        }
+
+        @Override
+        public void onCompleted() {
+            done.complete(List.copyOf(values));
+        }
+
+        boolean isDone() {
+            return done.isDone();
+        }
+
+        /**
+         * Wait for the call to complete and return its responses.
+         */
+        List<V> await() throws Exception {
+            return done.get(5, TimeUnit.SECONDS);
+        }
+
+        /**
+         * Wait for the call to fail and return its error.
+         */
+        Throwable awaitError() {
+            return assertThrows(ExecutionException.class, () -> done.get(5, TimeUnit.SECONDS)).getCause();
+        }
+    }
+}
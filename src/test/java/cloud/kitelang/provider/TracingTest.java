@@ -0,0 +1,218 @@
+package cloud.kitelang.provider;
+
+import cloud.kitelang.proto.v1.CreateResource;
+import cloud.kitelang.proto.v1.ProviderGrpc;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.stub.MetadataUtils;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link Tracing}, {@link TraceContext} and the {@link SpanExporter}s.
+ */
+class TracingTest {
+
+    private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+    private static final String PARENT_ID = "00f067aa0ba902b7";
+
+    private final ResourcePayloadCodec codec = new ResourcePayloadCodec();
+
+    @Test
+    @DisplayName("should parse valid traceparent headers and reject malformed ones")
+    void shouldParseTraceparent() {
+        var context = TraceContext.parse("00-" + TRACE_ID + "-" + PARENT_ID + "-01");
+
+        assertEquals(new TraceContext(TRACE_ID, PARENT_ID, true), context);
+        assertEquals("00-" + TRACE_ID + "-" + PARENT_ID + "-01", context.toTraceparent());
+        assertFalse(TraceContext.parse("00-" + TRACE_ID + "-" + PARENT_ID + "-00").sampled());
+        assertNull(TraceContext.parse("00-" + "0".repeat(32) + "-" + PARENT_ID + "-01"));
+        assertNull(TraceContext.parse("00-" + TRACE_ID.toUpperCase() + "-" + PARENT_ID + "-01"));
+        assertNull(TraceContext.parse("ff-" + TRACE_ID + "-" + PARENT_ID + "-01"));
+        assertNull(TraceContext.parse("garbage"));
+    }
+
+    @Test
+    @DisplayName("should trace decode, handler and encode under the call span, with handler spans nested")
+    void shouldTraceCallPhases() {
+        var spans = new RingBufferSpanExporter(64);
+        var service = new ProviderServiceImpl(new TestFixtures.TestProvider(new TracedHandler()));
+        service.getTracer().addExporter(spans);
+
+        create(service);
+
+        var byName = spans.getSpans().stream().collect(Collectors.toMap(Span::getName, span -> span));
+        var call = byName.get("kite.v1.Provider/CreateResource");
+        assertNotNull(call);
+        assertNull(call.getParentSpanId());
+        assertEquals(Span.Kind.SERVER, call.getKind());
+        assertEquals("Bucket", call.getAttributes().get("kite.resource_type"));
+        for (var phase : new String[]{"decode", "handler", "encode"}) {
+            assertEquals(call.getSpanId(), byName.get(phase).getParentSpanId(), phase);
+            assertEquals(call.getTraceId(), byName.get(phase).getTraceId(), phase);
+        }
+        var sdkCall = byName.get("sdk.CreateBucket");
+        assertEquals(byName.get("handler").getSpanId(), sdkCall.getParentSpanId());
+        assertEquals(Span.Kind.CLIENT, sdkCall.getKind());
+        assertTrue(sdkCall.getEndEpochNanos() >= sdkCall.getStartEpochNanos());
+    }
+
+    @Test
+    @DisplayName("should mark the call and handler spans as failed when the handler throws")
+    void shouldRecordHandlerErrors() {
+        var spans = new RingBufferSpanExporter(64);
+        var service = new ProviderServiceImpl(new TestFixtures.TestProvider(new TracedHandler()));
+        service.getTracer().addExporter(spans);
+
+        var observer = new TestFixtures.RecordingObserver<CreateResource.Response>();
+        service.createResource(request("fail"), observer);
+        assertDoesNotThrow(observer::await);
+
+        var byName = spans.getSpans().stream().collect(Collectors.toMap(Span::getName, span -> span));
+        assertEquals(Span.Status.ERROR, byName.get("kite.v1.Provider/CreateResource").getStatus());
+        assertEquals(Span.Status.ERROR, byName.get("handler").getStatus());
+        assertEquals(IllegalStateException.class.getName(), byName.get("sdk.CreateBucket").getAttributes().get("exception.type"));
+    }
+
+    @Test
+    @DisplayName("should record nothing when no exporter is started")
+    void shouldNotTraceWithoutExporter() {
+        var service = new ProviderServiceImpl(new TestFixtures.TestProvider(new TracedHandler()));
+
+        assertFalse(service.getTracer().isEnabled());
+        assertSame(Span.NOOP, Tracing.startSpan("outside"));
+        create(service);
+        assertTrue(service.getMetrics().snapshots().size() > 0);
+    }
+
+    @Test
+    @DisplayName("should continue the caller's trace from the traceparent header and skip unsampled calls")
+    void shouldContinueRemoteTrace() throws Exception {
+        var spans = new RingBufferSpanExporter(64);
+        var service = new ProviderServiceImpl(new TestFixtures.TestProvider(new TracedHandler()));
+        service.getTracer().addExporter(spans);
+        var transport = ServerTransport.start(ProviderServerOptions.builder()
+                        .nativeTransport(ProviderServerOptions.NativeTransport.NIO)
+                        .workerThreads(1)
+                        .build(),
+                "test", service, Executors.newVirtualThreadPerTaskExecutor());
+        var channel = NettyChannelBuilder.forAddress("localhost", transport.getServer().getPort())
+                .usePlaintext()
+                .build();
+        try {
+            call(channel, "00-" + TRACE_ID + "-" + PARENT_ID + "-00");
+            assertTrue(spans.getSpans().isEmpty());
+
+            call(channel, "00-" + TRACE_ID + "-" + PARENT_ID + "-01");
+
+            var trace = spans.getTrace(TRACE_ID);
+            assertEquals(5, trace.size());
+            var call = trace.stream().filter(span -> span.getKind() == Span.Kind.SERVER).findFirst().orElseThrow();
+            assertEquals(PARENT_ID, call.getParentSpanId());
+        } finally {
+            channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+            transport.getServer().shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+            transport.close();
+        }
+    }
+
+    @Test
+    @DisplayName("should append spans to the trace file as OTLP JSON lines")
+    void shouldWriteOtlpFile(@TempDir Path dir) throws Exception {
+        var file = dir.resolve("traces/provider.jsonl");
+        var exporter = new OtlpFileSpanExporter();
+        assertTrue(exporter.start("test", ProviderServerOptions.builder().traceFile(file).build()));
+        var service = new ProviderServiceImpl(new TestFixtures.TestProvider(new TracedHandler()));
+        service.getTracer().addExporter(exporter);
+
+        create(service);
+        exporter.close();
+
+        var otlpSpans = new ArrayList<JsonNode>();
+        for (var line : Files.readAllLines(file)) {
+            var resourceSpans = new ObjectMapper().readTree(line).get("resourceSpans").get(0);
+            assertEquals("service.name", resourceSpans.get("resource").get("attributes").get(0).get("key").asText());
+            resourceSpans.get("scopeSpans").get(0).get("spans").forEach(otlpSpans::add);
+        }
+        assertEquals(5, otlpSpans.size());
+        var callSpan = otlpSpans.getLast();
+        assertEquals("kite.v1.Provider/CreateResource", callSpan.get("name").asText());
+        assertEquals(2, callSpan.get("kind").asInt());
+        assertTrue(callSpan.get("startTimeUnixNano").isTextual());
+        assertFalse(new OtlpFileSpanExporter().start("test", ProviderServerOptions.defaults()));
+    }
+
+    private void call(ManagedChannel channel, String traceparent) {
+        var headers = new Metadata();
+        headers.put(Metadata.Key.of(TraceContext.TRACEPARENT, Metadata.ASCII_STRING_MARSHALLER), traceparent);
+        ProviderGrpc.newBlockingStub(channel)
+                .withInterceptors(MetadataUtils.newAttachHeadersInterceptor(headers))
+                .createResource(request("b"));
+    }
+
+    private void create(ProviderServiceImpl service) {
+        var observer = new TestFixtures.RecordingObserver<CreateResource.Response>();
+        service.createResource(request("b"), observer);
+        assertDoesNotThrow(observer::await);
+    }
+
+    private CreateResource.Request request(String name) {
+        try {
+            return CreateResource.Request.newBuilder()
+                    .setTypeName("Bucket")
+                    .setConfig(codec.encode(new TestFixtures.Bucket(name)))
+                    .build();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Wraps its "SDK call" in a span, as a cloud provider's handler would.
+     */
+    static class TracedHandler extends ResourceTypeHandler<TestFixtures.Bucket> {
+        @Override
+        public TestFixtures.Bucket create(TestFixtures.Bucket resource) {
+            try {
+                return Tracing.inSpan(Tracing.currentSpan().child("sdk.CreateBucket", Span.Kind.CLIENT), () -> {
+                    if (resource.name().equals("fail")) {
+                        throw new IllegalStateException("bucket rejected");
+                    }
+                    return resource;
+                });
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public TestFixtures.Bucket read(TestFixtures.Bucket resource) {
+            return resource;
+        }
+
+        @Override
+        public TestFixtures.Bucket update(TestFixtures.Bucket resource) {
+            return resource;
+        }
+
+        @Override
+        public boolean delete(TestFixtures.Bucket resource) {
+            return true;
+        }
+    }
+}
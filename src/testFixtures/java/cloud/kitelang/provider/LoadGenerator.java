@@ -0,0 +1,377 @@
+package cloud.kitelang.provider;
+
+import cloud.kitelang.proto.v1.CreateResource;
+import cloud.kitelang.proto.v1.DeleteResource;
+import cloud.kitelang.proto.v1.Diagnostic;
+import cloud.kitelang.proto.v1.PlanResourceChange;
+import cloud.kitelang.proto.v1.ProviderGrpc;
+import cloud.kitelang.proto.v1.ReadResource;
+import cloud.kitelang.proto.v1.ResourcePayload;
+import cloud.kitelang.proto.v1.UpdateResource;
+import com.sun.management.GarbageCollectionNotificationInfo;
+import io.grpc.ManagedChannel;
+import io.grpc.ServerInterceptors;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.shaded.io.netty.channel.epoll.EpollDomainSocketChannel;
+import io.grpc.netty.shaded.io.netty.channel.unix.DomainSocketAddress;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Singular;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Drives a mixed workload against a provider and reports throughput, latency percentiles,
+ * allocation and GC pauses. Serves the provider with the production service over the gRPC
+ * in-process transport, or over loopback TCP or a Unix domain socket through the real Netty
+ * server, and calls it from {@code concurrency} virtual threads for {@code warmup + duration}.
+ *
+ * <pre>{@code
+ * var report = LoadGenerator.builder()
+ *         .provider(new AwsProvider())
+ *         .resource("S3Bucket", () -> S3Bucket.builder().name("load-test").build())
+ *         .concurrency(64)
+ *         .duration(Duration.ofSeconds(30))
+ *         .build()
+ *         .run();
+ * System.out.println(report.summary());
+ * }</pre>
+ *
+ * <p>Each type needs a resource state to send, from {@link #getResources()}; types served by a
+ * {@link SyntheticHandler} get one automatically. Handlers run for real, so point them at a
+ * sandbox account or use {@link SyntheticHandler} to stand in for the cloud API.</p>
+ */
+@Getter
+@Builder
+public final class LoadGenerator {
+
+    /**
+     * How the provider is served.
+     */
+    public enum Target {
+        /** gRPC in-process transport: no sockets, so the provider's own costs dominate. */
+        IN_PROCESS,
+        /** The Netty server on loopback TCP, as the engine connects by default. */
+        TCP,
+        /** The Netty server on a Unix domain socket; falls back to TCP without native epoll. */
+        UNIX
+    }
+
+    /**
+     * Provider RPCs in the workload.
+     */
+    public enum Operation {
+        PLAN,
+        READ,
+        CREATE,
+        UPDATE,
+        DELETE
+    }
+
+    /** Mostly plans and reads, like a typical apply of a mostly unchanged stack. */
+    public static final Map<Operation, Integer> DEFAULT_MIX = Map.of(
+            Operation.PLAN, 50, Operation.READ, 40, Operation.CREATE, 5, Operation.UPDATE, 4, Operation.DELETE, 1);
+
+    /** Provider under test. */
+    private final KiteProvider provider;
+
+    @Builder.Default
+    private final Target target = Target.IN_PROCESS;
+
+    /** Server options, for concurrency limits, retries and transport settings. */
+    @Builder.Default
+    private final ProviderServerOptions serverOptions = ProviderServerOptions.defaults();
+
+    /** Concurrent callers. */
+    @Builder.Default
+    private final int concurrency = 16;
+
+    /** Time run before measuring, so the JIT and the handlers' clients warm up. */
+    @Builder.Default
+    private final Duration warmup = Duration.ofSeconds(1);
+
+    /** Time measured. */
+    @Builder.Default
+    private final Duration duration = Duration.ofSeconds(10);
+
+    /** Relative weight of each operation; missing operations are not called. */
+    @Builder.Default
+    private final Map<Operation, Integer> mix = DEFAULT_MIX;
+
+    /** Resource types called, evenly; null for every registered type. */
+    private final List<String> types;
+
+    /** State sent for each resource type. */
+    @Singular
+    private final Map<String, Supplier<?>> resources;
+
+    /**
+     * Run the workload and report on the measured period.
+     */
+    public LoadReport run() throws IOException, InterruptedException {
+        if (provider == null) {
+            throw new IllegalArgumentException("provider is required");
+        }
+        var typeNames = types != null ? types : List.copyOf(provider.getResourceTypeNames());
+        if (typeNames.isEmpty()) {
+            throw new IllegalArgumentException("Provider " + provider.getName() + " has no resource types");
+        }
+        var payloads = payloads(typeNames);
+        var operations = mix.entrySet().stream()
+                .filter(entry -> entry.getValue() > 0)
+                .map(Map.Entry::getKey)
+                .sorted()
+                .toList();
+        if (operations.isEmpty()) {
+            throw new IllegalArgumentException("mix has no operation with a positive weight");
+        }
+        var weights = new int[operations.size()];
+        int total = 0;
+        for (int i = 0; i < weights.length; i++) {
+            total += mix.get(operations.get(i));
+            weights[i] = total;
+        }
+
+        var service = new ProviderServiceImpl(provider, 0,
+                ProviderServer.createConcurrencyLimiters(serverOptions), ProviderServer.createRetryEngine(serverOptions));
+        service.warmUp();
+        var stats = new EnumMap<Operation, Stats>(Operation.class);
+        operations.forEach(operation -> stats.put(operation, new Stats()));
+
+        try (var connection = connect(service)) {
+            var stub = ProviderGrpc.newBlockingStub(connection.channel());
+            long measureStart = System.nanoTime() + warmup.toNanos();
+            long measureEnd = measureStart + duration.toNanos();
+            int totalWeight = total;
+
+            var workers = new ArrayList<Thread>();
+            for (int i = 0; i < concurrency; i++) {
+                workers.add(Thread.ofVirtual().name("load-" + i).start(() -> {
+                    var random = ThreadLocalRandom.current();
+                    while (System.nanoTime() < measureEnd) {
+                        var operation = operations.get(pick(weights, random.nextInt(totalWeight)));
+                        var typeName = typeNames.get(random.nextInt(typeNames.size()));
+                        long start = System.nanoTime();
+                        boolean error;
+                        try {
+                            error = call(stub, operation, typeName, payloads.get(typeName));
+                        } catch (StatusRuntimeException e) {
+                            error = true;
+                        }
+                        if (start >= measureStart) {
+                            stats.get(operation).record(System.nanoTime() - start, error);
+                        }
+                    }
+                }));
+            }
+
+            TimeUnit.NANOSECONDS.sleep(Math.max(0, measureStart - System.nanoTime()));
+            var before = MetricsSnapshot.Jvm.current();
+            try (var pauses = new GcPauses()) {
+                for (var worker : workers) {
+                    worker.join();
+                }
+                var after = MetricsSnapshot.Jvm.current();
+                var elapsed = Duration.ofNanos(System.nanoTime() - measureStart);
+
+                var report = new LinkedHashMap<Operation, LoadReport.OperationStats>();
+                stats.forEach((operation, stat) -> report.put(operation, stat.toStats()));
+                return new LoadReport(elapsed, concurrency, report,
+                        before.allocatedBytes() < 0 ? -1 : after.allocatedBytes() - before.allocatedBytes(),
+                        after.gcCount() - before.gcCount(), after.gcTimeMs() - before.gcTimeMs(), pauses.max());
+            }
+        }
+    }
+
+    private Map<String, ResourcePayload> payloads(List<String> typeNames) throws IOException {
+        var codec = new ResourcePayloadCodec();
+        var payloads = new LinkedHashMap<String, ResourcePayload>();
+        for (var typeName : typeNames) {
+            ResourceTypeHandler<?> handler = provider.getResourceType(typeName);
+            if (handler == null) {
+                throw new IllegalArgumentException("Unknown resource type " + typeName);
+            }
+            Object state;
+            if (resources.containsKey(typeName)) {
+                state = resources.get(typeName).get();
+            } else if (handler.getResourceClass() == SyntheticHandler.Resource.class) {
+                state = SyntheticHandler.resource(typeName.toLowerCase(Locale.ROOT) + "-1", 10);
+            } else {
+                throw new IllegalArgumentException("No resource state for " + typeName + "; add one with resource(...)");
+            }
+            payloads.put(typeName, codec.encode(state));
+        }
+        return payloads;
+    }
+
+    private static int pick(int[] cumulativeWeights, int value) {
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (value < cumulativeWeights[i]) {
+                return i;
+            }
+        }
+        return cumulativeWeights.length - 1;
+    }
+
+    /**
+     * Make one call.
+     *
+     * @return Whether the response carries an error diagnostic
+     */
+    private static boolean call(ProviderGrpc.ProviderBlockingStub stub, Operation operation, String typeName,
+                                ResourcePayload state) {
+        List<Diagnostic> diagnostics = switch (operation) {
+            case PLAN -> stub.planResourceChange(PlanResourceChange.Request.newBuilder()
+                    .setTypeName(typeName).setPriorState(state).setProposedNewState(state).build()).getDiagnosticsList();
+            case READ -> stub.readResource(ReadResource.Request.newBuilder()
+                    .setTypeName(typeName).setCurrentState(state).build()).getDiagnosticsList();
+            case CREATE -> stub.createResource(CreateResource.Request.newBuilder()
+                    .setTypeName(typeName).setConfig(state).build()).getDiagnosticsList();
+            case UPDATE -> stub.updateResource(UpdateResource.Request.newBuilder()
+                    .setTypeName(typeName).setPlannedState(state).build()).getDiagnosticsList();
+            case DELETE -> stub.deleteResource(DeleteResource.Request.newBuilder()
+                    .setTypeName(typeName).setPriorState(state).build()).getDiagnosticsList();
+        };
+        for (var diagnostic : diagnostics) {
+            if (diagnostic.getSeverity() == Diagnostic.Severity.ERROR) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Connection connect(ProviderServiceImpl service) throws IOException {
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        if (target == Target.IN_PROCESS) {
+            var name = InProcessServerBuilder.generateName();
+            var server = InProcessServerBuilder.forName(name)
+                    .executor(executor)
+                    .addService(ServerInterceptors.intercept(service, service.getInFlightCalls().interceptor()))
+                    .build()
+                    .start();
+            return new Connection(InProcessChannelBuilder.forName(name).build(), () -> {
+                server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+                executor.shutdownNow();
+            });
+        }
+
+        var options = serverOptions.toBuilder();
+        if (target == Target.UNIX) {
+            options.transport(ProviderServerOptions.Transport.UNIX);
+            if (serverOptions.getSocketPath() == null) {
+                options.socketPath(Files.createTempDirectory("kite-load").resolve("provider.sock"));
+            }
+        } else {
+            options.transport(ProviderServerOptions.Transport.TCP);
+        }
+        var transport = ServerTransport.start(options.build(), provider.getName(), service, executor);
+        var channel = transport.getSocketPath() != null
+                ? NettyChannelBuilder.forAddress(new DomainSocketAddress(transport.getSocketPath().toString()))
+                        .channelType(EpollDomainSocketChannel.class)
+                        .eventLoopGroup(transport.getWorkerGroup())
+                : NettyChannelBuilder.forAddress("localhost", transport.getServer().getPort());
+        return new Connection(channel.usePlaintext()
+                .maxInboundMessageSize(serverOptions.getMaxInboundMessageSize())
+                .build(), () -> {
+            transport.getServer().shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+            transport.close();
+            executor.shutdownNow();
+        });
+    }
+
+    private interface Closer {
+        void close() throws InterruptedException;
+    }
+
+    private record Connection(ManagedChannel channel, Closer server) implements AutoCloseable {
+        @Override
+        public void close() throws InterruptedException {
+            channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+            server.close();
+        }
+    }
+
+    /** Latency and errors of one operation. */
+    private static final class Stats {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+
+        void record(long nanos, boolean error) {
+            latency.record(nanos);
+            if (error) {
+                errors.increment();
+            }
+        }
+
+        LoadReport.OperationStats toStats() {
+            var snapshot = latency.snapshot();
+            return new LoadReport.OperationStats(snapshot.count(), errors.sum(), snapshot);
+        }
+    }
+
+    /**
+     * Longest stop-the-world collection while open, from GC notifications. Concurrent cycles,
+     * which do not stop the application, are left out.
+     */
+    private static final class GcPauses implements NotificationListener, AutoCloseable {
+        private final AtomicLong maxMs = new AtomicLong();
+        private final List<NotificationEmitter> emitters = new ArrayList<>();
+
+        GcPauses() {
+            for (var gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                if (gc instanceof NotificationEmitter emitter && !gc.getName().contains("Concurrent")
+                        && !gc.getName().contains("Cycles")) {
+                    emitter.addNotificationListener(this, null, null);
+                    emitters.add(emitter);
+                }
+            }
+        }
+
+        @Override
+        public void handleNotification(Notification notification, Object handback) {
+            if (GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+                var info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+                maxMs.accumulateAndGet(info.getGcInfo().getDuration(), Math::max);
+            }
+        }
+
+        long max() {
+            return maxMs.get();
+        }
+
+        @Override
+        public void close() {
+            for (var emitter : emitters) {
+                try {
+                    emitter.removeNotificationListener(this);
+                } catch (ListenerNotFoundException e) {
+                    // Already removed
+                }
+            }
+        }
+    }
+}
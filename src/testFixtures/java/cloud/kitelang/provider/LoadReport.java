@@ -0,0 +1,85 @@
+package cloud.kitelang.provider;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Result of a {@link LoadGenerator} run, covering the measured period after warmup.
+ *
+ * @param elapsed        Length of the measured period
+ * @param concurrency    Concurrent callers
+ * @param operations     Calls per operation, in {@link LoadGenerator.Operation} order
+ * @param allocatedBytes Bytes allocated by the whole JVM, client side included; -1 if unsupported
+ * @param gcCount        Collections
+ * @param gcTimeMs       Time spent in collections
+ * @param maxGcPauseMs   Longest stop-the-world collection
+ */
+public record LoadReport(Duration elapsed, int concurrency, Map<LoadGenerator.Operation, OperationStats> operations,
+                         long allocatedBytes, long gcCount, long gcTimeMs, long maxGcPauseMs) {
+
+    /**
+     * Calls of one operation.
+     *
+     * @param calls   Calls completed
+     * @param errors  Calls that failed or returned an error diagnostic
+     * @param latency Client-side latency of every call, errors included
+     */
+    public record OperationStats(long calls, long errors, LatencyHistogram.Snapshot latency) {
+    }
+
+    /**
+     * Calls completed across all operations.
+     */
+    public long calls() {
+        return operations.values().stream().mapToLong(OperationStats::calls).sum();
+    }
+
+    /**
+     * Failed calls across all operations.
+     */
+    public long errors() {
+        return operations.values().stream().mapToLong(OperationStats::errors).sum();
+    }
+
+    /**
+     * Calls completed per second.
+     */
+    public double throughput() {
+        return calls() / seconds();
+    }
+
+    /**
+     * Bytes allocated per call, or -1 if allocation is not measured.
+     */
+    public long allocatedBytesPerCall() {
+        return allocatedBytes < 0 || calls() == 0 ? -1 : allocatedBytes / calls();
+    }
+
+    /**
+     * A table of throughput and latency percentiles per operation, then allocation and GC.
+     */
+    public String summary() {
+        var sb = new StringBuilder();
+        sb.append(String.format("%d callers for %.1fs: %d calls, %d errors, %.0f calls/s%n",
+                concurrency, seconds(), calls(), errors(), throughput()));
+        sb.append(String.format("%-10s %9s %7s %9s %9s %9s %9s %9s%n",
+                "operation", "calls", "errors", "calls/s", "p50 ms", "p90 ms", "p99 ms", "max ms"));
+        operations.forEach((operation, stats) -> sb.append(String.format("%-10s %9d %7d %9.0f %9.2f %9.2f %9.2f %9.2f%n",
+                operation.name().toLowerCase(Locale.ROOT), stats.calls(), stats.errors(),
+                stats.calls() / seconds(),
+                millis(stats.latency().valueAtPercentile(50)), millis(stats.latency().valueAtPercentile(90)),
+                millis(stats.latency().valueAtPercentile(99)), millis(stats.latency().maxNanos()))));
+        sb.append(String.format("allocated %d MB (%d bytes/call), %d GCs taking %d ms, max pause %d ms",
+                allocatedBytes / (1024 * 1024), allocatedBytesPerCall(), gcCount, gcTimeMs, maxGcPauseMs));
+        return sb.toString();
+    }
+
+    private double seconds() {
+        return Math.max(elapsed.toNanos(), 1) / 1e9;
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+}
@@ -0,0 +1,143 @@
+package cloud.kitelang.provider;
+
+import cloud.kitelang.api.annotations.TypeName;
+import lombok.Builder;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Handler that behaves like a cloud API without calling one: every operation waits
+ * {@code latency ± jitter} and echoes its input, and calls are throttled at random
+ * ({@code throttleRate}) or when more than {@code maxConcurrent} run at once. Throttled calls
+ * throw {@link ThrottlingException}, which the {@link RetryEngine} retries like a real
+ * throttling error.
+ *
+ * <pre>{@code
+ * var handler = SyntheticHandler.builder()
+ *         .latency(Duration.ofMillis(40))
+ *         .jitter(Duration.ofMillis(20))
+ *         .maxConcurrent(20)
+ *         .build();
+ * }</pre>
+ */
+public class SyntheticHandler extends ResourceTypeHandler<SyntheticHandler.Resource> {
+    private final long latencyNanos;
+    private final long jitterNanos;
+    private final double throttleRate;
+    private final int maxConcurrent;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+
+    /**
+     * @param latency       Mean time per call; null for none
+     * @param jitter        Maximum deviation from the mean, either way; null for none
+     * @param throttleRate  Fraction of calls throttled at random, 0 to 1
+     * @param maxConcurrent Calls beyond this many at once are throttled; 0 for no limit
+     */
+    @Builder
+    public SyntheticHandler(Duration latency, Duration jitter, double throttleRate, int maxConcurrent) {
+        this.latencyNanos = latency != null ? latency.toNanos() : 0;
+        this.jitterNanos = jitter != null ? jitter.toNanos() : 0;
+        this.throttleRate = throttleRate;
+        this.maxConcurrent = maxConcurrent;
+    }
+
+    /**
+     * The resource of every synthetic type.
+     */
+    @TypeName("Synthetic")
+    public record Resource(String name, Map<String, String> tags, String arn) {
+    }
+
+    /**
+     * A resource with {@code tags} tags, for sizing payloads.
+     */
+    public static Resource resource(String name, int tags) {
+        var tagMap = new LinkedHashMap<String, String>();
+        for (int i = 0; i < tags; i++) {
+            tagMap.put("tag-" + i, "value-" + i);
+        }
+        return new Resource(name, tagMap, "arn:synthetic:" + name);
+    }
+
+    @Override
+    public Resource create(Resource resource) {
+        return call(resource);
+    }
+
+    @Override
+    public Resource read(Resource resource) {
+        return call(resource);
+    }
+
+    @Override
+    public Resource update(Resource resource) {
+        return call(resource);
+    }
+
+    @Override
+    public boolean delete(Resource resource) {
+        call(resource);
+        return true;
+    }
+
+    @Override
+    public Resource plan(Resource priorState, Resource proposedState) {
+        return call(proposedState);
+    }
+
+    /**
+     * Calls made, including throttled ones.
+     */
+    public long getCalls() {
+        return calls.get();
+    }
+
+    /**
+     * Calls throttled.
+     */
+    public long getThrottled() {
+        return throttled.get();
+    }
+
+    private Resource call(Resource resource) {
+        calls.incrementAndGet();
+        try {
+            if (maxConcurrent > 0 && inFlight.incrementAndGet() > maxConcurrent
+                    || throttleRate > 0 && ThreadLocalRandom.current().nextDouble() < throttleRate) {
+                throttled.incrementAndGet();
+                throw new ThrottlingException("Rate exceeded");
+            }
+            long nanos = latencyNanos;
+            if (jitterNanos > 0) {
+                nanos += ThreadLocalRandom.current().nextLong(-jitterNanos, jitterNanos + 1);
+            }
+            if (nanos > 0) {
+                Thread.sleep(Duration.ofNanos(nanos));
+            }
+            return resource;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProviderException("Interrupted", e);
+        } finally {
+            if (maxConcurrent > 0) {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Thrown for throttled calls. Classified as throttling by its name, like SDK exceptions.
+     */
+    public static class ThrottlingException extends RuntimeException {
+        public ThrottlingException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package cloud.kitelang.provider;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Provider with {@code types} resource types named {@code Synthetic00}, {@code Synthetic01}, ...,
+ * each served by its own {@link SyntheticHandler}.
+ */
+public class SyntheticProvider extends KiteProvider {
+    private final List<SyntheticHandler> handlers = new ArrayList<>();
+
+    public SyntheticProvider(int types) {
+        this(types, () -> SyntheticHandler.builder().build());
+    }
+
+    /**
+     * @param types    Number of resource types
+     * @param handlers Creates the handler of each type
+     */
+    @SuppressWarnings("deprecation")
+    public SyntheticProvider(int types, Supplier<SyntheticHandler> handlers) {
+        super("synthetic", "1.0.0", false);
+        for (int i = 0; i < types; i++) {
+            var handler = handlers.get();
+            this.handlers.add(handler);
+            registerResource(String.format("Synthetic%02d", i), handler);
+        }
+    }
+
+    /**
+     * The handlers, in type name order.
+     */
+    public List<SyntheticHandler> getHandlers() {
+        return List.copyOf(handlers);
+    }
+
+    /**
+     * Calls throttled across all types.
+     */
+    public long getThrottled() {
+        return handlers.stream().mapToLong(SyntheticHandler::getThrottled).sum();
+    }
+}